@@ -18,6 +18,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+import com.nisovin.shopkeepers.api.tradelog.TradeLog;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -161,6 +162,18 @@ public final class ShopkeepersAPI {
 		return getPlugin().getShopkeeperStorage();
 	}
 
+	// TRADE LOG
+
+	/**
+	 * Gets the {@link TradeLog}.
+	 * 
+	 * @return the trade log
+	 * @see ShopkeepersPlugin#getTradeLog()
+	 */
+	public static TradeLog getTradeLog() {
+		return getPlugin().getTradeLog();
+	}
+
 	// ITEM UPDATES
 
 	/**
@@ -17,6 +17,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+import com.nisovin.shopkeepers.api.tradelog.TradeLog;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -136,6 +137,18 @@ public interface ShopkeepersPlugin extends Plugin {
 	 * The <code>shopkeeper.updateitems</code> permission.
 	 */
 	public static final String UPDATE_ITEMS_PERMISSION = "shopkeeper.updateitems";
+	/**
+	 * The <code>shopkeeper.tradelog</code> permission.
+	 */
+	public static final String TRADE_LOG_PERMISSION = "shopkeeper.tradelog";
+	/**
+	 * The <code>shopkeeper.find</code> permission.
+	 */
+	public static final String FIND_PERMISSION = "shopkeeper.find";
+	/**
+	 * The <code>shopkeeper.jobs</code> permission.
+	 */
+	public static final String JOBS_PERMISSION = "shopkeeper.jobs";
 	/**
 	 * The <code>shopkeeper.remote</code> permission.
 	 */
@@ -295,6 +308,15 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public ShopkeeperStorage getShopkeeperStorage();
 
+	// TRADE LOG
+
+	/**
+	 * Gets the {@link TradeLog}.
+	 * 
+	 * @return the trade log
+	 */
+	public TradeLog getTradeLog();
+
 	// ITEM UPDATES
 
 	/**
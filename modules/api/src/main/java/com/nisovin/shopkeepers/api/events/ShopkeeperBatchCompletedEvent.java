@@ -0,0 +1,80 @@
+package com.nisovin.shopkeepers.api.events;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.google.common.base.Preconditions;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperBatch;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
+
+/**
+ * This event is called once at the end of a {@link ShopkeeperBatch} (see
+ * {@link ShopkeeperRegistry#batch(Consumer)}), after the added shopkeepers have been activated.
+ * <p>
+ * The added shopkeepers might have already been removed again, either during the batch or by
+ * other listeners of this event. Use {@link Shopkeeper#isValid()} to check if a shopkeeper is
+ * still valid.
+ */
+public class ShopkeeperBatchCompletedEvent extends Event {
+
+	private final List<? extends Shopkeeper> addedShopkeepers;
+	private final List<? extends Shopkeeper> removedShopkeepers;
+
+	/**
+	 * Creates a new {@link ShopkeeperBatchCompletedEvent}.
+	 * 
+	 * @param addedShopkeepers
+	 *            the shopkeepers that have been added during the batch, not <code>null</code>
+	 * @param removedShopkeepers
+	 *            the shopkeepers that have been removed during the batch, not <code>null</code>
+	 */
+	public ShopkeeperBatchCompletedEvent(
+			List<? extends Shopkeeper> addedShopkeepers,
+			List<? extends Shopkeeper> removedShopkeepers
+	) {
+		Preconditions.checkNotNull(addedShopkeepers, "addedShopkeepers is null");
+		Preconditions.checkNotNull(removedShopkeepers, "removedShopkeepers is null");
+		this.addedShopkeepers = addedShopkeepers;
+		this.removedShopkeepers = removedShopkeepers;
+	}
+
+	/**
+	 * Gets the shopkeepers that have been added during the batch, in the order in which they have
+	 * been added.
+	 * 
+	 * @return an unmodifiable view on the added shopkeepers
+	 */
+	public List<? extends Shopkeeper> getAddedShopkeepers() {
+		return addedShopkeepers;
+	}
+
+	/**
+	 * Gets the shopkeepers that have been removed during the batch, in the order in which they
+	 * have been removed.
+	 * 
+	 * @return an unmodifiable view on the removed shopkeepers
+	 */
+	public List<? extends Shopkeeper> getRemovedShopkeepers() {
+		return removedShopkeepers;
+	}
+
+	private static final HandlerList handlers = new HandlerList();
+
+	@Override
+	public HandlerList getHandlers() {
+		return handlers;
+	}
+
+	/**
+	 * Gets the {@link HandlerList} of this event.
+	 * 
+	 * @return the handler list
+	 */
+	public static HandlerList getHandlerList() {
+		return handlers;
+	}
+}
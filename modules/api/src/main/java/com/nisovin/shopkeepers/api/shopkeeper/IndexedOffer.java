@@ -0,0 +1,55 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A {@link TradingRecipe} of a {@link Shopkeeper} that was found via the offer index of the
+ * {@link ShopkeeperRegistry}, for example via
+ * {@link ShopkeeperRegistry#getOffersSelling(ItemStack)}.
+ * <p>
+ * The offer index is updated incrementally whenever shopkeepers change their offers, and whenever
+ * the contents of player shop containers change due to trades or players editing the container.
+ * The trading recipe of an indexed offer therefore reflects the state of the shopkeeper as of the
+ * last index update. The offers of changed shopkeepers are re-indexed in small batches across
+ * several ticks, see {@link ShopkeeperRegistry#isIndexingOffers()}.
+ * <p>
+ * The index avoids loading chunks: The stock of player shops whose containers have not been
+ * loaded since the shopkeeper was loaded is {@link #isStockKnown() unknown}, and the corresponding
+ * trading recipes are marked as out of stock.
+ * <p>
+ * Instances of this are immutable.
+ */
+public interface IndexedOffer {
+
+	/**
+	 * Gets the shopkeeper that provides this offer.
+	 * 
+	 * @return the shopkeeper, not <code>null</code>
+	 */
+	public Shopkeeper getShopkeeper();
+
+	/**
+	 * Gets the trading recipe of this offer.
+	 * 
+	 * @return the trading recipe, not <code>null</code>
+	 */
+	public TradingRecipe getTradingRecipe();
+
+	/**
+	 * Checks whether the stock of this offer was known when it was indexed.
+	 * <p>
+	 * If the stock is not known, the {@link #getTradingRecipe() trading recipe} is marked as out
+	 * of stock.
+	 * 
+	 * @return <code>true</code> if the stock is known
+	 */
+	public boolean isStockKnown();
+
+	/**
+	 * Checks whether the stock of this offer is {@link #isStockKnown() known} and the
+	 * {@link #getTradingRecipe() trading recipe} is not out of stock.
+	 * 
+	 * @return <code>true</code> if this offer is known to be in stock
+	 */
+	public boolean isInStock();
+}
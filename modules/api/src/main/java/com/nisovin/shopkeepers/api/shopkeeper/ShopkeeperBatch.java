@@ -0,0 +1,73 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.util.function.Consumer;
+
+import org.bukkit.event.HandlerList;
+
+import com.nisovin.shopkeepers.api.events.ShopkeeperAddedEvent;
+import com.nisovin.shopkeepers.api.events.ShopkeeperBatchCompletedEvent;
+import com.nisovin.shopkeepers.api.events.ShopkeeperRemoveEvent;
+import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+
+/**
+ * A batch of shopkeeper creations and deletions that is run via
+ * {@link ShopkeeperRegistry#batch(Consumer)}.
+ * <p>
+ * While a batch is running, all shopkeeper creations and deletions are batched, regardless of
+ * whether they are performed via this batch, via the {@link ShopkeeperRegistry}, or via
+ * {@link Shopkeeper#delete()}. Batched changes differ from unbatched changes in the following ways:
+ * <ul>
+ * <li>The activation of created shopkeepers is deferred until the end of the batch. The created
+ * shopkeepers are then spawned via the regular spawn queue, instead of being spawned immediately.
+ * <li>Any requested saves of the {@link ShopkeeperStorage} are deferred until the end of the batch.
+ * A single save is then triggered for all changes of the batch.
+ * <li>The per-shopkeeper {@link ShopkeeperAddedEvent} and {@link ShopkeeperRemoveEvent} are only
+ * called if there are any listeners registered for them (see
+ * {@link HandlerList#getRegisteredListeners()}), i.e. listeners opt in to receive them by
+ * registering themselves. A single {@link ShopkeeperBatchCompletedEvent} is called at the end of
+ * the batch.
+ * </ul>
+ * <p>
+ * Batches are only valid during their execution.
+ */
+public interface ShopkeeperBatch {
+
+	/**
+	 * Creates a shopkeeper from the given creation data.
+	 * <p>
+	 * This is equivalent to {@link ShopkeeperRegistry#createShopkeeper(ShopCreationData)}, but the
+	 * shopkeeper is only activated and spawned at the end of the batch.
+	 * 
+	 * @param creationData
+	 *            the shop creation data, not <code>null</code>
+	 * @return the created shopkeeper, not <code>null</code>
+	 * @throws ShopkeeperCreateException
+	 *             if the shopkeeper could not be created
+	 */
+	public Shopkeeper createShopkeeper(ShopCreationData creationData)
+			throws ShopkeeperCreateException;
+
+	/**
+	 * Deletes the given shopkeeper.
+	 * <p>
+	 * This is equivalent to {@link Shopkeeper#delete()}.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>, has to be valid
+	 */
+	public void deleteShopkeeper(Shopkeeper shopkeeper);
+
+	/**
+	 * Gets the number of shopkeepers that have been added so far during this batch.
+	 * 
+	 * @return the number of added shopkeepers
+	 */
+	public int getAddedCount();
+
+	/**
+	 * Gets the number of shopkeepers that have been removed so far during this batch.
+	 * 
+	 * @return the number of removed shopkeepers
+	 */
+	public int getRemovedCount();
+}
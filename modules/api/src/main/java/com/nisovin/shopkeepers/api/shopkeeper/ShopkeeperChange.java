@@ -0,0 +1,90 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.util.UUID;
+
+/**
+ * A record of a change to a {@link Shopkeeper}, as provided by the {@link ShopkeeperChangeFeed}.
+ * <p>
+ * Change records are compact: They only identify the changed shopkeeper and the kind of change.
+ * Consumers are expected to look up the current state of the shopkeeper, for example via
+ * {@link ShopkeeperRegistry#getShopkeeperByUniqueId(UUID)}, if they need it.
+ * <p>
+ * Instances of this are immutable.
+ */
+public interface ShopkeeperChange {
+
+	/**
+	 * The kind of change.
+	 */
+	public enum Type {
+		/**
+		 * The shopkeeper was created.
+		 */
+		CREATED,
+		/**
+		 * The shopkeeper was deleted.
+		 */
+		DELETED,
+		/**
+		 * The shopkeeper was moved to another location.
+		 */
+		MOVED,
+		/**
+		 * The name of the shopkeeper changed.
+		 */
+		RENAMED,
+		/**
+		 * The offers of the shopkeeper changed.
+		 */
+		OFFERS_CHANGED,
+		/**
+		 * Some of the offers of the shopkeeper went out of stock or are in stock again, for example
+		 * due to trades, or due to players editing the contents of the shop container.
+		 * <p>
+		 * Changes of the stock that do not affect whether the offers can be traded are not
+		 * recorded.
+		 */
+		STOCK_CHANGED;
+	}
+
+	/**
+	 * Gets the sequence number of this change.
+	 * <p>
+	 * Sequence numbers are assigned in the order in which the changes are recorded, starting at
+	 * <code>1</code>, and are unique within a {@link ShopkeeperChangeFeed#getSessionId() session}
+	 * of the change feed.
+	 * 
+	 * @return the sequence number
+	 */
+	public long getSequenceNumber();
+
+	/**
+	 * Gets the type of this change.
+	 * 
+	 * @return the type of change, not <code>null</code>
+	 */
+	public Type getType();
+
+	/**
+	 * Gets the session-specific id of the changed shopkeeper.
+	 * 
+	 * @return the shopkeeper id
+	 * @see Shopkeeper#getId()
+	 */
+	public int getShopkeeperId();
+
+	/**
+	 * Gets the unique id of the changed shopkeeper.
+	 * 
+	 * @return the shopkeeper's unique id, not <code>null</code>
+	 * @see Shopkeeper#getUniqueId()
+	 */
+	public UUID getShopkeeperUniqueId();
+
+	/**
+	 * Gets the time at which this change was recorded.
+	 * 
+	 * @return the timestamp in milliseconds since the epoch
+	 */
+	public long getTimestamp();
+}
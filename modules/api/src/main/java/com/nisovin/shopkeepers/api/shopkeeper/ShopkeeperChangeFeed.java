@@ -0,0 +1,76 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.util.UUID;
+
+/**
+ * Provides incremental notifications about changes to shopkeepers, so that integrations which
+ * mirror the state of shopkeepers, such as web maps, do not need to compare complete snapshots of
+ * all shopkeepers.
+ * <p>
+ * Changes are recorded as sequence-numbered {@link ShopkeeperChange change records} inside a
+ * bounded in-memory buffer. Consumers keep track of the sequence number of the last change they
+ * have processed and periodically {@link #getChangesSince(long, int) read} the changes that were
+ * recorded since then. If the buffer overflows before a consumer reads the changes, the oldest
+ * changes are dropped and the consumer is informed that it needs to resynchronize.
+ * <p>
+ * Only the creation and deletion of shopkeepers is recorded, not the loading and unloading of
+ * shopkeepers, for example during plugin reloads. Changes to the offers and the stock of
+ * shopkeepers are detected with a short delay and coalesced.
+ * <p>
+ * Depending on the configuration, the changes may additionally be written to a file or named
+ * pipe, so that they can also be consumed by other processes.
+ */
+public interface ShopkeeperChangeFeed {
+
+	/**
+	 * Gets the id of the current session of this change feed.
+	 * <p>
+	 * Sequence numbers are only unique within a session. A new session is started whenever the
+	 * plugin is enabled. Consumers that persist their cursor can compare the session id to detect
+	 * that the sequence numbers have been reset.
+	 * 
+	 * @return the session id, not <code>null</code>
+	 */
+	public UUID getSessionId();
+
+	/**
+	 * Gets the maximum number of changes that are kept in memory.
+	 * 
+	 * @return the capacity
+	 */
+	public int getCapacity();
+
+	/**
+	 * Gets the sequence number of the most recent change.
+	 * <p>
+	 * Consumers that start to follow the changes without having read any changes before can use
+	 * this as their initial cursor, after they have captured the current state of the shopkeepers.
+	 * 
+	 * @return the sequence number of the most recent change, or <code>0</code> if no changes have
+	 *         been recorded yet
+	 */
+	public long getLatestSequenceNumber();
+
+	/**
+	 * Gets the sequence number of the oldest change that is still available.
+	 * 
+	 * @return the sequence number of the oldest available change, or
+	 *         {@link #getLatestSequenceNumber()} <code>+ 1</code> if no changes are available
+	 */
+	public long getOldestSequenceNumber();
+
+	/**
+	 * Gets the changes that were recorded after the given cursor.
+	 * <p>
+	 * This only reads the changes after the given cursor, so the cost of this operation depends on
+	 * the number of returned changes, not on the total number of shopkeepers.
+	 * 
+	 * @param cursor
+	 *            the sequence number of the last processed change, or <code>0</code> to read all
+	 *            available changes
+	 * @param maxChanges
+	 *            the maximum number of changes to return, positive
+	 * @return the changes, not <code>null</code>
+	 */
+	public ShopkeeperChanges getChangesSince(long cursor, int maxChanges);
+}
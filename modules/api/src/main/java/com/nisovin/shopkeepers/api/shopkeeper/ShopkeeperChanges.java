@@ -0,0 +1,44 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.util.List;
+
+/**
+ * The result of reading changes from the {@link ShopkeeperChangeFeed}.
+ * <p>
+ * Instances of this are immutable.
+ */
+public interface ShopkeeperChanges {
+
+	/**
+	 * Gets the read changes.
+	 * 
+	 * @return an unmodifiable view on the changes, in the order of their sequence numbers, not
+	 *         <code>null</code>, can be empty
+	 */
+	public List<? extends ShopkeeperChange> getChanges();
+
+	/**
+	 * Gets the cursor from which to continue reading changes.
+	 * <p>
+	 * This is the sequence number of the last read change, or the sequence number of the latest
+	 * change of the change feed if no changes were read.
+	 * 
+	 * @return the cursor to pass to {@link ShopkeeperChangeFeed#getChangesSince(long, int)} the
+	 *         next time
+	 */
+	public long getCursor();
+
+	/**
+	 * Checks whether the read changes continue seamlessly from the requested cursor.
+	 * <p>
+	 * If this returns <code>false</code>, some of the changes after the requested cursor are no
+	 * longer available, for example because the consumer fell too far behind and the changes were
+	 * evicted from the change feed's buffer, or because the cursor stems from a different
+	 * {@link ShopkeeperChangeFeed#getSessionId() session}. The consumer then has to resynchronize
+	 * its state with the current state of the shopkeepers, for example via
+	 * {@link ShopkeeperRegistry#getAllShopkeepers()}, before it continues to apply changes.
+	 * 
+	 * @return <code>true</code> if no changes were missed
+	 */
+	public boolean isComplete();
+}
@@ -3,11 +3,16 @@ package com.nisovin.shopkeepers.api.shopkeeper;
 import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.BoundingBox;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
@@ -34,6 +39,30 @@ public interface ShopkeeperRegistry {
 	public Shopkeeper createShopkeeper(ShopCreationData creationData)
 			throws ShopkeeperCreateException;
 
+	// BATCHES
+
+	/**
+	 * Runs the given operations as a {@link ShopkeeperBatch}.
+	 * <p>
+	 * This is meant for creating or deleting many shopkeepers at once. See {@link ShopkeeperBatch}
+	 * for how batched changes differ from unbatched changes.
+	 * <p>
+	 * The operations are run immediately. If a batch is already running, the operations are run as
+	 * part of the already running batch. The batch is completed once the operations have been run,
+	 * even if they throw an exception.
+	 * 
+	 * @param operations
+	 *            the operations, not <code>null</code>
+	 */
+	public void batch(Consumer<? super ShopkeeperBatch> operations);
+
+	/**
+	 * Checks if a {@link #batch(Consumer) batch} is currently running.
+	 * 
+	 * @return <code>true</code> if a batch is running
+	 */
+	public boolean isBatchRunning();
+
 	// QUERYING
 
 	/**
@@ -120,6 +149,79 @@ public interface ShopkeeperRegistry {
 	 */
 	public Stream<? extends Shopkeeper> getShopkeepersByNamePrefix(String shopNamePrefix);
 
+	// BY OFFERED ITEM
+
+	/**
+	 * Gets the offers of all shopkeepers that sell items that are
+	 * {@link ItemStack#isSimilar(ItemStack) similar} to the given item, i.e. whose trading recipes
+	 * result in such items.
+	 * <p>
+	 * The offers are looked up via an index that maps the types and metadata of the traded items to
+	 * the offers of admin and player shops. No shopkeepers or containers are scanned during the
+	 * lookup. See {@link IndexedOffer} for details on how the index is kept up-to-date.
+	 * <p>
+	 * Lookups do not wait for the index to be complete: While the index is still
+	 * {@link #isIndexingOffers() indexing}, the returned offers might not include the offers of all
+	 * shopkeepers yet.
+	 * <p>
+	 * The returned {@link Stream} is not meant to be kept around, nor to be used while shopkeepers
+	 * are added, removed, or modified.
+	 * 
+	 * @param item
+	 *            the item, not <code>null</code> or empty, the stack size is ignored
+	 * @return a stream over the matching offers
+	 */
+	public Stream<? extends IndexedOffer> getOffersSelling(ItemStack item);
+
+	/**
+	 * Gets the offers of all shopkeepers that sell items of the given type, regardless of the items'
+	 * metadata.
+	 * <p>
+	 * See {@link #getOffersSelling(ItemStack)} for details.
+	 * 
+	 * @param itemType
+	 *            the item type, not <code>null</code>
+	 * @return a stream over the matching offers
+	 */
+	public Stream<? extends IndexedOffer> getOffersSelling(Material itemType);
+
+	/**
+	 * Gets the offers of all shopkeepers that buy items that are
+	 * {@link ItemStack#isSimilar(ItemStack) similar} to the given item, i.e. whose trading recipes
+	 * require such items.
+	 * <p>
+	 * See {@link #getOffersSelling(ItemStack)} for details.
+	 * 
+	 * @param item
+	 *            the item, not <code>null</code> or empty, the stack size is ignored
+	 * @return a stream over the matching offers
+	 */
+	public Stream<? extends IndexedOffer> getOffersBuying(ItemStack item);
+
+	/**
+	 * Gets the offers of all shopkeepers that buy items of the given type, regardless of the items'
+	 * metadata.
+	 * <p>
+	 * See {@link #getOffersSelling(ItemStack)} for details.
+	 * 
+	 * @param itemType
+	 *            the item type, not <code>null</code>
+	 * @return a stream over the matching offers
+	 */
+	public Stream<? extends IndexedOffer> getOffersBuying(Material itemType);
+
+	/**
+	 * Checks if the offer index is still indexing the offers of some shopkeepers.
+	 * <p>
+	 * The offers of newly loaded or modified shopkeepers are indexed in small batches across
+	 * several ticks. This is for example the case for a while after the shopkeepers have been
+	 * loaded. Until then, the lookups by offered item might not include the offers of all
+	 * shopkeepers, or include outdated offers.
+	 * 
+	 * @return <code>true</code> if the offer index is still indexing
+	 */
+	public boolean isIndexingOffers();
+
 	// BY WORLD
 
 	/**
@@ -242,6 +344,72 @@ public interface ShopkeeperRegistry {
 	// a single shopkeeper at the same location.
 	public Collection<? extends Shopkeeper> getShopkeepersAtLocation(Location location);
 
+	// BY AREA
+
+	/**
+	 * Gets the shopkeepers within the specified radius around the given location.
+	 * <p>
+	 * Distances are measured to the shopkeepers' {@link Shopkeeper#getLocation() locations}, but
+	 * this also finds shopkeepers in worlds that are currently not loaded.
+	 * <p>
+	 * The returned stream is lazily evaluated and only visits the shopkeepers in the chunks that
+	 * overlap the specified area. Shopkeepers must not be added, removed, or moved while the
+	 * stream is consumed.
+	 * 
+	 * @param location
+	 *            the center location, not <code>null</code>
+	 * @param radius
+	 *            the radius, not negative
+	 * @return a stream of the shopkeepers within the radius, in no particular order
+	 */
+	public Stream<? extends Shopkeeper> getShopkeepersInRadius(Location location, double radius);
+
+	/**
+	 * Gets the shopkeepers inside the given bounding box in the specified world.
+	 * <p>
+	 * A shopkeeper is inside the bounding box if its {@link Shopkeeper#getLocation() location} is
+	 * {@link BoundingBox#contains(double, double, double) contained} by the bounding box.
+	 * <p>
+	 * The returned stream is lazily evaluated and only visits the shopkeepers in the chunks that
+	 * overlap the bounding box. Shopkeepers must not be added, removed, or moved while the stream
+	 * is consumed.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code> or empty
+	 * @param boundingBox
+	 *            the bounding box, not <code>null</code>
+	 * @return a stream of the shopkeepers inside the bounding box, in no particular order
+	 */
+	public Stream<? extends Shopkeeper> getShopkeepersInBoundingBox(
+			String worldName,
+			BoundingBox boundingBox
+	);
+
+	/**
+	 * Gets up to the specified number of shopkeepers that are nearest to the given location and
+	 * that match the given filter.
+	 * <p>
+	 * Distances are measured to the shopkeepers' {@link Shopkeeper#getLocation() locations}. Only
+	 * shopkeepers in the same world are considered.
+	 * <p>
+	 * The search starts at the chunk of the given location and successively searches the
+	 * surrounding chunks until no closer shopkeepers can be found. The filter is only tested for
+	 * shopkeepers that are closer than the nearest shopkeepers found so far.
+	 * 
+	 * @param location
+	 *            the location, not <code>null</code>
+	 * @param count
+	 *            the maximum number of shopkeepers to find, positive
+	 * @param filter
+	 *            the filter, not <code>null</code>
+	 * @return a stream of the nearest shopkeepers, sorted by their distance, nearest first
+	 */
+	public Stream<? extends Shopkeeper> getNearestShopkeepers(
+			Location location,
+			int count,
+			Predicate<? super Shopkeeper> filter
+	);
+
 	// BY SHOP OBJECT
 
 	/**
@@ -322,4 +490,13 @@ public interface ShopkeeperRegistry {
 	 * @see #getShopkeeperByBlock(Block)
 	 */
 	public boolean isShopkeeper(Block block);
+
+	// CHANGES
+
+	/**
+	 * Gets the {@link ShopkeeperChangeFeed} that records changes to the shopkeepers.
+	 * 
+	 * @return the shopkeeper change feed, not <code>null</code>
+	 */
+	public ShopkeeperChangeFeed getChangeFeed();
 }
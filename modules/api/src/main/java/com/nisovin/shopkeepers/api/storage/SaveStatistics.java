@@ -0,0 +1,81 @@
+package com.nisovin.shopkeepers.api.storage;
+
+/**
+ * Statistics about the saves of the {@link ShopkeeperStorage}.
+ * <p>
+ * The statistics cover the saves since the plugin has been enabled. They are only updated on the
+ * server's main thread.
+ */
+public interface SaveStatistics {
+
+	/**
+	 * Gets the number of completed saves, including failed saves.
+	 * 
+	 * @return the number of completed saves
+	 */
+	public long getSaveCount();
+
+	/**
+	 * Gets the number of failed saves.
+	 * 
+	 * @return the number of failed saves
+	 */
+	public long getFailedSaveCount();
+
+	/**
+	 * Gets the duration of the last save, from its preparation until the data has been written to
+	 * the storage.
+	 * 
+	 * @return the duration of the last save in milliseconds, or <code>0</code> if there has been no
+	 *         save yet
+	 */
+	public long getLastSaveDurationMillis();
+
+	/**
+	 * Gets the average duration of the completed saves.
+	 * 
+	 * @return the average save duration in milliseconds, or <code>0</code> if there has been no
+	 *         save yet
+	 * @see #getLastSaveDurationMillis()
+	 */
+	public double getAverageSaveDurationMillis();
+
+	/**
+	 * Gets the maximum duration of the completed saves.
+	 * 
+	 * @return the maximum save duration in milliseconds, or <code>0</code> if there has been no
+	 *         save yet
+	 * @see #getLastSaveDurationMillis()
+	 */
+	public long getMaxSaveDurationMillis();
+
+	/**
+	 * Gets the number of completed save requests that have been made via
+	 * {@link ShopkeeperStorage#saveNowAsync()} or {@link ShopkeeperStorage#saveIfDirtyAsync()}.
+	 * 
+	 * @return the number of completed save requests
+	 */
+	public long getCompletedRequestCount();
+
+	/**
+	 * Gets the average latency of the completed save requests, from the request until the
+	 * completion of the returned future.
+	 * <p>
+	 * Since concurrent requests are coalesced into a single save, and requests that are made while
+	 * a save is in progress need to wait for the next save, this can differ from the
+	 * {@link #getAverageSaveDurationMillis() average save duration}.
+	 * 
+	 * @return the average request latency in milliseconds, or <code>0</code> if no request has been
+	 *         completed yet
+	 */
+	public double getAverageRequestLatencyMillis();
+
+	/**
+	 * Gets the maximum latency of the completed save requests.
+	 * 
+	 * @return the maximum request latency in milliseconds, or <code>0</code> if no request has been
+	 *         completed yet
+	 * @see #getAverageRequestLatencyMillis()
+	 */
+	public long getMaxRequestLatencyMillis();
+}
@@ -0,0 +1,36 @@
+package com.nisovin.shopkeepers.api.storage;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Indicates that the data of the shopkeepers could not be saved.
+ * <p>
+ * This is used to complete the futures returned by {@link ShopkeeperStorage#saveNowAsync()} and
+ * {@link ShopkeeperStorage#saveIfDirtyAsync()} exceptionally.
+ */
+public class ShopkeeperSaveException extends Exception {
+
+	private static final long serialVersionUID = -6271795326403926415L;
+
+	/**
+	 * Creates a new {@link ShopkeeperSaveException}.
+	 * 
+	 * @param message
+	 *            the detail message
+	 */
+	public ShopkeeperSaveException(@Nullable String message) {
+		super(message);
+	}
+
+	/**
+	 * Creates a new {@link ShopkeeperSaveException}.
+	 * 
+	 * @param message
+	 *            the detail message
+	 * @param cause
+	 *            the cause
+	 */
+	public ShopkeeperSaveException(@Nullable String message, @Nullable Throwable cause) {
+		super(message, cause);
+	}
+}
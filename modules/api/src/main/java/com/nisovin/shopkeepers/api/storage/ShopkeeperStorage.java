@@ -1,5 +1,9 @@
 package com.nisovin.shopkeepers.api.storage;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 /**
  * Responsible for persisting and loading the data of shopkeepers.
  */
@@ -78,4 +82,49 @@ public interface ShopkeeperStorage {
 	 * for any current and pending saves to complete.
 	 */
 	public void saveIfDirtyAndAwaitCompletion();
+
+	/**
+	 * Saves the data of all shopkeepers like {@link #saveNow()}, and returns a future that is
+	 * completed once the data as of the time of this call has been durably written to the storage.
+	 * <p>
+	 * This is useful for integrations that need to ensure that certain data changes have been
+	 * persisted before they proceed, without having to block the server's main thread via
+	 * {@link #saveImmediate()}.
+	 * <p>
+	 * Concurrent requests are coalesced: All requests that are made before the next save starts are
+	 * completed by that same save. If a save is already in progress, the requested save takes place
+	 * once the current save completes.
+	 * <p>
+	 * The returned future is completed on the server's main thread. If the save fails, or if saving
+	 * is currently disabled, the future is completed exceptionally with a
+	 * {@link ShopkeeperSaveException}. Even though the storage automatically retries failed saves
+	 * at a later time, the returned future is not completed by these retries.
+	 * <p>
+	 * This has to be called from the server's main thread.
+	 * 
+	 * @return the future that is completed once the save has completed, not <code>null</code>
+	 */
+	public CompletableFuture<@Nullable Void> saveNowAsync();
+
+	/**
+	 * Returns a future that is completed once all data changes as of the time of this call have
+	 * been durably written to the storage.
+	 * <p>
+	 * If there are {@link #isDirty() unsaved data changes}, this triggers a save like
+	 * {@link #saveNowAsync()}. Otherwise, the returned future is completed once any save that is
+	 * currently in progress has completed, or immediately if there is no save in progress.
+	 * <p>
+	 * This has to be called from the server's main thread.
+	 * 
+	 * @return the future that is completed once the data has been saved, not <code>null</code>
+	 * @see #saveNowAsync()
+	 */
+	public CompletableFuture<@Nullable Void> saveIfDirtyAsync();
+
+	/**
+	 * Gets the {@link SaveStatistics}.
+	 * 
+	 * @return the save statistics, not <code>null</code>
+	 */
+	public SaveStatistics getSaveStatistics();
 }
@@ -0,0 +1,37 @@
+package com.nisovin.shopkeepers.api.tradelog;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provides access to the trades that are logged by the Shopkeepers plugin.
+ * <p>
+ * Trades are only logged if a trade log storage is configured.
+ */
+public interface TradeLog {
+
+	/**
+	 * Checks whether trades are logged currently and can be {@link #query(TradeLogQuery) queried}.
+	 * 
+	 * @return <code>true</code> if the logged trades can be queried
+	 */
+	public boolean isQueryable();
+
+	/**
+	 * Executes the given query against the logged trades.
+	 * <p>
+	 * The logged trades are read asynchronously. Aggregates of past days are cached, so that
+	 * repeated queries over the same days do not need to read the logged trades again.
+	 * <p>
+	 * The returned future is completed on the server's main thread. If the trades are not
+	 * {@link #isQueryable() queryable} currently, or if the logged trades cannot be read, the
+	 * future is completed exceptionally. If the plugin is disabled before the query completes, the
+	 * future may never be completed.
+	 * <p>
+	 * This has to be called from the server's main thread.
+	 * 
+	 * @param query
+	 *            the query, not <code>null</code>
+	 * @return the future that is completed with the query result, not <code>null</code>
+	 */
+	public CompletableFuture<TradeLogQueryResult> query(TradeLogQuery query);
+}
@@ -0,0 +1,47 @@
+package com.nisovin.shopkeepers.api.tradelog;
+
+/**
+ * The aggregated trade statistics for a specific key, such as a specific shop, shop owner, item
+ * type, or day.
+ * 
+ * @see TradeLogQueryResult#getAggregates()
+ */
+public interface TradeLogAggregate {
+
+	/**
+	 * Gets the key, e.g. the shop's unique id, the owner's unique id, the item type, or the date.
+	 * 
+	 * @return the key, not <code>null</code>
+	 */
+	public String getKey();
+
+	/**
+	 * Gets a display name for the key, e.g. the owner's last logged name.
+	 * 
+	 * @return the display name, not <code>null</code>
+	 */
+	public String getName();
+
+	/**
+	 * Gets the number of trade log records.
+	 * <p>
+	 * A single record can represent several merged trades.
+	 * 
+	 * @return the number of records
+	 */
+	public long getRecordCount();
+
+	/**
+	 * Gets the total number of trades.
+	 * 
+	 * @return the number of trades
+	 */
+	public long getTradeCount();
+
+	/**
+	 * Gets the total amount of traded result items.
+	 * 
+	 * @return the amount of result items
+	 */
+	public long getResultItemAmount();
+}
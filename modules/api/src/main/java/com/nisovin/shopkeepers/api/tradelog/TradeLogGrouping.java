@@ -0,0 +1,24 @@
+package com.nisovin.shopkeepers.api.tradelog;
+
+/**
+ * The criteria by which logged trades can be aggregated.
+ */
+public enum TradeLogGrouping {
+
+	/**
+	 * Aggregates trades per shop.
+	 */
+	SHOP,
+	/**
+	 * Aggregates trades per shop owner. Trades with admin shops are not included.
+	 */
+	OWNER,
+	/**
+	 * Aggregates trades per type of result item.
+	 */
+	ITEM,
+	/**
+	 * Aggregates trades per day.
+	 */
+	DAY;
+}
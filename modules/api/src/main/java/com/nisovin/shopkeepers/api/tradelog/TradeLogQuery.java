@@ -0,0 +1,95 @@
+package com.nisovin.shopkeepers.api.tradelog;
+
+import java.time.LocalDate;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A query for aggregated trade statistics over a range of days.
+ * <p>
+ * The days are determined in the timezone of the server.
+ * 
+ * @see TradeLog#query(TradeLogQuery)
+ */
+public final class TradeLogQuery {
+
+	private final TradeLogGrouping grouping;
+	private final LocalDate fromDate;
+	private final LocalDate toDate;
+	private final int limit;
+
+	/**
+	 * Creates a new {@link TradeLogQuery}.
+	 * 
+	 * @param grouping
+	 *            the grouping, not <code>null</code>
+	 * @param fromDate
+	 *            the first day to include, not <code>null</code>
+	 * @param toDate
+	 *            the last day to include, not <code>null</code> and not before the first day
+	 * @param limit
+	 *            the maximum number of returned aggregates, positive
+	 */
+	public TradeLogQuery(TradeLogGrouping grouping, LocalDate fromDate, LocalDate toDate, int limit) {
+		Preconditions.checkNotNull(grouping, "grouping is null");
+		Preconditions.checkNotNull(fromDate, "fromDate is null");
+		Preconditions.checkNotNull(toDate, "toDate is null");
+		Preconditions.checkArgument(!toDate.isBefore(fromDate), "toDate is before fromDate");
+		Preconditions.checkArgument(limit > 0, "limit has to be positive");
+		this.grouping = grouping;
+		this.fromDate = fromDate;
+		this.toDate = toDate;
+		this.limit = limit;
+	}
+
+	/**
+	 * Gets the criteria by which the logged trades are aggregated.
+	 * 
+	 * @return the grouping
+	 */
+	public TradeLogGrouping getGrouping() {
+		return grouping;
+	}
+
+	/**
+	 * Gets the first day to include.
+	 * 
+	 * @return the first day
+	 */
+	public LocalDate getFromDate() {
+		return fromDate;
+	}
+
+	/**
+	 * Gets the last day to include.
+	 * 
+	 * @return the last day
+	 */
+	public LocalDate getToDate() {
+		return toDate;
+	}
+
+	/**
+	 * Gets the maximum number of aggregates that are returned.
+	 * 
+	 * @return the limit
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("TradeLogQuery [grouping=");
+		builder.append(grouping);
+		builder.append(", fromDate=");
+		builder.append(fromDate);
+		builder.append(", toDate=");
+		builder.append(toDate);
+		builder.append(", limit=");
+		builder.append(limit);
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,48 @@
+package com.nisovin.shopkeepers.api.tradelog;
+
+import java.util.List;
+
+/**
+ * The result of a {@link TradeLogQuery}.
+ * <p>
+ * Instances of this are immutable.
+ */
+public interface TradeLogQueryResult {
+
+	/**
+	 * Gets the query.
+	 * 
+	 * @return the query, not <code>null</code>
+	 */
+	public TradeLogQuery getQuery();
+
+	/**
+	 * Gets the aggregates, ordered by their trade counts in descending order, or chronologically
+	 * for {@link TradeLogGrouping#DAY}, and limited to the {@link TradeLogQuery#getLimit() query
+	 * limit}.
+	 * 
+	 * @return an unmodifiable view on the aggregates, not <code>null</code>
+	 */
+	public List<? extends TradeLogAggregate> getAggregates();
+
+	/**
+	 * Gets the totals over all queried days.
+	 * 
+	 * @return the totals, not <code>null</code>
+	 */
+	public TradeLogAggregate getTotal();
+
+	/**
+	 * Gets the number of distinct aggregates before the limit was applied.
+	 * 
+	 * @return the number of distinct aggregates
+	 */
+	public int getDistinctCount();
+
+	/**
+	 * Gets the time in milliseconds it took to execute the query.
+	 * 
+	 * @return the query duration in milliseconds
+	 */
+	public long getDurationMillis();
+}
@@ -70,6 +70,19 @@ tasks {
         minecraftVersion(libs.versions.minecraft.get())
     }
 
+    register<JavaExec>("tickHarness") {
+        group = "verification"
+        description = "Runs the offline shopkeeper tick harness."
+
+        classpath = sourceSets.test.get().runtimeClasspath
+        mainClass.set("com.nisovin.shopkeepers.shopkeeper.ShopkeeperTickHarness")
+
+        val harnessArgs = project.findProperty("tickHarnessArgs")?.toString()
+        if (!harnessArgs.isNullOrBlank()) {
+            args(harnessArgs.trim().split(Regex("\\s+")))
+        }
+    }
+
     assemble {
         dependsOn(reobfJar)
 
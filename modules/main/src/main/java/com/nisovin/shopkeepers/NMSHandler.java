@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.bukkit.ExplosionResult;
 import org.bukkit.entity.AbstractVillager;
@@ -24,6 +26,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantInventory;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import com.mojang.datafixers.util.Pair;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
@@ -33,11 +36,22 @@ import com.nisovin.shopkeepers.util.logging.Log;
 import net.minecraft.core.component.DataComponentMap;
 import net.minecraft.core.component.DataComponentPredicate;
 import net.minecraft.nbt.Tag;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEquipmentPacket;
+import net.minecraft.network.syncher.SynchedEntityData;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.ai.control.LookControl;
 import net.minecraft.world.entity.ai.goal.GoalSelector;
 import net.minecraft.world.entity.ai.goal.LookAtPlayerGoal;
 import net.minecraft.world.item.trading.MerchantOffers;
+import net.minecraft.world.phys.Vec3;
 
 public final class NMSHandler implements NMSCallProvider {
 
@@ -120,6 +134,43 @@ public final class NMSHandler implements NMSCallProvider {
 		mcMob.getSensing().tick(); // Clear the sensing cache
 	}
 
+	@Override
+	public void tickLookTarget(LivingEntity entity, @Nullable Entity target, int ticks) {
+		net.minecraft.world.entity.LivingEntity mcLivingEntity = ((CraftLivingEntity) entity).getHandle();
+		// Example: Armor stands are living, but not insentient/Mob.
+		if (!(mcLivingEntity instanceof net.minecraft.world.entity.Mob)) return;
+		net.minecraft.world.entity.Mob mcMob = (net.minecraft.world.entity.Mob) mcLivingEntity;
+
+		LookControl lookControl = mcMob.getLookControl();
+		if (target == null) {
+			// If the entity already rests in its initial orientation, there is no need to tick the
+			// look controller. This avoids updating the rotations of the many entities that have no
+			// player to look at.
+			float yRot = mcMob.getYRot();
+			if (!lookControl.isLookingAtTarget()
+					&& mcMob.getYHeadRot() == yRot
+					&& mcMob.yBodyRot == yRot
+					&& mcMob.getXRot() == 0.0F) {
+				return;
+			}
+		}
+
+		net.minecraft.world.entity.@Nullable Entity mcTarget = (target != null)
+				? ((CraftEntity) target).getHandle()
+				: null;
+		for (int i = 0; i < ticks; ++i) {
+			if (mcTarget != null) {
+				// Same as the vanilla LookAtPlayerGoal: The look target has to be refreshed every
+				// tick.
+				lookControl.setLookAt(mcTarget);
+			} else if (!lookControl.isLookingAtTarget()) {
+				// Rotate back towards the entity's initial orientation. See tickAI.
+				mcMob.setYBodyRot(mcMob.getYRot());
+			}
+			lookControl.tick();
+		}
+	}
+
 	@Override
 	public void setOnGround(Entity entity, boolean onGround) {
 		net.minecraft.world.entity.Entity mcEntity = ((CraftEntity) entity).getHandle();
@@ -137,6 +188,102 @@ public final class NMSHandler implements NMSCallProvider {
 		mcEntity.noPhysics = true;
 	}
 
+	// CLIENT-SIDE ENTITIES
+
+	@Override
+	public boolean supportsClientSideEntities() {
+		return true;
+	}
+
+	private static void sendPacket(Player player, Packet<?> packet) {
+		((CraftPlayer) player).getHandle().connection.send(packet);
+	}
+
+	private static List<Pair<EquipmentSlot, net.minecraft.world.item.ItemStack>> getEquipment(
+			net.minecraft.world.entity.LivingEntity mcEntity,
+			boolean includeEmpty
+	) {
+		List<Pair<EquipmentSlot, net.minecraft.world.item.ItemStack>> equipment = new ArrayList<>();
+		for (EquipmentSlot slot : EquipmentSlot.values()) {
+			net.minecraft.world.item.ItemStack item = mcEntity.getItemBySlot(slot);
+			if (!includeEmpty && item.isEmpty()) continue;
+			equipment.add(Pair.of(slot, item.copy()));
+		}
+		return equipment;
+	}
+
+	@Override
+	public void showClientSideEntity(Player viewer, LivingEntity entity) {
+		net.minecraft.world.entity.LivingEntity mcEntity = ((CraftLivingEntity) entity).getHandle();
+		int entityId = mcEntity.getId();
+		List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>(3);
+		packets.add(new ClientboundAddEntityPacket(
+				entityId,
+				mcEntity.getUUID(),
+				mcEntity.getX(),
+				mcEntity.getY(),
+				mcEntity.getZ(),
+				mcEntity.getXRot(),
+				mcEntity.getYRot(),
+				mcEntity.getType(),
+				0,
+				Vec3.ZERO,
+				mcEntity.getYRot() // The head initially faces into the direction of the body
+		));
+
+		@Nullable List<SynchedEntityData.DataValue<?>> entityData
+				= mcEntity.getEntityData().getNonDefaultValues();
+		if (entityData != null) {
+			packets.add(new ClientboundSetEntityDataPacket(entityId, entityData));
+		}
+
+		List<Pair<EquipmentSlot, net.minecraft.world.item.ItemStack>> equipment
+				= getEquipment(mcEntity, false);
+		if (!equipment.isEmpty()) {
+			packets.add(new ClientboundSetEquipmentPacket(entityId, equipment));
+		}
+
+		// The client processes the bundled packets together, so the entity does not briefly
+		// appear without its data:
+		sendPacket(viewer, new ClientboundBundlePacket(packets));
+	}
+
+	@Override
+	public void updateClientSideEntity(LivingEntity entity, Iterable<? extends Player> viewers) {
+		net.minecraft.world.entity.LivingEntity mcEntity = ((CraftLivingEntity) entity).getHandle();
+		SynchedEntityData entityData = mcEntity.getEntityData();
+		if (!entityData.isDirty()) return;
+
+		// This resets the dirty flags:
+		@Nullable List<SynchedEntityData.DataValue<?>> changes = entityData.packDirty();
+		if (changes == null) return;
+
+		Packet<?> packet = new ClientboundSetEntityDataPacket(mcEntity.getId(), changes);
+		for (Player viewer : viewers) {
+			sendPacket(viewer, packet);
+		}
+	}
+
+	@Override
+	public void updateClientSideEntityEquipment(
+			LivingEntity entity,
+			Iterable<? extends Player> viewers
+	) {
+		net.minecraft.world.entity.LivingEntity mcEntity = ((CraftLivingEntity) entity).getHandle();
+		Packet<?> packet = new ClientboundSetEquipmentPacket(
+				mcEntity.getId(),
+				getEquipment(mcEntity, true)
+		);
+		for (Player viewer : viewers) {
+			sendPacket(viewer, packet);
+		}
+	}
+
+	@Override
+	public void hideClientSideEntity(Player viewer, LivingEntity entity) {
+		sendPacket(viewer, new ClientboundRemoveEntitiesPacket(entity.getEntityId()));
+	}
+
 	// For CraftItemStacks, this first tries to retrieve the underlying NMS item stack without
 	// making a copy of it. Otherwise, this falls back to using CraftItemStack#asNMSCopy.
 	private net.minecraft.world.item.ItemStack asNMSItemStack(ItemStack itemStack) {
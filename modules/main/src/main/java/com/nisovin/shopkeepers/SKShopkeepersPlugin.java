@@ -24,6 +24,7 @@ import com.nisovin.shopkeepers.api.internal.InternalShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
+import com.nisovin.shopkeepers.api.tradelog.TradeLog;
 import com.nisovin.shopkeepers.commands.Commands;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.lib.ConfigLoadException;
@@ -38,6 +39,7 @@ import com.nisovin.shopkeepers.input.chat.ChatInput;
 import com.nisovin.shopkeepers.input.interaction.InteractionInput;
 import com.nisovin.shopkeepers.internals.SKApiInternals;
 import com.nisovin.shopkeepers.itemconversion.ItemConversions;
+import com.nisovin.shopkeepers.jobs.Jobs;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.metrics.PluginMetrics;
 import com.nisovin.shopkeepers.moving.ShopkeeperMoving;
@@ -62,7 +64,10 @@ import com.nisovin.shopkeepers.tradenotifications.TradeNotifications;
 import com.nisovin.shopkeepers.trading.commandtrading.CommandTrading;
 import com.nisovin.shopkeepers.ui.SKDefaultUITypes;
 import com.nisovin.shopkeepers.ui.SKUIRegistry;
+import com.nisovin.shopkeepers.util.bukkit.BukkitTaskScheduler;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
 import com.nisovin.shopkeepers.util.java.ClassUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
@@ -99,6 +104,11 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 
 	private final ApiInternals apiInternals = new SKApiInternals();
 
+	// Task scheduler:
+	private final TaskScheduler taskScheduler = new BukkitTaskScheduler(Unsafe.initialized(this));
+	// Executor for blocking IO:
+	private final IOExecutor ioExecutor = new IOExecutor("Shopkeepers-IO-");
+
 	// Shop types and shop object types registry:
 	private final SKShopTypesRegistry shopTypesRegistry = new SKShopTypesRegistry();
 	private final SKShopObjectTypesRegistry shopObjectTypesRegistry = new SKShopObjectTypesRegistry();
@@ -125,6 +135,8 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	private final ChatInput chatInput = new ChatInput(Unsafe.initialized(this));
 	private final InteractionInput interactionInput = new InteractionInput(Unsafe.initialized(this));
 
+	private final Jobs jobs = new Jobs(Unsafe.initialized(this));
+
 	private final CommandTrading commandTrading = new CommandTrading(Unsafe.initialized(this));
 	private final TradeLoggers tradeLoggers = new TradeLoggers(Unsafe.initialized(this));
 	private final TradeNotifications tradeNotifications = new TradeNotifications(
@@ -269,6 +281,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 
 		NMSManager.load();
 
+		// Start the IO executor:
+		ioExecutor.start();
+
         // Inform about Spigot exclusive features:
 //		if (SpigotFeatures.isSpigotAvailable()) { // ryder - disabled
 //			Log.debug("Spigot-based server found: Enabling Spigot exclusive features.");
@@ -384,6 +399,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Activate (spawn) shopkeepers in loaded chunks of all loaded worlds:
 		shopkeeperRegistry.getChunkActivator().activateShopkeepersInAllWorlds();
 
+		// Jobs:
+		jobs.onEnable();
+
 		// Player shops:
 		playerShops.onEnable();
 
@@ -416,6 +434,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 				this.getLogger()
 		);
 
+		// Cancel all running jobs:
+		jobs.onDisable();
+
 		// Inform UI registry about disable:
 		uiRegistry.onDisable();
 
@@ -489,6 +510,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Event debugger:
 		eventDebugger.onDisable();
 
+		// Wait for any remaining IO tasks to complete and shut down the IO executor:
+		ioExecutor.shutdown(TimeUnit.SECONDS.toMillis(ASYNC_TASKS_TIMEOUT_SECONDS));
+
 		HandlerList.unregisterAll(this);
 		Bukkit.getScheduler().cancelTasks(this);
 
@@ -507,9 +531,12 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	// PLAYER JOINING AND QUITTING
 
 	void onPlayerJoin(Player player) {
+		playerShops.onPlayerJoin(player);
 	}
 
 	void onPlayerQuit(Player player) {
+		playerShops.onPlayerQuit(player);
+
 		// Player cleanup:
 		shopTypesRegistry.clearSelection(player);
 		shopObjectTypesRegistry.clearSelection(player);
@@ -552,6 +579,18 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return shopkeeperStorage;
 	}
 
+	// TASK SCHEDULER
+
+	public TaskScheduler getTaskScheduler() {
+		return taskScheduler;
+	}
+
+	// IO EXECUTOR
+
+	public IOExecutor getIOExecutor() {
+		return ioExecutor;
+	}
+
 	// ITEM UPDATES
 
 	@Override
@@ -709,9 +748,32 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return playerShops;
 	}
 
+	// JOBS
+
+	public Jobs getJobs() {
+		return jobs;
+	}
+
+	// TRADE LOGGING
+
+	public TradeLoggers getTradeLoggers() {
+		return tradeLoggers;
+	}
+
+	@Override
+	public TradeLog getTradeLog() {
+		return tradeLoggers;
+	}
+
 	// TRADE NOTIFICATIONS
 
 	public TradeNotifications getTradeNotifications() {
 		return tradeNotifications;
 	}
+
+	// EVENT DEBUGGER
+
+	public EventDebugger getEventDebugger() {
+		return eventDebugger;
+	}
 }
@@ -0,0 +1,70 @@
+package com.nisovin.shopkeepers.commands.lib.arguments;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.bukkit.Material;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.argument.ArgumentParseException;
+import com.nisovin.shopkeepers.commands.lib.argument.ArgumentsReader;
+import com.nisovin.shopkeepers.commands.lib.argument.CommandArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * Parses item {@link Material materials}.
+ * <p>
+ * Only materials that are {@link Material#isItem() items} and not {@link Material#isLegacy()
+ * legacy} are accepted.
+ */
+public class MaterialArgument extends CommandArgument<Material> {
+
+	public MaterialArgument(String name) {
+		super(name);
+	}
+
+	@Override
+	public Material parseValue(
+			CommandInput input,
+			CommandContextView context,
+			ArgumentsReader argsReader
+	) throws ArgumentParseException {
+		if (!argsReader.hasNext()) {
+			throw this.missingArgumentError();
+		}
+		String argument = argsReader.next();
+		@Nullable Material material = ItemUtils.parseMaterial(argument);
+		if (material == null || !material.isItem() || material.isLegacy()) {
+			throw this.invalidArgumentError(argument);
+		}
+		return material;
+	}
+
+	@Override
+	public List<? extends String> complete(
+			CommandInput input,
+			CommandContextView context,
+			ArgumentsReader argsReader
+	) {
+		if (argsReader.getRemainingSize() != 1) {
+			return Collections.emptyList();
+		}
+
+		List<String> suggestions = new ArrayList<>();
+		String partialArg = argsReader.next().toLowerCase(Locale.ROOT);
+		for (Material material : Material.values()) {
+			if (suggestions.size() >= MAX_SUGGESTIONS) break;
+			if (!material.isItem() || material.isLegacy()) continue;
+
+			String suggestion = material.name().toLowerCase(Locale.ROOT);
+			if (suggestion.startsWith(partialArg)) {
+				suggestions.add(suggestion);
+			}
+		}
+		return Collections.unmodifiableList(suggestions);
+	}
+}
@@ -33,6 +33,7 @@ import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
 import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
 import com.nisovin.shopkeepers.util.timer.Timings;
@@ -141,6 +142,20 @@ class CommandCheck extends Command {
 				+ TextUtils.format(avgAITimings) + " ms"
 				+ " | " + TextUtils.format(maxAITiming) + " ms");
 
+		for (IOExecutor.Resource ioResource : plugin.getIOExecutor().getResources()) {
+			sender.sendMessage("  IO tasks '" + ioResource.getName()
+					+ "' (queued | max queued | running | completed): "
+					+ ioResource.getQueuedCount()
+					+ " | " + ioResource.getMaxQueuedCount()
+					+ " | " + ioResource.getRunningCount()
+					+ " | " + ioResource.getCompletedCount());
+			sender.sendMessage("    Wait timings (avg | max) | execution timings (avg | max): "
+					+ TextUtils.format(ioResource.getAverageWaitMillis()) + " ms"
+					+ " | " + TextUtils.format(ioResource.getMaxWaitMillis()) + " ms"
+					+ " | " + TextUtils.format(ioResource.getAverageExecutionMillis()) + " ms"
+					+ " | " + TextUtils.format(ioResource.getMaxExecutionMillis()) + " ms");
+		}
+
 		for (World world : Bukkit.getWorlds()) {
 			String worldName = world.getName();
 			Chunk[] worldLoadedChunks = world.getLoadedChunks();
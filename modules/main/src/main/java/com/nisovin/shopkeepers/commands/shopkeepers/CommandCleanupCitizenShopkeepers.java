@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.commands.shopkeepers;
 
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
@@ -33,10 +34,13 @@ class CommandCleanupCitizenShopkeepers extends Command {
 
 		// Find and delete invalid Citizen shopkeepers:
 		CitizensShops citizensShops = SKShopkeepersPlugin.getInstance().getCitizensShops();
-		int deleted = citizensShops.validateCitizenShopkeepers(true, false);
-
-		// Inform command executor:
-		sender.sendMessage(ChatColor.GREEN + "Deleted " + ChatColor.YELLOW + deleted
-				+ ChatColor.GREEN + " invalid Citizen shopkeepers!");
+		// The deletion is spread across several ticks. Inform the command executor once it has
+		// ended:
+		citizensShops.validateCitizenShopkeepers(true, false, deleted -> {
+			// The sender might no longer be online:
+			if (sender instanceof Player && !((Player) sender).isOnline()) return;
+			sender.sendMessage(ChatColor.GREEN + "Deleted " + ChatColor.YELLOW + deleted
+					+ ChatColor.GREEN + " invalid Citizen shopkeepers!");
+		});
 	}
 }
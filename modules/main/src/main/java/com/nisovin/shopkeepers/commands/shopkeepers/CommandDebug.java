@@ -1,11 +1,13 @@
 package com.nisovin.shopkeepers.commands.shopkeepers;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.commands.lib.Command;
 import com.nisovin.shopkeepers.commands.lib.CommandException;
@@ -46,8 +48,11 @@ class CommandDebug extends Command {
 
 	private static final String ARGUMENT_DEBUG_OPTION = "option";
 
-	CommandDebug() {
+	private final SKShopkeepersPlugin plugin;
+
+	CommandDebug(SKShopkeepersPlugin plugin) {
 		super("debug");
+		this.plugin = plugin;
 
 		// Set permission:
 		this.setPermission(ShopkeepersPlugin.DEBUG_PERMISSION);
@@ -84,5 +89,9 @@ class CommandDebug extends Command {
 			sender.sendMessage(ChatColor.GREEN + "Debug option '" + debugOption + "' "
 					+ (enabled ? "enabled" : "disabled"));
 		}
+
+		// Start or stop the listener profiler, and print its report when it has been stopped:
+		List<String> profilerReport = plugin.getEventDebugger().updateListenerProfiler();
+		profilerReport.forEach(line -> sender.sendMessage(ChatColor.YELLOW + line));
 	}
 }
@@ -0,0 +1,165 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.BoundedIntegerArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.bukkit.Ticks;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
+import com.nisovin.shopkeepers.util.timer.ThreadAllocations;
+
+/**
+ * Records the per-execution cost distributions and allocations of the shopkeeper ticking, chunk
+ * activation, spawn queue, and mob AI over a given number of ticks.
+ * <p>
+ * In combination with {@link CommandDebugCreateShops} this can be used to measure how these
+ * components scale with the number of shopkeepers, chunks, and online players.
+ */
+class CommandDebugBenchmark extends Command {
+
+	private static final String ARGUMENT_TICKS = "ticks";
+
+	private static final double[] PERCENTILES = { 50.0D, 95.0D, 99.0D };
+
+	private final SKShopkeepersPlugin plugin;
+	private final SKShopkeeperRegistry shopkeeperRegistry;
+
+	private @Nullable ScheduledTask benchmarkTask = null;
+
+	CommandDebugBenchmark(SKShopkeepersPlugin plugin) {
+		super("debugBenchmark");
+		this.plugin = plugin;
+		this.shopkeeperRegistry = plugin.getShopkeeperRegistry();
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.DEBUG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Text.of("Measures the cost distributions of shopkeeper ticking, "
+				+ "activation, spawning and AI over the given number of ticks."));
+
+		// Hidden debugging command:
+		this.setHiddenInParentHelp(true);
+
+		// Arguments:
+		this.addArgument(
+				new BoundedIntegerArgument(ARGUMENT_TICKS, 20, 72000)
+						.orDefaultValue(Ticks.PER_SECOND * 30)
+		);
+	}
+
+	private List<? extends SampledTimings> getAllTimings() {
+		LivingEntityAI livingEntityAI = plugin.getLivingShops().getLivingEntityAI();
+		return Arrays.asList(
+				shopkeeperRegistry.getShopkeeperTicker().getTickTimings(),
+				shopkeeperRegistry.getChunkActivator().getChunkActivationTimings(),
+				shopkeeperRegistry.getShopkeeperSpawner().getSpawnQueueTimings(),
+				livingEntityAI.getTotalTimings()
+		);
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		int ticks = context.get(ARGUMENT_TICKS);
+
+		if (benchmarkTask != null) {
+			sender.sendMessage(ChatColor.RED + "There is already a benchmark in progress!");
+			return;
+		}
+
+		// Reset the previously recorded timings and start tracking allocations:
+		this.getAllTimings().forEach(timings -> {
+			timings.reset();
+			timings.setTrackingAllocations(true);
+		});
+
+		sender.sendMessage(ChatColor.GREEN + "Recording shopkeeper timings for " + ChatColor.YELLOW
+				+ ticks + ChatColor.GREEN + " ticks ...");
+		if (!ThreadAllocations.isSupported()) {
+			sender.sendMessage(ChatColor.GRAY + "  Allocation tracking is not supported by this JVM.");
+		}
+
+		benchmarkTask = plugin.getTaskScheduler().runGlobalLater(() -> {
+			benchmarkTask = null;
+			this.getAllTimings().forEach(timings -> timings.setTrackingAllocations(false));
+
+			// The sender might no longer be online:
+			if (sender instanceof Player && !((Player) sender).isOnline()) return;
+			this.sendResults(sender, ticks);
+		}, ticks);
+	}
+
+	private void sendResults(CommandSender sender, int ticks) {
+		LivingEntityAI livingEntityAI = plugin.getLivingShops().getLivingEntityAI();
+		double durationSeconds = (double) ticks / Ticks.PER_SECOND;
+
+		sender.sendMessage(ChatColor.GREEN + "Benchmark results (" + ChatColor.YELLOW + ticks
+				+ ChatColor.GREEN + " ticks):");
+		sender.sendMessage(ChatColor.GRAY + "  Shopkeepers (total | active | with AI): "
+				+ ChatColor.WHITE + shopkeeperRegistry.getAllShopkeepers().size()
+				+ ChatColor.GRAY + " | " + ChatColor.WHITE
+				+ shopkeeperRegistry.getActiveShopkeepers().size()
+				+ ChatColor.GRAY + " | " + ChatColor.WHITE + livingEntityAI.getEntityCount());
+		sender.sendMessage(ChatColor.GRAY + "  Online players: " + ChatColor.WHITE
+				+ Bukkit.getOnlinePlayers().size());
+
+		this.sendTimings(sender, "Shopkeeper ticking",
+				shopkeeperRegistry.getShopkeeperTicker().getTickTimings(), durationSeconds);
+		this.sendTimings(sender, "Chunk activations",
+				shopkeeperRegistry.getChunkActivator().getChunkActivationTimings(), durationSeconds);
+		this.sendTimings(sender, "Spawn queue",
+				shopkeeperRegistry.getShopkeeperSpawner().getSpawnQueueTimings(), durationSeconds);
+		this.sendTimings(sender, "Mob AI", livingEntityAI.getTotalTimings(), durationSeconds);
+	}
+
+	private void sendTimings(
+			CommandSender sender,
+			String name,
+			SampledTimings timings,
+			double durationSeconds
+	) {
+		sender.sendMessage(ChatColor.YELLOW + "  " + name + ChatColor.GRAY + " (executions: "
+				+ ChatColor.WHITE + timings.getCounter() + ChatColor.GRAY + ")");
+		if (timings.getCounter() == 0L) return;
+
+		StringBuilder percentiles = new StringBuilder();
+		for (double percentile : PERCENTILES) {
+			percentiles.append(ChatColor.GRAY).append(" | ").append(ChatColor.WHITE)
+					.append(TextUtils.formatPrecise(timings.getPercentileMillis(percentile)))
+					.append(" ms");
+		}
+		sender.sendMessage(ChatColor.GRAY + "    Timings (avg | p50 | p95 | p99 | max): "
+				+ ChatColor.WHITE + TextUtils.formatPrecise(timings.getAverageTimeMillis()) + " ms"
+				+ percentiles.toString()
+				+ ChatColor.GRAY + " | " + ChatColor.WHITE
+				+ TextUtils.formatPrecise(timings.getMaxTimeMillis()) + " ms");
+
+		if (ThreadAllocations.isSupported()) {
+			long allocatedBytes = timings.getAllocatedBytes();
+			double bytesPerExecution = (double) allocatedBytes / timings.getCounter();
+			double kibPerSecond = allocatedBytes / 1024.0D / durationSeconds;
+			sender.sendMessage(ChatColor.GRAY + "    Allocations (per execution | rate): "
+					+ ChatColor.WHITE + TextUtils.format(bytesPerExecution) + " B"
+					+ ChatColor.GRAY + " | " + ChatColor.WHITE
+					+ TextUtils.format(kibPerSecond) + " KiB/s");
+		}
+	}
+}
@@ -90,27 +90,32 @@ class CommandDebugCreateShops extends PlayerCommand {
 				DefaultShopObjectTypes.LIVING().get(EntityType.VILLAGER)
 		);
 
-		int created = 0;
+		// Create the shopkeepers in a batch: They are spawned over the next ticks, and saved once.
+		int[] created = new int[1];
 		Location currrentSpawnLocation = player.getLocation();
-		for (int i = 0; i < shopCount; i++) {
-			Shopkeeper shopkeeper = plugin.handleShopkeeperCreation(AdminShopCreationData.create(
-					player,
-					shopType,
-					shopObjectType,
-					currrentSpawnLocation.clone(),
-					null
-			));
-			if (shopkeeper != null) {
-				created++;
+		plugin.getShopkeeperRegistry().batch(batch -> {
+			for (int i = 0; i < shopCount; i++) {
+				Shopkeeper shopkeeper = plugin.handleShopkeeperCreation(
+						AdminShopCreationData.create(
+								player,
+								shopType,
+								shopObjectType,
+								currrentSpawnLocation.clone(),
+								null
+						)
+				);
+				if (shopkeeper != null) {
+					created[0]++;
+				}
+
+				currrentSpawnLocation.add(
+						stepSize * blockFace.getModX(),
+						0,
+						stepSize * blockFace.getModZ()
+				);
 			}
-
-			currrentSpawnLocation.add(
-					stepSize * blockFace.getModX(),
-					0,
-					stepSize * blockFace.getModZ()
-			);
-		}
-		player.sendMessage(ChatColor.GREEN + "Done! Created " + ChatColor.YELLOW + created
+		});
+		player.sendMessage(ChatColor.GREEN + "Done! Created " + ChatColor.YELLOW + created[0]
 				+ ChatColor.GREEN + " shopkeepers!");
 	}
 
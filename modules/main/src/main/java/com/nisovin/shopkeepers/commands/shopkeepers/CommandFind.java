@@ -0,0 +1,260 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.IndexedOffer;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.MaterialArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.currency.Currencies;
+import com.nisovin.shopkeepers.currency.Currency;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.shopkeeper.registry.ShopkeeperOfferIndex;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.bukkit.LocationUtils;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * Finds the shops that sell or buy a certain item, based on the offer index of the shopkeeper
+ * registry.
+ * <p>
+ * If no item type is specified, the shops are searched for the item held in the main hand.
+ */
+class CommandFind extends Command {
+
+	private static final String ARGUMENT_ITEM = "item";
+	private static final String ARGUMENT_DIRECTION = "direction";
+	private static final String ARGUMENT_SORTING = "sorting";
+
+	private static final int MAX_ENTRIES = 10;
+
+	enum Direction {
+		SELLING,
+		BUYING;
+	}
+
+	enum Sorting {
+		PRICE,
+		DISTANCE;
+	}
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandFind(SKShopkeepersPlugin plugin) {
+		super("find");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.FIND_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionFind);
+
+		// Arguments:
+		this.addArgument(new MaterialArgument(ARGUMENT_ITEM).optional());
+		this.addArgument(new EnumArgument<>(ARGUMENT_DIRECTION, Direction.class)
+				.orDefaultValue(Direction.SELLING));
+		this.addArgument(new EnumArgument<>(ARGUMENT_SORTING, Sorting.class)
+				.orDefaultValue(Sorting.PRICE));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		@Nullable Material itemType = context.getOrNull(ARGUMENT_ITEM);
+		Direction direction = context.get(ARGUMENT_DIRECTION);
+		Sorting sorting = context.get(ARGUMENT_SORTING);
+		@Nullable Player player = (sender instanceof Player) ? (Player) sender : null;
+
+		SKShopkeeperRegistry shopkeeperRegistry = plugin.getShopkeeperRegistry();
+		Stream<? extends IndexedOffer> offers;
+		String itemName;
+		if (itemType != null) {
+			offers = (direction == Direction.SELLING)
+					? shopkeeperRegistry.getOffersSelling(itemType)
+					: shopkeeperRegistry.getOffersBuying(itemType);
+			itemName = itemType.name();
+		} else {
+			// Use the item held in the main hand:
+			ItemStack itemInHand = (player != null) ? player.getInventory().getItemInMainHand() : null;
+			if (ItemUtils.isEmpty(itemInHand)) {
+				throw new CommandException(Messages.findItemMissing);
+			}
+			assert itemInHand != null;
+			offers = (direction == Direction.SELLING)
+					? shopkeeperRegistry.getOffersSelling(itemInHand)
+					: shopkeeperRegistry.getOffersBuying(itemInHand);
+			itemType = itemInHand.getType();
+			itemName = itemType.name();
+		}
+
+		// Distances can only be compared for players:
+		@Nullable Location playerLocation = (player != null) ? player.getLocation() : null;
+		if (playerLocation == null) {
+			sorting = Sorting.PRICE;
+		}
+
+		Material matchedType = itemType;
+		Comparator<IndexedOffer> comparator;
+		if (sorting == Sorting.DISTANCE) {
+			assert playerLocation != null;
+			Location location = playerLocation;
+			comparator = Comparator.comparingDouble(offer -> getDistanceSquared(offer, location));
+		} else if (direction == Direction.SELLING) {
+			// Cheapest first:
+			comparator = Comparator.comparingDouble(
+					(IndexedOffer offer) -> getUnitPrice(offer, matchedType, direction)
+			);
+		} else {
+			// Highest payment first:
+			comparator = Comparator.comparingDouble(
+					(IndexedOffer offer) -> getUnitPrice(offer, matchedType, direction)
+			).reversed();
+		}
+		// Offers that are known to be in stock first:
+		comparator = Comparator.comparing((IndexedOffer offer) -> !offer.isInStock())
+				.thenComparing(comparator);
+
+		List<? extends IndexedOffer> result = offers.sorted(comparator).collect(Collectors.toList());
+
+		// The lookup does not wait for the index to be complete:
+		ShopkeeperOfferIndex offerIndex = shopkeeperRegistry.getOfferIndex();
+		if (offerIndex.isIndexing()) {
+			TextUtils.sendMessage(sender, Messages.findIndexing,
+					"count", offerIndex.getPendingShopkeeperCount()
+			);
+		}
+
+		if (result.isEmpty()) {
+			TextUtils.sendMessage(sender, Messages.findNoResults, "item", itemName);
+			return;
+		}
+
+		TextUtils.sendMessage(sender, Messages.findHeader,
+				"item", itemName,
+				"direction", direction.name().toLowerCase(Locale.ROOT),
+				"sorting", sorting.name().toLowerCase(Locale.ROOT),
+				"count", result.size()
+		);
+
+		int entries = Math.min(result.size(), MAX_ENTRIES);
+		for (int index = 0; index < entries; index++) {
+			IndexedOffer offer = result.get(index);
+			Shopkeeper shopkeeper = offer.getShopkeeper();
+			String shopName = shopkeeper.getName(); // Can be empty
+			TextUtils.sendMessage(sender, Messages.findEntry,
+					"rank", (index + 1),
+					"shopId", shopkeeper.getId(),
+					"shopName", (shopName.isEmpty() ? "" : (shopName + " ")),
+					"location", shopkeeper.getPositionString(),
+					"trade", getTradeInfo(offer.getTradingRecipe()),
+					"stock", getStockText(offer)
+			);
+		}
+
+		int remaining = result.size() - entries;
+		if (remaining > 0) {
+			TextUtils.sendMessage(sender, Messages.findMore, "count", remaining);
+		}
+	}
+
+	private static double getDistanceSquared(IndexedOffer offer, Location location) {
+		Shopkeeper shopkeeper = offer.getShopkeeper();
+		String worldName = shopkeeper.getWorldName();
+		if (worldName == null || !worldName.equals(LocationUtils.getWorld(location).getName())) {
+			// Shops in other worlds are listed last:
+			return Double.MAX_VALUE;
+		}
+		double dx = shopkeeper.getX() + 0.5D - location.getX();
+		double dy = shopkeeper.getY() - location.getY();
+		double dz = shopkeeper.getZ() + 0.5D - location.getZ();
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Gets the price per matched item of the given offer, in units of the base currency.
+	 * <p>
+	 * For selling offers, this is the currency value of the items that need to be paid, divided by
+	 * the amount of the sold items. For buying offers, this is the currency value of the result
+	 * item, divided by the amount of the bought items.
+	 * <p>
+	 * Trades that involve no currency items have no comparable price and are sorted last.
+	 * 
+	 * @param offer
+	 *            the offer
+	 * @param itemType
+	 *            the type of the searched item
+	 * @param direction
+	 *            the direction of the search
+	 * @return the unit price
+	 */
+	private static double getUnitPrice(IndexedOffer offer, Material itemType, Direction direction) {
+		TradingRecipe recipe = offer.getTradingRecipe();
+		if (direction == Direction.SELLING) {
+			int price = getCurrencyValue(recipe.getItem1()) + getCurrencyValue(recipe.getItem2());
+			if (price == 0) return Double.MAX_VALUE;
+			return (double) price / recipe.getResultItem().getAmount();
+		} else {
+			int payment = getCurrencyValue(recipe.getResultItem());
+			if (payment == 0) return -1.0D;
+			int amount = getMatchingAmount(recipe.getItem1(), itemType)
+					+ getMatchingAmount(recipe.getItem2(), itemType);
+			return (double) payment / Math.max(amount, 1);
+		}
+	}
+
+	private static int getCurrencyValue(@Nullable UnmodifiableItemStack item) {
+		if (item == null) return 0;
+		Currency currency = Currencies.match(item);
+		if (currency == null) return 0;
+		return currency.getValue() * item.getAmount();
+	}
+
+	private static int getMatchingAmount(@Nullable UnmodifiableItemStack item, Material itemType) {
+		if (item == null || item.getType() != itemType) return 0;
+		return item.getAmount();
+	}
+
+	private static String getTradeInfo(TradingRecipe recipe) {
+		StringBuilder tradeInfo = new StringBuilder();
+		tradeInfo.append(ItemUtils.getSimpleItemInfo(recipe.getResultItem()))
+				.append(" <- ")
+				.append(ItemUtils.getSimpleItemInfo(recipe.getItem1()));
+		UnmodifiableItemStack item2 = recipe.getItem2();
+		if (item2 != null) {
+			tradeInfo.append(" + ").append(ItemUtils.getSimpleItemInfo(item2));
+		}
+		return tradeInfo.toString();
+	}
+
+	private static Text getStockText(IndexedOffer offer) {
+		if (!offer.isStockKnown()) {
+			return Messages.findStockUnknown;
+		} else if (offer.isInStock()) {
+			return Messages.findStockAvailable;
+		} else {
+			return Messages.findStockOutOfStock;
+		}
+	}
+}
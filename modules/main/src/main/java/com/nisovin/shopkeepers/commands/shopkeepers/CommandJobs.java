@@ -0,0 +1,108 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.argument.CommandArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.LiteralArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.jobs.Job;
+import com.nisovin.shopkeepers.jobs.Jobs;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+
+/**
+ * Lists the running {@link Job jobs}, and allows to cancel them.
+ */
+class CommandJobs extends Command {
+
+	private static final String ARGUMENT_CANCEL = "cancel";
+	private static final String ARGUMENT_JOB_ID = "job-id";
+
+	private final Jobs jobs;
+	private final CommandArgument<Integer> jobIdArgument;
+
+	CommandJobs(Jobs jobs) {
+		super("jobs");
+		this.jobs = jobs;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.JOBS_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionJobs);
+
+		// Arguments:
+		this.addArgument(new LiteralArgument(ARGUMENT_CANCEL).optional());
+		this.jobIdArgument = new PositiveIntegerArgument(ARGUMENT_JOB_ID);
+		this.addArgument(jobIdArgument.optional());
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		boolean cancel = context.has(ARGUMENT_CANCEL);
+		Integer jobId = context.getOrNull(ARGUMENT_JOB_ID);
+
+		if (jobId == null) {
+			if (cancel) {
+				throw jobIdArgument.missingArgumentError();
+			}
+
+			// List all running jobs:
+			Collection<? extends Job<?>> runningJobs = jobs.getRunningJobs();
+			if (runningJobs.isEmpty()) {
+				TextUtils.sendMessage(sender, Messages.noJobsRunning);
+				return;
+			}
+
+			TextUtils.sendMessage(sender, Messages.jobsListHeader, "count", runningJobs.size());
+			runningJobs.forEach(job -> this.sendJobEntry(sender, job));
+			return;
+		}
+
+		Job<?> job = jobs.getRunningJob(jobId);
+		if (job == null) {
+			TextUtils.sendMessage(sender, Messages.jobNotFound, "id", jobId);
+			return;
+		}
+
+		if (cancel) {
+			// Informs the job's sender:
+			jobs.cancel(job);
+			if (job.getSender() != sender) {
+				TextUtils.sendMessage(sender, Messages.jobCancelled,
+						"id", job.getId(),
+						"name", job.getName(),
+						"processed", job.getProcessedWorkUnits(),
+						"total", job.getTotalWorkUnits()
+				);
+			}
+		} else {
+			this.sendJobEntry(sender, job);
+		}
+	}
+
+	private void sendJobEntry(CommandSender sender, Job<?> job) {
+		long runningSeconds = TimeUnit.MILLISECONDS.toSeconds(
+				System.currentTimeMillis() - job.getStartTimeMillis()
+		);
+		CommandSender jobSender = job.getSender();
+		TextUtils.sendMessage(sender, Messages.jobsListEntry,
+				"id", job.getId(),
+				"name", job.getName(),
+				"processed", job.getProcessedWorkUnits(),
+				"total", job.getTotalWorkUnits(),
+				"progress", job.getProgressPercent(),
+				"duration", runningSeconds,
+				"sender", (jobSender != null) ? jobSender.getName() : "-"
+		);
+	}
+}
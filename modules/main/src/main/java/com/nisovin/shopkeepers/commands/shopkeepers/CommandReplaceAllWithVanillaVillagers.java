@@ -27,6 +27,7 @@ import com.nisovin.shopkeepers.commands.lib.CommandException;
 import com.nisovin.shopkeepers.commands.lib.CommandInput;
 import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.jobs.Job;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
@@ -100,15 +101,27 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 			return;
 		}
 
-		int invalidShops = 0;
-		int deletedAdminShopsCount = 0;
-		int deletedPlayerShopsCount = 0;
-		int skippedShopsCount = 0;
-		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+		// Replace the shopkeepers in time slices across several ticks:
+		plugin.getJobs().start(new ReplaceShopsJob(sender, shopkeepers));
+	}
+
+	private class ReplaceShopsJob extends Job<AbstractShopkeeper> {
+
+		private int invalidShops = 0;
+		private int deletedAdminShopsCount = 0;
+		private int deletedPlayerShopsCount = 0;
+		private int skippedShopsCount = 0;
+
+		ReplaceShopsJob(CommandSender sender, List<? extends AbstractShopkeeper> shopkeepers) {
+			super("replaceAllWithVanillaVillagers", sender, shopkeepers);
+		}
+
+		@Override
+		protected void process(AbstractShopkeeper shopkeeper) {
 			// Skip the shopkeeper if it no longer exists:
 			if (!shopkeeper.isValid()) {
 				invalidShops++;
-				continue;
+				return;
 			}
 
 			// Note: No need to call a PlayerDeleteShopkeeperEvent here, or pass the sender player
@@ -119,9 +132,10 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 			// Try to spawn a corresponding vanilla villager:
 			// A villager is spawned regardless of the object type (sign, NPC, other mob type,
 			// etc.).
-			if (!this.spawnVanillaVillager(sender, shopkeeper)) {
+			CommandSender sender = Unsafe.assertNonNull(this.getSender());
+			if (!spawnVanillaVillager(sender, shopkeeper)) {
 				skippedShopsCount++;
-				continue;
+				return;
 			}
 
 			// Delete the shopkeeper:
@@ -133,20 +147,24 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 			}
 		}
 
-		// Trigger save:
-		plugin.getShopkeeperStorage().save();
-
-		// Print the result messages:
-		if (invalidShops > 0) {
-			TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
-					"shopsCount", invalidShops
+		@Override
+		protected void onCompleted() {
+			// Note: The job framework triggers a save after the job has ended.
+			CommandSender sender = this.getOnlineSender();
+			if (sender == null) return;
+
+			// Print the result messages:
+			if (invalidShops > 0) {
+				TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
+						"shopsCount", invalidShops
+				);
+			}
+			TextUtils.sendMessage(sender, Messages.allShopsReplacedWithVanillaVillagers,
+					"adminShopsCount", deletedAdminShopsCount,
+					"playerShopsCount", deletedPlayerShopsCount,
+					"skippedShopsCount", skippedShopsCount
 			);
 		}
-		TextUtils.sendMessage(sender, Messages.allShopsReplacedWithVanillaVillagers,
-				"adminShopsCount", deletedAdminShopsCount,
-				"playerShopsCount", deletedPlayerShopsCount,
-				"skippedShopsCount", skippedShopsCount
-		);
 	}
 
 	private boolean spawnVanillaVillager(CommandSender sender, AbstractShopkeeper shopkeeper) {
@@ -0,0 +1,121 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.tradelog.TradeLog;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogAggregate;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogGrouping;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQuery;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQueryResult;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.BoundedIntegerArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+
+/**
+ * Shows aggregated trade statistics from the trade logs.
+ * <p>
+ * The trade logs are read asynchronously.
+ */
+class CommandTradeLog extends Command {
+
+	private static final String ARGUMENT_GROUPING = "grouping";
+	private static final String ARGUMENT_DAYS = "days";
+
+	private static final int MAX_DAYS = 365;
+	private static final int MAX_ENTRIES = 10;
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandTradeLog(SKShopkeepersPlugin plugin) {
+		super("tradeLog");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADE_LOG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionTradeLog);
+
+		// Arguments:
+		this.addArgument(new EnumArgument<>(ARGUMENT_GROUPING, TradeLogGrouping.class));
+		this.addArgument(new BoundedIntegerArgument(ARGUMENT_DAYS, 1, MAX_DAYS).orDefaultValue(7));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		TradeLogGrouping grouping = context.get(ARGUMENT_GROUPING);
+		int days = context.get(ARGUMENT_DAYS);
+
+		TradeLog tradeLog = plugin.getTradeLog();
+		if (!tradeLog.isQueryable()) {
+			TextUtils.sendMessage(sender, Messages.tradeLogDisabled);
+			return;
+		}
+
+		LocalDate today = LocalDate.now();
+		TradeLogQuery query = new TradeLogQuery(
+				grouping,
+				today.minusDays(days - 1),
+				today,
+				MAX_ENTRIES
+		);
+
+		TextUtils.sendMessage(sender, Messages.tradeLogQueryStarted, "days", days);
+		tradeLog.query(query).whenComplete((result, failure) -> {
+			// The sender might no longer be online:
+			if (sender instanceof Player && !((Player) sender).isOnline()) return;
+			if (failure != null) {
+				TextUtils.sendMessage(sender, Messages.tradeLogQueryFailed);
+			} else {
+				this.sendResult(sender, result);
+			}
+		});
+	}
+
+	private void sendResult(CommandSender sender, TradeLogQueryResult result) {
+		TradeLogQuery query = result.getQuery();
+		TradeLogAggregate total = result.getTotal();
+		if (total.getRecordCount() == 0L) {
+			TextUtils.sendMessage(sender, Messages.tradeLogQueryNoResults);
+			return;
+		}
+
+		TextUtils.sendMessage(sender, Messages.tradeLogQueryHeader,
+				"grouping", query.getGrouping().name().toLowerCase(Locale.ROOT),
+				"from", query.getFromDate(),
+				"to", query.getToDate(),
+				"trades", total.getTradeCount(),
+				"records", total.getRecordCount(),
+				"duration", result.getDurationMillis()
+		);
+
+		List<? extends TradeLogAggregate> aggregates = result.getAggregates();
+		for (int i = 0; i < aggregates.size(); i++) {
+			TradeLogAggregate aggregate = aggregates.get(i);
+			TextUtils.sendMessage(sender, Messages.tradeLogQueryEntry,
+					"rank", i + 1,
+					"name", aggregate.getName(),
+					"trades", aggregate.getTradeCount(),
+					"items", aggregate.getResultItemAmount()
+			);
+		}
+
+		int remaining = result.getDistinctCount() - aggregates.size();
+		if (remaining > 0) {
+			TextUtils.sendMessage(sender, Messages.tradeLogQueryMore, "count", remaining);
+		}
+	}
+}
@@ -4,21 +4,27 @@ import java.util.concurrent.TimeUnit;
 
 import org.bukkit.command.CommandSender;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.commands.lib.Command;
 import com.nisovin.shopkeepers.commands.lib.CommandException;
 import com.nisovin.shopkeepers.commands.lib.CommandInput;
 import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.debug.DebugOptions;
+import com.nisovin.shopkeepers.jobs.Job;
 import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 class CommandUpdateItems extends Command {
 
-	CommandUpdateItems() {
+	private final SKShopkeepersPlugin plugin;
+
+	CommandUpdateItems(SKShopkeepersPlugin plugin) {
 		super("updateItems");
+		this.plugin = plugin;
 
 		this.setPermission(ShopkeepersPlugin.UPDATE_ITEMS_PERMISSION);
 
@@ -29,14 +35,49 @@ class CommandUpdateItems extends Command {
 	@Override
 	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
 		CommandSender sender = input.getSender();
+		Log.debug(DebugOptions.itemUpdates, "Updating all items.");
+
+		// Similar to ShopkeepersAPI.updateItems(), but the shopkeepers are updated in time slices
+		// across several ticks. Players can open shopkeeper UIs again while the job is running, so
+		// we additionally abort the UI sessions of each shopkeeper right before it is updated:
+		plugin.getUIRegistry().abortUISessions();
+		int updatedSettingsItems = Settings.getInstance().updateItems();
+
+		plugin.getJobs().start(new UpdateItemsJob(sender, updatedSettingsItems));
+	}
+
+	private class UpdateItemsJob extends Job<AbstractShopkeeper> {
+
+		private final long startNanos = System.nanoTime();
+		private int updatedItems;
+
+		UpdateItemsJob(CommandSender sender, int updatedSettingsItems) {
+			super("updateItems", sender, plugin.getShopkeeperRegistry().getAllShopkeepers());
+			this.updatedItems = updatedSettingsItems;
+		}
+
+		@Override
+		protected void process(AbstractShopkeeper shopkeeper) {
+			// Skip the shopkeeper if it no longer exists:
+			if (!shopkeeper.isValid()) return;
+
+			// UIs that were opened since the start of the job might still show the old items:
+			plugin.getUIRegistry().abortUISessions(shopkeeper);
 
-		long startNanos = System.nanoTime();
-		int updatedItems = ShopkeepersAPI.updateItems();
-		long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			// Note: This marks the shopkeeper as dirty if items were updated. The job framework
+			// triggers a save after the job has ended.
+			updatedItems += shopkeeper.updateItems();
+		}
 
-		Log.debug(DebugOptions.itemUpdates, "Updated " + updatedItems + " items (" + durationMillis
-				+ " ms).");
+		@Override
+		protected void onCompleted() {
+			long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			Log.debug(DebugOptions.itemUpdates, "Updated " + updatedItems + " items ("
+					+ durationMillis + " ms).");
 
-		TextUtils.sendMessage(sender, Messages.itemsUpdated, "count", updatedItems);
+			CommandSender sender = this.getOnlineSender();
+			if (sender == null) return;
+			TextUtils.sendMessage(sender, Messages.itemsUpdated, "count", updatedItems);
+		}
 	}
 }
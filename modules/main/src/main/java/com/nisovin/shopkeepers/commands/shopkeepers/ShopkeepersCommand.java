@@ -73,7 +73,7 @@ public class ShopkeepersCommand extends BaseCommand {
 		CommandRegistry childCommands = this.getChildCommands();
 		childCommands.register(new CommandHelp(Unsafe.initialized(this)));
 		childCommands.register(new CommandReload(plugin));
-		childCommands.register(new CommandDebug());
+		childCommands.register(new CommandDebug(plugin));
 		childCommands.register(new CommandNotify());
 		childCommands.register(new CommandList(shopkeeperRegistry));
 		childCommands.register(new CommandRemove(confirmations));
@@ -82,7 +82,10 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandGiveCurrency());
 		childCommands.register(new CommandSetCurrency());
 		childCommands.register(new CommandConvertItems());
-		childCommands.register(new CommandUpdateItems());
+		childCommands.register(new CommandUpdateItems(plugin));
+		childCommands.register(new CommandTradeLog(plugin));
+		childCommands.register(new CommandFind(plugin));
+		childCommands.register(new CommandJobs(plugin.getJobs()));
 		childCommands.register(new CommandRemote());
 		childCommands.register(new CommandEdit());
 		childCommands.register(new CommandTransfer());
@@ -101,6 +104,7 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandCheckItem());
 		childCommands.register(new CommandYaml());
 		childCommands.register(new CommandDebugCreateShops(plugin));
+		childCommands.register(new CommandDebugBenchmark(plugin));
 		childCommands.register(new CommandTestDamage(plugin));
 		childCommands.register(new CommandTestSpawn(plugin));
 	}
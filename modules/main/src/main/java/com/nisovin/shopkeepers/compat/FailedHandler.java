@@ -73,6 +73,11 @@ public final class FailedHandler implements NMSCallProvider {
 		// Not supported.
 	}
 
+	@Override
+	public void tickLookTarget(LivingEntity entity, @Nullable Entity target, int ticks) {
+		// Not supported.
+	}
+
 	@Override
 	public void setOnGround(Entity entity, boolean onGround) {
 		try {
@@ -30,6 +30,11 @@ public interface NMSCallProvider {
 
 	void tickAI(LivingEntity entity, int ticks);
 
+	// Rotates the entity's head towards the given target (or back towards its body rotation if
+	// there is no target) without ticking the entity's AI goals. Only supported if
+	// supportsCustomMobAI is supported.
+	void tickLookTarget(LivingEntity entity, @Nullable Entity target, int ticks);
+
 	void setOnGround(Entity entity, boolean onGround);
 
 	// On some MC versions (e.g. MC 1.9, 1.10) NoAI only disables AI.
@@ -51,6 +56,37 @@ public interface NMSCallProvider {
 
 	}
 
+	// Whether the client-side entity methods below are supported. If not, these methods have no
+	// effect.
+	default boolean supportsClientSideEntities() {
+		return false;
+	}
+
+	// Client-side entities only exist on the clients of their viewers. The given entity is an
+	// unspawned entity (see RegionAccessor#createEntity) whose current state is sent to the
+	// viewer.
+	default void showClientSideEntity(Player viewer, LivingEntity entity) {
+
+	}
+
+	// Sends the entity data that changed since the last update to the viewers. The changes are
+	// consumed even if there are no viewers.
+	default void updateClientSideEntity(LivingEntity entity, Iterable<? extends Player> viewers) {
+
+	}
+
+	// Sends the current equipment of the entity to the viewers, including the empty slots.
+	default void updateClientSideEntityEquipment(
+			LivingEntity entity,
+			Iterable<? extends Player> viewers
+	) {
+
+	}
+
+	default void hideClientSideEntity(Player viewer, LivingEntity entity) {
+
+	}
+
 	default boolean matches(
             @ReadOnly @Nullable ItemStack provided,
             @Nullable UnmodifiableItemStack required
@@ -40,6 +40,7 @@ import com.nisovin.shopkeepers.playershops.MaxShopsPermission;
 import com.nisovin.shopkeepers.playershops.PlayerShopsLimit;
 import com.nisovin.shopkeepers.shopcreation.ShopCreationItem;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.storage.ShopkeeperStorageType;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
 import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
@@ -70,6 +71,11 @@ public class Settings extends Config {
 	 * Shopkeeper Data
 	 */
 	public static boolean saveInstantly = true;
+	public static ShopkeeperStorageType shopkeeperStorage = ShopkeeperStorageType.YAML;
+	public static boolean lazyWorldLoading = false;
+
+	public static int changeFeedCapacity = 4096;
+	public static String changeFeedFile = "";
 
 	public static boolean convertPlayerItems = false;
 	public static boolean convertAllPlayerItems = true;
@@ -219,6 +225,9 @@ public class Settings extends Config {
 	// The gravity updates at a tick period of 2 actually appear less smooth in my testing than at a
 	// period of 3 (maybe due to some interpolation artifact by the client).
 	public static int mobBehaviorTickPeriod = 3;
+	public static boolean mobBehaviorSharedLookTargets = true;
+
+	public static boolean clientSideLivingShops = false;
 
 	public static boolean shulkerPeekIfPlayerNearby = true;
 	public static float shulkerPeekHeight = 0.3F;
@@ -363,6 +372,9 @@ public class Settings extends Config {
 	public static int tradeLogNextMergeTimeoutTicks = 100; // 5 seconds
 
 	public static boolean logItemMetadata = false;
+	public static boolean tradeLogItemMetadataDictionary = false;
+	public static boolean tradeLogCsvSyncPerTrade = false;
+	public static boolean tradeLogCsvArchive = false;
 
 	/*
 	 * Currencies
@@ -893,6 +905,11 @@ public class Settings extends Config {
 			taxRate = 100;
 		}
 
+		if (changeFeedCapacity < 1) {
+			Log.warning(this.getLogPrefix() + "'change-feed-capacity' can not be less than 1!");
+			changeFeedCapacity = 1;
+		}
+
 		if (tradeLogMergeDurationTicks < 0) {
 			Log.warning(this.getLogPrefix() + "'trade-log-merge-duration-ticks' cannot be negative.");
 			tradeLogMergeDurationTicks = 0;
@@ -1,6 +1,9 @@
 package com.nisovin.shopkeepers.container.protection;
 
+import java.util.Map;
+
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -9,21 +12,49 @@ import org.bukkit.event.inventory.InventoryMoveItemEvent;
 import org.bukkit.inventory.Inventory;
 
 import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 
 /**
  * Prevents item movement from/to protected containers. Can be disabled via a config setting.
+ * <p>
+ * This event is called for every item transfer of every hopper on the server. In order to keep
+ * this cheap, we first check if there are any protected containers at all, then check for cached
+ * results for the involved inventories, and then check the {@link ProtectedContainerIndex} before
+ * we resolve the container blocks and perform the actual protection check.
  */
 class InventoryMoveItemListener implements Listener {
 
+	// Hoppers, hopper minecarts, and droppers usually repeatedly transfer items between the same
+	// inventories. We therefore cache the protection results per inventory. The cached results are
+	// only valid until the next change of the protected container index. Note: Inventories are
+	// compared based on their underlying container. The cache is bounded, because it can keep
+	// these containers loaded in memory until they are evicted or the cache is cleared.
+	private static final int RESULTS_CACHE_SIZE = 512;
+
 	private final ProtectedContainers protectedContainers;
+	private final ProtectedContainerIndex index;
+	private final Map<Inventory, Boolean> resultsCache = new LRUCache<>(RESULTS_CACHE_SIZE);
+	private int resultsCacheVersion;
 
 	InventoryMoveItemListener(ProtectedContainers protectedContainers) {
 		this.protectedContainers = protectedContainers;
+		this.index = protectedContainers.getIndex();
+		this.resultsCacheVersion = index.getVersion();
 	}
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onInventoryMoveItem(InventoryMoveItemEvent event) {
 		assert event.getSource() != null && event.getDestination() != null;
+		// Quick rejection if there are no protected containers:
+		if (index.isEmpty()) return;
+
+		// Invalidate the cached results if the protected containers have changed:
+		int indexVersion = index.getVersion();
+		if (resultsCacheVersion != indexVersion) {
+			resultsCache.clear();
+			resultsCacheVersion = indexVersion;
+		}
+
 		if (this.isProtectedInventory(event.getSource())
 				|| this.isProtectedInventory(event.getDestination())) {
 			event.setCancelled(true);
@@ -32,10 +63,32 @@ class InventoryMoveItemListener implements Listener {
 
 	private boolean isProtectedInventory(Inventory inventory) {
 		assert inventory != null;
+		Boolean cachedResult = resultsCache.get(inventory);
+		if (cachedResult != null) return cachedResult;
+
+		boolean result = this.checkProtectedInventory(inventory);
+		resultsCache.put(inventory, result);
+		return result;
+	}
+
+	private boolean checkProtectedInventory(Inventory inventory) {
 		// Note: We avoid calling Inventory#getHolder here for performance reasons. For block
 		// inventories this creates a snapshot of the block's BlockState.
 		Location inventoryLocation = inventory.getLocation(); // can be null
 		if (inventoryLocation == null) return false;
+		World world = inventoryLocation.getWorld();
+		if (world == null) return false;
+
+		// Check the index before we resolve the block:
+		if (!index.mightBeProtected(
+				world.getName(),
+				inventoryLocation.getBlockX(),
+				inventoryLocation.getBlockY(),
+				inventoryLocation.getBlockZ()
+		)) {
+			return false;
+		}
+
 		Block block = inventoryLocation.getBlock(); // not null
 		if (!ShopContainers.isSupportedContainer(block.getType())) return false;
 		// Also checks for protected connected chests (double chests):
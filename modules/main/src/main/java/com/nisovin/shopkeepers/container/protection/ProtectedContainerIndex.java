@@ -0,0 +1,135 @@
+package com.nisovin.shopkeepers.container.protection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.LongCountMap;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A compact index of the blocks that might be protected containers.
+ * <p>
+ * For every directly protected container, this indexes the container block itself, as well as its
+ * horizontally adjacent blocks, since those might be chests that are connected to the container
+ * and are therefore protected as well. Blocks that are not contained in this index are guaranteed
+ * to not be protected. For blocks that are contained in this index, the actual protection needs to
+ * be checked via {@link ProtectedContainers#isContainerProtected(org.bukkit.block.Block,
+ * org.bukkit.entity.Player)}.
+ * <p>
+ * Blocks are indexed by their packed coordinates per world. Additionally, the chunks that contain
+ * indexed blocks are indexed per world, so that blocks in chunks without any protected containers
+ * can be rejected by a single lookup.
+ * <p>
+ * The index {@link #getVersion() version} is incremented whenever the index changes, so that
+ * components can cache protection checks until the next change.
+ */
+class ProtectedContainerIndex {
+
+	private static final class WorldIndex {
+
+		final LongCountMap chunks = new LongCountMap();
+		final LongCountMap blocks = new LongCountMap();
+
+		boolean isEmpty() {
+			return blocks.isEmpty();
+		}
+	}
+
+	// The directly protected block, and its horizontally adjacent blocks (potentially connected
+	// chests):
+	private static final int[][] INDEXED_OFFSETS = {
+			{ 0, 0 },
+			{ 1, 0 },
+			{ -1, 0 },
+			{ 0, 1 },
+			{ 0, -1 }
+	};
+
+	// Same packing as Minecraft's block positions: 26 bits for x and z, 12 bits for y.
+	static long packBlock(int x, int y, int z) {
+		return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+	}
+
+	static long packChunk(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	private final Map<String, WorldIndex> worlds = new HashMap<>();
+	private int version = 0;
+
+	/**
+	 * Gets the version of this index.
+	 * <p>
+	 * The version changes whenever the index changes.
+	 * 
+	 * @return the version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Checks if this index is empty, i.e. if there are no protected containers.
+	 * 
+	 * @return <code>true</code> if empty
+	 */
+	public boolean isEmpty() {
+		return worlds.isEmpty();
+	}
+
+	public void add(String worldName, int x, int y, int z) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldIndex worldIndex = worlds.computeIfAbsent(worldName, key -> new WorldIndex());
+		assert worldIndex != null;
+		for (int[] offset : INDEXED_OFFSETS) {
+			int blockX = x + offset[0];
+			int blockZ = z + offset[1];
+			worldIndex.blocks.increment(packBlock(blockX, y, blockZ));
+			worldIndex.chunks.increment(packChunk(blockX >> 4, blockZ >> 4));
+		}
+		version++;
+	}
+
+	public void remove(String worldName, int x, int y, int z) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldIndex worldIndex = worlds.get(worldName);
+		if (worldIndex == null) return;
+		for (int[] offset : INDEXED_OFFSETS) {
+			int blockX = x + offset[0];
+			int blockZ = z + offset[1];
+			worldIndex.blocks.decrement(packBlock(blockX, y, blockZ));
+			worldIndex.chunks.decrement(packChunk(blockX >> 4, blockZ >> 4));
+		}
+		if (worldIndex.isEmpty()) {
+			worlds.remove(worldName);
+		}
+		version++;
+	}
+
+	public void clear() {
+		worlds.clear();
+		version++;
+	}
+
+	/**
+	 * Checks if the specified block might be a protected container.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @param x
+	 *            the block's x coordinate
+	 * @param y
+	 *            the block's y coordinate
+	 * @param z
+	 *            the block's z coordinate
+	 * @return <code>false</code> if the block is guaranteed to not be a protected container
+	 */
+	public boolean mightBeProtected(String worldName, int x, int y, int z) {
+		@Nullable WorldIndex worldIndex = worlds.get(worldName);
+		if (worldIndex == null) return false;
+		if (!worldIndex.chunks.contains(packChunk(x >> 4, z >> 4))) return false;
+		return worldIndex.blocks.contains(packBlock(x, y, z));
+	}
+}
@@ -71,6 +71,7 @@ public class ProtectedContainers {
 	private final ContainerProtectionListener containerProtectionListener = new ContainerProtectionListener(Unsafe.initialized(this));
 	private final InventoryMoveItemListener inventoryMoveItemListener = new InventoryMoveItemListener(Unsafe.initialized(this));
 	private final Map<BlockLocation, List<AbstractPlayerShopkeeper>> protectedContainers = new HashMap<>();
+	private final ProtectedContainerIndex index = new ProtectedContainerIndex();
 
 	public ProtectedContainers(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -90,6 +91,17 @@ public class ProtectedContainers {
 		HandlerList.unregisterAll(containerProtectionListener);
 		HandlerList.unregisterAll(inventoryMoveItemListener);
 		protectedContainers.clear();
+		index.clear();
+	}
+
+	/**
+	 * Gets the {@link ProtectedContainerIndex} that can be used to quickly rule out that a block is
+	 * a protected container.
+	 * 
+	 * @return the index
+	 */
+	ProtectedContainerIndex getIndex() {
+		return index;
 	}
 
 	private BlockLocation getSharedKey(String worldName, int x, int y, int z) {
@@ -106,6 +118,12 @@ public class ProtectedContainers {
 		);
 		assert shopkeepers != null;
 		shopkeepers.add(shopkeeper);
+		index.add(
+				Unsafe.assertNonNull(location.getWorldName()),
+				location.getX(),
+				location.getY(),
+				location.getZ()
+		);
 	}
 
 	public void removeContainer(BlockLocation location, AbstractPlayerShopkeeper shopkeeper) {
@@ -114,15 +132,19 @@ public class ProtectedContainers {
 		// This operation either updates the value inside the Map, or removes it. It does not insert
 		// a new entry for the passed key. We can therefore safely use the given location, without
 		// first creating an immutable copy of it.
-		protectedContainers.computeIfPresent(location, (key, shopkeepers) -> {
-			shopkeepers.remove(shopkeeper);
-			if (shopkeepers.isEmpty()) {
-				// TODO Requires uncheckedNull due to Checker Framework limitation
-				return Unsafe.uncheckedNull(); // Removes the mapping
-			} else {
-				return shopkeepers; // Keeps the updated mapping
-			}
-		});
+		List<AbstractPlayerShopkeeper> shopkeepers = protectedContainers.get(location);
+		if (shopkeepers == null) return;
+		if (!shopkeepers.remove(shopkeeper)) return; // The shopkeeper was not using the container
+
+		if (shopkeepers.isEmpty()) {
+			protectedContainers.remove(location);
+		}
+		index.remove(
+				Unsafe.assertNonNull(location.getWorldName()),
+				location.getX(),
+				location.getY(),
+				location.getZ()
+		);
 	}
 
 	// Gets the shopkeepers that are directly using the container at the specified location:
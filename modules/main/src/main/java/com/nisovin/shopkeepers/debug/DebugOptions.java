@@ -14,6 +14,9 @@ public final class DebugOptions {
 	public static final String logAllEvents = add("log-all-events");
 	// Prints the registered listeners for the first call of each event.
 	public static final String printListeners = add("print-listeners");
+	// Measures the calls and execution durations of our own event handlers. The stats are printed
+	// when the profiling is stopped again.
+	public static final String profileListeners = add("profile-listeners");
 	// Enables debugging output related to shopkeeper activation.
 	public static final String shopkeeperActivation = add("shopkeeper-activation");
 	// Enables debug output related to shopkeeper ticking activities that may be considered
@@ -1,5 +1,7 @@
 package com.nisovin.shopkeepers.debug.events;
 
+import java.util.List;
+
 import org.bukkit.Bukkit;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -14,10 +16,12 @@ import com.nisovin.shopkeepers.util.java.Validate;
 public class EventDebugger {
 
 	private final SKShopkeepersPlugin plugin;
+	private final ListenerProfiler listenerProfiler;
 
 	public EventDebugger(SKShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
+		this.listenerProfiler = new ListenerProfiler(plugin);
 	}
 
 	public void onEnable() {
@@ -30,10 +34,32 @@ public class EventDebugger {
 				if (logAllEvent || printListeners) {
 					DebugListener.register(logAllEvent, printListeners);
 				}
+
+				this.updateListenerProfiler();
 			}, 10L);
 		}
 	}
 
 	public void onDisable() {
+		listenerProfiler.stop();
+	}
+
+	public ListenerProfiler getListenerProfiler() {
+		return listenerProfiler;
+	}
+
+	/**
+	 * Starts or stops the {@link ListenerProfiler} depending on the current debug settings.
+	 * 
+	 * @return the report of the profiling session if it has been stopped, otherwise an empty list
+	 */
+	public List<String> updateListenerProfiler() {
+		if (Debug.isDebugging(DebugOptions.profileListeners)) {
+			listenerProfiler.start();
+		} else if (listenerProfiler.isRunning()) {
+			listenerProfiler.stop();
+			return listenerProfiler.getReport();
+		}
+		return List.of();
 	}
 }
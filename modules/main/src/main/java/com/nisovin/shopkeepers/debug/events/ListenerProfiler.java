@@ -0,0 +1,278 @@
+package com.nisovin.shopkeepers.debug.events;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Measures the cost of the event handlers of a plugin.
+ * <p>
+ * While running, each {@link RegisteredListener} of the plugin is replaced with a wrapper that
+ * records the number of calls, the total and maximum execution duration, and the ratio of calls
+ * that returned early. Since we cannot observe the control flow inside the event handlers, calls
+ * that complete within {@link #EARLY_RETURN_NANOS} are counted as early returns. This includes the
+ * calls that are skipped because the event has already been cancelled.
+ * <p>
+ * When the profiler is stopped, the original {@link RegisteredListener}s are restored, so that the
+ * profiler has no overhead while it is not running. Event handlers that are registered while the
+ * profiler is running are not profiled.
+ */
+public class ListenerProfiler {
+
+	/**
+	 * Calls that complete within this duration are considered early returns.
+	 */
+	public static final long EARLY_RETURN_NANOS = 1000L; // 1 microsecond
+
+	private static final int REPORT_MAX_ENTRIES = 15;
+
+	private static final class HandlerStats {
+
+		private final RegisteredListener registeredListener;
+		// Set by the first call, since the handler lists do not expose their event types:
+		private volatile @Nullable String eventName = null;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder earlyReturns = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		HandlerStats(RegisteredListener registeredListener) {
+			assert registeredListener != null;
+			this.registeredListener = registeredListener;
+		}
+
+		// The event executors do not expose the handler methods. The listener class, the event
+		// type, and the priority usually identify the handler method well enough.
+		String getName() {
+			String eventName = this.eventName;
+			return registeredListener.getListener().getClass().getSimpleName()
+					+ " " + (eventName != null ? eventName : "?")
+					+ " (" + registeredListener.getPriority() + ")";
+		}
+
+		void record(Event event, long nanos) {
+			if (eventName == null) {
+				eventName = event.getEventName();
+			}
+			calls.increment();
+			if (nanos <= EARLY_RETURN_NANOS) {
+				earlyReturns.increment();
+			}
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+	}
+
+	private static final class ProfilingRegisteredListener extends RegisteredListener {
+
+		private final RegisteredListener delegate;
+		private final HandlerStats stats;
+
+		ProfilingRegisteredListener(RegisteredListener delegate, HandlerStats stats) {
+			super(
+					delegate.getListener(),
+					(listener, event) -> {
+						throw new IllegalStateException("Not supposed to be called!");
+					},
+					delegate.getPriority(),
+					delegate.getPlugin(),
+					delegate.isIgnoringCancelled()
+			);
+			this.delegate = delegate;
+			this.stats = stats;
+		}
+
+		@Override
+		public void callEvent(Event event) throws EventException {
+			long startNanos = System.nanoTime();
+			try {
+				delegate.callEvent(event);
+			} finally {
+				stats.record(event, System.nanoTime() - startNanos);
+			}
+		}
+	}
+
+	private final Plugin plugin;
+	// Only accessed on the server's main thread:
+	private boolean running = false;
+	private long startNanos = 0L;
+	// The stats of the current or last profiling session, by the original registered listeners:
+	private final Map<RegisteredListener, HandlerStats> stats = new IdentityHashMap<>();
+
+	/**
+	 * Creates a new {@link ListenerProfiler}.
+	 * 
+	 * @param plugin
+	 *            the plugin whose event handlers are profiled, not <code>null</code>
+	 */
+	public ListenerProfiler(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Checks if the profiler is running.
+	 * 
+	 * @return <code>true</code> if running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Starts a new profiling session.
+	 * <p>
+	 * This resets the stats of the previous session. Has no effect if the profiler is already
+	 * running.
+	 */
+	public void start() {
+		if (running) return;
+		running = true;
+		startNanos = System.nanoTime();
+		stats.clear();
+
+		int handlerCount = this.replaceRegisteredListeners(registeredListener -> {
+			if (registeredListener.getPlugin() != plugin) return null;
+			if (registeredListener instanceof ProfilingRegisteredListener) return null;
+
+			HandlerStats handlerStats = new HandlerStats(registeredListener);
+			stats.put(registeredListener, handlerStats);
+			return new ProfilingRegisteredListener(registeredListener, handlerStats);
+		});
+		Log.info("Started profiling " + handlerCount + " event handlers.");
+	}
+
+	/**
+	 * Stops the current profiling session.
+	 * <p>
+	 * The stats of the stopped session remain available until the next session is started. Has no
+	 * effect if the profiler is not running.
+	 */
+	public void stop() {
+		if (!running) return;
+		running = false;
+
+		this.replaceRegisteredListeners(registeredListener -> {
+			if (!(registeredListener instanceof ProfilingRegisteredListener)) return null;
+			ProfilingRegisteredListener profilingListener
+					= (ProfilingRegisteredListener) registeredListener;
+			if (!stats.containsKey(profilingListener.delegate)) return null; // Not ours
+			return profilingListener.delegate;
+		});
+		Log.info("Stopped profiling event handlers.");
+	}
+
+	private interface Replacement {
+		// Returns null if the registered listener is not replaced.
+		public @Nullable RegisteredListener getReplacement(RegisteredListener registeredListener);
+	}
+
+	// Returns the number of replaced registered listeners.
+	private int replaceRegisteredListeners(Replacement replacement) {
+		int replacedCount = 0;
+		for (HandlerList handlerList : HandlerList.getHandlerLists()) {
+			// Sorted by priority, and by registration order within each priority. Changes to the
+			// handler list bake a new array, so we can safely iterate this one while doing changes:
+			RegisteredListener[] registeredListeners = handlerList.getRegisteredListeners();
+			List<@Nullable RegisteredListener> replacements = new ArrayList<>(
+					registeredListeners.length
+			);
+			boolean[] replacedPriorities = new boolean[EventPriority.values().length];
+			for (RegisteredListener registeredListener : registeredListeners) {
+				@Nullable RegisteredListener replacementListener = replacement.getReplacement(
+						registeredListener
+				);
+				replacements.add(replacementListener);
+				if (replacementListener != null) {
+					replacedPriorities[registeredListener.getPriority().ordinal()] = true;
+					replacedCount++;
+				}
+			}
+
+			// Unregister and re-register all registered listeners of the affected priorities, in
+			// order to preserve their execution order:
+			for (int i = 0; i < registeredListeners.length; i++) {
+				RegisteredListener registeredListener = registeredListeners[i];
+				if (!replacedPriorities[registeredListener.getPriority().ordinal()]) continue;
+
+				@Nullable RegisteredListener replacementListener = replacements.get(i);
+				handlerList.unregister(registeredListener);
+				handlerList.register(replacementListener != null
+						? replacementListener
+						: registeredListener);
+			}
+		}
+		return replacedCount;
+	}
+
+	/**
+	 * Creates a report of the stats of the current or last profiling session.
+	 * <p>
+	 * The event handlers are sorted by their total execution duration.
+	 * 
+	 * @return the report lines
+	 */
+	public List<String> getReport() {
+		List<String> report = new ArrayList<>();
+		if (stats.isEmpty()) {
+			report.add("No event handlers have been profiled yet.");
+			return report;
+		}
+
+		double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0D;
+		report.add(String.format(Locale.ROOT,
+				"Event handler stats (%s, %.1f s, %d handlers):",
+				running ? "running" : "stopped",
+				durationSeconds,
+				stats.size()
+		));
+
+		List<HandlerStats> sortedStats = new ArrayList<>(stats.values());
+		sortedStats.removeIf(handlerStats -> handlerStats.calls.sum() == 0);
+		sortedStats.sort(Comparator.comparingLong(
+				(HandlerStats handlerStats) -> handlerStats.totalNanos.sum()
+		).reversed());
+
+		int entries = Math.min(sortedStats.size(), REPORT_MAX_ENTRIES);
+		for (int i = 0; i < entries; i++) {
+			HandlerStats handlerStats = sortedStats.get(i);
+			long calls = handlerStats.calls.sum();
+			long totalNanos = handlerStats.totalNanos.sum();
+			report.add(String.format(Locale.ROOT,
+					"  %s: %d calls, total %.3f ms, avg %.2f µs, max %.2f µs, early %.0f%%",
+					handlerStats.getName(),
+					calls,
+					totalNanos / 1_000_000.0D,
+					totalNanos / 1000.0D / calls,
+					handlerStats.maxNanos.get() / 1000.0D,
+					100.0D * handlerStats.earlyReturns.sum() / calls
+			));
+		}
+		int omitted = sortedStats.size() - entries;
+		if (omitted > 0) {
+			report.add("  ... and " + omitted + " more.");
+		}
+		int uncalled = stats.size() - sortedStats.size();
+		if (uncalled > 0) {
+			report.add("  " + uncalled + " handlers have not been called.");
+		}
+		return report;
+	}
+}
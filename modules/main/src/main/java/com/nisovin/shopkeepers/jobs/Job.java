@@ -0,0 +1,198 @@
+package com.nisovin.shopkeepers.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A resumable bulk operation that processes a fixed list of work units in time slices across
+ * several ticks.
+ * <p>
+ * Jobs are started via {@link Jobs#start(Job)}. The work units are captured when the job is
+ * created. Since the processing of the work units is spread across several ticks, the state of the
+ * work units might change in the meantime, e.g. shopkeepers might have been deleted. Jobs are
+ * therefore expected to check the validity of each work unit before processing it.
+ * <p>
+ * Any changes to the shopkeepers are saved once after the job has ended, instead of after each
+ * processed work unit.
+ * 
+ * @param <T>
+ *            the type of work units
+ */
+public abstract class Job<@NonNull T> {
+
+	private final String name;
+	private final @Nullable CommandSender sender;
+	private final List<? extends T> workUnits;
+
+	private int id = -1; // Assigned when the job is started
+	private JobState state = JobState.PENDING;
+	private int nextWorkUnitIndex = 0;
+	private long startTimeMillis = 0L;
+
+	/**
+	 * Creates a new {@link Job}.
+	 * 
+	 * @param name
+	 *            the job name, not <code>null</code> or empty
+	 * @param sender
+	 *            the command sender that started the job and that is informed about its progress,
+	 *            or <code>null</code>
+	 * @param workUnits
+	 *            the work units, not <code>null</code>, copied
+	 */
+	protected Job(String name, @Nullable CommandSender sender, Collection<? extends T> workUnits) {
+		Validate.notEmpty(name, "name is null or empty");
+		Validate.notNull(workUnits, "workUnits is null");
+		this.name = name;
+		this.sender = sender;
+		this.workUnits = new ArrayList<>(workUnits);
+	}
+
+	/**
+	 * Gets the job id.
+	 * 
+	 * @return the job id, or <code>-1</code> if the job has not yet been started
+	 */
+	public final int getId() {
+		return id;
+	}
+
+	public final String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the command sender that started this job.
+	 * 
+	 * @return the command sender, or <code>null</code>
+	 */
+	public final @Nullable CommandSender getSender() {
+		return sender;
+	}
+
+	/**
+	 * Gets the command sender that started this job, if it is still available to receive messages.
+	 * 
+	 * @return the command sender, or <code>null</code> if not available
+	 */
+	protected final @Nullable CommandSender getOnlineSender() {
+		if (sender instanceof Player && !((Player) sender).isOnline()) return null;
+		return sender;
+	}
+
+	public final JobState getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the total number of work units.
+	 * 
+	 * @return the total number of work units
+	 */
+	public final int getTotalWorkUnits() {
+		return workUnits.size();
+	}
+
+	/**
+	 * Gets the number of already processed work units.
+	 * 
+	 * @return the number of processed work units
+	 */
+	public final int getProcessedWorkUnits() {
+		return nextWorkUnitIndex;
+	}
+
+	/**
+	 * Gets the progress of this job in percent.
+	 * 
+	 * @return the progress in percent
+	 */
+	public final int getProgressPercent() {
+		if (workUnits.isEmpty()) return 100;
+		return (int) (nextWorkUnitIndex * 100L / workUnits.size());
+	}
+
+	/**
+	 * Gets the time at which this job was started.
+	 * 
+	 * @return the start time in milliseconds, or <code>0</code> if the job has not yet been
+	 *         started
+	 */
+	public final long getStartTimeMillis() {
+		return startTimeMillis;
+	}
+
+	final void start(int id) {
+		Validate.State.isTrue(state == JobState.PENDING, "The job has already been started!");
+		this.id = id;
+		this.state = JobState.RUNNING;
+		this.startTimeMillis = System.currentTimeMillis();
+		this.onStart();
+	}
+
+	final boolean hasNextWorkUnit() {
+		return nextWorkUnitIndex < workUnits.size();
+	}
+
+	final void processNextWorkUnit() {
+		assert state == JobState.RUNNING && this.hasNextWorkUnit();
+		T workUnit = workUnits.get(nextWorkUnitIndex);
+		nextWorkUnitIndex++;
+		this.process(workUnit);
+	}
+
+	final void complete() {
+		assert state == JobState.RUNNING;
+		state = JobState.COMPLETED;
+		this.onCompleted();
+	}
+
+	final void cancel() {
+		assert state == JobState.RUNNING;
+		state = JobState.CANCELLED;
+		this.onCancelled();
+	}
+
+	/**
+	 * This is called when the job is started.
+	 */
+	protected void onStart() {
+	}
+
+	/**
+	 * Processes the given work unit.
+	 * <p>
+	 * This is called on the main thread and is expected to only take a short amount of time.
+	 * 
+	 * @param workUnit
+	 *            the work unit
+	 */
+	protected abstract void process(T workUnit);
+
+	/**
+	 * This is called when all work units have been processed.
+	 * <p>
+	 * This is invoked before the changes of the job are saved.
+	 */
+	protected void onCompleted() {
+	}
+
+	/**
+	 * This is called when the job has been cancelled, e.g. by command or because the plugin is
+	 * disabled.
+	 * <p>
+	 * By default, this calls {@link #onCompleted()} in order to report the results of the already
+	 * processed work units.
+	 */
+	protected void onCancelled() {
+		this.onCompleted();
+	}
+}
@@ -0,0 +1,33 @@
+package com.nisovin.shopkeepers.jobs;
+
+/**
+ * The state of a {@link Job}.
+ */
+public enum JobState {
+
+	/**
+	 * The job has not yet been started.
+	 */
+	PENDING,
+	/**
+	 * The job is running, i.e. it processes its work units in time slices every tick.
+	 */
+	RUNNING,
+	/**
+	 * All work units of the job have been processed.
+	 */
+	COMPLETED,
+	/**
+	 * The job has been cancelled before all of its work units have been processed.
+	 */
+	CANCELLED;
+
+	/**
+	 * Checks if this state is a final state, i.e. if the job has ended.
+	 * 
+	 * @return <code>true</code> if this is a final state
+	 */
+	public boolean isFinal() {
+		return this == COMPLETED || this == CANCELLED;
+	}
+}
@@ -0,0 +1,235 @@
+package com.nisovin.shopkeepers.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Runs {@link Job}s in time slices on the main thread.
+ * <p>
+ * All running jobs share a fixed time budget per tick, so that bulk operations over large numbers
+ * of shopkeepers do not freeze the server. The budget is split evenly between the running jobs.
+ * Each running job processes at least one work unit per tick, so that jobs always make progress.
+ */
+public class Jobs {
+
+	private static final long TIME_BUDGET_PER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+	private static final long PROGRESS_REPORT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5L);
+
+	private final SKShopkeepersPlugin plugin;
+	// Ordered by job id:
+	private final Map<Integer, Job<?>> runningJobs = new LinkedHashMap<>();
+	private final Collection<? extends Job<?>> runningJobsView
+			= Collections.unmodifiableCollection(runningJobs.values());
+	private int nextJobId = 1;
+	private @Nullable ScheduledTask task = null;
+	private long lastProgressReportMillis = 0L;
+	private boolean enabled = false;
+
+	public Jobs(SKShopkeepersPlugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		enabled = true;
+	}
+
+	public void onDisable() {
+		// The shopkeeper storage saves any changes of the cancelled jobs during its own shutdown:
+		enabled = false;
+
+		// Cancel all running jobs:
+		if (!runningJobs.isEmpty()) {
+			Log.info("Cancelling " + runningJobs.size() + " running job(s).");
+			new ArrayList<>(runningJobs.values()).forEach(this::cancel);
+		}
+		this.stopTask();
+		nextJobId = 1;
+	}
+
+	/**
+	 * Gets the currently running jobs.
+	 * 
+	 * @return an unmodifiable view on the running jobs, ordered by their ids
+	 */
+	public Collection<? extends Job<?>> getRunningJobs() {
+		return runningJobsView;
+	}
+
+	/**
+	 * Gets the running job with the given id.
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @return the job, or <code>null</code> if there is no running job with this id
+	 */
+	public @Nullable Job<?> getRunningJob(int jobId) {
+		return runningJobs.get(jobId);
+	}
+
+	/**
+	 * Starts the given job.
+	 * <p>
+	 * If the job has no work units, it is completed right away.
+	 * 
+	 * @param job
+	 *            the job, not <code>null</code>
+	 */
+	public void start(Job<?> job) {
+		Validate.notNull(job, "job is null");
+		Validate.State.isTrue(enabled, "Jobs are disabled!");
+		int jobId = nextJobId++;
+		job.start(jobId);
+		Log.debug(() -> "Started job " + jobId + " (" + job.getName() + ") with "
+				+ job.getTotalWorkUnits() + " work units.");
+
+		if (!job.hasNextWorkUnit()) {
+			this.end(job, false);
+			return;
+		}
+
+		runningJobs.put(jobId, job);
+		CommandSender sender = job.getOnlineSender();
+		if (sender != null) {
+			TextUtils.sendMessage(sender, Messages.jobStarted,
+					"id", jobId,
+					"name", job.getName(),
+					"total", job.getTotalWorkUnits()
+			);
+		}
+		this.startTask();
+	}
+
+	/**
+	 * Cancels the given running job.
+	 * <p>
+	 * Any changes of the already processed work units are kept and saved.
+	 * 
+	 * @param job
+	 *            the job, not <code>null</code>
+	 * @return <code>true</code> if the job was running and has been cancelled
+	 */
+	public boolean cancel(Job<?> job) {
+		Validate.notNull(job, "job is null");
+		if (runningJobs.remove(job.getId()) != job) return false;
+
+		CommandSender sender = job.getOnlineSender();
+		if (sender != null) {
+			TextUtils.sendMessage(sender, Messages.jobCancelled,
+					"id", job.getId(),
+					"name", job.getName(),
+					"processed", job.getProcessedWorkUnits(),
+					"total", job.getTotalWorkUnits()
+			);
+		}
+		this.end(job, true);
+		return true;
+	}
+
+	private void end(Job<?> job, boolean cancelled) {
+		try {
+			if (cancelled) {
+				job.cancel();
+			} else {
+				job.complete();
+			}
+		} catch (Exception e) {
+			Log.severe("Error while ending job " + job.getId() + " (" + job.getName() + ")!", e);
+		}
+		Log.debug(() -> "Job " + job.getId() + " (" + job.getName() + ") "
+				+ (cancelled ? "cancelled" : "completed") + " after "
+				+ (System.currentTimeMillis() - job.getStartTimeMillis()) + " ms.");
+
+		// Save all changes of the job at once:
+		if (enabled) {
+			plugin.getShopkeeperStorage().saveIfDirty();
+		}
+
+		if (runningJobs.isEmpty()) {
+			this.stopTask();
+		}
+	}
+
+	private void startTask() {
+		if (task != null) return;
+		task = plugin.getTaskScheduler().runGlobalTimer(this::tick, 1L, 1L);
+	}
+
+	private void stopTask() {
+		if (task == null) return;
+		task.cancel();
+		task = null;
+	}
+
+	private void tick() {
+		if (runningJobs.isEmpty()) {
+			this.stopTask();
+			return;
+		}
+
+		long jobBudgetNanos = TIME_BUDGET_PER_TICK_NANOS / runningJobs.size();
+		List<Job<?>> completedJobs = new ArrayList<>();
+		Iterator<Job<?>> iterator = runningJobs.values().iterator();
+		while (iterator.hasNext()) {
+			Job<?> job = iterator.next();
+			long deadlineNanos = System.nanoTime() + jobBudgetNanos;
+			try {
+				do {
+					job.processNextWorkUnit();
+				} while (job.hasNextWorkUnit() && System.nanoTime() < deadlineNanos);
+			} catch (Exception e) {
+				// Skip the failed work unit, but continue with the remaining work units:
+				Log.severe("Error while processing job " + job.getId() + " (" + job.getName()
+						+ ")!", e);
+			}
+
+			if (!job.hasNextWorkUnit()) {
+				iterator.remove();
+				completedJobs.add(job);
+			}
+		}
+
+		// Note: Completing the jobs may send messages, start new jobs, or trigger saves.
+		completedJobs.forEach(job -> this.end(job, false));
+
+		this.reportProgress();
+	}
+
+	private void reportProgress() {
+		long nowMillis = System.currentTimeMillis();
+		if (nowMillis - lastProgressReportMillis < PROGRESS_REPORT_INTERVAL_MILLIS) return;
+		lastProgressReportMillis = nowMillis;
+
+		runningJobs.values().forEach(job -> {
+			// Skip jobs that have only just been started:
+			if (nowMillis - job.getStartTimeMillis() < PROGRESS_REPORT_INTERVAL_MILLIS) return;
+
+			CommandSender sender = job.getOnlineSender();
+			if (sender == null) return;
+
+			TextUtils.sendMessage(sender, Messages.jobProgress,
+					"id", job.getId(),
+					"name", job.getName(),
+					"processed", job.getProcessedWorkUnits(),
+					"total", job.getTotalWorkUnits(),
+					"progress", job.getProgressPercent()
+			);
+		});
+	}
+}
@@ -408,6 +408,29 @@ public class Messages extends Config {
 	public static Text currencyItemSetToMainHandItem = Text.parse("&aThe currency item '&e{currencyId}&a' has been set to the &eitem in your main hand&a!");
 	public static Text itemsConverted = Text.parse("&aConverted &e{count}&a item stack(s)!");
 	public static Text itemsUpdated = Text.parse("&aUpdated &e{count}&a item(s)!");
+	public static Text tradeLogDisabled = Text.parse("&cTrade logging is disabled.");
+	public static Text tradeLogQueryStarted = Text.parse("&7Querying the trade logs of the last &e{days}&7 day(s) ...");
+	public static Text tradeLogQueryHeader = Text.parse("&aTrades by &e{grouping}&a from &e{from}&a to &e{to}&a: &e{trades}&a trade(s) in &e{records}&a record(s) &7({duration} ms)");
+	public static Text tradeLogQueryEntry = Text.parse("  &e{rank}) &7{name}&8: &e{trades}&7 trade(s), &e{items}&7 result item(s)");
+	public static Text tradeLogQueryMore = Text.parse("&7  ... and &e{count}&7 more.");
+	public static Text tradeLogQueryNoResults = Text.parse("&7No trades have been logged in this period.");
+	public static Text tradeLogQueryFailed = Text.parse("&cThe trade log query failed! Check the server log for details.");
+	public static Text jobStarted = Text.parse("&aStarted job &e#{id}&a (&e{name}&a) with &e{total}&a step(s). Use &e/shopkeeper jobs&a to view its progress.");
+	public static Text jobProgress = Text.parse("&7Job &e#{id}&7 (&e{name}&7): &e{processed}&7/&e{total}&7 (&e{progress}%&7)");
+	public static Text jobCancelled = Text.parse("&cJob &e#{id}&c (&e{name}&c) has been cancelled after &e{processed}&c/&e{total}&c step(s).");
+	public static Text findItemMissing = Text.parse("&7Specify an item type, or hold the item to search for in your main hand.");
+	public static Text findNoResults = Text.parse("&7No shops found for item &e{item}&7.");
+	public static Text findHeader = Text.parse("&aShops &e{direction}&a item &e{item}&a (sorted by &e{sorting}&a): &e{count}&a offer(s)");
+	public static Text findEntry = Text.parse("  &e{rank}) &7{shopName}&8(&7#{shopId}&8) at &7({location})&8: &7{trade} &8- {stock}");
+	public static Text findMore = Text.parse("&7  ... and &e{count}&7 more.");
+	public static Text findStockAvailable = Text.parse("&ain stock");
+	public static Text findStockOutOfStock = Text.parse("&cout of stock");
+	public static Text findStockUnknown = Text.parse("&7stock unknown");
+	public static Text findIndexing = Text.parse("&7Note: The offers of &e{count}&7 shop(s) are still being indexed. The results might be incomplete.");
+	public static Text jobNotFound = Text.parse("&cThere is no running job with id &e{id}&c!");
+	public static Text noJobsRunning = Text.parse("&7There are no running jobs.");
+	public static Text jobsListHeader = Text.parse("&aRunning jobs: &e{count}");
+	public static Text jobsListEntry = Text.parse("  &e#{id}) &7{name}&8: &e{processed}&7/&e{total}&7 (&e{progress}%&7), running for &e{duration}s&7, started by &e{sender}");
 	public static String unknownBookAuthor = c("Unknown");
 
 	public static Text tradePermSet = Text.parse("&aThe shop's trading permission has been set to '&e{perm}&a'!");
@@ -798,6 +821,9 @@ public class Messages extends Config {
 	public static Text commandDescriptionSetCurrency = Text.parse("Changes the currency item to the item held in hand.");
 	public static Text commandDescriptionConvertItems = Text.parse("Converts the held (or all) items to conform to Spigot's data format.");
 	public static Text commandDescriptionUpdateItems = Text.parse("Updates third-party items (if they support it).");
+	public static Text commandDescriptionTradeLog = Text.parse("Shows the top shops, owners, items, or days by logged trades.");
+	public static Text commandDescriptionFind = Text.parse("Finds the shops that sell or buy the specified (or held) item.");
+	public static Text commandDescriptionJobs = Text.parse("Lists the running bulk operations, or cancels one.");
 	public static Text commandDescriptionRemote = Text.parse("Remotely opens a shop (Optionally: For another player).");
 	public static Text commandDescriptionRemoteEdit = Text.parse("Remotely edits a shop.");
 	public static Text commandDescriptionTransfer = Text.parse("Transfers the ownership of a shop.");
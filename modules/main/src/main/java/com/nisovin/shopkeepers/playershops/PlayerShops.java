@@ -1,5 +1,7 @@
 package com.nisovin.shopkeepers.playershops;
 
+import org.bukkit.entity.Player;
+
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.playershops.inactivity.PlayerInactivity;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -32,6 +34,14 @@ public class PlayerShops {
 		shopOwnerNameUpdates.onDisable();
 	}
 
+	public void onPlayerJoin(Player player) {
+		playerInactivity.onPlayerJoin(player);
+	}
+
+	public void onPlayerQuit(Player player) {
+		playerInactivity.onPlayerQuit(player);
+	}
+
 	public PlayerShopsLimit getPlayerShopsLimit() {
 		return playerShopsLimit;
 	}
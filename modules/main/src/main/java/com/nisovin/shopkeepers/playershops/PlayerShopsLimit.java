@@ -2,13 +2,17 @@ package com.nisovin.shopkeepers.playershops;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 import org.bukkit.entity.Player;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 public class PlayerShopsLimit {
@@ -103,4 +107,23 @@ public class PlayerShopsLimit {
 		}
 		return maxShops;
 	}
+
+	/**
+	 * Gets the number of player shops that are owned by the specified player and count towards the
+	 * player's maximum shops limit.
+	 * <p>
+	 * This includes the player shops whose loading is deferred because their world is not loaded.
+	 * 
+	 * @param ownerId
+	 *            the owner's unique id, not <code>null</code>
+	 * @return the number of owned shops
+	 */
+	public static int getOwnedShopsCount(UUID ownerId) {
+		Validate.notNull(ownerId, "ownerId is null");
+		SKShopkeepersPlugin plugin = SKShopkeepersPlugin.getInstance();
+		SKShopkeeperRegistry shopkeeperRegistry = plugin.getShopkeeperRegistry();
+		SKShopkeeperStorage shopkeeperStorage = plugin.getShopkeeperStorage();
+		return shopkeeperRegistry.getPlayerShopkeepersByOwner(ownerId).size()
+				+ shopkeeperStorage.getDeferredPlayerShopkeepersCount(ownerId);
+	}
 }
@@ -6,11 +6,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -19,15 +19,23 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.api.user.User;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.jobs.Job;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
-import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
  * Identifies and deletes the shops that are owned by inactive players.
+ * <p>
+ * The last seen times of the shop owners are looked up in the {@link PlayerLastSeenIndex}. The shop
+ * owners that are not indexed yet are looked up asynchronously from their player data, and then
+ * added to the index. Before their shops are deleted, the shop owners that the index identifies as
+ * inactive are also checked against their player data, and the later of the two times is used.
+ * This accounts for players that joined while the index was not updated, for example while the
+ * plugin was not installed.
  */
 class DeleteShopsOfInactivePlayersProcedure {
 
@@ -49,18 +57,32 @@ class DeleteShopsOfInactivePlayersProcedure {
 		}
 	}
 
+	// The IO executor resource that runs the player data lookups:
+	private static final String IO_RESOURCE = "player-lookups";
+	private static final int IO_RESOURCE_MAX_CONCURRENCY = 2;
+
 	private final SKShopkeepersPlugin plugin;
+	private final PlayerLastSeenIndex lastSeenIndex;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
 	private final int playerInactivityDays;
 
 	private boolean started = false;
 	// Retrieved once and then reused for all inactivity checks of this procedure:
 	private final long currentTimeMillis = System.currentTimeMillis();
-	private final Map<User, @Nullable InactivePlayerData> inactivePlayers = new HashMap<>();
-
-	public DeleteShopsOfInactivePlayersProcedure(SKShopkeepersPlugin plugin) {
+	// The shop owners that are not online, by their unique ids:
+	private final Map<UUID, User> shopOwners = new HashMap<>();
+	// The shop owners that are not indexed yet:
+	private final List<User> unindexedShopOwners = new ArrayList<>();
+	private final Map<User, InactivePlayerData> inactivePlayers = new HashMap<>();
+
+	public DeleteShopsOfInactivePlayersProcedure(
+			SKShopkeepersPlugin plugin,
+			PlayerLastSeenIndex lastSeenIndex
+	) {
 		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(lastSeenIndex, "lastSeenIndex is null");
 		this.plugin = plugin;
+		this.lastSeenIndex = lastSeenIndex;
 		this.shopkeeperRegistry = plugin.getShopkeeperRegistry();
 		// Local copy, because this setting might change while we use it, and we might access it
 		// asynchronously:
@@ -81,88 +103,130 @@ class DeleteShopsOfInactivePlayersProcedure {
 		Log.info("Checking for shopkeepers of inactive players.");
 
 		this.collectShopOwners();
-		if (inactivePlayers.isEmpty()) {
-			return; // There are no player shops
+		if (shopOwners.isEmpty()) {
+			return; // There are no player shops, or all shop owners are online
 		}
 
-		this.asyncCheckInactivityOfAllShopOwnersAndContinue();
+		this.checkInactivityOfIndexedShopOwners();
+		if (inactivePlayers.isEmpty() && unindexedShopOwners.isEmpty()) {
+			return; // No inactive players found
+		}
+
+		this.asyncLookupShopOwnersAndContinue();
 	}
 
-	// This initially collects all shop owners into the inactivePlayers Map, which is subsequently
-	// pruned from shop owners that are not actually inactive.
 	private void collectShopOwners() {
 		shopkeeperRegistry.getAllPlayerShopkeepers().forEach(playerShop -> {
-			// In this first step, we only collect the existing shop owners, and don't store their
-			// shopkeepers yet. Later, we collect the shopkeepers of only the inactive shop owners.
-			inactivePlayers.put(playerShop.getOwnerUser(), null);
+			User shopOwner = playerShop.getOwnerUser();
+			// Shop owners that are currently online are not inactive, regardless of when they
+			// joined:
+			if (shopOwner.isOnline()) return;
+			shopOwners.put(shopOwner.getUniqueId(), shopOwner);
+		});
+	}
+
+	// This is an in-memory range scan over the index, without any file IO.
+	private void checkInactivityOfIndexedShopOwners() {
+		// A player is inactive if they were last seen at least the configured number of (full)
+		// days ago:
+		long inactiveSinceMillis = currentTimeMillis - TimeUnit.DAYS.toMillis(playerInactivityDays);
+		lastSeenIndex.forEachSeenBefore(inactiveSinceMillis + 1, (playerId, lastSeenMillis) -> {
+			@Nullable User shopOwner = shopOwners.get(playerId);
+			if (shopOwner == null) return; // Not a shop owner
+
+			int daysSinceLastSeen = this.getDaysSince(lastSeenMillis);
+			inactivePlayers.put(shopOwner, new InactivePlayerData(daysSinceLastSeen));
+		});
+
+		shopOwners.values().forEach(shopOwner -> {
+			if (!lastSeenIndex.isIndexed(shopOwner.getUniqueId())) {
+				unindexedShopOwners.add(shopOwner);
+			}
 		});
 	}
 
-	private void asyncCheckInactivityOfAllShopOwnersAndContinue() {
-		// We retrieve the OfflinePlayers and their 'last played' times asynchronously:
-		new BukkitRunnable() {
-			@Override
-			public void run() {
-				// Set up the data for all inactive shop owners, and remove all shop owners that are
-				// not inactive:
-				setUpInactiveShopOwners();
+	private int getDaysSince(long millis) {
+		return (int) TimeUnit.MILLISECONDS.toDays(currentTimeMillis - millis);
+	}
 
-				// Abort if no inactive players were found:
-				if (inactivePlayers.isEmpty()) return;
+	private void asyncLookupShopOwnersAndContinue() {
+		// We retrieve the OfflinePlayers and their 'last played' times asynchronously, since this
+		// may need to read the players' data files:
+		IOExecutor ioExecutor = plugin.getIOExecutor();
+		ioExecutor.getResource(IO_RESOURCE, IO_RESOURCE_MAX_CONCURRENCY).submit(() -> {
+			// Only the indexed shop owners have been identified as inactive so far:
+			recheckInactiveIndexedShopOwners();
+			backfillUnindexedShopOwners();
 
-				// Abort if the task has been cancelled in the meantime (e.g. if the plugin has been
-				// disabled or reloaded):
-				if (this.isCancelled()) return;
+			// Abort if the IO executor has been shut down in the meantime (e.g. if the plugin has
+			// been disabled or reloaded):
+			if (!ioExecutor.isRunning()) return;
 
-				SchedulerUtils.runTaskOrOmit(plugin, () -> continueWithInactiveShopOwners());
-			}
-		}.runTaskAsynchronously(plugin);
+			SchedulerUtils.runTaskOrOmit(plugin, () -> continueWithInactiveShopOwners());
+		});
 	}
 
-	// This may be called asynchronously.
-	// Sets up the data for all inactive shop owners, and removes all shop owners that are not
-	// inactive.
-	private void setUpInactiveShopOwners() {
-		Iterator<Entry<User, @Nullable InactivePlayerData>> iterator = inactivePlayers.entrySet().iterator();
+	// This is called asynchronously.
+	// The index is not updated while the plugin is not running. The player data might therefore
+	// know about a more recent visit of a shop owner that the index identifies as inactive.
+	private void recheckInactiveIndexedShopOwners() {
+		int rechecked = inactivePlayers.size();
+		Iterator<Entry<User, InactivePlayerData>> iterator = inactivePlayers.entrySet().iterator();
 		while (iterator.hasNext()) {
-			Entry<User, @Nullable InactivePlayerData> entry = iterator.next();
-			User user = entry.getKey();
-			InactivePlayerData data = this.setUpIfInactive(user);
-			if (data == null) {
-				// The user is not inactive:
-				iterator.remove();
+			Entry<User, InactivePlayerData> entry = iterator.next();
+			User shopOwner = entry.getKey();
+			UUID playerId = shopOwner.getUniqueId();
+			// 0 if unknown, e.g. if the player data file has been deleted:
+			long lastPlayedMillis = shopOwner.getOfflinePlayer().getLastPlayed();
+			if (lastPlayedMillis <= lastSeenIndex.getLastSeen(playerId)) continue;
+
+			lastSeenIndex.backfill(playerId, lastPlayedMillis);
+			int daysSinceLastPlayed = this.getDaysSince(lastPlayedMillis);
+			if (daysSinceLastPlayed < playerInactivityDays) {
+				iterator.remove(); // No longer inactive
 			} else {
-				entry.setValue(data);
+				entry.setValue(new InactivePlayerData(daysSinceLastPlayed));
 			}
 		}
-		assert !CollectionUtils.containsNull(inactivePlayers.values());
+
+		Log.debug(() -> "Rechecked the last played times of " + rechecked
+				+ " inactive shop owners: " + inactivePlayers.size() + " remain inactive.");
 	}
 
-	// This may be called asynchronously.
-	// Returns null if the given user is not inactive.
-	private @Nullable InactivePlayerData setUpIfInactive(User user) {
-		assert user != null;
-		OfflinePlayer offlinePlayer = user.getOfflinePlayer();
-		// Some servers may delete player data files, either regularly for all players (which breaks
-		// this feature), or for particular players (for example to reset or fix some issue with
-		// their data). If this is the case, we cannot reliably determine when the player was last
-		// seen on the server, and therefore do not delete their shopkeepers.
-		if (!offlinePlayer.hasPlayedBefore()) return null;
-
-		long lastPlayedMillis = offlinePlayer.getLastPlayed();
-		if (lastPlayedMillis == 0) return null; // 0 if unknown (see reasoning above)
-
-		long millisSinceLastPlayed = currentTimeMillis - lastPlayedMillis;
-		int daysSinceLastPlayed = (int) TimeUnit.MILLISECONDS.toDays(millisSinceLastPlayed);
-		if (daysSinceLastPlayed < playerInactivityDays) return null;
-
-		return new InactivePlayerData(daysSinceLastPlayed);
+	// This is called asynchronously.
+	// Adds the unindexed shop owners to the index, and sets up the data for the ones that are
+	// inactive.
+	private void backfillUnindexedShopOwners() {
+		int backfilled = 0;
+		for (User shopOwner : unindexedShopOwners) {
+			OfflinePlayer offlinePlayer = shopOwner.getOfflinePlayer();
+			// Some servers may delete player data files, either regularly for all players (which
+			// breaks this feature), or for particular players (for example to reset or fix some
+			// issue with their data). If this is the case, we cannot reliably determine when the
+			// player was last seen on the server, and therefore do not delete their shopkeepers.
+			if (!offlinePlayer.hasPlayedBefore()) continue;
+
+			long lastPlayedMillis = offlinePlayer.getLastPlayed();
+			if (lastPlayedMillis <= 0) continue; // 0 if unknown (see reasoning above)
+
+			lastSeenIndex.backfill(shopOwner.getUniqueId(), lastPlayedMillis);
+			backfilled++;
+
+			int daysSinceLastPlayed = this.getDaysSince(lastPlayedMillis);
+			if (daysSinceLastPlayed < playerInactivityDays) continue;
+
+			inactivePlayers.put(shopOwner, new InactivePlayerData(daysSinceLastPlayed));
+		}
+
+		int backfilledFinal = backfilled;
+		Log.debug(() -> "Backfilled the last seen times of " + backfilledFinal + " of "
+				+ unindexedShopOwners.size() + " unindexed shop owners.");
 	}
 
 	private void continueWithInactiveShopOwners() {
 		assert Bukkit.isPrimaryThread();
-		assert !inactivePlayers.isEmpty();
-		assert !CollectionUtils.containsNull(inactivePlayers.values());
+		if (inactivePlayers.isEmpty()) return; // No inactive players found
+
 		this.collectShopsOfInactivePlayers();
 		this.deleteShopsOfInactivePlayers();
 	}
@@ -181,50 +245,64 @@ class DeleteShopsOfInactivePlayersProcedure {
 	}
 
 	private void deleteShopsOfInactivePlayers() {
-		inactivePlayers.forEach((user, nullableInactivePlayerData) -> {
-			InactivePlayerData inactivePlayerData = Unsafe.assertNonNull(nullableInactivePlayerData);
-			List<? extends PlayerShopkeeper> shopkeepers = inactivePlayerData.getShopkeepers();
-			if (shopkeepers.isEmpty()) {
-				// We initially found this shop owner and identified them as inactive, but were then
-				// subsequently no longer able to find any shopkeepers that are still owned by them.
-				return;
-			}
+		// Delete the shops in time slices across several ticks, one inactive player at a time:
+		plugin.getJobs().start(new DeleteShopsJob());
+	}
 
-			int originalShopkeepersCount = shopkeepers.size();
+	private class DeleteShopsJob extends Job<User> {
 
-			// Call event:
-			PlayerInactiveEvent event = new PlayerInactiveEvent(user, shopkeepers);
-			Bukkit.getPluginManager().callEvent(event);
+		DeleteShopsJob() {
+			super("deleteShopsOfInactivePlayers", null, inactivePlayers.keySet());
+		}
+
+		@Override
+		protected void process(User user) {
+			InactivePlayerData inactivePlayerData = Unsafe.assertNonNull(inactivePlayers.get(user));
+			deleteShopsOfInactivePlayer(user, inactivePlayerData);
+		}
 
-			if (event.isCancelled() || shopkeepers.isEmpty()) {
-				Log.debug(() -> "Ignoring inactive player " + TextUtils.getPlayerString(user)
-						+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo() + " days ago)"
-						+ " and their " + originalShopkeepersCount + " shopkeepers"
-						+ (shopkeepers.size() != originalShopkeepersCount
-								? " (reduced to " + shopkeepers.size() + ")" : "")
-						+ ": Cancelled by a plugin.");
+		// Note: The job framework saves the deletions after the job has ended.
+	}
+
+	private void deleteShopsOfInactivePlayer(User user, InactivePlayerData inactivePlayerData) {
+		List<? extends PlayerShopkeeper> shopkeepers = inactivePlayerData.getShopkeepers();
+		if (shopkeepers.isEmpty()) {
+			// We initially found this shop owner and identified them as inactive, but were then
+			// subsequently no longer able to find any shopkeepers that are still owned by them.
+			return;
+		}
+
+		int originalShopkeepersCount = shopkeepers.size();
+
+		// Call event:
+		PlayerInactiveEvent event = new PlayerInactiveEvent(user, shopkeepers);
+		Bukkit.getPluginManager().callEvent(event);
+
+		if (event.isCancelled() || shopkeepers.isEmpty()) {
+			Log.debug(() -> "Ignoring inactive player " + TextUtils.getPlayerString(user)
+					+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo() + " days ago)"
+					+ " and their " + originalShopkeepersCount + " shopkeepers"
+					+ (shopkeepers.size() != originalShopkeepersCount
+							? " (reduced to " + shopkeepers.size() + ")" : "")
+					+ ": Cancelled by a plugin.");
+			return;
+		}
+
+		// Delete the shopkeepers:
+		shopkeepers.forEach(playerShop -> {
+			if (!playerShop.isValid()) {
+				// The shopkeeper has already been removed in the meantime.
+				Log.debug(() -> playerShop.getUniqueIdLogPrefix()
+						+ "Deletion due to inactivity of owner " + playerShop.getOwnerString()
+						+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo()
+						+ " days ago)" + " skipped: The shopkeeper has already been removed.");
 				return;
 			}
 
-			// Delete the shopkeepers:
-			shopkeepers.forEach(playerShop -> {
-				if (!playerShop.isValid()) {
-					// The shopkeeper has already been removed in the meantime.
-					Log.debug(() -> playerShop.getUniqueIdLogPrefix()
-							+ "Deletion due to inactivity of owner " + playerShop.getOwnerString()
-							+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo()
-							+ " days ago)" + " skipped: The shopkeeper has already been removed.");
-					return;
-				}
-
-				Log.info(playerShop.getUniqueIdLogPrefix() + "Deletion due to inactivity of owner "
-						+ playerShop.getOwnerString() + " (last seen "
-						+ inactivePlayerData.getLastSeenDaysAgo() + " days ago).");
-				playerShop.delete();
-			});
+			Log.info(playerShop.getUniqueIdLogPrefix() + "Deletion due to inactivity of owner "
+					+ playerShop.getOwnerString() + " (last seen "
+					+ inactivePlayerData.getLastSeenDaysAgo() + " days ago).");
+			playerShop.delete();
 		});
-
-		// Save if necessary:
-		plugin.getShopkeeperStorage().saveIfDirty();
 	}
 }
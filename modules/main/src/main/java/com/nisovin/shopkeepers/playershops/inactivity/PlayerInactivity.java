@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.playershops.inactivity;
 
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -16,15 +17,21 @@ import com.nisovin.shopkeepers.util.java.Validate;
 public class PlayerInactivity {
 
 	private final SKShopkeepersPlugin plugin;
+	private final PlayerLastSeenIndex lastSeenIndex;
 	private final DeleteInactivePlayerShopsTask task;
 
 	public PlayerInactivity(SKShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
+		this.lastSeenIndex = new PlayerLastSeenIndex(plugin);
 		this.task = new DeleteInactivePlayerShopsTask(plugin);
 	}
 
 	public void onEnable() {
+		// The index is maintained even while the deletion of inactive player shops is disabled, so
+		// that it is up-to-date once the feature is enabled:
+		lastSeenIndex.onEnable();
+
 		if (Settings.playerShopkeeperInactiveDays <= 0) return; // Feature is disabled
 
 		// Delete inactive player shops, once shortly after plugin startup, and then periodically:
@@ -33,6 +40,24 @@ public class PlayerInactivity {
 
 	public void onDisable() {
 		task.stop();
+		lastSeenIndex.onDisable();
+	}
+
+	public void onPlayerJoin(Player player) {
+		lastSeenIndex.onPlayerJoin(player);
+	}
+
+	public void onPlayerQuit(Player player) {
+		lastSeenIndex.onPlayerQuit(player);
+	}
+
+	/**
+	 * Gets the {@link PlayerLastSeenIndex}.
+	 * 
+	 * @return the last seen index
+	 */
+	public PlayerLastSeenIndex getLastSeenIndex() {
+		return lastSeenIndex;
 	}
 
 	/**
@@ -84,6 +109,6 @@ public class PlayerInactivity {
 	// TODO Also add a command to manually detect and then optionally delete inactive player shops?
 	public void deleteShopsOfInactivePlayers() {
 		if (Settings.playerShopkeeperInactiveDays <= 0) return; // Feature is disabled
-		new DeleteShopsOfInactivePlayersProcedure(plugin).start();
+		new DeleteShopsOfInactivePlayersProcedure(plugin, lastSeenIndex).start();
 	}
 }
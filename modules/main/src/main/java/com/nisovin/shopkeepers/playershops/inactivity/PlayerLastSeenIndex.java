@@ -0,0 +1,374 @@
+package com.nisovin.shopkeepers.playershops.inactivity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.dependencies.citizens.CitizensUtils;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.bukkit.Ticks;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Keeps track of when players were last seen on the server.
+ * <p>
+ * This allows the inactivity of shop owners to be checked without having to read the data files
+ * of all shop owners. The index is updated when players join or leave the server, and persisted in
+ * a compact binary file. The index is maintained regardless of whether the deletion of inactive
+ * player shops is enabled.
+ * <p>
+ * Players that are not indexed yet, for example because they were last seen before this index
+ * was introduced, are backfilled once from their player data by the inactivity check.
+ * <p>
+ * The index can be accessed from any thread.
+ */
+public class PlayerLastSeenIndex {
+
+	private static final String FILE_NAME = "data/last-seen.dat";
+	private static final String TEMP_FILE_NAME = FILE_NAME + ".tmp";
+	// Identifies our file format, in case the file is replaced with something else:
+	private static final int FILE_MAGIC = 0x534B4C53; // "SKLS"
+	private static final int FILE_VERSION = 1;
+
+	// ~5 minutes (can be noticeably longer if the server lags)
+	private static final long SAVE_INTERVAL_TICKS = Ticks.PER_SECOND * 60 * 5L;
+
+	// The IO executor resource that runs the asynchronous saves:
+	private static final String IO_RESOURCE = "last-seen-index";
+
+	private static final class LastSeen {
+
+		private static final Comparator<LastSeen> BY_TIME = Comparator
+				.comparingLong((LastSeen lastSeen) -> lastSeen.millis)
+				.thenComparing(lastSeen -> lastSeen.playerId);
+
+		private final UUID playerId;
+		private final long millis;
+
+		LastSeen(UUID playerId, long millis) {
+			assert playerId != null;
+			this.playerId = playerId;
+			this.millis = millis;
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final Path file;
+	private final Path tempFile;
+	private final SaveTask saveTask;
+
+	// Guarded by this index:
+	private final Map<UUID, LastSeen> byPlayer = new HashMap<>();
+	private final NavigableSet<LastSeen> byTime = new TreeSet<>(LastSeen.BY_TIME);
+	// Incremented with every change, to detect if there are any unsaved changes:
+	private long modCount = 0L;
+	private long savedModCount = 0L;
+
+	private boolean enabled = false;
+	private @Nullable ScheduledTask saveTimer = null;
+
+	PlayerLastSeenIndex(SKShopkeepersPlugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+		Path pluginDataFolder = plugin.getDataFolder().toPath();
+		this.file = pluginDataFolder.resolve(FILE_NAME);
+		this.tempFile = pluginDataFolder.resolve(TEMP_FILE_NAME);
+		this.saveTask = new SaveTask();
+	}
+
+	void onEnable() {
+		this.load();
+		enabled = true;
+
+		// Players that are already online (e.g. after a plugin reload) are seen right now:
+		this.updateOnlinePlayers();
+
+		saveTimer = plugin.getTaskScheduler().runGlobalTimer(
+				saveTask::run,
+				SAVE_INTERVAL_TICKS,
+				SAVE_INTERVAL_TICKS
+		);
+	}
+
+	void onDisable() {
+		if (!enabled) return;
+
+		// The quit event is not called for the players that are still online:
+		this.updateOnlinePlayers();
+		enabled = false;
+
+		if (saveTimer != null) {
+			saveTimer.cancel();
+			saveTimer = null;
+		}
+		saveTask.runImmediately();
+		saveTask.shutdown();
+	}
+
+	private void updateOnlinePlayers() {
+		long nowMillis = System.currentTimeMillis();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			assert player != null;
+			this.updatePlayer(player, nowMillis);
+		}
+	}
+
+	void onPlayerJoin(Player player) {
+		this.updatePlayer(player, System.currentTimeMillis());
+	}
+
+	void onPlayerQuit(Player player) {
+		this.updatePlayer(player, System.currentTimeMillis());
+	}
+
+	private void updatePlayer(Player player, long nowMillis) {
+		if (CitizensUtils.isNPC(player)) return;
+		this.setLastSeen(player.getUniqueId(), nowMillis);
+	}
+
+	/**
+	 * Gets the time at which the specified player was last seen.
+	 * 
+	 * @param playerId
+	 *            the player's unique id, not <code>null</code>
+	 * @return the time in milliseconds since the epoch, or <code>0</code> if the player is not
+	 *         indexed
+	 */
+	public synchronized long getLastSeen(UUID playerId) {
+		Validate.notNull(playerId, "playerId is null");
+		@Nullable LastSeen lastSeen = byPlayer.get(playerId);
+		return (lastSeen != null) ? lastSeen.millis : 0L;
+	}
+
+	/**
+	 * Checks if the specified player is indexed.
+	 * 
+	 * @param playerId
+	 *            the player's unique id, not <code>null</code>
+	 * @return <code>true</code> if the player is indexed
+	 */
+	public synchronized boolean isIndexed(UUID playerId) {
+		Validate.notNull(playerId, "playerId is null");
+		return byPlayer.containsKey(playerId);
+	}
+
+	/**
+	 * Gets the number of indexed players.
+	 * 
+	 * @return the number of indexed players
+	 */
+	public synchronized int getSize() {
+		return byPlayer.size();
+	}
+
+	/**
+	 * Passes all players that were last seen before the specified time to the given action, in
+	 * the order of their last seen times.
+	 * <p>
+	 * The action is invoked while this index is locked, and is therefore not allowed to modify
+	 * this index.
+	 * 
+	 * @param beforeMillis
+	 *            the time in milliseconds since the epoch, exclusive
+	 * @param action
+	 *            the action that accepts the unique id and the last seen time of each player, not
+	 *            <code>null</code>
+	 */
+	public synchronized void forEachSeenBefore(long beforeMillis, ObjLongConsumer<UUID> action) {
+		Validate.notNull(action, "action is null");
+		for (LastSeen lastSeen : byTime) {
+			if (lastSeen.millis >= beforeMillis) break;
+			action.accept(lastSeen.playerId, lastSeen.millis);
+		}
+	}
+
+	/**
+	 * Sets the last seen time of the specified player, unless the player is already indexed with
+	 * a later time.
+	 * <p>
+	 * This is used to backfill the index from other sources, such as the players' data files.
+	 * 
+	 * @param playerId
+	 *            the player's unique id, not <code>null</code>
+	 * @param millis
+	 *            the time in milliseconds since the epoch, positive
+	 */
+	public synchronized void backfill(UUID playerId, long millis) {
+		Validate.notNull(playerId, "playerId is null");
+		Validate.isTrue(millis > 0, "millis has to be positive");
+		if (this.getLastSeen(playerId) >= millis) return;
+		this.setLastSeen(playerId, millis);
+	}
+
+	private synchronized void setLastSeen(UUID playerId, long millis) {
+		assert playerId != null && millis > 0;
+		@Nullable LastSeen previous = byPlayer.get(playerId);
+		if (previous != null) {
+			if (previous.millis == millis) return;
+			byTime.remove(previous);
+		}
+
+		LastSeen lastSeen = new LastSeen(playerId, millis);
+		byPlayer.put(playerId, lastSeen);
+		byTime.add(lastSeen);
+		modCount++;
+	}
+
+	// LOADING
+
+	private synchronized void load() {
+		byPlayer.clear();
+		byTime.clear();
+		modCount = 0L;
+		savedModCount = 0L;
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file))
+		)) {
+			if (in.readInt() != FILE_MAGIC) {
+				throw new IOException("Unknown file format!");
+			}
+			int version = in.readInt();
+			if (version != FILE_VERSION) {
+				throw new IOException("Unsupported file version: " + version);
+			}
+
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				UUID playerId = new UUID(in.readLong(), in.readLong());
+				long millis = in.readLong();
+				if (millis <= 0) continue; // Ignore invalid entries
+				this.setLastSeen(playerId, millis);
+			}
+			savedModCount = modCount;
+			Log.debug(() -> "Loaded the last seen times of " + byPlayer.size() + " players.");
+		} catch (NoSuchFileException e) {
+			// The index is created on first use and then backfilled by the inactivity check.
+		} catch (IOException e) {
+			// The index is rebuilt: Players that are not indexed are backfilled from their player
+			// data during the next inactivity check.
+			Log.warning("Failed to load the last seen times of players from '" + file + "'!", e);
+			byPlayer.clear();
+			byTime.clear();
+			modCount = 0L;
+			savedModCount = 0L;
+		}
+	}
+
+	// SAVING
+
+	private class SaveTask extends SingletonTask {
+
+		private long[] saving = new long[0];
+		private long savingModCount = 0L;
+		private boolean unsavedChanges = false;
+		private @Nullable IOException saveError = null;
+
+		private SaveTask() {
+			super(
+					plugin,
+					plugin.getTaskScheduler(),
+					plugin.getIOExecutor().getResource(IO_RESOURCE, 1)
+			);
+		}
+
+		private class InternalAsyncTask extends SingletonTask.InternalAsyncTask {
+		}
+
+		private class InternalSyncCallbackTask extends SingletonTask.InternalSyncCallbackTask {
+		}
+
+		@Override
+		protected InternalAsyncTask createInternalAsyncTask() {
+			return new InternalAsyncTask();
+		}
+
+		@Override
+		protected InternalSyncCallbackTask createInternalSyncCallbackTask() {
+			return new InternalSyncCallbackTask();
+		}
+
+		@Override
+		protected void prepare() {
+			saveError = null;
+			synchronized (PlayerLastSeenIndex.this) {
+				savingModCount = modCount;
+				unsavedChanges = (savingModCount != savedModCount);
+				if (!unsavedChanges) return;
+
+				// Snapshot of the current data, three longs per player:
+				saving = new long[byPlayer.size() * 3];
+				int index = 0;
+				for (LastSeen lastSeen : byTime) {
+					saving[index++] = lastSeen.playerId.getMostSignificantBits();
+					saving[index++] = lastSeen.playerId.getLeastSignificantBits();
+					saving[index++] = lastSeen.millis;
+				}
+			}
+		}
+
+		@Override
+		protected void execute() {
+			if (!unsavedChanges) return;
+
+			try {
+				FileUtils.createParentDirectories(tempFile);
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempFile))
+				)) {
+					out.writeInt(FILE_MAGIC);
+					out.writeInt(FILE_VERSION);
+					out.writeInt(saving.length / 3);
+					for (long value : saving) {
+						out.writeLong(value);
+					}
+				}
+				FileUtils.fsync(tempFile);
+				FileUtils.moveFile(tempFile, file, Log.getLogger());
+				FileUtils.fsyncParentDirectory(file);
+			} catch (IOException e) {
+				saveError = e;
+			}
+		}
+
+		@Override
+		protected void syncCallback() {
+			saving = new long[0];
+			if (!unsavedChanges) return;
+
+			IOException saveError = this.saveError;
+			if (saveError != null) {
+				// The changes are saved again with the next save:
+				Log.warning("Failed to save the last seen times of players to '" + file + "'!",
+						saveError);
+				return;
+			}
+
+			synchronized (PlayerLastSeenIndex.this) {
+				if (savingModCount > savedModCount) {
+					savedModCount = savingModCount;
+				}
+			}
+		}
+	}
+}
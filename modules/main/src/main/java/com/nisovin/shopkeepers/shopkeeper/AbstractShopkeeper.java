@@ -49,6 +49,7 @@ import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.migration.Migration;
 import com.nisovin.shopkeepers.shopkeeper.migration.MigrationPhase;
 import com.nisovin.shopkeepers.shopkeeper.migration.ShopkeeperDataMigrator;
+import com.nisovin.shopkeepers.shopkeeper.registry.ShopkeeperOfferIndex;
 import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObjectType;
@@ -583,6 +584,9 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 			// If the shopkeeper is marked as dirty during creation or loading (while it is not yet
 			// valid), the storage is informed once the shopkeeper becomes valid.
 			SKShopkeepersPlugin.getInstance().getShopkeeperStorage().markDirty(this);
+			// The shopkeeper's offers might have changed:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getOfferIndex()
+					.markDirty(this);
 		}
 	}
 
@@ -829,6 +833,11 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	 */
 	public final void setActive(boolean active) {
 		this.active = active;
+		if (active) {
+			// The stock of the shopkeeper's offers might be known now:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getOfferIndex()
+					.onShopkeeperActivated(this);
+		}
 	}
 
 	/**
@@ -1268,8 +1277,15 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 
 	@Override
 	public final void setName(@Nullable String newName) {
+		String oldName = name;
 		this._setName(newName);
 		this.markDirty();
+
+		// Inform the change feed:
+		if (this.isValid() && !name.equals(oldName)) {
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getChangeFeed()
+					.onShopkeeperRenamed(this);
+		}
 	}
 
 	private void _setName(@Nullable String newName) {
@@ -1516,6 +1532,29 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	@Override
 	public abstract List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player);
 
+	/**
+	 * Checks if the stock of the {@link #getIndexedTradingRecipes() indexed trading recipes} is
+	 * currently known.
+	 * 
+	 * @return <code>true</code> if the stock is known
+	 */
+	public boolean isIndexedStockKnown() {
+		return true;
+	}
+
+	/**
+	 * Gets the trading recipes of this shopkeeper for the {@link ShopkeeperOfferIndex}.
+	 * <p>
+	 * Unlike {@link #getTradingRecipes(Player)}, this is not player-specific and is not supposed to
+	 * load any chunks. If the stock of the recipes is not {@link #isIndexedStockKnown() known}, the
+	 * recipes may be marked as out of stock.
+	 * 
+	 * @return an unmodifiable view on the trading recipes, not <code>null</code>
+	 */
+	public List<? extends TradingRecipe> getIndexedTradingRecipes() {
+		return this.getTradingRecipes(null);
+	}
+
 	// USER INTERFACES
 
 	@Override
@@ -16,7 +16,6 @@ import org.bukkit.Server;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
-import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -28,11 +27,12 @@ import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
 import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
 import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
-import com.nisovin.shopkeepers.util.timer.Timer;
-import com.nisovin.shopkeepers.util.timer.Timings;
+import com.nisovin.shopkeepers.util.timer.SampledTimer;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
 
 /**
  * Updates and keeps track of chunk activations for chunks that contain shopkeepers.
@@ -77,7 +77,7 @@ public class ShopkeeperChunkActivator {
 	// should be sufficiently fast.
 	private final Queue<ChunkData> deferredChunkActivations = new ArrayDeque<>();
 
-	private final Timer chunkActivationTimings = new Timer();
+	private final SampledTimer chunkActivationTimings = new SampledTimer();
 	private int immediateChunkActivationRadius;
 
 	public ShopkeeperChunkActivator(
@@ -184,18 +184,25 @@ public class ShopkeeperChunkActivator {
 	// another.
 	// This updates the shopkeeper's activation state to match its new chunk.
 	public void checkShopkeeperActivation(AbstractShopkeeper shopkeeper) {
+		this.checkShopkeeperActivation(shopkeeper, true);
+	}
+
+	// spawnImmediately: False to add the shopkeeper to the spawn queue instead of spawning it
+	// immediately. This is used for shopkeepers that have been added as part of a batch, since
+	// spawning all of them at once might freeze the server.
+	public void checkShopkeeperActivation(AbstractShopkeeper shopkeeper, boolean spawnImmediately) {
 		assert shopkeeper != null;
 		assert !shopkeeper.isVirtual();
 		ChunkCoords chunkCoords = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
 		ChunkData chunkData = Unsafe.assertNonNull(this.getChunkData(chunkCoords));
 		if (chunkData.isActive()) {
-			this.activateShopkeeper(shopkeeper);
+			this.activateShopkeeper(shopkeeper, spawnImmediately);
 		} else {
 			this.deactivateShopkeeper(shopkeeper);
 		}
 	}
 
-	private void activateShopkeeper(AbstractShopkeeper shopkeeper) {
+	private void activateShopkeeper(AbstractShopkeeper shopkeeper, boolean spawnImmediately) {
 		assert shopkeeper != null;
 		assert !shopkeeper.isVirtual();
 		// We expect this to be called after the chunk data has been added:
@@ -214,7 +221,11 @@ public class ShopkeeperChunkActivator {
 		if (!shopkeeper.isActive()) return;
 
 		// If necessary, spawn the shopkeeper:
-		shopkeeperSpawner.spawnShopkeeperImmediately(shopkeeper);
+		if (spawnImmediately) {
+			shopkeeperSpawner.spawnShopkeeperImmediately(shopkeeper);
+		} else {
+			shopkeeperSpawner.spawnShopkeeperQueued(shopkeeper);
+		}
 	}
 
 	// Also called by SKShopkeeperRegistry when the shopkeeper is about to be removed.
@@ -256,7 +267,7 @@ public class ShopkeeperChunkActivator {
 
 	// CHUNK ACTIVATION
 
-	public Timings getChunkActivationTimings() {
+	public SampledTimings getChunkActivationTimings() {
 		return chunkActivationTimings;
 	}
 
@@ -303,8 +314,12 @@ public class ShopkeeperChunkActivator {
 
 		void start() {
 			assert !chunkData.isActive() && !chunkData.isActivationDelayed();
-			BukkitTask task = Bukkit.getScheduler().runTaskLater(
-					plugin,
+			ChunkCoords chunkCoords = chunkData.getChunkCoords();
+			World world = Unsafe.assertNonNull(chunkCoords.getWorld());
+			ScheduledTask task = plugin.getTaskScheduler().runAtChunkLater(
+					world,
+					chunkCoords.getChunkX(),
+					chunkCoords.getChunkZ(),
 					this,
 					CHUNK_ACTIVATION_DELAY_TICKS
 			);
@@ -321,7 +336,12 @@ public class ShopkeeperChunkActivator {
 
 	void activatePendingNearbyChunksDelayed(Player player) {
 		assert player != null;
-		Bukkit.getScheduler().runTask(plugin, new ActivatePendingNearbyChunksTask(player));
+		plugin.getTaskScheduler().runForEntityLater(
+				player,
+				new ActivatePendingNearbyChunksTask(player),
+				null,
+				0L
+		);
 	}
 
 	private class ActivatePendingNearbyChunksTask implements Runnable {
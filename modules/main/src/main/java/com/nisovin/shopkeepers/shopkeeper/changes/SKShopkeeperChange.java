@@ -0,0 +1,78 @@
+package com.nisovin.shopkeepers.shopkeeper.changes;
+
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperChange;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+final class SKShopkeeperChange implements ShopkeeperChange {
+
+	private final long sequenceNumber;
+	private final Type type;
+	private final int shopkeeperId;
+	private final UUID shopkeeperUniqueId;
+	private final long timestamp;
+
+	SKShopkeeperChange(
+			long sequenceNumber,
+			Type type,
+			int shopkeeperId,
+			UUID shopkeeperUniqueId,
+			long timestamp
+	) {
+		Validate.notNull(type, "type is null");
+		Validate.notNull(shopkeeperUniqueId, "shopkeeperUniqueId is null");
+		this.sequenceNumber = sequenceNumber;
+		this.type = type;
+		this.shopkeeperId = shopkeeperId;
+		this.shopkeeperUniqueId = shopkeeperUniqueId;
+		this.timestamp = timestamp;
+	}
+
+	@Override
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	@Override
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public int getShopkeeperId() {
+		return shopkeeperId;
+	}
+
+	@Override
+	public UUID getShopkeeperUniqueId() {
+		return shopkeeperUniqueId;
+	}
+
+	@Override
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Formats this change as a single line of JSON.
+	 * 
+	 * @return the JSON line, without line terminator
+	 */
+	String toJson() {
+		return "{\"seq\":" + sequenceNumber
+				+ ",\"time\":" + timestamp
+				+ ",\"type\":\"" + type.name()
+				+ "\",\"id\":" + shopkeeperId
+				+ ",\"uuid\":\"" + shopkeeperUniqueId + "\"}";
+	}
+
+	@Override
+	public String toString() {
+		return "SKShopkeeperChange [sequenceNumber=" + sequenceNumber
+				+ ", type=" + type
+				+ ", shopkeeperId=" + shopkeeperId
+				+ ", shopkeeperUniqueId=" + shopkeeperUniqueId
+				+ ", timestamp=" + timestamp + "]";
+	}
+}
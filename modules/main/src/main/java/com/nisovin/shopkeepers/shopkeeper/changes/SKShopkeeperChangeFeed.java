@@ -0,0 +1,158 @@
+package com.nisovin.shopkeepers.shopkeeper.changes;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperChange;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperChangeFeed;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Records changes to shopkeepers in a bounded ring buffer, and optionally forwards them to a
+ * {@link ShopkeeperChangeFileSink}.
+ * <p>
+ * The shopkeeper registry, the shopkeepers, and the offer index inform this feed about changes.
+ */
+public final class SKShopkeeperChangeFeed implements ShopkeeperChangeFeed {
+
+	private final SKShopkeepersPlugin plugin;
+
+	private UUID sessionId = UUID.randomUUID();
+	// The change with sequence number n is stored at index (n % buffer.length):
+	private @Nullable SKShopkeeperChange[] buffer = new SKShopkeeperChange[1];
+	// 0 if no changes have been recorded yet:
+	private long latestSequenceNumber = 0L;
+	private @Nullable ShopkeeperChangeFileSink fileSink = null;
+
+	public SKShopkeeperChangeFeed(SKShopkeepersPlugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		// Start a new session:
+		sessionId = UUID.randomUUID();
+		latestSequenceNumber = 0L;
+		buffer = new SKShopkeeperChange[Settings.changeFeedCapacity];
+
+		String changeFeedFile = Settings.changeFeedFile;
+		if (!changeFeedFile.isEmpty()) {
+			Path file = plugin.getDataFolder().toPath().resolve(changeFeedFile);
+			fileSink = new ShopkeeperChangeFileSink(plugin, file, sessionId);
+		}
+	}
+
+	public void onDisable() {
+		ShopkeeperChangeFileSink fileSink = this.fileSink;
+		if (fileSink != null) {
+			fileSink.shutdown();
+			this.fileSink = null;
+		}
+		Arrays.fill(buffer, null);
+	}
+
+	@Override
+	public UUID getSessionId() {
+		return sessionId;
+	}
+
+	@Override
+	public int getCapacity() {
+		return buffer.length;
+	}
+
+	@Override
+	public long getLatestSequenceNumber() {
+		return latestSequenceNumber;
+	}
+
+	@Override
+	public long getOldestSequenceNumber() {
+		return Math.max(1L, latestSequenceNumber - buffer.length + 1);
+	}
+
+	private int getBufferIndex(long sequenceNumber) {
+		return (int) (sequenceNumber % buffer.length);
+	}
+
+	@Override
+	public SKShopkeeperChanges getChangesSince(long cursor, int maxChanges) {
+		Validate.isTrue(cursor >= 0L, "cursor cannot be negative");
+		Validate.isTrue(maxChanges > 0, "maxChanges has to be positive");
+		if (cursor > latestSequenceNumber) {
+			// The cursor stems from a different session:
+			return new SKShopkeeperChanges(Collections.emptyList(), latestSequenceNumber, false);
+		}
+
+		long oldestSequenceNumber = this.getOldestSequenceNumber();
+		boolean complete = (cursor + 1 >= oldestSequenceNumber);
+		long start = Math.max(cursor + 1, oldestSequenceNumber);
+		long end = Math.min(latestSequenceNumber, start + maxChanges - 1);
+		if (start > end) {
+			// There are no new changes:
+			assert cursor == latestSequenceNumber;
+			return new SKShopkeeperChanges(Collections.emptyList(), latestSequenceNumber, complete);
+		}
+
+		List<SKShopkeeperChange> changes = new ArrayList<>((int) (end - start + 1));
+		for (long sequenceNumber = start; sequenceNumber <= end; sequenceNumber++) {
+			changes.add(Unsafe.assertNonNull(buffer[this.getBufferIndex(sequenceNumber)]));
+		}
+		return new SKShopkeeperChanges(changes, end, complete);
+	}
+
+	// RECORDING
+
+	private void record(ShopkeeperChange.Type type, AbstractShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		long sequenceNumber = ++latestSequenceNumber;
+		SKShopkeeperChange change = new SKShopkeeperChange(
+				sequenceNumber,
+				type,
+				shopkeeper.getId(),
+				shopkeeper.getUniqueId(),
+				System.currentTimeMillis()
+		);
+		// Replaces the oldest change if the buffer is full:
+		buffer[this.getBufferIndex(sequenceNumber)] = change;
+
+		ShopkeeperChangeFileSink fileSink = this.fileSink;
+		if (fileSink != null) {
+			fileSink.append(change);
+		}
+	}
+
+	public void onShopkeeperCreated(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.CREATED, shopkeeper);
+	}
+
+	public void onShopkeeperDeleted(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.DELETED, shopkeeper);
+	}
+
+	public void onShopkeeperMoved(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.MOVED, shopkeeper);
+	}
+
+	public void onShopkeeperRenamed(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.RENAMED, shopkeeper);
+	}
+
+	public void onOffersChanged(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.OFFERS_CHANGED, shopkeeper);
+	}
+
+	public void onStockChanged(AbstractShopkeeper shopkeeper) {
+		this.record(ShopkeeperChange.Type.STOCK_CHANGED, shopkeeper);
+	}
+}
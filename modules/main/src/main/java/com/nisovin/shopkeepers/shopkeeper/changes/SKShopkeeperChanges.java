@@ -0,0 +1,36 @@
+package com.nisovin.shopkeepers.shopkeeper.changes;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperChanges;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+final class SKShopkeeperChanges implements ShopkeeperChanges {
+
+	private final List<? extends SKShopkeeperChange> changes;
+	private final long cursor;
+	private final boolean complete;
+
+	SKShopkeeperChanges(List<? extends SKShopkeeperChange> changes, long cursor, boolean complete) {
+		Validate.notNull(changes, "changes is null");
+		this.changes = Collections.unmodifiableList(changes);
+		this.cursor = cursor;
+		this.complete = complete;
+	}
+
+	@Override
+	public List<? extends SKShopkeeperChange> getChanges() {
+		return changes;
+	}
+
+	@Override
+	public long getCursor() {
+		return cursor;
+	}
+
+	@Override
+	public boolean isComplete() {
+		return complete;
+	}
+}
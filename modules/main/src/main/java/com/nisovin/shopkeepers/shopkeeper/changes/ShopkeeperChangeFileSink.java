@@ -0,0 +1,315 @@
+package com.nisovin.shopkeepers.shopkeeper.changes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Appends the recorded shopkeeper changes as JSON lines to a file, so that they can be consumed by
+ * other processes.
+ * <p>
+ * The changes are buffered for a short period of time and then written asynchronously in batches.
+ * The first line written by each session identifies the session.
+ * <p>
+ * At most {@link #MAX_PENDING_LINES} changes are buffered. If the writes do not keep up, further
+ * changes are dropped until the buffered changes have been written. Consumers can detect the
+ * resulting gap based on the sequence numbers.
+ * <p>
+ * Once a regular file exceeds {@link #MAX_FILE_SIZE}, it is rotated: The file is renamed to
+ * {@code <file>.1}, replacing any previously rotated file, and the subsequent changes are written
+ * to a new file.
+ * <p>
+ * The file can also be a named pipe. Since opening a pipe blocks until the pipe is opened for
+ * reading, and writes to a pipe block until the pipe is read, we only wait for a limited time for
+ * the pipe to be opened and treat a timeout like a failed write. Pending changes are not awaited
+ * during shutdown in this case.
+ */
+final class ShopkeeperChangeFileSink {
+
+	private static final long WRITE_DELAY_TICKS = 20L; // 1 second
+	// Limits the memory usage if the writes keep failing or do not keep up:
+	private static final int MAX_PENDING_LINES = 100000;
+	private static final long MAX_FILE_SIZE = 64L * 1024 * 1024; // 64 MiB
+	private static final String ROTATED_FILE_SUFFIX = ".1";
+	private static final long PIPE_OPEN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+	private static final long WRITE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	// The IO executor resource that runs the asynchronous writes:
+	private static final String IO_RESOURCE = "change-feed";
+
+	private final SKShopkeepersPlugin plugin;
+	private final Path file;
+	private final Path rotatedFile;
+
+	private List<String> pending = new ArrayList<>();
+	private final WriteTask writeTask;
+	private @Nullable ScheduledTask delayedWriteTask = null;
+
+	private int droppedLines = 0;
+	private long lastDroppedLinesMsgMillis = 0L;
+
+	ShopkeeperChangeFileSink(SKShopkeepersPlugin plugin, Path file, UUID sessionId) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(file, "file is null");
+		Validate.notNull(sessionId, "sessionId is null");
+		this.plugin = plugin;
+		this.file = file;
+		this.rotatedFile = file.resolveSibling(file.getFileName() + ROTATED_FILE_SUFFIX);
+		this.writeTask = new WriteTask(plugin);
+
+		pending.add("{\"session\":\"" + sessionId + "\",\"time\":" + System.currentTimeMillis()
+				+ "}");
+		this.writeDelayed();
+	}
+
+	void append(SKShopkeeperChange change) {
+		if (pending.size() >= MAX_PENDING_LINES) {
+			droppedLines += 1;
+			this.logDroppedLines();
+		} else {
+			pending.add(change.toJson());
+		}
+		this.writeDelayed();
+	}
+
+	// Keeps the oldest pending lines, so that consumers only observe a single gap in the sequence
+	// numbers.
+	private void dropExcessPendingLines() {
+		int excess = pending.size() - MAX_PENDING_LINES;
+		if (excess <= 0) return;
+
+		pending.subList(MAX_PENDING_LINES, pending.size()).clear();
+		droppedLines += excess;
+		this.logDroppedLines();
+	}
+
+	private void logDroppedLines() {
+		long nowMillis = System.currentTimeMillis();
+		long millisSinceLastMsg = Math.abs(nowMillis - lastDroppedLinesMsgMillis);
+		if (millisSinceLastMsg > WRITE_ERROR_MSG_THROTTLE_MILLIS) {
+			lastDroppedLinesMsgMillis = nowMillis;
+			Log.warning("Shopkeeper change feed: The writes to file '" + file
+					+ "' do not keep up! Dropped " + droppedLines + " changes so far.");
+		}
+	}
+
+	void shutdown() {
+		this.cancelDelayedWrite();
+		if (Files.exists(file) && !Files.isRegularFile(file)) {
+			// Named pipe: Do not block the shutdown until a reader consumes the changes.
+			if (!pending.isEmpty()) {
+				Log.warning("Shopkeeper change feed: Discarding " + pending.size()
+						+ " unwritten changes during shutdown.");
+				pending.clear();
+			}
+			return;
+		}
+
+		if (!pending.isEmpty()) {
+			writeTask.run(); // Sync during plugin disable
+		}
+		writeTask.shutdown();
+	}
+
+	private void writeDelayed() {
+		if (delayedWriteTask != null) {
+			// There is already a delayed write in progress:
+			return;
+		}
+
+		delayedWriteTask = plugin.getTaskScheduler().runGlobalLaterOrOmit(
+				new DelayedWriteTask(),
+				WRITE_DELAY_TICKS
+		);
+	}
+
+	private class DelayedWriteTask implements Runnable {
+		@Override
+		public void run() {
+			delayedWriteTask = null;
+			if (!pending.isEmpty()) {
+				writeTask.run();
+			}
+		}
+	}
+
+	private void cancelDelayedWrite() {
+		if (delayedWriteTask != null) {
+			delayedWriteTask.cancel();
+			delayedWriteTask = null;
+		}
+	}
+
+	private class WriteTask extends SingletonTask {
+
+		private List<String> writing = new ArrayList<>();
+		private @Nullable IOException writeError = null;
+		private long lastWriteErrorMsgMillis = 0L;
+
+		// The opening of the named pipe that timed out, if it is still pending. Only accessed by
+		// the async task.
+		private @Nullable CompletableFuture<FileChannel> pendingPipeOpen = null;
+
+		private WriteTask(SKShopkeepersPlugin plugin) {
+			super(
+					plugin,
+					plugin.getTaskScheduler(),
+					plugin.getIOExecutor().getResource(IO_RESOURCE, 1)
+			);
+		}
+
+		private class InternalAsyncTask extends SingletonTask.InternalAsyncTask {
+		}
+
+		private class InternalSyncCallbackTask extends SingletonTask.InternalSyncCallbackTask {
+		}
+
+		@Override
+		protected InternalAsyncTask createInternalAsyncTask() {
+			return new InternalAsyncTask();
+		}
+
+		@Override
+		protected InternalSyncCallbackTask createInternalSyncCallbackTask() {
+			return new InternalSyncCallbackTask();
+		}
+
+		@Override
+		protected void prepare() {
+			// Swap the pending and writing lines:
+			assert writing.isEmpty();
+			List<String> temp = writing;
+			writing = pending;
+			pending = temp;
+			writeError = null;
+		}
+
+		@Override
+		protected void execute() {
+			try {
+				try (Writer writer = this.openWriter()) {
+					for (String line : writing) {
+						writer.write(line);
+						writer.write('\n');
+					}
+				}
+			} catch (IOException e) {
+				writeError = e;
+			}
+		}
+
+		private Writer openWriter() throws IOException {
+			if (pendingPipeOpen != null || (Files.exists(file) && !Files.isRegularFile(file))) {
+				return this.openPipeWriter();
+			}
+
+			Path parent = file.getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			if (Files.exists(file) && Files.size(file) >= MAX_FILE_SIZE) {
+				FileUtils.moveFile(file, rotatedFile, Log.getLogger());
+			}
+			return Files.newBufferedWriter(
+					file,
+					Unsafe.assertNonNull(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND
+			);
+		}
+
+		private Writer openPipeWriter() throws IOException {
+			// Opening the pipe blocks until there is a reader: If there is still an earlier
+			// opening pending, we continue to wait for it instead of starting another one.
+			CompletableFuture<FileChannel> pipeOpen = pendingPipeOpen;
+			if (pipeOpen == null) {
+				CompletableFuture<FileChannel> newPipeOpen = new CompletableFuture<>();
+				Thread.ofVirtual().name("Shopkeepers-change-feed-pipe").start(() -> {
+					try {
+						newPipeOpen.complete(FileChannel.open(file, StandardOpenOption.WRITE));
+					} catch (Throwable e) {
+						newPipeOpen.completeExceptionally(e);
+					}
+				});
+				pipeOpen = newPipeOpen;
+			}
+
+			FileChannel channel;
+			try {
+				channel = pipeOpen.get(PIPE_OPEN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				pendingPipeOpen = null;
+			} catch (TimeoutException e) {
+				pendingPipeOpen = pipeOpen;
+				throw new IOException("Timed out while waiting for a reader of the named pipe!");
+			} catch (InterruptedException e) {
+				pendingPipeOpen = pipeOpen;
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while opening the named pipe!");
+			} catch (ExecutionException e) {
+				pendingPipeOpen = null;
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException ioException) {
+					throw ioException;
+				}
+				throw new IOException("Failed to open the named pipe!", cause);
+			}
+			return new BufferedWriter(Channels.newWriter(
+					channel,
+					Unsafe.assertNonNull(StandardCharsets.UTF_8)
+			));
+		}
+
+		@Override
+		protected void syncCallback() {
+			IOException writeError = this.writeError;
+			if (writeError != null) {
+				// Retry the write after a short delay:
+				// Note: This may write some of the lines twice if the previous write failed
+				// midway. Consumers can detect this based on the sequence numbers.
+				writing.addAll(pending);
+				List<String> temp = pending;
+				pending = writing;
+				writing = temp;
+				dropExcessPendingLines();
+				writeDelayed();
+
+				long nowMillis = System.currentTimeMillis();
+				long millisSinceLastErrorMsg = Math.abs(nowMillis - lastWriteErrorMsgMillis);
+				if (millisSinceLastErrorMsg > WRITE_ERROR_MSG_THROTTLE_MILLIS) {
+					lastWriteErrorMsgMillis = nowMillis;
+					Log.warning("Shopkeeper change feed: Failed to write to file '" + file + "'!",
+							writeError);
+				}
+			}
+
+			// Reset:
+			this.writeError = null;
+			writing.clear();
+		}
+	}
+}
@@ -29,6 +29,7 @@ import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSeriali
 import com.nisovin.shopkeepers.util.data.serialization.java.NumberSerializers;
 import com.nisovin.shopkeepers.util.inventory.ItemMigration;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.inventory.SKUnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
@@ -56,7 +57,8 @@ public class SKPriceOffer implements PriceOffer {
 	 * Creates a new {@link SKPriceOffer}.
 	 * <p>
 	 * The given item stack is assumed to be immutable and therefore not copied before it is stored
-	 * by the price offer.
+	 * by the price offer. The price offer stores the
+	 * {@link SKUnmodifiableItemStack#intern(UnmodifiableItemStack) interned} item stack.
 	 * 
 	 * @param item
 	 *            the item being traded, not <code>null</code> or empty
@@ -66,7 +68,7 @@ public class SKPriceOffer implements PriceOffer {
 	public SKPriceOffer(UnmodifiableItemStack item, int price) {
 		Validate.isTrue(!ItemUtils.isEmpty(item), "item is empty");
 		Validate.isTrue(price > 0, "price has to be positive");
-		this.item = item;
+		this.item = SKUnmodifiableItemStack.intern(item);
 		this.price = price;
 	}
 
@@ -116,7 +118,7 @@ public class SKPriceOffer implements PriceOffer {
 	// //////////
 
 	private static final Property<UnmodifiableItemStack> ITEM = new BasicProperty<UnmodifiableItemStack>()
-			.dataKeyAccessor("item", ItemStackSerializers.UNMODIFIABLE)
+			.dataKeyAccessor("item", ItemStackSerializers.INTERNED)
 			.validator(ItemStackValidators.Unmodifiable.NON_EMPTY)
 			.build();
 	private static final Property<Integer> PRICE = new BasicProperty<Integer>()
@@ -29,6 +29,7 @@ import com.nisovin.shopkeepers.util.data.serialization.bukkit.ItemStackSerialize
 import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
 import com.nisovin.shopkeepers.util.inventory.ItemMigration;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.inventory.SKUnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
@@ -53,7 +54,11 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			@ReadOnly ItemStack item1,
 			@ReadOnly @Nullable ItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		this(
+				ItemUtils.nonNullUnmodifiableClone(resultItem),
+				ItemUtils.nonNullUnmodifiableClone(item1),
+				ItemUtils.unmodifiableClone(item2)
+		);
 	}
 
 	/**
@@ -61,6 +66,8 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 	 * <p>
 	 * The given item stacks are assumed to be immutable and therefore not copied before they are
 	 * stored by the trade offer.
+	 * The trade offer stores the {@link SKUnmodifiableItemStack#intern(UnmodifiableItemStack)
+	 * interned} item stacks.
 	 * 
 	 * @param resultItem
 	 *            the result item, not empty
@@ -74,7 +81,11 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			UnmodifiableItemStack item1,
 			@Nullable UnmodifiableItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		super(
+				SKUnmodifiableItemStack.intern(resultItem),
+				SKUnmodifiableItemStack.intern(item1),
+				SKUnmodifiableItemStack.intern(item2)
+		);
 	}
 
 	@Override
@@ -127,15 +138,15 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 	}
 
 	private static final Property<UnmodifiableItemStack> RESULT_ITEM = new BasicProperty<UnmodifiableItemStack>()
-			.dataKeyAccessor("resultItem", ItemStackSerializers.UNMODIFIABLE)
+			.dataKeyAccessor("resultItem", ItemStackSerializers.INTERNED)
 			.validator(ItemStackValidators.Unmodifiable.NON_EMPTY)
 			.build();
 	private static final Property<UnmodifiableItemStack> ITEM1 = new BasicProperty<UnmodifiableItemStack>()
-			.dataKeyAccessor("item1", ItemStackSerializers.UNMODIFIABLE)
+			.dataKeyAccessor("item1", ItemStackSerializers.INTERNED)
 			.validator(ItemStackValidators.Unmodifiable.NON_EMPTY)
 			.build();
 	private static final Property<@Nullable UnmodifiableItemStack> ITEM2 = new BasicProperty<@Nullable UnmodifiableItemStack>()
-			.dataKeyAccessor("item2", ItemStackSerializers.UNMODIFIABLE)
+			.dataKeyAccessor("item2", ItemStackSerializers.INTERNED)
 			.validator(ItemStackValidators.Unmodifiable.NON_EMPTY)
 			.nullable()
 			.defaultValue(null)
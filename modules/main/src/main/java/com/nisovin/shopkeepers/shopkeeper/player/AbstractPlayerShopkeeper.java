@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.shopkeeper.player;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -644,11 +645,34 @@ public abstract class AbstractPlayerShopkeeper
 		}
 	}
 
+	/**
+	 * Checks if the chunk of the shopkeeper's container is currently loaded.
+	 * <p>
+	 * Unlike {@link #getContainerContents()}, this does not load the chunk.
+	 * 
+	 * @return <code>true</code> if the container's world and chunk are loaded
+	 */
+	public boolean isContainerChunkLoaded() {
+		World world = container.getWorld();
+		if (world == null) return false;
+		return world.isChunkLoaded(container.getX() >> 4, container.getZ() >> 4);
+	}
+
 	@Override
 	public int getCurrencyInContainer() {
-		int totalCurrency = 0;
 		// Empty if the container is not found:
-		@Nullable ItemStack[] contents = this.getContainerContents();
+		return getCurrency(this.getContainerContents());
+	}
+
+	/**
+	 * Gets the total value of the currency items in the given container contents.
+	 * 
+	 * @param contents
+	 *            the container contents, not <code>null</code>
+	 * @return the total currency value
+	 */
+	protected static int getCurrency(@Nullable ItemStack @ReadOnly [] contents) {
+		int totalCurrency = 0;
 		for (ItemStack itemStack : contents) {
 			if (itemStack == null) continue;
 			Currency currency = Currencies.match(itemStack);
@@ -659,6 +683,43 @@ public abstract class AbstractPlayerShopkeeper
 		return totalCurrency;
 	}
 
+	@Override
+	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+		// Empty if the container is not found:
+		return this.getTradingRecipes(player, this.getContainerContents());
+	}
+
+	/**
+	 * Gets the trading recipes for the given player, with their stock being determined based on
+	 * the given container contents.
+	 * 
+	 * @param player
+	 *            the player, can be <code>null</code>
+	 * @param containerContents
+	 *            the container contents, not <code>null</code>, empty if the container is not found
+	 * @return an unmodifiable view on the trading recipes, not <code>null</code>
+	 * @see #getTradingRecipes(Player)
+	 */
+	protected abstract List<? extends TradingRecipe> getTradingRecipes(
+			@Nullable Player player,
+			@Nullable ItemStack @ReadOnly [] containerContents
+	);
+
+	@Override
+	public boolean isIndexedStockKnown() {
+		return this.isContainerChunkLoaded();
+	}
+
+	@Override
+	public List<? extends TradingRecipe> getIndexedTradingRecipes() {
+		// Avoid loading the container's chunk: If the chunk is not loaded, the recipes are marked
+		// as out of stock.
+		if (!this.isContainerChunkLoaded()) {
+			return this.getTradingRecipes(null, InventoryUtils.emptyItemStackArray());
+		}
+		return this.getTradingRecipes(null);
+	}
+
 	// Returns null (and logs a warning) if the price cannot be represented correctly by currency
 	// items.
 	protected final @Nullable TradingRecipe createSellingRecipe(
@@ -5,6 +5,7 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
@@ -116,6 +117,11 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 		if (containerInventory != null && newContainerContents != null) {
 			containerInventory.setContents(Unsafe.castNonNull(newContainerContents));
 		}
+
+		// The stock of the shopkeeper's offers might have changed:
+		SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getOfferIndex().markDirty(
+				this.getShopkeeper()
+		);
 	}
 
 	@Override
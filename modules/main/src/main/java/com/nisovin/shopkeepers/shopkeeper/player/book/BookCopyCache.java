@@ -0,0 +1,124 @@
+package com.nisovin.shopkeepers.shopkeeper.player.book;
+
+import java.util.Map;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.offers.BookOffer;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.inventory.BookItems;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+
+/**
+ * Caches the {@link BookItems#copyBook(ItemStack) copies} of the books inside the containers of
+ * book player shops.
+ * <p>
+ * Books can have many pages, so copying them for every offer whenever the trading recipes are
+ * created is expensive. Instead, the book copies are cached per {@link BookOffer} and shared as
+ * {@link UnmodifiableItemStack}s by the trading recipes of the offer.
+ * <p>
+ * The cache is keyed by the identity of the book offer. Since the contents of the container can
+ * change in ways that we are not informed about (e.g. hoppers, or other plugins), each cache entry
+ * also remembers the container slot and a hash of the contents of the book item that it was
+ * copied from, and a new copy is created if these no longer match. Book offers are replaced when
+ * they are modified, so modified offers also result in new copies. Entries for outdated offers
+ * are eventually evicted.
+ */
+final class BookCopyCache {
+
+	private static final int MAX_ENTRIES = 256;
+
+	private static final class Key {
+
+		// Compared by identity:
+		private final BookOffer offer;
+
+		Key(BookOffer offer) {
+			this.offer = offer;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(offer);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return offer == other.offer;
+		}
+	}
+
+	private static final class Entry {
+
+		private final int slot;
+		private final long contentHash;
+		private final UnmodifiableItemStack bookCopy;
+
+		Entry(int slot, long contentHash, UnmodifiableItemStack bookCopy) {
+			this.slot = slot;
+			this.contentHash = contentHash;
+			this.bookCopy = bookCopy;
+		}
+	}
+
+	private final Map<Key, Entry> entries = new LRUCache<>(MAX_ENTRIES);
+
+	BookCopyCache() {
+	}
+
+	/**
+	 * Gets the copy of the given book item.
+	 * 
+	 * @param offer
+	 *            the book offer for the book item, not <code>null</code>
+	 * @param slot
+	 *            the container slot of the book item
+	 * @param bookItem
+	 *            the {@link BookItems#isCopyableBook(ItemStack) copyable} book item, not
+	 *            <code>null</code>
+	 * @param bookMeta
+	 *            the book meta of the book item, not <code>null</code>
+	 * @return the (possibly cached) book copy, not <code>null</code>
+	 */
+	UnmodifiableItemStack getBookCopy(
+			BookOffer offer,
+			int slot,
+			@ReadOnly ItemStack bookItem,
+			@ReadOnly BookMeta bookMeta
+	) {
+		assert offer != null && bookItem != null && bookMeta != null;
+		Key key = new Key(offer);
+		long contentHash = getContentHash(bookItem, bookMeta);
+		Entry entry = entries.get(key);
+		if (entry == null || entry.slot != slot || entry.contentHash != contentHash) {
+			UnmodifiableItemStack bookCopy = UnmodifiableItemStack.ofNonNull(
+					BookItems.copyBook(bookItem)
+			);
+			entry = new Entry(slot, contentHash, bookCopy);
+			entries.put(key, entry);
+		}
+		return entry.bookCopy;
+	}
+
+	// The item's hash code already covers all of its data, including the pages. But since a
+	// collision would result in the wrong book being sold, we additionally mix in the hashes and
+	// lengths of the individual pages to get a wider hash.
+	private static long getContentHash(@ReadOnly ItemStack bookItem, @ReadOnly BookMeta bookMeta) {
+		long hash = bookItem.hashCode();
+		for (String page : bookMeta.getPages()) {
+			hash = hash * 0x100000001B3L + page.hashCode();
+			hash = hash * 0x100000001B3L + page.length();
+		}
+		return hash;
+	}
+
+	void clear() {
+		entries.clear();
+	}
+}
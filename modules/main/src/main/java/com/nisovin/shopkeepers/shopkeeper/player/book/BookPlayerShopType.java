@@ -9,6 +9,9 @@ import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopType;
 
 public final class BookPlayerShopType extends AbstractPlayerShopType<SKBookPlayerShopkeeper> {
 
+	// Shared by all book player shops:
+	private final BookCopyCache bookCopyCache = new BookCopyCache();
+
 	public BookPlayerShopType() {
 		super(
 				"book",
@@ -38,6 +41,10 @@ public final class BookPlayerShopType extends AbstractPlayerShopType<SKBookPlaye
 		return Messages.tradeSetupDescBook;
 	}
 
+	BookCopyCache getBookCopyCache() {
+		return bookCopyCache;
+	}
+
 	@Override
 	protected SKBookPlayerShopkeeper createNewShopkeeper() {
 		return new SKBookPlayerShopkeeper();
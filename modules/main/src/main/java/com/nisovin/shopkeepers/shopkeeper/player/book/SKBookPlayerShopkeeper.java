@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.shopkeeper.player.book;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -100,29 +101,27 @@ public class SKBookPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		Map<? extends String, ? extends ItemStack> containerBooksByTitle = this.getCopyableBooksFromContainer();
-		boolean hasBlankBooks = this.hasContainerBlankBooks();
+	protected List<? extends TradingRecipe> getTradingRecipes(
+			@Nullable Player player,
+			@Nullable ItemStack @ReadOnly [] containerContents
+	) {
+		Map<? extends String, ? extends UnmodifiableItemStack> bookCopiesByTitle
+				= this.getOfferedBookCopies(containerContents);
+		boolean hasBlankBooks = hasBlankBooks(containerContents);
 		List<? extends BookOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(bookOffer -> {
 			String bookTitle = bookOffer.getBookTitle();
-			ItemStack bookItem = containerBooksByTitle.get(bookTitle);
+			UnmodifiableItemStack bookItem = bookCopiesByTitle.get(bookTitle);
 			boolean outOfStock = !hasBlankBooks;
 			if (bookItem == null) {
 				outOfStock = true;
-				bookItem = this.createDummyBook(bookTitle);
-			} else {
-				// Create a copy of the book from the container:
-				assert BookItems.isCopyableBook(bookItem);
-				bookItem = BookItems.copyBook(bookItem);
+				bookItem = UnmodifiableItemStack.ofNonNull(this.createDummyBook(bookTitle));
 			}
 			assert bookItem != null;
-			// Assert: bookItem is a copy.
 
-			UnmodifiableItemStack unmodifiableBookItem = UnmodifiableItemStack.ofNonNull(bookItem);
 			TradingRecipe recipe = this.createSellingRecipe(
-					unmodifiableBookItem,
+					bookItem,
 					bookOffer.getPrice(),
 					outOfStock
 			);
@@ -133,6 +132,49 @@ public class SKBookPlayerShopkeeper
 		return Collections.unmodifiableList(recipes);
 	}
 
+	/**
+	 * Gets the copies of the offered books from the given container contents.
+	 * <p>
+	 * Similar to {@link #getCopyableBooks(ItemStack[])}, but only considers the books for which
+	 * there is an offer, and returns the (possibly shared) book copies of the {@link BookCopyCache}
+	 * instead of the original book items.
+	 * 
+	 * @param contents
+	 *            the container contents, not <code>null</code>
+	 * @return the book copies mapped by their title
+	 */
+	private Map<? extends String, ? extends UnmodifiableItemStack> getOfferedBookCopies(
+			@Nullable ItemStack @ReadOnly [] contents
+	) {
+		if (offers.isEmpty()) return Collections.emptyMap();
+
+		BookCopyCache bookCopyCache = this.getType().getBookCopyCache();
+		Map<String, UnmodifiableItemStack> bookCopiesByTitle = new HashMap<>();
+		for (int slot = 0; slot < contents.length; slot++) {
+			ItemStack itemStack = contents[slot];
+			if (itemStack == null) continue;
+			BookMeta bookMeta = BookItems.getBookMeta(itemStack);
+			if (bookMeta == null) continue; // Not a written book
+			if (!BookItems.isCopyable(bookMeta)) continue;
+			String title = BookItems.getTitle(bookMeta);
+			if (title == null) continue;
+
+			// The item is ignored if we already encountered another book item with the same title
+			// before:
+			if (bookCopiesByTitle.containsKey(title)) continue;
+			BookOffer offer = this.getOffer(title);
+			if (offer == null) continue; // Not offered
+
+			bookCopiesByTitle.put(title, bookCopyCache.getBookCopy(
+					offer,
+					slot,
+					itemStack,
+					bookMeta
+			));
+		}
+		return bookCopiesByTitle;
+	}
+
 	/**
 	 * Gets the {@link BookItems#isCopyableBook(ItemStack) copyable}
 	 * {@link BookItems#isWrittenBook(ItemStack) written book} items from the shopkeeper's
@@ -144,10 +186,25 @@ public class SKBookPlayerShopkeeper
 	 * @return the book items mapped by their title, or an empty Map if the container is not found
 	 */
 	protected Map<? extends String, ? extends ItemStack> getCopyableBooksFromContainer() {
+		// Empty if the container is not found:
+		return getCopyableBooks(this.getContainerContents());
+	}
+
+	/**
+	 * Gets the {@link BookItems#isCopyableBook(ItemStack) copyable}
+	 * {@link BookItems#isWrittenBook(ItemStack) written book} items from the given container
+	 * contents.
+	 * 
+	 * @param contents
+	 *            the container contents, not <code>null</code>
+	 * @return the book items mapped by their title
+	 * @see #getCopyableBooksFromContainer()
+	 */
+	protected static Map<? extends String, ? extends ItemStack> getCopyableBooks(
+			@Nullable ItemStack @ReadOnly [] contents
+	) {
 		// Linked Map: Preserves the order of encountered items.
 		Map<String, ItemStack> booksByTitle = new LinkedHashMap<>();
-		// Empty if the container is not found:
-		@Nullable ItemStack[] contents = this.getContainerContents();
 		for (ItemStack itemStack : contents) {
 			if (itemStack == null) continue;
 			BookMeta bookMeta = BookItems.getBookMeta(itemStack);
@@ -175,6 +232,24 @@ public class SKBookPlayerShopkeeper
 		return containerInventory.contains(Material.WRITABLE_BOOK);
 	}
 
+	/**
+	 * Checks if the given container contents contain any blank books (i.e. items of type
+	 * {@link Material#WRITABLE_BOOK}).
+	 * 
+	 * @param contents
+	 *            the container contents, not <code>null</code>
+	 * @return <code>true</code> if the contents contain blank books
+	 * @see #hasContainerBlankBooks()
+	 */
+	protected static boolean hasBlankBooks(@Nullable ItemStack @ReadOnly [] contents) {
+		for (ItemStack itemStack : contents) {
+			if (itemStack != null && itemStack.getType() == Material.WRITABLE_BOOK) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Creates a dummy book {@link ItemStack} that acts as substitute representation of the book
 	 * item with the given title.
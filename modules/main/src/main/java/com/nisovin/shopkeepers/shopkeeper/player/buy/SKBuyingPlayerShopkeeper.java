@@ -106,8 +106,11 @@ public class SKBuyingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		int currencyInContainer = this.getCurrencyInContainer();
+	protected List<? extends TradingRecipe> getTradingRecipes(
+			@Nullable Player player,
+			@Nullable ItemStack @ReadOnly [] containerContents
+	) {
+		int currencyInContainer = getCurrency(containerContents);
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
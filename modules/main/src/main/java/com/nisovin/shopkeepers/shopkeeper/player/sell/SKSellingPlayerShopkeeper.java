@@ -107,9 +107,10 @@ public class SKSellingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		// Empty if the container is not found:
-		@Nullable ItemStack[] containerContents = this.getContainerContents();
+	protected List<? extends TradingRecipe> getTradingRecipes(
+			@Nullable Player player,
+			@Nullable ItemStack @ReadOnly [] containerContents
+	) {
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
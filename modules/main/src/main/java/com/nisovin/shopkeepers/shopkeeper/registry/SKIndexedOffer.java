@@ -0,0 +1,102 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.IndexedOffer;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+final class SKIndexedOffer implements IndexedOffer {
+
+	/**
+	 * Gets a cheap to compare fingerprint of the metadata of the given item.
+	 * <p>
+	 * Similar items have the same fingerprint. Items with different fingerprints are not similar.
+	 * 
+	 * @param item
+	 *            the item, not <code>null</code>
+	 * @return the fingerprint
+	 */
+	static int getMetadataFingerprint(@ReadOnly ItemStack item) {
+		if (!item.hasItemMeta()) return 0;
+		ItemMeta itemMeta = item.getItemMeta();
+		return (itemMeta != null) ? itemMeta.hashCode() : 0;
+	}
+
+	private static int getMetadataFingerprint(@Nullable UnmodifiableItemStack item) {
+		if (item == null || !item.hasItemMeta()) return 0;
+		ItemMeta itemMeta = item.getItemMeta();
+		return (itemMeta != null) ? itemMeta.hashCode() : 0;
+	}
+
+	private final AbstractShopkeeper shopkeeper;
+	private final TradingRecipe tradingRecipe;
+	private final boolean stockKnown;
+	// Precomputed metadata fingerprints of the recipe items:
+	private final int resultItemFingerprint;
+	private final int item1Fingerprint;
+	private final int item2Fingerprint;
+
+	SKIndexedOffer(AbstractShopkeeper shopkeeper, TradingRecipe tradingRecipe, boolean stockKnown) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		Validate.notNull(tradingRecipe, "tradingRecipe is null");
+		this.shopkeeper = shopkeeper;
+		this.tradingRecipe = tradingRecipe;
+		this.stockKnown = stockKnown;
+		this.resultItemFingerprint = getMetadataFingerprint(tradingRecipe.getResultItem());
+		this.item1Fingerprint = getMetadataFingerprint(tradingRecipe.getItem1());
+		this.item2Fingerprint = getMetadataFingerprint(tradingRecipe.getItem2());
+	}
+
+	@Override
+	public AbstractShopkeeper getShopkeeper() {
+		return shopkeeper;
+	}
+
+	@Override
+	public TradingRecipe getTradingRecipe() {
+		return tradingRecipe;
+	}
+
+	@Override
+	public boolean isStockKnown() {
+		return stockKnown;
+	}
+
+	@Override
+	public boolean isInStock() {
+		return stockKnown && !tradingRecipe.isOutOfStock();
+	}
+
+	boolean sells(@ReadOnly ItemStack item, int fingerprint) {
+		return matches(tradingRecipe.getResultItem(), resultItemFingerprint, item, fingerprint);
+	}
+
+	boolean buys(@ReadOnly ItemStack item, int fingerprint) {
+		return matches(tradingRecipe.getItem1(), item1Fingerprint, item, fingerprint)
+				|| matches(tradingRecipe.getItem2(), item2Fingerprint, item, fingerprint);
+	}
+
+	private static boolean matches(
+			@Nullable UnmodifiableItemStack recipeItem,
+			int recipeItemFingerprint,
+			@ReadOnly ItemStack item,
+			int fingerprint
+	) {
+		if (recipeItem == null) return false;
+		if (recipeItemFingerprint != fingerprint) return false;
+		return recipeItem.isSimilar(item);
+	}
+
+	@Override
+	public String toString() {
+		return "SKIndexedOffer [shopkeeper=" + shopkeeper.getId()
+				+ ", tradingRecipe=" + tradingRecipe
+				+ ", stockKnown=" + stockKnown + "]";
+	}
+}
@@ -0,0 +1,75 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperBatch;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperCreateException;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Tracks the shopkeepers that are added and removed during a {@link ShopkeeperBatch}.
+ */
+final class SKShopkeeperBatch implements ShopkeeperBatch {
+
+	private final SKShopkeeperRegistry shopkeeperRegistry;
+	// In the order in which the shopkeepers were added / removed:
+	private final List<AbstractShopkeeper> addedShopkeepers = new ArrayList<>();
+	private final List<AbstractShopkeeper> removedShopkeepers = new ArrayList<>();
+
+	SKShopkeeperBatch(SKShopkeeperRegistry shopkeeperRegistry) {
+		Validate.notNull(shopkeeperRegistry, "shopkeeperRegistry is null");
+		this.shopkeeperRegistry = shopkeeperRegistry;
+	}
+
+	private void validateRunning() {
+		Validate.State.isTrue(shopkeeperRegistry.getCurrentBatch() == this,
+				"This batch is no longer running!");
+	}
+
+	@Override
+	public AbstractShopkeeper createShopkeeper(
+			ShopCreationData creationData
+	) throws ShopkeeperCreateException {
+		this.validateRunning();
+		return shopkeeperRegistry.createShopkeeper(creationData);
+	}
+
+	@Override
+	public void deleteShopkeeper(Shopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		Validate.isTrue(shopkeeper.isValid(), "shopkeeper is invalid");
+		this.validateRunning();
+		shopkeeper.delete();
+	}
+
+	void onShopkeeperAdded(AbstractShopkeeper shopkeeper) {
+		addedShopkeepers.add(shopkeeper);
+	}
+
+	void onShopkeeperRemoved(AbstractShopkeeper shopkeeper) {
+		removedShopkeepers.add(shopkeeper);
+	}
+
+	@Override
+	public int getAddedCount() {
+		return addedShopkeepers.size();
+	}
+
+	@Override
+	public int getRemovedCount() {
+		return removedShopkeepers.size();
+	}
+
+	List<? extends AbstractShopkeeper> getAddedShopkeepers() {
+		return Collections.unmodifiableList(addedShopkeepers);
+	}
+
+	List<? extends AbstractShopkeeper> getRemovedShopkeepers() {
+		return Collections.unmodifiableList(removedShopkeepers);
+	}
+}
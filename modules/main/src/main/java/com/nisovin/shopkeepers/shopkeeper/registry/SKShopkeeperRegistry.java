@@ -12,22 +12,32 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.HandlerList;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.BoundingBox;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeeperAddedEvent;
+import com.nisovin.shopkeepers.api.events.ShopkeeperBatchCompletedEvent;
 import com.nisovin.shopkeepers.api.events.ShopkeeperRemoveEvent;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.IndexedOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperBatch;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperCreateException;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
@@ -36,6 +46,7 @@ import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
 import com.nisovin.shopkeepers.shopkeeper.activation.ShopkeeperChunkActivator;
+import com.nisovin.shopkeepers.shopkeeper.changes.SKShopkeeperChangeFeed;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.ShopkeeperChunkMap.ChangeListener;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
@@ -44,6 +55,7 @@ import com.nisovin.shopkeepers.shopobjects.AbstractShopObjectType;
 import com.nisovin.shopkeepers.shopobjects.block.BlockShopObjectIds;
 import com.nisovin.shopkeepers.shopobjects.entity.EntityShopObjectIds;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
+import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
 import com.nisovin.shopkeepers.util.bukkit.LocationUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
@@ -136,6 +148,12 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final ShopkeeperSpawner shopkeeperSpawner;
 	private final ShopkeeperChunkActivator chunkActivator;
 	private final ActiveChunkQueries activeChunkQueries;
+	private final SpatialQueries spatialQueries;
+	private final ShopkeeperOfferIndex offerIndex;
+	private final SKShopkeeperChangeFeed changeFeed;
+
+	// Null if there is no batch running currently:
+	private @Nullable SKShopkeeperBatch currentBatch = null;
 
 	public SKShopkeeperRegistry(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -149,13 +167,18 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 				shopkeeperSpawner
 		);
 		this.activeChunkQueries = new ActiveChunkQueries(chunkMap, chunkActivator);
+		this.spatialQueries = new SpatialQueries(chunkMap);
+		this.changeFeed = new SKShopkeeperChangeFeed(plugin);
+		this.offerIndex = new ShopkeeperOfferIndex(plugin, changeFeed);
 	}
 
 	public void onEnable() {
+		changeFeed.onEnable();
 		shopObjectRegistry.onEnable();
 		chunkActivator.onEnable();
 		shopkeeperSpawner.onEnable();
 		shopkeeperTicker.onEnable();
+		offerIndex.onEnable();
 	}
 
 	public void onDisable() {
@@ -166,10 +189,12 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		// Reset all (just in case):
 		this.ensureEmpty();
 
+		offerIndex.onDisable();
 		shopkeeperTicker.onDisable();
 		shopkeeperSpawner.onDisable();
 		chunkActivator.onDisable();
 		shopObjectRegistry.onDisable();
+		changeFeed.onDisable();
 	}
 
 	private void ensureEmpty() {
@@ -184,6 +209,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		chunkMap.ensureEmpty();
 	}
 
+	public ShopkeeperTicker getShopkeeperTicker() {
+		return shopkeeperTicker;
+	}
+
 	public ShopkeeperSpawner getShopkeeperSpawner() {
 		return shopkeeperSpawner;
 	}
@@ -192,6 +221,15 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return chunkActivator;
 	}
 
+	public ShopkeeperOfferIndex getOfferIndex() {
+		return offerIndex;
+	}
+
+	@Override
+	public SKShopkeeperChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+
 	// SHOPKEEPER CREATION
 
 	private SKShopkeeperStorage getShopkeeperStorage() {
@@ -268,6 +306,72 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return shopkeeper;
 	}
 
+	// BATCHES
+
+	@Override
+	public void batch(Consumer<? super ShopkeeperBatch> operations) {
+		Validate.notNull(operations, "operations is null");
+		SKShopkeeperBatch runningBatch = currentBatch;
+		if (runningBatch != null) {
+			// Nested batch: Run the operations as part of the already running batch.
+			operations.accept(runningBatch);
+			return;
+		}
+
+		SKShopkeeperBatch batch = new SKShopkeeperBatch(Unsafe.initialized(this));
+		currentBatch = batch;
+		SKShopkeeperStorage shopkeeperStorage = this.getShopkeeperStorage();
+		shopkeeperStorage.deferSaves();
+		try {
+			operations.accept(batch);
+		} finally {
+			currentBatch = null;
+			shopkeeperStorage.resumeSaves();
+			this.completeBatch(batch);
+		}
+	}
+
+	@Override
+	public boolean isBatchRunning() {
+		return (currentBatch != null);
+	}
+
+	// Null if there is no batch running currently.
+	@Nullable
+	SKShopkeeperBatch getCurrentBatch() {
+		return currentBatch;
+	}
+
+	private void completeBatch(SKShopkeeperBatch batch) {
+		Log.debug(() -> "Completing shopkeeper batch: " + batch.getAddedCount() + " added, "
+				+ batch.getRemovedCount() + " removed");
+
+		// Activate the added shopkeepers:
+		// Their spawning is spread across several ticks via the spawn queue.
+		for (AbstractShopkeeper shopkeeper : batch.getAddedShopkeepers()) {
+			if (!shopkeeper.isValid()) continue; // Removed again during the batch
+			chunkActivator.checkShopkeeperActivation(shopkeeper, false);
+		}
+
+		// Save all changes at once:
+		SKShopkeeperStorage shopkeeperStorage = this.getShopkeeperStorage();
+		if (shopkeeperStorage.isDirty()) {
+			shopkeeperStorage.save();
+		}
+
+		// Call event:
+		Bukkit.getPluginManager().callEvent(new ShopkeeperBatchCompletedEvent(
+				batch.getAddedShopkeepers(),
+				batch.getRemovedShopkeepers()
+		));
+	}
+
+	// During batches, the per-shopkeeper events are only called if there are listeners for them.
+	private boolean isCallEvent(HandlerList handlerList) {
+		if (currentBatch == null) return true;
+		return handlerList.getRegisteredListeners().length > 0;
+	}
+
 	private void validateUnusedShopkeeperIds(Shopkeeper shopkeeper) {
 		Validate.isTrue(this.getShopkeeperById(shopkeeper.getId()) == null,
 				() -> "There already exists a shopkeeper with the same id: " + shopkeeper.getId());
@@ -300,6 +404,20 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			chunkMap.addShopkeeper(shopkeeper);
 		}
 
+		// Add shopkeeper to the offer index:
+		offerIndex.addShopkeeper(shopkeeper, cause == ShopkeeperAddedEvent.Cause.CREATED);
+
+		// Add shopkeeper to the running batch:
+		SKShopkeeperBatch batch = currentBatch;
+		if (batch != null) {
+			batch.onShopkeeperAdded(shopkeeper);
+		}
+
+		// Record the change:
+		if (cause == ShopkeeperAddedEvent.Cause.CREATED) {
+			changeFeed.onShopkeeperCreated(shopkeeper);
+		}
+
 		// Update player shop count:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount++;
@@ -326,12 +444,17 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		shopkeeper.informAdded(cause);
 
 		// Call event:
-		Bukkit.getPluginManager().callEvent(new ShopkeeperAddedEvent(shopkeeper, cause));
-		if (!shopkeeper.isValid()) {
-			// The shopkeeper has already been removed again.
-			return;
+		if (this.isCallEvent(ShopkeeperAddedEvent.getHandlerList())) {
+			Bukkit.getPluginManager().callEvent(new ShopkeeperAddedEvent(shopkeeper, cause));
+			if (!shopkeeper.isValid()) {
+				// The shopkeeper has already been removed again.
+				return;
+			}
 		}
 
+		// During batches, the activation is deferred until the end of the batch:
+		if (batch != null) return;
+
 		// If necessary, activate the shopkeeper (start ticking, spawn, etc.):
 		chunkActivator.checkShopkeeperActivation(shopkeeper);
 	}
@@ -343,12 +466,14 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		assert shopkeeper != null && shopkeeper.isValid() && cause != null;
 
 		// Call event:
-		Bukkit.getPluginManager().callEvent(new ShopkeeperRemoveEvent(shopkeeper, cause));
+		if (this.isCallEvent(ShopkeeperRemoveEvent.getHandlerList())) {
+			Bukkit.getPluginManager().callEvent(new ShopkeeperRemoveEvent(shopkeeper, cause));
 
-		if (!shopkeeper.isValid()) {
-			Log.warning(shopkeeper.getLogPrefix()
-					+ "Aborting removal, because already removed during ShopkeeperRemoveEvent!");
-			return;
+			if (!shopkeeper.isValid()) {
+				Log.warning(shopkeeper.getLogPrefix() + "Aborting removal, because already"
+						+ " removed during ShopkeeperRemoveEvent!");
+				return;
+			}
 		}
 
 		// Delayed closing of all active UI sessions:
@@ -383,6 +508,15 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			chunkMap.removeShopkeeper(shopkeeper);
 		}
 
+		// Remove shopkeeper from the offer index:
+		offerIndex.removeShopkeeper(shopkeeper);
+
+		// Add shopkeeper to the running batch:
+		SKShopkeeperBatch batch = currentBatch;
+		if (batch != null) {
+			batch.onShopkeeperRemoved(shopkeeper);
+		}
+
 		// Update player shop count:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount--;
@@ -391,6 +525,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		if (cause == ShopkeeperRemoveEvent.Cause.DELETE) {
 			// Remove shopkeeper from storage:
 			this.getShopkeeperStorage().deleteShopkeeper(shopkeeper);
+
+			// Record the change:
+			changeFeed.onShopkeeperDeleted(shopkeeper);
 		}
 	}
 
@@ -402,6 +539,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 		ChunkCoords oldChunk = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
 
+		// Record the change:
+		changeFeed.onShopkeeperMoved(shopkeeper);
+
 		// Update the shopkeeper's location inside the chunk map:
 		if (!chunkMap.moveShopkeeper(shopkeeper)) {
 			// The shopkeeper's chunk did not change.
@@ -428,6 +568,16 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		new ArrayList<>(this.getAllShopkeepers()).forEach(this::unloadShopkeeper);
 	}
 
+	// Returns the unloaded shopkeepers.
+	public List<? extends AbstractShopkeeper> unloadShopkeepersInWorld(String worldName) {
+		Validate.notEmpty(worldName, "worldName is null or empty");
+		List<? extends AbstractShopkeeper> shopkeepers = new ArrayList<>(
+				this.getShopkeepersInWorld(worldName)
+		);
+		shopkeepers.forEach(this::unloadShopkeeper);
+		return shopkeepers;
+	}
+
 	public void deleteShopkeeper(AbstractShopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
 		Validate.isTrue(shopkeeper.isValid(), "shopkeeper is invalid");
@@ -538,6 +688,35 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		});
 	}
 
+	// BY OFFERED ITEM
+
+	@Override
+	public Stream<? extends IndexedOffer> getOffersSelling(ItemStack item) {
+		Validate.notNull(item, "item is null");
+		return offerIndex.getOffersSelling(item);
+	}
+
+	@Override
+	public Stream<? extends IndexedOffer> getOffersSelling(Material itemType) {
+		return offerIndex.getOffersSelling(itemType);
+	}
+
+	@Override
+	public Stream<? extends IndexedOffer> getOffersBuying(ItemStack item) {
+		Validate.notNull(item, "item is null");
+		return offerIndex.getOffersBuying(item);
+	}
+
+	@Override
+	public Stream<? extends IndexedOffer> getOffersBuying(Material itemType) {
+		return offerIndex.getOffersBuying(itemType);
+	}
+
+	@Override
+	public boolean isIndexingOffers() {
+		return offerIndex.isIndexing();
+	}
+
 	// BY WORLD
 
 	@Override
@@ -629,6 +808,33 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return shopkeepers;
 	}
 
+	// BY AREA
+
+	@Override
+	public Stream<? extends AbstractShopkeeper> getShopkeepersInRadius(
+			Location location,
+			double radius
+	) {
+		return spatialQueries.getShopkeepersInRadius(location, radius);
+	}
+
+	@Override
+	public Stream<? extends AbstractShopkeeper> getShopkeepersInBoundingBox(
+			String worldName,
+			BoundingBox boundingBox
+	) {
+		return spatialQueries.getShopkeepersInBoundingBox(worldName, boundingBox);
+	}
+
+	@Override
+	public Stream<? extends AbstractShopkeeper> getNearestShopkeepers(
+			Location location,
+			int count,
+			Predicate<? super Shopkeeper> filter
+	) {
+		return spatialQueries.getNearestShopkeepers(location, count, filter);
+	}
+
 	// BY SHOP OBJECT
 
 	public ShopObjectRegistry getShopObjectRegistry() {
@@ -638,6 +844,11 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	@Override
 	public @Nullable AbstractShopkeeper getShopkeeperByEntity(Entity entity) {
 		Validate.notNull(entity, "entity is null");
+		// Most entities are not shopkeepers. Quickly rule out entities of types that are not used
+		// by any spawned shop object, before we look up the entity's unique id:
+		EntityType entityType = EntityUtils.resolveComplexEntity(entity).getType();
+		if (!shopObjectRegistry.isEntityTypeInUse(entityType)) return null;
+
 		Object objectId = EntityShopObjectIds.getObjectId(entity);
 		return shopObjectRegistry.getShopkeeperByObjectId(objectId);
 	}
@@ -1,15 +1,18 @@
 package com.nisovin.shopkeepers.shopkeeper.registry;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+import org.bukkit.entity.EntityType;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
+import com.nisovin.shopkeepers.shopobjects.entity.AbstractEntityShopObject;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 
@@ -24,6 +27,16 @@ public class ShopObjectRegistry {
 	// Since some types of shop objects may handle their spawning themselves, shop objects might
 	// already be spawned before their chunk is activated.
 	private final Map<Object, AbstractShopkeeper> shopkeepersByObjectId = new HashMap<>();
+	// The entity types of the registered entity shop objects, mapped by their shop object ids:
+	private final Map<Object, @Nullable EntityType> entityTypesByObjectId = new HashMap<>();
+	// The number of registered entity shop objects per entity type, indexed by the entity type's
+	// ordinal. Most entity events are called for entities that are not shopkeepers. This allows us
+	// to cheaply rule out entities of types that are not used by any spawned shop object, without
+	// having to look up the entity's unique id.
+	private final int[] entityTypeCounts = new int[EntityType.values().length];
+	// The number of registered entity shop objects whose entity type is not fixed: If there are
+	// any, we cannot rule out any entity types.
+	private int unknownEntityTypeCount = 0;
 
 	ShopObjectRegistry() {
 	}
@@ -39,6 +52,9 @@ public class ShopObjectRegistry {
 		if (!shopkeepersByObjectId.isEmpty()) {
 			Log.warning("Some spawned shop objects were not properly unregistered!");
 			shopkeepersByObjectId.clear();
+			entityTypesByObjectId.clear();
+			Arrays.fill(entityTypeCounts, 0);
+			unknownEntityTypeCount = 0;
 		}
 	}
 
@@ -53,6 +69,21 @@ public class ShopObjectRegistry {
 		return shopkeepersByObjectId.get(objectId);
 	}
 
+	/**
+	 * Checks if there might be a spawned entity shop object that uses an entity of the given type.
+	 * <p>
+	 * This is a cheap check that can be used to quickly rule out entities that cannot be
+	 * shopkeepers. If this returns <code>true</code>, the entity might still not be a shopkeeper.
+	 * 
+	 * @param entityType
+	 *            the entity type, not <code>null</code>
+	 * @return <code>false</code> if there is no spawned entity shop object with an entity of the
+	 *         given type
+	 */
+	public boolean isEntityTypeInUse(EntityType entityType) {
+		return (unknownEntityTypeCount > 0) || (entityTypeCounts[entityType.ordinal()] > 0);
+	}
+
 	/**
 	 * Handles the registration and unregistration of spawned shop objects.
 	 * <p>
@@ -112,6 +143,33 @@ public class ShopObjectRegistry {
 			return;
 		} else {
 			shopObject.setLastId(objectId); // Remember the object id
+			this.registerEntityType(objectId, shopObject);
+		}
+	}
+
+	private void registerEntityType(Object objectId, AbstractShopObject shopObject) {
+		if (!(shopObject instanceof AbstractEntityShopObject)) return;
+
+		AbstractEntityShopObject entityShopObject = (AbstractEntityShopObject) shopObject;
+		@Nullable EntityType entityType = entityShopObject.getFixedEntityType();
+		entityTypesByObjectId.put(objectId, entityType);
+		if (entityType != null) {
+			entityTypeCounts[entityType.ordinal()]++;
+		} else {
+			unknownEntityTypeCount++;
+		}
+	}
+
+	private void unregisterEntityType(Object objectId) {
+		if (!entityTypesByObjectId.containsKey(objectId)) return;
+
+		@Nullable EntityType entityType = entityTypesByObjectId.remove(objectId);
+		if (entityType != null) {
+			assert entityTypeCounts[entityType.ordinal()] > 0;
+			entityTypeCounts[entityType.ordinal()]--;
+		} else {
+			assert unknownEntityTypeCount > 0;
+			unknownEntityTypeCount--;
 		}
 	}
 
@@ -125,6 +183,7 @@ public class ShopObjectRegistry {
 				+ "Unregistering object with id '" + objectId + "'.");
 		assert shopkeepersByObjectId.get(objectId) == shopkeeper;
 		shopkeepersByObjectId.remove(objectId);
+		this.unregisterEntityType(objectId);
 		shopObject.setLastId(null);
 	}
 }
@@ -0,0 +1,391 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.changes.SKShopkeeperChangeFeed;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * An inverted index from the types of traded items to the {@link TradingRecipe trading recipes} of
+ * all shopkeepers that sell or buy items of these types.
+ * <p>
+ * Lookups for specific items additionally compare a precomputed fingerprint of the item metadata
+ * before they check if the items are actually similar.
+ * <p>
+ * The index is updated incrementally: Shopkeepers are marked as dirty when they are added, when
+ * their data changes (e.g. due to offer edits), when they are activated, when trades modify the
+ * contents of their container, and when a player closes their container. The offers of dirty
+ * shopkeepers are re-indexed periodically, in batches that are limited by a time budget. Before
+ * each lookup, dirty shopkeepers are additionally re-indexed within a small time budget, so that
+ * recent changes are usually reflected right away. However, lookups never block until all dirty
+ * shopkeepers have been re-indexed, which can involve reading the contents of many shop
+ * containers, e.g. for the shopkeepers that are loaded on startup. Instead, lookups are answered
+ * from the partial index while the index is still {@link #isIndexing() indexing}.
+ * <p>
+ * When the offers of a previously indexed shopkeeper are re-indexed, they are compared with the
+ * previously indexed offers, and any changes of the offers or their stock are reported to the
+ * {@link SKShopkeeperChangeFeed}.
+ */
+public final class ShopkeeperOfferIndex implements Listener {
+
+	private static final class ItemOffers {
+
+		// Sets: Allow for fast removal. Linked: Stable iteration order.
+		private final Set<SKIndexedOffer> selling = new LinkedHashSet<>();
+		private final Set<SKIndexedOffer> buying = new LinkedHashSet<>();
+
+		boolean isEmpty() {
+			return selling.isEmpty() && buying.isEmpty();
+		}
+	}
+
+	private static final long UPDATE_PERIOD_TICKS = 5L;
+	// The number of shopkeepers that can be re-indexed within this budget depends on the number of
+	// their offers and on whether their containers need to be read:
+	private static final long UPDATE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+	private static final long QUERY_UPDATE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+
+	private final SKShopkeepersPlugin plugin;
+	private final SKShopkeeperChangeFeed changeFeed;
+	private final Map<Material, ItemOffers> offersByItemType = new EnumMap<>(Material.class);
+	// Contains all indexed shopkeepers, including those without offers:
+	private final Map<AbstractShopkeeper, List<SKIndexedOffer>> offersByShopkeeper = new HashMap<>();
+	// Shopkeepers whose offers need to be re-indexed:
+	private final Set<AbstractShopkeeper> dirtyShopkeepers = new LinkedHashSet<>();
+
+	private @Nullable ScheduledTask updateTask = null;
+
+	ShopkeeperOfferIndex(SKShopkeepersPlugin plugin, SKShopkeeperChangeFeed changeFeed) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(changeFeed, "changeFeed is null");
+		this.plugin = plugin;
+		this.changeFeed = changeFeed;
+	}
+
+	void onEnable() {
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		updateTask = plugin.getTaskScheduler().runGlobalTimer(
+				() -> this.updateWithinBudget(UPDATE_BUDGET_NANOS),
+				UPDATE_PERIOD_TICKS,
+				UPDATE_PERIOD_TICKS
+		);
+	}
+
+	void onDisable() {
+		HandlerList.unregisterAll(this);
+		if (updateTask != null) {
+			updateTask.cancel();
+			updateTask = null;
+		}
+		offersByItemType.clear();
+		offersByShopkeeper.clear();
+		dirtyShopkeepers.clear();
+	}
+
+	// SHOPKEEPERS
+
+	void addShopkeeper(AbstractShopkeeper shopkeeper, boolean created) {
+		assert shopkeeper != null;
+		if (created) {
+			// Any offers that are added after the creation are reported as changes:
+			offersByShopkeeper.put(shopkeeper, Collections.emptyList());
+		}
+		// The offers are lazily indexed once they are queried:
+		dirtyShopkeepers.add(shopkeeper);
+	}
+
+	void removeShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		dirtyShopkeepers.remove(shopkeeper);
+		this.removeOffers(shopkeeper);
+	}
+
+	/**
+	 * Marks the offers of the given shopkeeper as dirty, so that they are re-indexed.
+	 * <p>
+	 * This has no effect if the shopkeeper is not {@link AbstractShopkeeper#isValid() valid}.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void markDirty(AbstractShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		// Shopkeepers that are not yet valid are indexed once they are added:
+		if (!shopkeeper.isValid()) return;
+		dirtyShopkeepers.add(shopkeeper);
+	}
+
+	/**
+	 * This is called when the given shopkeeper is activated.
+	 * <p>
+	 * The container of player shops is usually located near the shopkeeper and is therefore
+	 * usually loaded at this point. If the stock of the shopkeeper's offers is not yet known, the
+	 * offers are re-indexed.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void onShopkeeperActivated(AbstractShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		List<SKIndexedOffer> offers = offersByShopkeeper.get(shopkeeper);
+		if (offers == null || offers.isEmpty()) return; // Not indexed yet, or no offers
+		// All offers of a shopkeeper share the same stock state:
+		if (offers.get(0).isStockKnown()) return;
+		this.markDirty(shopkeeper);
+	}
+
+	// INDEXING
+
+	private ItemOffers getOrCreateItemOffers(Material itemType) {
+		return offersByItemType.computeIfAbsent(itemType, type -> new ItemOffers());
+	}
+
+	private void removeOffers(AbstractShopkeeper shopkeeper) {
+		List<SKIndexedOffer> offers = offersByShopkeeper.remove(shopkeeper);
+		if (offers == null) return; // Not indexed
+
+		for (SKIndexedOffer offer : offers) {
+			TradingRecipe recipe = offer.getTradingRecipe();
+			this.removeSellingOffer(recipe.getResultItem(), offer);
+			this.removeBuyingOffer(recipe.getItem1(), offer);
+			this.removeBuyingOffer(recipe.getItem2(), offer);
+		}
+	}
+
+	private void removeSellingOffer(UnmodifiableItemStack item, SKIndexedOffer offer) {
+		Material itemType = item.getType();
+		ItemOffers itemOffers = offersByItemType.get(itemType);
+		if (itemOffers == null) return;
+
+		itemOffers.selling.remove(offer);
+		if (itemOffers.isEmpty()) {
+			offersByItemType.remove(itemType);
+		}
+	}
+
+	private void removeBuyingOffer(@Nullable UnmodifiableItemStack item, SKIndexedOffer offer) {
+		if (item == null) return;
+		Material itemType = item.getType();
+		ItemOffers itemOffers = offersByItemType.get(itemType);
+		if (itemOffers == null) return;
+
+		itemOffers.buying.remove(offer);
+		if (itemOffers.isEmpty()) {
+			offersByItemType.remove(itemType);
+		}
+	}
+
+	private void indexOffers(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper.isValid();
+		@Nullable List<SKIndexedOffer> previousOffers = offersByShopkeeper.get(shopkeeper);
+		this.removeOffers(shopkeeper);
+
+		boolean stockKnown = shopkeeper.isIndexedStockKnown();
+		List<? extends TradingRecipe> recipes = shopkeeper.getIndexedTradingRecipes();
+		List<SKIndexedOffer> offers = new ArrayList<>(recipes.size());
+		for (TradingRecipe recipe : recipes) {
+			SKIndexedOffer offer = null;
+			if (!stockKnown && previousOffers != null) {
+				// Keep the last known stock of unchanged offers:
+				offer = findKnownStockOffer(previousOffers, recipe);
+			}
+			if (offer == null) {
+				offer = new SKIndexedOffer(shopkeeper, recipe, stockKnown);
+			}
+			offers.add(offer);
+
+			this.getOrCreateItemOffers(recipe.getResultItem().getType()).selling.add(offer);
+			this.getOrCreateItemOffers(recipe.getItem1().getType()).buying.add(offer);
+			UnmodifiableItemStack item2 = recipe.getItem2();
+			if (item2 != null) {
+				this.getOrCreateItemOffers(item2.getType()).buying.add(offer);
+			}
+		}
+		offersByShopkeeper.put(shopkeeper, offers);
+
+		if (previousOffers != null) {
+			this.detectChanges(shopkeeper, previousOffers, offers);
+		}
+	}
+
+	private void detectChanges(
+			AbstractShopkeeper shopkeeper,
+			List<SKIndexedOffer> previousOffers,
+			List<SKIndexedOffer> offers
+	) {
+		if (previousOffers.size() != offers.size()) {
+			changeFeed.onOffersChanged(shopkeeper);
+			return;
+		}
+
+		boolean stockChanged = false;
+		for (int i = 0; i < offers.size(); i++) {
+			SKIndexedOffer previousOffer = previousOffers.get(i);
+			SKIndexedOffer offer = offers.get(i);
+			if (!previousOffer.getTradingRecipe().areItemsEqual(offer.getTradingRecipe())) {
+				changeFeed.onOffersChanged(shopkeeper);
+				return;
+			}
+
+			// Only compare the stock if it is known in both cases:
+			if (previousOffer.isStockKnown() && offer.isStockKnown()
+					&& previousOffer.isInStock() != offer.isInStock()) {
+				stockChanged = true;
+			}
+		}
+
+		if (stockChanged) {
+			changeFeed.onStockChanged(shopkeeper);
+		}
+	}
+
+	private static @Nullable SKIndexedOffer findKnownStockOffer(
+			List<SKIndexedOffer> offers,
+			TradingRecipe recipe
+	) {
+		for (SKIndexedOffer offer : offers) {
+			if (offer.isStockKnown() && offer.getTradingRecipe().areItemsEqual(recipe)) {
+				return offer;
+			}
+		}
+		return null;
+	}
+
+	// Re-indexes dirty shopkeepers until the time budget is used up. At least one dirty shopkeeper
+	// is re-indexed, so that the index always makes progress.
+	private void updateWithinBudget(long budgetNanos) {
+		if (dirtyShopkeepers.isEmpty()) return;
+
+		long deadlineNanos = System.nanoTime() + budgetNanos;
+		Iterator<AbstractShopkeeper> iterator = dirtyShopkeepers.iterator();
+		do {
+			AbstractShopkeeper shopkeeper = iterator.next();
+			iterator.remove();
+			this.indexOffers(shopkeeper);
+		} while (iterator.hasNext() && System.nanoTime() < deadlineNanos);
+	}
+
+	private void updateForQuery() {
+		this.updateWithinBudget(QUERY_UPDATE_BUDGET_NANOS);
+	}
+
+	// QUERIES
+
+	/**
+	 * Checks if there are shopkeepers whose offers still need to be re-indexed.
+	 * <p>
+	 * Lookups are answered from the current state of the index. While the index is still
+	 * indexing, e.g. after the shopkeepers have been loaded, lookups might therefore not yet
+	 * include all offers, or include outdated offers.
+	 * 
+	 * @return <code>true</code> if the index is still indexing
+	 */
+	public boolean isIndexing() {
+		return !dirtyShopkeepers.isEmpty();
+	}
+
+	/**
+	 * Gets the number of shopkeepers whose offers still need to be re-indexed.
+	 * 
+	 * @return the number of pending shopkeepers
+	 */
+	public int getPendingShopkeeperCount() {
+		return dirtyShopkeepers.size();
+	}
+
+	/**
+	 * Gets the number of indexed offers.
+	 * 
+	 * @return the number of indexed offers
+	 */
+	public int getOfferCount() {
+		this.updateForQuery();
+		int count = 0;
+		for (List<SKIndexedOffer> offers : offersByShopkeeper.values()) {
+			count += offers.size();
+		}
+		return count;
+	}
+
+	public Stream<SKIndexedOffer> getOffersSelling(Material itemType) {
+		Validate.notNull(itemType, "itemType is null");
+		this.updateForQuery();
+		ItemOffers itemOffers = offersByItemType.get(itemType);
+		if (itemOffers == null) return Stream.empty();
+		return itemOffers.selling.stream();
+	}
+
+	public Stream<SKIndexedOffer> getOffersSelling(@ReadOnly ItemStack item) {
+		Validate.isTrue(!ItemUtils.isEmpty(item), "item is empty");
+		int fingerprint = SKIndexedOffer.getMetadataFingerprint(item);
+		return this.getOffersSelling(item.getType())
+				.filter(offer -> offer.sells(item, fingerprint));
+	}
+
+	public Stream<SKIndexedOffer> getOffersBuying(Material itemType) {
+		Validate.notNull(itemType, "itemType is null");
+		this.updateForQuery();
+		ItemOffers itemOffers = offersByItemType.get(itemType);
+		if (itemOffers == null) return Stream.empty();
+		return itemOffers.buying.stream();
+	}
+
+	public Stream<SKIndexedOffer> getOffersBuying(@ReadOnly ItemStack item) {
+		Validate.isTrue(!ItemUtils.isEmpty(item), "item is empty");
+		int fingerprint = SKIndexedOffer.getMetadataFingerprint(item);
+		return this.getOffersBuying(item.getType())
+				.filter(offer -> offer.buys(item, fingerprint));
+	}
+
+	// STOCK CHANGES
+
+	// Trades are handled by the trading handler of player shops. Here we react to players closing
+	// shop containers, which includes the owners editing the container contents.
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onInventoryClose(InventoryCloseEvent event) {
+		Inventory inventory = event.getInventory();
+		Location location = inventory.getLocation(); // Can be null
+		if (location == null || location.getWorld() == null) return;
+
+		Block block = location.getBlock();
+		if (!ShopContainers.isSupportedContainer(block.getType())) return;
+
+		List<? extends PlayerShopkeeper> shopkeepers = plugin.getProtectedContainers()
+				.getShopkeepersUsingContainer(block);
+		for (PlayerShopkeeper shopkeeper : shopkeepers) {
+			this.markDirty((AbstractShopkeeper) shopkeeper);
+		}
+	}
+}
@@ -0,0 +1,333 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.bukkit.Location;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.NumberConversions;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.LocationUtils;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Spatial queries that are backed by the chunk buckets of the {@link ShopkeeperChunkMap}.
+ * <p>
+ * Queries only visit the chunks that overlap the queried area. If the queried area contains more
+ * chunks than there are chunks with shopkeepers in the world, the chunks with shopkeepers are
+ * iterated instead. The queried area is additionally limited to the bounds of the chunks with
+ * shopkeepers in the world.
+ * <p>
+ * Distances are measured to the shopkeepers' {@link AbstractShopkeeper#getLocation() locations}.
+ */
+public class SpatialQueries {
+
+	private static final int CHUNK_SIZE = 16;
+
+	private static final class Candidate {
+
+		final AbstractShopkeeper shopkeeper;
+		final double distanceSquared;
+
+		Candidate(AbstractShopkeeper shopkeeper, double distanceSquared) {
+			this.shopkeeper = shopkeeper;
+			this.distanceSquared = distanceSquared;
+		}
+	}
+
+	private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(
+			candidate -> candidate.distanceSquared
+	);
+
+	private final ShopkeeperChunkMap shopkeeperChunkMap;
+
+	SpatialQueries(ShopkeeperChunkMap shopkeeperChunkMap) {
+		Validate.notNull(shopkeeperChunkMap, "shopkeeperChunkMap is null");
+		this.shopkeeperChunkMap = shopkeeperChunkMap;
+	}
+
+	private static double getDistanceSquared(
+			AbstractShopkeeper shopkeeper,
+			double x,
+			double y,
+			double z
+	) {
+		double dx = shopkeeper.getX() - x;
+		double dy = shopkeeper.getY() - y;
+		double dz = shopkeeper.getZ() - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	// BY AREA
+
+	/**
+	 * Lazily streams the shopkeepers in the chunks that overlap the specified block area.
+	 * <p>
+	 * The returned shopkeepers are not filtered by their exact location yet.
+	 */
+	private Stream<AbstractShopkeeper> getShopkeepersInChunks(
+			String worldName,
+			int minBlockX,
+			int minBlockZ,
+			int maxBlockX,
+			int maxBlockZ
+	) {
+		WorldShopkeepers worldShopkeepers = shopkeeperChunkMap.getWorldShopkeepers(worldName);
+		if (worldShopkeepers == null) return Stream.empty();
+
+		// Limit the area to the bounds of the chunks with shopkeepers:
+		int minChunkX = Math.max(ChunkCoords.fromBlock(minBlockX), worldShopkeepers.getMinChunkX());
+		int minChunkZ = Math.max(ChunkCoords.fromBlock(minBlockZ), worldShopkeepers.getMinChunkZ());
+		int maxChunkX = Math.min(ChunkCoords.fromBlock(maxBlockX), worldShopkeepers.getMaxChunkX());
+		int maxChunkZ = Math.min(ChunkCoords.fromBlock(maxBlockZ), worldShopkeepers.getMaxChunkZ());
+		if (minChunkX > maxChunkX || minChunkZ > maxChunkZ) return Stream.empty();
+
+		long width = (long) maxChunkX - minChunkX + 1;
+		long chunkCount = width * ((long) maxChunkZ - minChunkZ + 1);
+		if (chunkCount > worldShopkeepers.getChunkCount()) {
+			// Iterating the chunks with shopkeepers is cheaper than probing all chunks of the area:
+			return worldShopkeepers.getChunks().stream()
+					.filter(chunkShopkeepers -> {
+						ChunkCoords chunkCoords = chunkShopkeepers.getChunkCoords();
+						int chunkX = chunkCoords.getChunkX();
+						int chunkZ = chunkCoords.getChunkZ();
+						return chunkX >= minChunkX && chunkX <= maxChunkX
+								&& chunkZ >= minChunkZ && chunkZ <= maxChunkZ;
+					})
+					.<AbstractShopkeeper>flatMap(chunkShopkeepers -> {
+						return chunkShopkeepers.getShopkeepers().stream();
+					});
+		}
+
+		// Reused for all chunk lookups of this query:
+		MutableChunkCoords chunkCoords = new MutableChunkCoords();
+		return LongStream.range(0, chunkCount).<List<? extends AbstractShopkeeper>>mapToObj(i -> {
+			chunkCoords.set(
+					worldName,
+					minChunkX + (int) (i % width),
+					minChunkZ + (int) (i / width)
+			);
+			ChunkShopkeepers chunkShopkeepers = worldShopkeepers.getChunkShopkeepers(chunkCoords);
+			if (chunkShopkeepers == null) return Collections.emptyList();
+			return chunkShopkeepers.getShopkeepers();
+		}).<AbstractShopkeeper>flatMap(Collection::stream);
+	}
+
+	public Stream<AbstractShopkeeper> getShopkeepersInRadius(Location location, double radius) {
+		Validate.isTrue(radius >= 0.0D, "radius cannot be negative");
+		String worldName = LocationUtils.getWorld(location).getName();
+		double x = location.getX();
+		double y = location.getY();
+		double z = location.getZ();
+		double radiusSquared = radius * radius;
+		return this.getShopkeepersInChunks(
+				worldName,
+				NumberConversions.floor(x - radius),
+				NumberConversions.floor(z - radius),
+				NumberConversions.floor(x + radius),
+				NumberConversions.floor(z + radius)
+		).filter(shopkeeper -> getDistanceSquared(shopkeeper, x, y, z) <= radiusSquared);
+	}
+
+	public Stream<AbstractShopkeeper> getShopkeepersInBoundingBox(
+			String worldName,
+			BoundingBox boundingBox
+	) {
+		Validate.notEmpty(worldName, "worldName is null or empty");
+		Validate.notNull(boundingBox, "boundingBox is null");
+		// Copy: The bounding box is mutable.
+		BoundingBox box = boundingBox.clone();
+		return this.getShopkeepersInChunks(
+				worldName,
+				NumberConversions.floor(box.getMinX()),
+				NumberConversions.floor(box.getMinZ()),
+				NumberConversions.floor(box.getMaxX()),
+				NumberConversions.floor(box.getMaxZ())
+		).filter(shopkeeper -> {
+			return box.contains(shopkeeper.getX(), shopkeeper.getY(), shopkeeper.getZ());
+		});
+	}
+
+	// NEAREST
+
+	public Stream<AbstractShopkeeper> getNearestShopkeepers(
+			Location location,
+			int count,
+			Predicate<? super AbstractShopkeeper> filter
+	) {
+		Validate.isTrue(count > 0, "count has to be positive");
+		Validate.notNull(filter, "filter is null");
+		String worldName = LocationUtils.getWorld(location).getName();
+		WorldShopkeepers worldShopkeepers = shopkeeperChunkMap.getWorldShopkeepers(worldName);
+		if (worldShopkeepers == null) return Stream.empty();
+
+		NearestSearch search = new NearestSearch(location, count, filter);
+		search.run(worldShopkeepers);
+		return search.nearest.stream()
+				.sorted(NEAREST_FIRST)
+				.map(candidate -> candidate.shopkeeper);
+	}
+
+	/**
+	 * Searches the chunks in rings of increasing size around the center chunk, until the
+	 * remaining chunks cannot contain any closer shopkeepers. If probing the next ring would be
+	 * more expensive than iterating all chunks with shopkeepers, the remaining chunks with
+	 * shopkeepers are iterated instead.
+	 */
+	private static final class NearestSearch {
+
+		private final double x;
+		private final double y;
+		private final double z;
+		private final int centerChunkX;
+		private final int centerChunkZ;
+		private final int count;
+		private final Predicate<? super AbstractShopkeeper> filter;
+		// Farthest first:
+		private final PriorityQueue<Candidate> nearest;
+		private final MutableChunkCoords chunkCoords = new MutableChunkCoords();
+
+		NearestSearch(Location location, int count, Predicate<? super AbstractShopkeeper> filter) {
+			this.x = location.getX();
+			this.y = location.getY();
+			this.z = location.getZ();
+			this.centerChunkX = ChunkCoords.fromBlock(location.getBlockX());
+			this.centerChunkZ = ChunkCoords.fromBlock(location.getBlockZ());
+			this.count = count;
+			this.filter = filter;
+			this.nearest = new PriorityQueue<>(Math.min(count, 64) + 1, NEAREST_FIRST.reversed());
+		}
+
+		void run(WorldShopkeepers worldShopkeepers) {
+			String worldName = worldShopkeepers.getWorldName();
+			int chunkCount = worldShopkeepers.getChunkCount();
+			// The ring that reaches the farthest chunk with shopkeepers:
+			int maxRing = Math.max(
+					Math.max(
+							Math.abs(centerChunkX - worldShopkeepers.getMinChunkX()),
+							Math.abs(worldShopkeepers.getMaxChunkX() - centerChunkX)
+					),
+					Math.max(
+							Math.abs(centerChunkZ - worldShopkeepers.getMinChunkZ()),
+							Math.abs(worldShopkeepers.getMaxChunkZ() - centerChunkZ)
+					)
+			);
+
+			long probedChunks = 0;
+			for (int ring = 0; ring <= maxRing; ring++) {
+				long ringChunks = (ring == 0) ? 1 : 8L * ring;
+				if (probedChunks + ringChunks > chunkCount) {
+					// Iterate the remaining chunks with shopkeepers instead:
+					this.searchRemainingChunks(worldShopkeepers, ring);
+					return;
+				}
+				probedChunks += ringChunks;
+				this.searchRing(worldShopkeepers, worldName, ring);
+
+				if (this.isComplete(ring)) return;
+			}
+		}
+
+		private void searchRing(WorldShopkeepers worldShopkeepers, String worldName, int ring) {
+			if (ring == 0) {
+				this.searchChunk(worldShopkeepers, worldName, centerChunkX, centerChunkZ);
+				return;
+			}
+			for (int chunkX = centerChunkX - ring; chunkX <= centerChunkX + ring; chunkX++) {
+				this.searchChunk(worldShopkeepers, worldName, chunkX, centerChunkZ - ring);
+				this.searchChunk(worldShopkeepers, worldName, chunkX, centerChunkZ + ring);
+			}
+			for (int chunkZ = centerChunkZ - ring + 1; chunkZ < centerChunkZ + ring; chunkZ++) {
+				this.searchChunk(worldShopkeepers, worldName, centerChunkX - ring, chunkZ);
+				this.searchChunk(worldShopkeepers, worldName, centerChunkX + ring, chunkZ);
+			}
+		}
+
+		private void searchChunk(
+				WorldShopkeepers worldShopkeepers,
+				String worldName,
+				int chunkX,
+				int chunkZ
+		) {
+			chunkCoords.set(worldName, chunkX, chunkZ);
+			ChunkShopkeepers chunkShopkeepers = worldShopkeepers.getChunkShopkeepers(chunkCoords);
+			if (chunkShopkeepers == null) return;
+			this.addCandidates(chunkShopkeepers);
+		}
+
+		private void searchRemainingChunks(WorldShopkeepers worldShopkeepers, int firstRing) {
+			for (ChunkShopkeepers chunkShopkeepers : worldShopkeepers.getChunks()) {
+				ChunkCoords chunk = chunkShopkeepers.getChunkCoords();
+				int chunkX = chunk.getChunkX();
+				int chunkZ = chunk.getChunkZ();
+				int ring = Math.max(
+						Math.abs(chunkX - centerChunkX),
+						Math.abs(chunkZ - centerChunkZ)
+				);
+				if (ring < firstRing) continue; // Already searched
+
+				// Skip chunks that cannot contain any closer shopkeepers:
+				@Nullable Candidate farthest = nearest.peek();
+				if (nearest.size() >= count && farthest != null) {
+					double minDistanceSquared = this.getMinDistanceSquared(chunkX, chunkZ);
+					if (minDistanceSquared > farthest.distanceSquared) continue;
+				}
+				this.addCandidates(chunkShopkeepers);
+			}
+		}
+
+		private void addCandidates(ChunkShopkeepers chunkShopkeepers) {
+			for (AbstractShopkeeper shopkeeper : chunkShopkeepers.getShopkeepers()) {
+				double distanceSquared = getDistanceSquared(shopkeeper, x, y, z);
+				@Nullable Candidate farthest = nearest.peek();
+				if (nearest.size() >= count && farthest != null
+						&& distanceSquared >= farthest.distanceSquared) {
+					continue;
+				}
+				// Only test the filter for shopkeepers that would be added:
+				if (!filter.test(shopkeeper)) continue;
+
+				nearest.add(new Candidate(shopkeeper, distanceSquared));
+				if (nearest.size() > count) {
+					nearest.poll(); // Remove the farthest shopkeeper
+				}
+			}
+		}
+
+		// Checks if the chunks outside the given ring cannot contain any closer shopkeepers.
+		private boolean isComplete(int ring) {
+			@Nullable Candidate farthest = nearest.peek();
+			if (nearest.size() < count || farthest == null) return false;
+
+			// The horizontal distance to the border of the searched area:
+			double minX = (double) (centerChunkX - ring) * CHUNK_SIZE;
+			double minZ = (double) (centerChunkZ - ring) * CHUNK_SIZE;
+			double maxX = (double) (centerChunkX + ring + 1) * CHUNK_SIZE;
+			double maxZ = (double) (centerChunkZ + ring + 1) * CHUNK_SIZE;
+			double borderDistance = Math.min(
+					Math.min(x - minX, maxX - x),
+					Math.min(z - minZ, maxZ - z)
+			);
+			return (borderDistance * borderDistance) >= farthest.distanceSquared;
+		}
+
+		// The minimum horizontal distance to the given chunk.
+		private double getMinDistanceSquared(int chunkX, int chunkZ) {
+			double minX = (double) chunkX * CHUNK_SIZE;
+			double minZ = (double) chunkZ * CHUNK_SIZE;
+			double dx = Math.max(0.0D, Math.max(minX - x, x - (minX + CHUNK_SIZE)));
+			double dz = Math.max(0.0D, Math.max(minZ - z, z - (minZ + CHUNK_SIZE)));
+			return dx * dx + dz * dz;
+		}
+	}
+}
@@ -25,8 +25,18 @@ final class WorldShopkeepers {
 	private final Map<ChunkCoords, List<? extends AbstractShopkeeper>> shopkeeperViewsByChunk = new LinkedHashMap<>();
 	// Unmodifiable map with unmodifiable entries:
 	private final Map<ChunkCoords, List<? extends AbstractShopkeeper>> shopkeepersByChunkView = Collections.unmodifiableMap(shopkeeperViewsByChunk);
+	private final Collection<? extends ChunkShopkeepers> chunksView
+			= Collections.unmodifiableCollection(shopkeepersByChunk.values());
 	private int shopkeeperCount = 0;
 
+	// The bounds of the chunks that contain shopkeepers. These bounds are expanded when chunks are
+	// added, and lazily recalculated when a chunk at the border of these bounds is removed.
+	private int minChunkX = Integer.MAX_VALUE;
+	private int minChunkZ = Integer.MAX_VALUE;
+	private int maxChunkX = Integer.MIN_VALUE;
+	private int maxChunkZ = Integer.MIN_VALUE;
+	private boolean chunkBoundsDirty = false;
+
 	// Note: Already unmodifiable.
 	private final Set<? extends AbstractShopkeeper> shopkeepersView = new AbstractSet<AbstractShopkeeper>() {
 		@Override
@@ -72,6 +82,7 @@ final class WorldShopkeepers {
 				chkCoords -> {
 					ChunkShopkeepers newChunkShopkeepers = new ChunkShopkeepers(chkCoords);
 					shopkeeperViewsByChunk.put(chkCoords, newChunkShopkeepers.getShopkeepers());
+					this.expandChunkBounds(chkCoords.getChunkX(), chkCoords.getChunkZ());
 					return newChunkShopkeepers;
 				}
 		);
@@ -93,10 +104,38 @@ final class WorldShopkeepers {
 		if (chunkShopkeepers.getShopkeepers().isEmpty()) {
 			shopkeepersByChunk.remove(chunkCoords);
 			shopkeeperViewsByChunk.remove(chunkCoords);
+			this.onChunkRemoved(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
 		}
 		return chunkShopkeepers;
 	}
 
+	private void expandChunkBounds(int chunkX, int chunkZ) {
+		minChunkX = Math.min(minChunkX, chunkX);
+		minChunkZ = Math.min(minChunkZ, chunkZ);
+		maxChunkX = Math.max(maxChunkX, chunkX);
+		maxChunkZ = Math.max(maxChunkZ, chunkZ);
+	}
+
+	private void onChunkRemoved(int chunkX, int chunkZ) {
+		if (chunkX == minChunkX || chunkX == maxChunkX
+				|| chunkZ == minChunkZ || chunkZ == maxChunkZ) {
+			// The bounds might shrink:
+			chunkBoundsDirty = true;
+		}
+	}
+
+	private void updateChunkBounds() {
+		if (!chunkBoundsDirty) return;
+		chunkBoundsDirty = false;
+		minChunkX = Integer.MAX_VALUE;
+		minChunkZ = Integer.MAX_VALUE;
+		maxChunkX = Integer.MIN_VALUE;
+		maxChunkZ = Integer.MIN_VALUE;
+		for (ChunkCoords chunkCoords : shopkeepersByChunk.keySet()) {
+			this.expandChunkBounds(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+		}
+	}
+
 	// QUERIES
 
 	public int getShopkeeperCount() {
@@ -110,4 +149,34 @@ final class WorldShopkeepers {
 	public Map<? extends ChunkCoords, ? extends List<? extends AbstractShopkeeper>> getShopkeepersByChunk() {
 		return shopkeepersByChunkView;
 	}
+
+	public int getChunkCount() {
+		return shopkeepersByChunk.size();
+	}
+
+	public Collection<? extends ChunkShopkeepers> getChunks() {
+		return chunksView;
+	}
+
+	// The chunk bounds are only valid if there are shopkeepers in this world.
+
+	public int getMinChunkX() {
+		this.updateChunkBounds();
+		return minChunkX;
+	}
+
+	public int getMinChunkZ() {
+		this.updateChunkBounds();
+		return minChunkZ;
+	}
+
+	public int getMaxChunkX() {
+		this.updateChunkBounds();
+		return maxChunkX;
+	}
+
+	public int getMaxChunkZ() {
+		this.updateChunkBounds();
+		return maxChunkZ;
+	}
 }
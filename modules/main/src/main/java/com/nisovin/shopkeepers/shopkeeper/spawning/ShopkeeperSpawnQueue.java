@@ -2,13 +2,14 @@ package com.nisovin.shopkeepers.shopkeeper.spawning;
 
 import java.util.function.Consumer;
 
-import org.bukkit.plugin.Plugin;
-
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawnState.State;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueue;
+import com.nisovin.shopkeepers.util.timer.SampledTimer;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
 
 /**
  * A queue for load balancing the spawning of shopkeepers.
@@ -31,14 +32,26 @@ public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 	private static final int SPAWNS_PER_EXECUTION = 6;
 
 	private final Consumer<? super AbstractShopkeeper> spawner;
+	// Only captures the task executions that actually had pending spawns to process:
+	private final SampledTimer spawnTimings = new SampledTimer();
 
-	ShopkeeperSpawnQueue(Plugin plugin, Consumer<? super AbstractShopkeeper> spawner) {
-		super(plugin, SPAWN_TASK_PERIOD_TICKS, SPAWNS_PER_EXECUTION);
+	ShopkeeperSpawnQueue(TaskScheduler scheduler, Consumer<? super AbstractShopkeeper> spawner) {
+		super(scheduler, SPAWN_TASK_PERIOD_TICKS, SPAWNS_PER_EXECUTION);
 		Validate.notNull(spawner, "spawner is null");
 		this.spawner = spawner;
 	}
 
-	private static class SpawnerTask implements Runnable {
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		spawnTimings.reset();
+	}
+
+	public SampledTimings getSpawnTimings() {
+		return spawnTimings;
+	}
+
+	private class SpawnerTask implements Runnable {
 
 		private final Runnable parentTask;
 
@@ -49,7 +62,14 @@ public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 
 		@Override
 		public void run() {
-			parentTask.run();
+			if (getPendingCount() == 0) return;
+
+			spawnTimings.start();
+			try {
+				parentTask.run();
+			} finally {
+				spawnTimings.stop();
+			}
 		}
 	}
 
@@ -27,6 +27,7 @@ import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
 
 /**
  * Responsible for the spawning of shopkeepers.
@@ -83,7 +84,7 @@ public class ShopkeeperSpawner {
 				worldSaveDespawner
 		);
 		this.spawnQueue = new ShopkeeperSpawnQueue(
-				plugin,
+				plugin.getTaskScheduler(),
 				Unsafe.initialized(this)::doSpawnShopkeeper
 		);
 	}
@@ -206,6 +207,12 @@ public class ShopkeeperSpawner {
 		this.spawnShopkeeper(shopkeeper, true);
 	}
 
+	public void spawnShopkeeperQueued(AbstractShopkeeper shopkeeper) {
+		// Used for shopkeepers that are created in large batches: Spawning all of them immediately
+		// might freeze the server.
+		this.spawnShopkeeper(shopkeeper, false);
+	}
+
 	/**
 	 * Spawns the given shopkeeper, if necessary.
 	 * <p>
@@ -450,6 +457,10 @@ public class ShopkeeperSpawner {
 		return spawnQueue;
 	}
 
+	public SampledTimings getSpawnQueueTimings() {
+		return spawnQueue.getSpawnTimings();
+	}
+
 	public void spawnChunkShopkeepers(
 			ChunkCoords chunkCoords,
 			String spawnReason,
@@ -8,14 +8,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.bukkit.scheduler.BukkitRunnable;
-
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.timer.SampledTimer;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
 
 public class ShopkeeperTicker {
 
@@ -72,7 +73,9 @@ public class ShopkeeperTicker {
 		}
 	}
 
-	private final SKShopkeepersPlugin plugin;
+	private final TaskScheduler scheduler;
+	// Triggers a delayed save of the shopkeeper storage:
+	private final Runnable saveDelayed;
 
 	private final List<? extends TickingGroup> tickingGroups;
 	{
@@ -94,9 +97,31 @@ public class ShopkeeperTicker {
 	// the intermediate ticking state changes.
 	private final Map<AbstractShopkeeper, Boolean> pendingTickingChanges = new LinkedHashMap<>();
 
+	private final SampledTimer tickTimings = new SampledTimer();
+
 	public ShopkeeperTicker(SKShopkeepersPlugin plugin) {
-		Validate.notNull(plugin, "plugin is null");
-		this.plugin = plugin;
+		this(
+				Validate.notNull(plugin, "plugin is null").getTaskScheduler(),
+				() -> plugin.getShopkeeperStorage().saveDelayed()
+		);
+	}
+
+	/**
+	 * Creates a new {@link ShopkeeperTicker}.
+	 * <p>
+	 * This is also used to tick shopkeepers without the plugin, e.g. in an offline test harness.
+	 * 
+	 * @param scheduler
+	 *            the task scheduler, not <code>null</code>
+	 * @param saveDelayed
+	 *            triggers a delayed save when any of the ticked shopkeepers got marked as dirty,
+	 *            not <code>null</code>
+	 */
+	public ShopkeeperTicker(TaskScheduler scheduler, Runnable saveDelayed) {
+		Validate.notNull(scheduler, "scheduler is null");
+		Validate.notNull(saveDelayed, "saveDelayed is null");
+		this.scheduler = scheduler;
+		this.saveDelayed = saveDelayed;
 	}
 
 	public void onEnable() {
@@ -112,6 +137,8 @@ public class ShopkeeperTicker {
 	}
 
 	public void onDisable() {
+		tickTimings.reset();
+
 		// Usually, there should be no need to clean up the registered ticking shopkeepers here,
 		// since shopkeepers should stop their ticking automatically once they are deactivated.
 		// However, if the plugin is shut down during shopkeeper ticking, we can end up with still
@@ -217,16 +244,25 @@ public class ShopkeeperTicker {
 
 	// TICKING
 
+	/**
+	 * Gets the timings of the individual ticking group updates.
+	 * 
+	 * @return the ticking timings
+	 */
+	public SampledTimings getTickTimings() {
+		return tickTimings;
+	}
+
 	private void startShopkeeperTickTask() {
 		new ShopkeeperTickTask().start();
 	}
 
-	private final class ShopkeeperTickTask extends BukkitRunnable {
+	private final class ShopkeeperTickTask implements Runnable {
 
 		private static final int PERIOD = TICKING_PERIOD_TICKS / TICKING_GROUPS;
 
 		void start() {
-			this.runTaskTimer(plugin, PERIOD, PERIOD);
+			scheduler.runGlobalTimer(this, PERIOD, PERIOD);
 		}
 
 		@Override
@@ -236,30 +272,35 @@ public class ShopkeeperTicker {
 	}
 
 	private void tickShopkeepers() {
-		dirty = false;
-
-		currentlyTicking = true;
-		TickingGroup tickingGroup = this.getTickingGroup(activeTickingGroup.getValue());
-		tickingGroup.getShopkeepers().forEach(this::tickShopkeeper);
-		currentlyTicking = false;
-
-		// Process pending shopkeeper ticking registration changes:
-		pendingTickingChanges.forEach((shopkeeper, isTicking) -> {
-			if (isTicking) {
-				this.addShopkeeper(shopkeeper);
-			} else {
-				this.removeShopkeeper(shopkeeper);
+		tickTimings.start();
+		try {
+			dirty = false;
+
+			currentlyTicking = true;
+			TickingGroup tickingGroup = this.getTickingGroup(activeTickingGroup.getValue());
+			tickingGroup.getShopkeepers().forEach(this::tickShopkeeper);
+			currentlyTicking = false;
+
+			// Process pending shopkeeper ticking registration changes:
+			pendingTickingChanges.forEach((shopkeeper, isTicking) -> {
+				if (isTicking) {
+					this.addShopkeeper(shopkeeper);
+				} else {
+					this.removeShopkeeper(shopkeeper);
+				}
+			});
+			pendingTickingChanges.clear();
+
+			// Trigger a delayed save if any of the shopkeepers got marked as dirty:
+			if (dirty) {
+				saveDelayed.run();
 			}
-		});
-		pendingTickingChanges.clear();
 
-		// Trigger a delayed save if any of the shopkeepers got marked as dirty:
-		if (dirty) {
-			plugin.getShopkeeperStorage().saveDelayed();
+			// Update the active ticking group:
+			activeTickingGroup.getAndIncrement();
+		} finally {
+			tickTimings.stop();
 		}
-
-		// Update the active ticking group:
-		activeTickingGroup.getAndIncrement();
 	}
 
 	private void tickShopkeeper(AbstractShopkeeper shopkeeper) {
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -21,6 +22,7 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.dependencies.citizens.CitizensDependency;
+import com.nisovin.shopkeepers.jobs.Job;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
@@ -192,7 +194,7 @@ public class CitizensShops {
 			if (!isEnabled()) return; // No longer enabled
 
 			// Check for invalid Citizens shopkeepers:
-			validateCitizenShopkeepers(Settings.deleteInvalidCitizenShopkeepers, false);
+			validateCitizenShopkeepers(Settings.deleteInvalidCitizenShopkeepers, false, null);
 
 			// Inform the Citizens NPC shop objects:
 			shopkeepersByNpcId.values().stream().flatMap(List::stream).forEach(shopkeeper -> {
@@ -404,11 +406,22 @@ public class CitizensShops {
 	 *            <code>true</code> to also delete any found invalid Citizen shopkeepers
 	 * @param silent
 	 *            <code>true</code> to not log warnings about any found invalid Citizen shopkeepers
+	 * @param onDeleted
+	 *            if deleting, this is invoked with the number of actually deleted shopkeepers once
+	 *            the deletion, which is spread across several ticks, has ended, or right away if
+	 *            there is nothing to delete, can be <code>null</code>
 	 * @return the number of found invalid Citizen shopkeepers
 	 */
-	public int validateCitizenShopkeepers(boolean deleteInvalidShopkeepers, boolean silent) {
+	public int validateCitizenShopkeepers(
+			boolean deleteInvalidShopkeepers,
+			boolean silent,
+			@Nullable IntConsumer onDeleted
+	) {
 		if (!this.isEnabled()) {
 			// Cannot determine which shopkeepers have a backing NPC if Citizens isn't running:
+			if (deleteInvalidShopkeepers && onDeleted != null) {
+				onDeleted.accept(0);
+			}
 			return 0;
 		}
 
@@ -461,20 +474,18 @@ public class CitizensShops {
 			}
 		});
 
-		if (!invalidShopkeepers.isEmpty()) {
+		if (invalidShopkeepers.isEmpty()) {
+			if (deleteInvalidShopkeepers && onDeleted != null) {
+				onDeleted.accept(0);
+			}
+		} else {
 			if (deleteInvalidShopkeepers) {
-				// Delete those shopkeepers:
-				for (Shopkeeper shopkeeper : invalidShopkeepers) {
-					shopkeeper.delete();
-				}
-
-				// Save:
-				plugin.getShopkeeperStorage().save();
-
-				if (!silent) {
-					Log.warning("Deleted " + invalidShopkeepers.size()
-							+ " invalid Citizen shopkeepers!");
-				}
+				// Delete those shopkeepers in time slices across several ticks:
+				plugin.getJobs().start(new DeleteInvalidShopkeepersJob(
+						invalidShopkeepers,
+						silent,
+						onDeleted
+				));
 			} else {
 				// Only log a warning:
 				if (!silent) {
@@ -488,4 +499,41 @@ public class CitizensShops {
 		}
 		return invalidShopkeepers.size();
 	}
+
+	private static class DeleteInvalidShopkeepersJob extends Job<Shopkeeper> {
+
+		private final boolean silent;
+		private final @Nullable IntConsumer onDeleted;
+		private int deletedShopkeepers = 0;
+
+		DeleteInvalidShopkeepersJob(
+				List<? extends Shopkeeper> invalidShopkeepers,
+				boolean silent,
+				@Nullable IntConsumer onDeleted
+		) {
+			super("deleteInvalidCitizenShopkeepers", null, invalidShopkeepers);
+			this.silent = silent;
+			this.onDeleted = onDeleted;
+		}
+
+		@Override
+		protected void process(Shopkeeper shopkeeper) {
+			// Skip the shopkeeper if it has already been removed in the meantime:
+			if (!shopkeeper.isValid()) return;
+
+			shopkeeper.delete();
+			deletedShopkeepers++;
+		}
+
+		@Override
+		protected void onCompleted() {
+			// Note: The job framework triggers a save after the job has ended.
+			if (!silent) {
+				Log.warning("Deleted " + deletedShopkeepers + " invalid Citizen shopkeepers!");
+			}
+			if (onDeleted != null) {
+				onDeleted.accept(deletedShopkeepers);
+			}
+		}
+	}
 }
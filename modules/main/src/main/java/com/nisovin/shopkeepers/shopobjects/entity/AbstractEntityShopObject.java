@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.shopobjects.entity;
 
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
@@ -22,6 +23,19 @@ public abstract class AbstractEntityShopObject
 	@Override
 	public abstract AbstractEntityShopObjectType<?> getType();
 
+	/**
+	 * Gets the entity type that this shop object always uses for its entity.
+	 * <p>
+	 * This is used to quickly rule out entities that cannot be shopkeepers. Shop objects whose
+	 * entity type can change while the entity keeps its unique id, and therefore its
+	 * {@link #getId() object id}, have to return <code>null</code>.
+	 * 
+	 * @return the entity type, or <code>null</code> if the entity type is not fixed
+	 */
+	public @Nullable EntityType getFixedEntityType() {
+		return null;
+	}
+
 	@Override
 	public boolean isSpawned() {
 		return (this.getEntity() != null);
@@ -0,0 +1,362 @@
+package com.nisovin.shopkeepers.shopobjects.living;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.destroystokyo.paper.event.player.PlayerUseUnknownEntityEvent;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.compat.NMSManager;
+import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.bukkit.LocationUtils;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.interaction.InteractionUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Presents the entities of living shop objects only on the clients of nearby players.
+ * <p>
+ * The entities of these shop objects are created but never added to the world, so they are not
+ * ticked, do not collide with other entities, and are not tracked by the server. Instead, we
+ * periodically determine the players within {@link #getViewRange(Player) view range} of each
+ * entity and send them the packets to show, update, or hide the entity. Players interact with these
+ * entities like with any other entity: The server reports these interactions as interactions with
+ * unknown entities, which we then route to the corresponding shopkeepers, with the same checks as
+ * for the interactions with regular shop entities.
+ */
+class ClientSideShopEntities implements Listener {
+
+	/**
+	 * The maximum range in blocks within which players are shown the entities.
+	 * <p>
+	 * This matches Spigot's default entity tracking range for mobs. The range is further limited
+	 * by the view distance of each player.
+	 */
+	private static final int MAX_VIEW_RANGE = 48;
+	/**
+	 * The maximum distance between a player's eyes and an entity for the player to be able to
+	 * interact with the entity.
+	 * <p>
+	 * The server does not validate interactions with unknown entities. This is a bit more lenient
+	 * than the vanilla interaction range, to account for the entity's size and player movement.
+	 */
+	private static final double INTERACTION_RANGE_SQ = 8.0D * 8.0D;
+	private static final long UPDATE_PERIOD_TICKS = 5L;
+
+	// Temporarily re-used objects:
+	private static final Location sharedLocation = new Location(null, 0, 0, 0);
+	private static final MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
+
+	private static final class EntityData {
+
+		private final SKLivingShopObject<?> shopObject;
+		private final LivingEntity entity;
+		private final ChunkCoords chunkCoords;
+		// The entities are not added to the world and therefore never move:
+		private final double x;
+		private final double y;
+		private final double z;
+		private final Set<Player> viewers = new HashSet<>();
+
+		EntityData(SKLivingShopObject<?> shopObject, LivingEntity entity) {
+			assert shopObject != null && entity != null;
+			this.shopObject = shopObject;
+			this.entity = entity;
+			Location location = entity.getLocation();
+			this.chunkCoords = new ChunkCoords(location);
+			this.x = location.getX();
+			this.y = location.getY();
+			this.z = location.getZ();
+		}
+
+		double getDistanceSquared(Location location) {
+			double dx = x - location.getX();
+			double dy = y - location.getY();
+			double dz = z - location.getZ();
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		boolean isInViewRange(String worldName, Location location, int viewRange) {
+			if (!chunkCoords.getWorldName().equals(worldName)) return false;
+			return this.getDistanceSquared(location) <= viewRange * viewRange;
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	// We don't expect there to be many entities within a single chunk, so using a list is okay:
+	private final Map<ChunkCoords, List<EntityData>> chunks = new HashMap<>();
+	private final Map<SKLivingShopObject<?>, EntityData> shopObjects = new HashMap<>();
+	private final Map<Integer, EntityData> byEntityId = new HashMap<>();
+	// The entities that are currently shown to each player:
+	private final Map<UUID, Set<EntityData>> viewedEntities = new HashMap<>();
+
+	private @Nullable ScheduledTask updateTask = null;
+
+	ClientSideShopEntities(SKShopkeepersPlugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Checks if client-side shop entities are supported by the current server version.
+	 * 
+	 * @return <code>true</code> if supported
+	 */
+	boolean isSupported() {
+		return NMSManager.getProvider().supportsClientSideEntities();
+	}
+
+	void onEnable() {
+		if (!this.isSupported()) return;
+
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		updateTask = plugin.getTaskScheduler().runGlobalTimer(
+				this::update,
+				UPDATE_PERIOD_TICKS,
+				UPDATE_PERIOD_TICKS
+		);
+	}
+
+	void onDisable() {
+		HandlerList.unregisterAll(this);
+		if (updateTask != null) {
+			updateTask.cancel();
+			updateTask = null;
+		}
+
+		// The shop objects are usually already removed when their shopkeepers are despawned:
+		new ArrayList<>(shopObjects.keySet()).forEach(this::removeShopObject);
+		viewedEntities.clear();
+	}
+
+	// SHOP OBJECTS
+
+	void addShopObject(SKLivingShopObject<?> shopObject) {
+		Validate.notNull(shopObject, "shopObject is null");
+		Validate.isTrue(!shopObjects.containsKey(shopObject), "shopObject is already added");
+		LivingEntity entity = shopObject.getEntity();
+		Validate.notNull(entity, "shopObject is not spawned currently!");
+		assert entity != null;
+
+		EntityData entityData = new EntityData(shopObject, entity);
+		shopObjects.put(shopObject, entityData);
+		byEntityId.put(entity.getEntityId(), entityData);
+		chunks.computeIfAbsent(entityData.chunkCoords, chunkCoords -> new ArrayList<>())
+				.add(entityData);
+
+		// The initial entity data is sent when the entity is shown. Consume the pending changes:
+		NMSManager.getProvider().updateClientSideEntity(entity, Collections.emptySet());
+
+		// Show the entity to the players that are already nearby:
+		String worldName = entityData.chunkCoords.getWorldName();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			Location playerLocation = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+			if (entityData.isInViewRange(worldName, playerLocation, getViewRange(player))) {
+				this.show(player, entityData);
+			}
+		}
+		sharedLocation.setWorld(null); // Reset
+	}
+
+	void removeShopObject(SKLivingShopObject<?> shopObject) {
+		@Nullable EntityData entityData = shopObjects.remove(shopObject);
+		if (entityData == null) return;
+
+		byEntityId.remove(entityData.entity.getEntityId());
+		@Nullable List<EntityData> chunkEntities = chunks.get(entityData.chunkCoords);
+		if (chunkEntities != null) {
+			chunkEntities.remove(entityData);
+			if (chunkEntities.isEmpty()) {
+				chunks.remove(entityData.chunkCoords);
+			}
+		}
+
+		NMSCallProvider nmsProvider = NMSManager.getProvider();
+		for (Player viewer : entityData.viewers) {
+			@Nullable Set<EntityData> viewed = viewedEntities.get(viewer.getUniqueId());
+			if (viewed != null) {
+				viewed.remove(entityData);
+			}
+			nmsProvider.hideClientSideEntity(viewer, entityData.entity);
+		}
+		entityData.viewers.clear();
+	}
+
+	void onEquipmentChanged(SKLivingShopObject<?> shopObject) {
+		@Nullable EntityData entityData = shopObjects.get(shopObject);
+		if (entityData == null) return; // Not added yet
+		if (entityData.viewers.isEmpty()) return;
+
+		NMSManager.getProvider().updateClientSideEntityEquipment(
+				entityData.entity,
+				entityData.viewers
+		);
+	}
+
+	// VIEWERS
+
+	// The client does not show entities outside the chunks that it has loaded:
+	private static int getViewRange(Player player) {
+		return Math.min(MAX_VIEW_RANGE, player.getViewDistance() * 16);
+	}
+
+	private void show(Player player, EntityData entityData) {
+		if (!entityData.viewers.add(player)) return; // Already shown
+		viewedEntities.computeIfAbsent(player.getUniqueId(), playerId -> new HashSet<>())
+				.add(entityData);
+		NMSManager.getProvider().showClientSideEntity(player, entityData.entity);
+	}
+
+	private void update() {
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			assert player != null;
+			this.updateViewedEntities(player);
+		}
+
+		// Send the changed entity data (e.g. due to shopkeeper edits):
+		NMSCallProvider nmsProvider = NMSManager.getProvider();
+		for (EntityData entityData : shopObjects.values()) {
+			nmsProvider.updateClientSideEntity(entityData.entity, entityData.viewers);
+		}
+	}
+
+	private void updateViewedEntities(Player player) {
+		Location playerLocation = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+		String worldName = LocationUtils.getWorld(playerLocation).getName();
+		int viewRange = getViewRange(player);
+
+		// Hide the entities that are no longer in range, including the entities of other worlds:
+		@Nullable Set<EntityData> viewed = viewedEntities.get(player.getUniqueId());
+		if (viewed != null) {
+			NMSCallProvider nmsProvider = NMSManager.getProvider();
+			viewed.removeIf(entityData -> {
+				if (entityData.isInViewRange(worldName, playerLocation, viewRange)) return false;
+				entityData.viewers.remove(player);
+				nmsProvider.hideClientSideEntity(player, entityData.entity);
+				return true;
+			});
+		}
+
+		// Show the entities that came into range:
+		if (!chunks.isEmpty()) {
+			int playerChunkX = ChunkCoords.fromBlock(playerLocation.getBlockX());
+			int playerChunkZ = ChunkCoords.fromBlock(playerLocation.getBlockZ());
+			int viewRangeSq = viewRange * viewRange;
+			int viewChunkRange = (viewRange + 15) / 16;
+			for (int dx = -viewChunkRange; dx <= viewChunkRange; dx++) {
+				for (int dz = -viewChunkRange; dz <= viewChunkRange; dz++) {
+					sharedChunkCoords.set(worldName, playerChunkX + dx, playerChunkZ + dz);
+					@Nullable List<EntityData> chunkEntities = chunks.get(sharedChunkCoords);
+					if (chunkEntities == null) continue;
+
+					for (EntityData entityData : chunkEntities) {
+						if (entityData.getDistanceSquared(playerLocation) > viewRangeSq) continue;
+						this.show(player, entityData);
+					}
+				}
+			}
+		}
+		sharedLocation.setWorld(null); // Reset
+	}
+
+	// Forgets the entities that are shown to the player, without hiding them. The entities are
+	// shown again during the next update if the player is still in range.
+	private void forgetViewedEntities(Player player) {
+		@Nullable Set<EntityData> viewed = viewedEntities.remove(player.getUniqueId());
+		if (viewed == null) return;
+
+		for (EntityData entityData : viewed) {
+			entityData.viewers.remove(player);
+		}
+	}
+
+	// EVENT HANDLERS
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		this.forgetViewedEntities(event.getPlayer());
+	}
+
+	// The client discards all entities when the player changes the world or respawns:
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		this.forgetViewedEntities(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerRespawn(PlayerRespawnEvent event) {
+		this.forgetViewedEntities(event.getPlayer());
+	}
+
+	// Called on the server's main thread.
+	@EventHandler(priority = EventPriority.LOWEST)
+	void onUseUnknownEntity(PlayerUseUnknownEntityEvent event) {
+		@Nullable EntityData entityData = byEntityId.get(event.getEntityId());
+		if (entityData == null) return; // Not a client-side shop entity
+
+		// Only handle right-clicks with the main hand. The client sends right-clicks both as
+		// interactions at a specific position and as regular interactions. We ignore the
+		// interactions at a specific position, similar to the PlayerInteractAtEntityEvent.
+		if (event.isAttack()) return;
+		if (event.getClickedRelativePosition() != null) return;
+		if (event.getHand() != EquipmentSlot.HAND) return;
+
+		// The client might still interact with an entity that we have already hidden:
+		Player player = event.getPlayer();
+		if (!entityData.viewers.contains(player)) return;
+
+		Location eyeLocation = player.getEyeLocation();
+		if (!LocationUtils.getWorld(eyeLocation).getName().equals(
+				entityData.chunkCoords.getWorldName())
+				|| entityData.getDistanceSquared(eyeLocation) > INTERACTION_RANGE_SQ) {
+			Log.debug(() -> "Player " + player.getName() + " is interacting with a client-side "
+					+ "shop entity out of range. Ignoring the interaction.");
+			return;
+		}
+
+		Log.debug(() -> "Player " + player.getName() + " is interacting with client-side "
+				+ entityData.shopObject.getEntityType() + " at " + entityData.entity.getLocation());
+
+		// The same checks as for the interactions with regular shop entities (see
+		// LivingEntityShopListener#onEntityInteract).
+		// The server does not know the entity, so there is no default interaction behavior to
+		// prevent. But the client might predict an item action (such as animal feeding):
+		player.updateInventory();
+
+		// Check the entity interaction result by calling another interact event:
+		if (Settings.checkShopInteractionResult) {
+			if (!InteractionUtils.checkEntityInteract(player, entityData.entity)) {
+				Log.debug("  Cancelled by another plugin");
+				return;
+			}
+		}
+
+		// Handle interaction:
+		entityData.shopObject.getShopkeeper().onPlayerInteraction(player);
+	}
+}
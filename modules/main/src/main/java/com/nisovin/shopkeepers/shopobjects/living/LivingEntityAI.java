@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.shopobjects.living;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -10,6 +11,7 @@ import java.util.Set;
 
 import com.nisovin.shopkeepers.compat.NMSManager;
 import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -22,7 +24,6 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
-import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -31,10 +32,13 @@ import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
 import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
 import com.nisovin.shopkeepers.util.bukkit.WorldUtils;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
 import com.nisovin.shopkeepers.util.java.RateLimiter;
 import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.SampledTimer;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
 import com.nisovin.shopkeepers.util.timer.Timer;
 import com.nisovin.shopkeepers.util.timer.Timings;
 
@@ -180,7 +184,7 @@ public class LivingEntityAI implements Listener {
 	// Index for fast removal: Shop object -> EntityData
 	private final Map<SKLivingShopObject<?>, EntityData> shopObjects = new HashMap<>();
 
-	private @Nullable BukkitTask aiTask = null;
+	private @Nullable ScheduledTask aiTask = null;
 	private boolean currentlyRunning = false;
 
 	// Statistics:
@@ -190,7 +194,7 @@ public class LivingEntityAI implements Listener {
 	private int activeGravityChunksCount = 0;
 	private int activeGravityEntityCount = 0;
 
-	private final Timer totalTimings = new Timer();
+	private final SampledTimer totalTimings = new SampledTimer();
 	// Note: This only captures the periodic full activation updates, and not the player-specific
 	// activations triggered
 	// by player joins and teleports.
@@ -198,6 +202,15 @@ public class LivingEntityAI implements Listener {
 	private final Timer gravityTimings = new Timer();
 	private final Timer aiTimings = new Timer();
 
+	// Shared look targets:
+	// The players that are in look range of the currently processed chunk, and their positions (x,
+	// y, z). These candidates are lazily resolved once per chunk and then shared by all entities
+	// inside the chunk.
+	private boolean sharedLookTargets;
+	private boolean lookTargetCandidatesResolved = false;
+	private final List<Player> lookTargetCandidates = new ArrayList<>();
+	private double[] lookTargetCandidatePositions = new double[3 * 8];
+
 	public LivingEntityAI(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
 	}
@@ -208,6 +221,7 @@ public class LivingEntityAI implements Listener {
 		maxFallingDistancePerUpdate = Settings.mobBehaviorTickPeriod * MAX_FALLING_DISTANCE_PER_TICK;
 		gravityCollisionCheckRange = maxFallingDistancePerUpdate + 0.1D;
 		customGravityEnabled = _isCustomGravityEnabled();
+		sharedLookTargets = Settings.mobBehaviorSharedLookTargets;
 
 		// Register listener:
 		Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -222,6 +236,7 @@ public class LivingEntityAI implements Listener {
 		this.stopTask();
 		chunks.clear();
 		shopObjects.clear();
+		lookTargetCandidates.clear();
 		this.resetStatistics();
 	}
 
@@ -348,7 +363,7 @@ public class LivingEntityAI implements Listener {
 		return activeGravityEntityCount;
 	}
 
-	public Timings getTotalTimings() {
+	public SampledTimings getTotalTimings() {
 		return totalTimings;
 	}
 
@@ -371,12 +386,7 @@ public class LivingEntityAI implements Listener {
 
 		// Start AI task:
 		int tickPeriod = Settings.mobBehaviorTickPeriod;
-		aiTask = Bukkit.getScheduler().runTaskTimer(
-				plugin,
-				new TickTask(),
-				tickPeriod,
-				tickPeriod
-		);
+		aiTask = plugin.getTaskScheduler().runGlobalTimer(new TickTask(), tickPeriod, tickPeriod);
 	}
 
 	private void stopTask() {
@@ -484,7 +494,12 @@ public class LivingEntityAI implements Listener {
 
 	private void activateNearbyChunksDelayed(Player player) {
 		if (!player.isOnline()) return; // Player is no longer online
-		Bukkit.getScheduler().runTask(plugin, new ActivateNearbyChunksDelayedTask(player));
+		plugin.getTaskScheduler().runForEntityLater(
+				player,
+				new ActivateNearbyChunksDelayedTask(player),
+				null,
+				0L
+		);
 	}
 
 	private class ActivateNearbyChunksDelayedTask implements Runnable {
@@ -570,7 +585,10 @@ public class LivingEntityAI implements Listener {
 			return;
 		}
 
+		// The look target candidates are resolved lazily for each chunk:
+		lookTargetCandidatesResolved = false;
 		chunkData.entities.forEach(this::processEntity);
+		lookTargetCandidates.clear();
 	}
 
 	private void processEntity(EntityData entityData) {
@@ -717,7 +735,94 @@ public class LivingEntityAI implements Listener {
 		// Only tick AI if not currently falling:
 		if (entityData.falling) return;
 
-		entityData.shopObject.tickAI();
+		if (sharedLookTargets) {
+			entityData.shopObject.tickAI(this.resolveLookTarget(entityData));
+		} else {
+			entityData.shopObject.tickAI();
+		}
+	}
+
+	// SHARED LOOK TARGETS
+
+	// Instead of letting each entity search the players of its world for the nearest player via
+	// its AI goal, we determine the players within look range of the entity's chunk only once and
+	// then only compare the entity's distance to these few candidates.
+	private void resolveLookTargetCandidates(ChunkData chunkData) {
+		assert lookTargetCandidates.isEmpty();
+		ChunkCoords chunkCoords = chunkData.chunkCoords;
+		List<? extends Player> players = plugin.getPlayerMap().getPlayers(chunkCoords.getWorldName());
+		if (players.isEmpty()) return;
+
+		// The block bounds of the chunk, expanded by the look range:
+		int minBlockX = chunkCoords.getChunkX() << 4;
+		int minBlockZ = chunkCoords.getChunkZ() << 4;
+		double minX = minBlockX - LOOK_RANGE;
+		double maxX = minBlockX + 16 + LOOK_RANGE;
+		double minZ = minBlockZ - LOOK_RANGE;
+		double maxZ = minBlockZ + 16 + LOOK_RANGE;
+
+		for (Player player : players) {
+			// Vanilla mobs don't look at spectators or dead players:
+			if (player.getGameMode() == GameMode.SPECTATOR || player.isDead()) continue;
+
+			Location playerLocation = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+			double x = playerLocation.getX();
+			double z = playerLocation.getZ();
+			if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+				int index = lookTargetCandidates.size() * 3;
+				if (index + 3 > lookTargetCandidatePositions.length) {
+					lookTargetCandidatePositions = Arrays.copyOf(
+							lookTargetCandidatePositions,
+							lookTargetCandidatePositions.length * 2
+					);
+				}
+				lookTargetCandidatePositions[index] = x;
+				lookTargetCandidatePositions[index + 1] = playerLocation.getY();
+				lookTargetCandidatePositions[index + 2] = z;
+				lookTargetCandidates.add(player);
+			}
+			sharedLocation.setWorld(null); // Reset
+		}
+	}
+
+	// Returns the nearest visible player within look range of the given entity, or null if there is
+	// no such player.
+	private @Nullable Player resolveLookTarget(EntityData entityData) {
+		if (!lookTargetCandidatesResolved) {
+			this.resolveLookTargetCandidates(entityData.chunkData);
+			lookTargetCandidatesResolved = true;
+		}
+
+		int candidateCount = lookTargetCandidates.size();
+		if (candidateCount == 0) return null;
+
+		LivingEntity entity = Unsafe.assertNonNull(entityData.shopObject.getEntity());
+		Location entityLocation = Unsafe.assertNonNull(entity.getLocation(sharedLocation));
+		double entityX = entityLocation.getX();
+		double entityY = entityLocation.getY();
+		double entityZ = entityLocation.getZ();
+		sharedLocation.setWorld(null); // Reset
+
+		double lookRangeSq = LOOK_RANGE * LOOK_RANGE;
+		@Nullable Player lookTarget = null;
+		double lookTargetDistanceSq = Double.MAX_VALUE;
+		for (int i = 0; i < candidateCount; i++) {
+			int index = i * 3;
+			double dx = lookTargetCandidatePositions[index] - entityX;
+			double dy = lookTargetCandidatePositions[index + 1] - entityY;
+			double dz = lookTargetCandidatePositions[index + 2] - entityZ;
+			double distanceSq = dx * dx + dy * dy + dz * dz;
+			if (distanceSq > lookRangeSq || distanceSq >= lookTargetDistanceSq) continue;
+
+			// Like the vanilla AI goal, we only look at players that are visible. This ray cast is
+			// only performed for candidates that are closer than the current look target.
+			Player player = lookTargetCandidates.get(i);
+			if (!entity.hasLineOfSight(player)) continue;
+
+			lookTarget = player;
+			lookTargetDistanceSq = distanceSq;
+		}
+		return lookTarget;
 	}
 
 	// EVENT HANDLERS
@@ -78,11 +78,13 @@ public class LivingShops {
 	);
 	private final LivingEntityAI livingEntityAI;
 	private final LivingEntityShopListener livingEntityShopListener;
+	private final ClientSideShopEntities clientSideShopEntities;
 
 	public LivingShops(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
 		livingEntityAI = new LivingEntityAI(plugin);
 		livingEntityShopListener = new LivingEntityShopListener(plugin);
+		clientSideShopEntities = new ClientSideShopEntities(plugin);
 	}
 
 	public void onRegisterDefaults() {
@@ -92,9 +94,11 @@ public class LivingShops {
 	public void onEnable() {
 		livingEntityAI.onEnable();
 		livingEntityShopListener.onEnable();
+		clientSideShopEntities.onEnable();
 	}
 
 	public void onDisable() {
+		clientSideShopEntities.onDisable();
 		livingEntityShopListener.onDisable();
 
 		// Stop living entity AI:
@@ -109,6 +113,10 @@ public class LivingShops {
 		return livingEntityAI;
 	}
 
+	ClientSideShopEntities getClientSideShopEntities() {
+		return clientSideShopEntities;
+	}
+
 	// Bypassing creature spawn blocking plugins (e.g. region protection plugins):
 	void forceCreatureSpawn(Location location, EntityType entityType) {
 		if (Settings.bypassSpawnBlocking) {
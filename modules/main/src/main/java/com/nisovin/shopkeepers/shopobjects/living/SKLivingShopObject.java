@@ -107,6 +107,8 @@ public class SKLivingShopObject<E extends LivingEntity>
 			.build(properties);
 
 	private @Nullable E entity;
+	// Whether the current entity only exists on the clients of nearby players:
+	private boolean clientSide = false;
 	private @Nullable Location lastSpawnLocation = null;
 	private int respawnAttempts = 0;
 	private boolean debuggingSpawn = false;
@@ -143,6 +145,11 @@ public class SKLivingShopObject<E extends LivingEntity>
 		return livingObjectType.getEntityType();
 	}
 
+	@Override
+	public EntityType getFixedEntityType() {
+		return this.getEntityType();
+	}
+
 	@Override
 	public void load(ShopObjectData shopObjectData) throws InvalidDataException {
 		super.load(shopObjectData);
@@ -308,18 +315,32 @@ public class SKLivingShopObject<E extends LivingEntity>
 	protected void cleanUpEntity() {
 		Entity entity = Unsafe.assertNonNull(this.entity);
 
-		// Disable AI:
-		this.cleanupAI();
+		if (clientSide) {
+			// Hide the entity from its viewers:
+			livingShops.getClientSideShopEntities().removeShopObject(this);
+		} else {
+			// Disable AI:
+			this.cleanupAI();
+		}
 
 		// Remove metadata again:
 		ShopkeeperMetadata.remove(entity);
 
 		// Remove the entity (if it hasn't been removed already):
-		if (!entity.isDead()) {
+		// Client-side entities have never been added to the world.
+		if (!clientSide && !entity.isDead()) {
 			entity.remove();
 		}
 
 		this.entity = null;
+		clientSide = false;
+	}
+
+	@Override
+	public boolean isActive() {
+		// Client-side entities are not added to the world and are therefore never valid:
+		if (clientSide) return (entity != null);
+		return super.isActive();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -336,6 +357,11 @@ public class SKLivingShopObject<E extends LivingEntity>
 		}
 		World world = Unsafe.assertNonNull(spawnLocation.getWorld());
 
+		if (Settings.clientSideLivingShops
+				&& livingShops.getClientSideShopEntities().isSupported()) {
+			return this.spawnClientSide(spawnLocation);
+		}
+
 		// Spawn entity:
 		// TODO Check if the block is passable before spawning there?
 		EntityType entityType = this.getEntityType();
@@ -387,15 +413,7 @@ public class SKLivingShopObject<E extends LivingEntity>
 			entity.setInvulnerable(true);
 
 			// Disable aging and breeding:
-			if (entity instanceof Ageable) {
-				Ageable ageable = (Ageable) entity;
-				ageable.setAdult();
-			}
-			if (entity instanceof Breedable) {
-				Breedable breedable = (Breedable) entity;
-				breedable.setBreed(false);
-				breedable.setAgeLock(true);
-			}
+			this.disableAging(entity);
 
 			// Any version-specific setup:
 			NMSManager.getProvider().setupSpawnedEntity(entity);
@@ -485,6 +503,55 @@ public class SKLivingShopObject<E extends LivingEntity>
 		return success;
 	}
 
+	private void disableAging(@NonNull E entity) {
+		if (entity instanceof Ageable) {
+			Ageable ageable = (Ageable) entity;
+			ageable.setAdult();
+		}
+		if (entity instanceof Breedable) {
+			Breedable breedable = (Breedable) entity;
+			breedable.setBreed(false);
+			breedable.setAgeLock(true);
+		}
+	}
+
+	// Creates an entity that is not added to the world, but only shown to nearby players.
+	@SuppressWarnings("unchecked")
+	private boolean spawnClientSide(Location spawnLocation) {
+		assert entity == null;
+		World world = Unsafe.assertNonNull(spawnLocation.getWorld());
+		EntityType entityType = this.getEntityType();
+		Class<? extends Entity> entityClass = Unsafe.assertNonNull(entityType.getEntityClass());
+		E entity;
+		try {
+			entity = (E) world.createEntity(spawnLocation, entityClass);
+		} catch (IllegalArgumentException e) {
+			Log.debug(() -> shopkeeper.getLocatedLogPrefix() + "Failed to create client-side "
+					+ entityType + ": " + e.getMessage());
+			return false;
+		}
+		this.entity = entity;
+		clientSide = true;
+		this.lastSpawnLocation = spawnLocation;
+
+		// The entity is not ticked, so we only need to setup its appearance:
+		this.prepareEntity(entity);
+		this.disableAging(entity);
+		this.onSpawn();
+
+		// Show the entity to nearby players:
+		livingShops.getClientSideShopEntities().addShopObject(this);
+
+		// Reset all state related to respawn throttling:
+		respawnAttempts = 0;
+		this.resetTickRate();
+		skipRespawnAttemptsIfPeaceful = false;
+
+		// Inform about the object id change:
+		this.onIdChanged();
+		return true;
+	}
+
 	/**
 	 * This method is called right after the entity was spawned.
 	 * <p>
@@ -569,6 +636,12 @@ public class SKLivingShopObject<E extends LivingEntity>
 		Entity entity = this.entity;
 		if (entity == null) return false; // Ignore if not spawned
 
+		if (clientSide) {
+			// Client-side entities cannot be teleported. We recreate the entity instead:
+			this.despawn();
+			return this.spawn();
+		}
+
 		Location spawnLocation = this.getSpawnLocation();
 		if (spawnLocation == null) return false;
 
@@ -619,7 +692,7 @@ public class SKLivingShopObject<E extends LivingEntity>
 	private void check() {
 		if (!this.isActive()) {
 			this.respawnInactiveEntity();
-		} else {
+		} else if (!clientSide) { // Client-side entities do not move
 			this.teleportBackIfMoved();
 			this.updatePotionEffects();
 		}
@@ -745,6 +818,7 @@ public class SKLivingShopObject<E extends LivingEntity>
 	public void teleportBack() {
 		@Nullable E entity = this.getEntity(); // Null if not spawned
 		if (entity == null) return;
+		if (clientSide) return; // Client-side entities do not move
 
 		Location lastSpawnLocation = Unsafe.assertNonNull(this.lastSpawnLocation);
 		Location entityLoc = entity.getLocation();
@@ -772,6 +846,22 @@ public class SKLivingShopObject<E extends LivingEntity>
 		NMSManager.getProvider().tickAI(entity, Settings.mobBehaviorTickPeriod);
 	}
 
+	/**
+	 * This is called instead of {@link #tickAI()} if {@link Settings#mobBehaviorSharedLookTargets}
+	 * is enabled: The AI system has already determined the nearest visible player within
+	 * {@link LivingEntityAI#LOOK_RANGE} that the entity is supposed to look at.
+	 * 
+	 * @param lookTarget
+	 *            the player to look at, or <code>null</code> if there is no player to look at
+	 */
+	public void tickAI(@Nullable Player lookTarget) {
+		LivingEntity entity = this.getEntity();
+		if (entity == null) return; // Unexpected
+
+		// Rotate the entity's head directly, without ticking its AI goals:
+		NMSManager.getProvider().tickLookTarget(entity, lookTarget, Settings.mobBehaviorTickPeriod);
+	}
+
 	// NAMING
 
 	@Override
@@ -926,6 +1016,8 @@ public class SKLivingShopObject<E extends LivingEntity>
 	}
 
 	private void handleEquipmentChanged() {
+		// The equipment was modified in place: Its previously saved data is outdated.
+		equipmentProperty.markModified();
 		shopkeeper.markDirty();
 		this.onEquipmentChanged();
 	}
@@ -950,6 +1042,20 @@ public class SKLivingShopObject<E extends LivingEntity>
 			@Nullable ItemStack item = ItemUtils.asItemStackOrNull(shopEquipment.getItem(slot));
 			this.setEquipment(entityEquipment, slot, item);
 		}
+		this.onEntityEquipmentChanged();
+	}
+
+	/**
+	 * This has to be called whenever the equipment of the entity is changed in some other way than
+	 * via {@link #setEquipment(EntityEquipment, EquipmentSlot, ItemStack)}, for example via the
+	 * entity's inventory.
+	 * <p>
+	 * Other entity changes are detected automatically.
+	 */
+	protected final void onEntityEquipmentChanged() {
+		if (!clientSide) return;
+		// Send the new equipment to the viewers of the client-side entity:
+		livingShops.getClientSideShopEntities().onEquipmentChanged(this);
 	}
 
 	// Can be overridden by sub-types to for example enforce specific equipment, or apply default
@@ -353,6 +353,7 @@ public class HorseShop extends BabyableShop<Horse> {
 
 		HorseArmor armor = this.getArmor();
 		entity.getInventory().setArmor(armor == null ? null : new ItemStack(armor.getMaterial()));
+		this.onEntityEquipmentChanged();
 	}
 
 	private ItemStack getArmorEditorItem() {
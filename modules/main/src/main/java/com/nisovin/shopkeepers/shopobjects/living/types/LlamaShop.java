@@ -209,6 +209,7 @@ public class LlamaShop<E extends Llama> extends ChestedHorseShop<E> {
 		}
 
 		entity.getInventory().setDecor(decor);
+		this.onEntityEquipmentChanged();
 	}
 
 	private ItemStack getCarpetColorEditorItem() {
@@ -117,6 +117,14 @@ public class ShulkerShop extends SKLivingShopObject<Shulker> {
 		this.peekIfPlayerNearby();
 	}
 
+	@Override
+	public void tickAI(@Nullable Player lookTarget) {
+		super.tickAI(lookTarget);
+
+		// Reuse the look target that was already resolved by the AI system:
+		this.peek(lookTarget != null);
+	}
+
 	private void peekIfPlayerNearby() {
 		Shulker entity = this.getEntity();
 		if (entity == null) return; // Not spawned
@@ -125,7 +133,16 @@ public class ShulkerShop extends SKLivingShopObject<Shulker> {
 
 		Location entityLocation = entity.getLocation();
 		Player nearestPlayer = EntityUtils.getNearestPlayer(entityLocation, LivingEntityAI.LOOK_RANGE);
-		if (nearestPlayer != null) {
+		this.peek(nearestPlayer != null);
+	}
+
+	private void peek(boolean playerNearby) {
+		Shulker entity = this.getEntity();
+		if (entity == null) return; // Not spawned
+
+		if (!Settings.shulkerPeekIfPlayerNearby) return;
+
+		if (playerNearby) {
 			if (entity.getPeek() < 1.0f) {
 				// Vanilla uses 1.0 when the shulker attacks, and 0.3 when it peeks.
 				// The peeking is automatically animated on the client.
@@ -0,0 +1,34 @@
+package com.nisovin.shopkeepers.storage;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Loads and unloads the shopkeepers of worlds when the worlds are loaded and unloaded, if lazy
+ * world loading is enabled.
+ */
+class LazyWorldLoadingListener implements Listener {
+
+	private final SKShopkeeperStorage storage;
+
+	LazyWorldLoadingListener(SKShopkeeperStorage storage) {
+		Validate.notNull(storage, "storage is null");
+		this.storage = storage;
+	}
+
+	// Early, so that the shopkeepers are loaded before the world's shopkeepers are activated:
+	@EventHandler(priority = EventPriority.LOWEST)
+	void onWorldLoad(WorldLoadEvent event) {
+		storage.onWorldLoad(event.getWorld().getName());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onWorldUnload(WorldUnloadEvent event) {
+		storage.onWorldUnload(event.getWorld().getName());
+	}
+}
@@ -0,0 +1,107 @@
+package com.nisovin.shopkeepers.storage;
+
+import com.nisovin.shopkeepers.api.storage.SaveStatistics;
+
+/**
+ * The {@link SaveStatistics} of the {@link SKShopkeeperStorage}.
+ * <p>
+ * Only updated on the server's main thread.
+ */
+final class SKSaveStatistics implements SaveStatistics {
+
+	private long saveCount = 0L;
+	private long failedSaveCount = 0L;
+	private long lastSaveDurationMillis = 0L;
+	private long totalSaveDurationMillis = 0L;
+	private long maxSaveDurationMillis = 0L;
+
+	private long completedRequestCount = 0L;
+	private long totalRequestLatencyNanos = 0L;
+	private long maxRequestLatencyNanos = 0L;
+
+	SKSaveStatistics() {
+	}
+
+	void reset() {
+		saveCount = 0L;
+		failedSaveCount = 0L;
+		lastSaveDurationMillis = 0L;
+		totalSaveDurationMillis = 0L;
+		maxSaveDurationMillis = 0L;
+		completedRequestCount = 0L;
+		totalRequestLatencyNanos = 0L;
+		maxRequestLatencyNanos = 0L;
+	}
+
+	void onSaveCompleted(long durationMillis, boolean succeeded) {
+		saveCount++;
+		if (!succeeded) {
+			failedSaveCount++;
+		}
+		lastSaveDurationMillis = durationMillis;
+		totalSaveDurationMillis += durationMillis;
+		maxSaveDurationMillis = Math.max(maxSaveDurationMillis, durationMillis);
+	}
+
+	void onRequestCompleted(long latencyNanos) {
+		completedRequestCount++;
+		totalRequestLatencyNanos += latencyNanos;
+		maxRequestLatencyNanos = Math.max(maxRequestLatencyNanos, latencyNanos);
+	}
+
+	@Override
+	public long getSaveCount() {
+		return saveCount;
+	}
+
+	@Override
+	public long getFailedSaveCount() {
+		return failedSaveCount;
+	}
+
+	@Override
+	public long getLastSaveDurationMillis() {
+		return lastSaveDurationMillis;
+	}
+
+	@Override
+	public double getAverageSaveDurationMillis() {
+		if (saveCount == 0L) return 0.0D;
+		return (double) totalSaveDurationMillis / saveCount;
+	}
+
+	@Override
+	public long getMaxSaveDurationMillis() {
+		return maxSaveDurationMillis;
+	}
+
+	@Override
+	public long getCompletedRequestCount() {
+		return completedRequestCount;
+	}
+
+	@Override
+	public double getAverageRequestLatencyMillis() {
+		if (completedRequestCount == 0L) return 0.0D;
+		return totalRequestLatencyNanos / 1_000_000.0D / completedRequestCount;
+	}
+
+	@Override
+	public long getMaxRequestLatencyMillis() {
+		return maxRequestLatencyNanos / 1_000_000L;
+	}
+
+	@Override
+	public String toString() {
+		return "SaveStatistics [saves=" + saveCount
+				+ ", failed=" + failedSaveCount
+				+ ", lastDuration=" + lastSaveDurationMillis + " ms"
+				+ ", avgDuration=" + String.format("%.1f", this.getAverageSaveDurationMillis())
+				+ " ms"
+				+ ", maxDuration=" + maxSaveDurationMillis + " ms"
+				+ ", requests=" + completedRequestCount
+				+ ", avgLatency=" + String.format("%.1f", this.getAverageRequestLatencyMillis())
+				+ " ms"
+				+ ", maxLatency=" + this.getMaxRequestLatencyMillis() + " ms]";
+	}
+}
@@ -1,49 +1,46 @@
 package com.nisovin.shopkeepers.storage;
 
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
+import org.bukkit.event.HandlerList;
 import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
+import com.nisovin.shopkeepers.api.storage.SaveStatistics;
+import com.nisovin.shopkeepers.api.storage.ShopkeeperSaveException;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
 import com.nisovin.shopkeepers.util.data.container.DataContainer;
-import com.nisovin.shopkeepers.util.data.persistence.DataStore;
 import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
 import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
 import com.nisovin.shopkeepers.util.java.ConversionUtils;
-import com.nisovin.shopkeepers.util.java.FileUtils;
 import com.nisovin.shopkeepers.util.java.Retry;
 import com.nisovin.shopkeepers.util.java.StringUtils;
 import com.nisovin.shopkeepers.util.java.ThrowableUtils;
@@ -67,24 +64,27 @@ import com.nisovin.shopkeepers.util.logging.Log;
  * <li>It is not safe to externally edit the save file while the plugin is running, because the
  * plugin might still store unsaved shopkeeper data in memory or overwrite the save file with new
  * contents at any time.
+ * <li>The data is persisted by the {@link ShopkeeperStorageBackend} of the configured
+ * {@link ShopkeeperStorageType}. If the configured backend has no data yet, but the other backend
+ * has, the data is loaded from the other backend and then fully written to the configured backend.
+ * After this migration succeeded, the data of the other backend is moved aside.
+ * <li>If {@link Settings#lazyWorldLoading} is enabled, the shopkeepers of worlds that are not
+ * loaded are only kept in their saved form, and are loaded once their world is loaded. When a
+ * world is unloaded, its shopkeepers are unloaded again. The saved data of all shopkeepers remains
+ * in memory, because it is also required for saving and the allocation of shopkeeper ids.
  * </ul>
  */
 public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 	private static final String DATA_FOLDER = "data";
-	private static final String SAVE_FILE_NAME = "save.yml";
-	private static final String TEMP_SAVE_FILE_NAME = SAVE_FILE_NAME + ".tmp";
 
-	private static final String DATA_VERSION_KEY = "data-version";
-
-	private static final List<@Nullable String> HEADER = Collections.unmodifiableList(Arrays.asList(
-			"This file is not intended to be manually modified! If you want to manually edit this"
-					+ " file anyway, ensure that the server is not running currently and that you"
-					+ " have prepared a backup of this file."
-	));
+	static final String DATA_VERSION_KEY = "data-version";
 
 	private static final int DELAYED_SAVE_TICKS = 600; // 30 seconds
 
+	// The IO executor resource that runs the asynchronous saves:
+	private static final String IO_RESOURCE = "storage";
+
 	// Max total delay: 500ms
 	private static final int SAVING_MAX_ATTEMPTS = 20;
 	private static final long SAVING_ATTEMPTS_DELAY_MILLIS = 25;
@@ -92,8 +92,13 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 	private final SKShopkeepersPlugin plugin;
 
-	private final Path saveFile;
-	private final Path tempSaveFile;
+	private final ShopkeeperStorageBackend yamlBackend;
+	private final ShopkeeperStorageBackend sqliteBackend;
+	// The backend of the configured storage type. Only changes during reloads:
+	private ShopkeeperStorageBackend backend;
+	// The backend from which the data was loaded, if it still needs to be migrated to the current
+	// backend:
+	private @Nullable ShopkeeperStorageBackend migrationSource = null;
 
 	/* Data */
 	/*
@@ -110,6 +115,8 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// Whether we got an explicit save request. This triggers a write to the save file, even if
 	// there have been no changes to the shopkeeper data itself.
 	private boolean pendingSaveRequest = false;
+	// Whether the next save needs to replace all persisted data (e.g. after a migration):
+	private boolean pendingFullSave = false;
 	// Shopkeepers that had changes to their data that we did not yet apply to the storage's memory.
 	// These shopkeepers may no longer be loaded. This does not include shopkeepers that were
 	// deleted. This Set is swapped with another, empty Set when the shopkeepers are saved, so that
@@ -128,6 +135,13 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 	/* Loading */
 	private boolean currentlyLoading = false;
+	// The ids of the shopkeepers that have not been loaded yet, by the names of their worlds:
+	private final Map<String, Set<Integer>> deferredShopkeepers = new HashMap<>();
+	// The owners of the deferred player shopkeepers, by shopkeeper id, and the number of deferred
+	// player shopkeepers per owner. Used to account for these shops in the max shops limits:
+	private final Map<Integer, UUID> deferredPlayerShopOwners = new HashMap<>();
+	private final Map<UUID, Integer> deferredPlayerShopCounts = new HashMap<>();
+	private final LazyWorldLoadingListener lazyWorldLoadingListener;
 
 	/* Saving */
 	private final SaveTask saveTask;
@@ -135,35 +149,35 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// loading the shopkeeper data, so that the save file doesn't get overwritten by any subsequent
 	// save requests.
 	private boolean savingDisabled = false;
+	// Requested saves are deferred while this is positive (e.g. during shopkeeper batches):
+	private int saveDeferrals = 0;
 	private @Nullable BukkitTask delayedSaveTask = null;
+	// Save requests that wait for the next save to start, and save requests that wait for the save
+	// that is currently in progress:
+	private final List<SaveRequest> pendingSaveRequests = new ArrayList<>();
+	private final List<SaveRequest> savingRequests = new ArrayList<>();
+	private final SKSaveStatistics saveStatistics = new SKSaveStatistics();
 
 	public SKShopkeeperStorage(SKShopkeepersPlugin plugin) {
 		DataVersion.init();
 		this.plugin = plugin;
-		this.saveFile = Unsafe.initialized(this)._getSaveFile();
-		this.tempSaveFile = Unsafe.initialized(this)._getTempSaveFile();
+		Path pluginDataFolder = plugin.getDataFolder().toPath();
+		Path dataFolder = pluginDataFolder.resolve(DATA_FOLDER);
+		this.yamlBackend = new YamlShopkeeperStorageBackend(pluginDataFolder, dataFolder);
+		this.sqliteBackend = new SQLiteShopkeeperStorageBackend(pluginDataFolder, dataFolder);
+		this.backend = yamlBackend;
 		this.saveTask = new SaveTask(plugin);
+		this.lazyWorldLoadingListener = new LazyWorldLoadingListener(this);
 	}
 
-	private Path getPluginDataFolder() {
-		return plugin.getDataFolder().toPath();
-	}
-
-	private Path _getDataFolder() {
-		return this.getPluginDataFolder().resolve(DATA_FOLDER);
-	}
-
-	private Path _getSaveFile() {
-		return this._getDataFolder().resolve(SAVE_FILE_NAME);
-	}
-
-	private Path _getTempSaveFile() {
-		return this._getSaveFile().resolveSibling(TEMP_SAVE_FILE_NAME);
-	}
-
-	// Gets the path relative to the plugin data folder.
-	private Path pluginDataRelative(Path path) {
-		return this.getPluginDataFolder().relativize(path);
+	private ShopkeeperStorageBackend getBackend(ShopkeeperStorageType storageType) {
+		switch (storageType) {
+		case SQLITE:
+			return sqliteBackend;
+		case YAML:
+		default:
+			return yamlBackend;
+		}
 	}
 
 	public void onEnable() {
@@ -171,9 +185,15 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		if (!Settings.saveInstantly) {
 			new PeriodicSaveTask().start();
 		}
+
+		// Note: Also registered if lazy world loading is disabled, so that any deferred shopkeepers
+		// are still loaded if the setting is disabled during a reload.
+		Bukkit.getPluginManager().registerEvents(lazyWorldLoadingListener, plugin);
 	}
 
 	public void onDisable() {
+		HandlerList.unregisterAll(lazyWorldLoadingListener);
+
 		// Ensure that there is no unsaved data and that all saves are completed before we continue:
 		this.saveIfDirtyAndAwaitCompletion();
 
@@ -196,11 +216,18 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 					+ saveTask.isExecutionPending() + ")!");
 		}
 
+		// Fail any save requests that could not be completed:
+		this.failSaveRequests(pendingSaveRequests, "The plugin is being disabled.");
+		this.failSaveRequests(savingRequests, "The plugin is being disabled.");
+
 		// Reset a few things:
 		saveTask.onDisable();
+		saveStatistics.reset();
 		this.clearSaveData();
 		savingDisabled = false;
 		pendingSaveRequest = false;
+		pendingFullSave = false;
+		migrationSource = null;
 		dirtyShopkeepers.clear();
 		unsavedShopkeepers.clear();
 		unsavedDeletedShopkeepers.clear();
@@ -344,56 +371,13 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	 */
 	private void clearSaveData() {
 		saveData.clear();
+		deferredShopkeepers.clear();
+		deferredPlayerShopOwners.clear();
+		deferredPlayerShopCounts.clear();
 		maxUsedShopkeeperId = 0;
 		nextShopkeeperId = 1;
 	}
 
-	// We previously stored the save file within the plugin's root folder. If no save file exist at
-	// the expected location, we check the old save file location and migrate the save file if it is
-	// found.
-	private Path getOldSaveFile() {
-		return this.getPluginDataFolder().resolve("save.yml");
-	}
-
-	private Path getOldTempSaveFile() {
-		return this.getOldSaveFile().resolveSibling("save.temp");
-	}
-
-	// Returns false if the migration failed.
-	// Returns true if the migration succeeded or there is no old save file to migrate.
-	// Note: This is called after it has been checked that the save file does not exist yet.
-	private boolean migrateOldSaveFile() {
-		Path oldSaveFile = this.getOldSaveFile();
-		if (!Files.exists(oldSaveFile)) {
-			Path oldTempSaveFile = this.getOldTempSaveFile();
-			if (Files.exists(oldTempSaveFile)) {
-				// Migrate old temporary save file instead:
-				Log.warning("Found no old save file, but an existing old temporary save file ("
-						+ this.pluginDataRelative(oldTempSaveFile) + ")!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We try to migrate this temporary save file instead!");
-
-				oldSaveFile = oldTempSaveFile;
-			} else {
-				// No old save file found that needs to be migrated.
-				return true;
-			}
-		}
-
-		// Move old save file to new location:
-		Log.info("Migrating old save file (" + this.pluginDataRelative(oldSaveFile)
-				+ ") to new location (" + this.pluginDataRelative(saveFile) + ")!");
-		try {
-			FileUtils.moveFile(oldSaveFile, saveFile, Log.getLogger());
-		} catch (IOException e) {
-			Log.severe("Failed to migrate old save file! (" + this.pluginDataRelative(oldSaveFile)
-					+ ")", e);
-			return false;
-		}
-		// Migration succeeded:
-		return true;
-	}
-
 	// Returns true on success, and false if there was some severe issue during loading.
 	// This is blocking and will wait for any currently ongoing or pending saves to complete!
 	public boolean reload() {
@@ -431,42 +415,46 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		SKShopkeeperRegistry shopkeeperRegistry = this.getShopkeeperRegistry();
 		shopkeeperRegistry.unloadAllShopkeepers();
 		this.clearSaveData();
+		pendingFullSave = false;
+		migrationSource = null;
+
+		// Select the backend of the configured storage type:
+		ShopkeeperStorageBackend backend = this.getBackend(Settings.shopkeeperStorage);
+		this.backend = backend;
 
-		Path saveFile = this.saveFile;
-		if (!Files.exists(saveFile)) {
-			if (Files.exists(tempSaveFile)) {
-				// Load from temporary save file instead:
-				Log.warning("Found no save file, but an existing temporary save file ("
-						+ this.pluginDataRelative(tempSaveFile) + ")!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We try to load the Shopkeepers data from this temporary save file"
-						+ " instead!");
-				saveFile = tempSaveFile;
-			} else if (!this.migrateOldSaveFile()) {
-				// Migration of old save file failed:
-				return false; // Disable without save
-			} else if (!Files.exists(saveFile)) {
-				// No save file exists yet (even after checking for it again, after the migration)
-				// -> No shopkeeper data available.
-				// We silently set up the data version and abort:
-				saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
-				return true;
+		// If the configured backend has no data yet, we migrate the data of the other backend (if
+		// there is any):
+		ShopkeeperStorageBackend source = backend;
+		try {
+			if (!backend.hasData()) {
+				ShopkeeperStorageBackend otherBackend = (backend == yamlBackend)
+						? sqliteBackend : yamlBackend;
+				if (otherBackend.hasData()) {
+					source = otherBackend;
+				}
 			}
+		} catch (IOException e) {
+			Log.severe("Failed to check for existing shopkeeper data!", e);
+			return false; // Disable without save
 		}
 
 		// Load the save data:
-		try (Reader reader = Files.newBufferedReader(saveFile, StandardCharsets.UTF_8)) {
-			// Since Bukkit 1.16.5, this automatically clears the save data before loading the new
-			// entries.
-			saveData.load(reader);
+		boolean dataFound;
+		try {
+			dataFound = source.load(saveData);
 		} catch (InvalidDataFormatException e) {
-			Log.severe("Failed to load the save file! Note: Server downgrades or manually "
-					+ "editing the save file are not supported!", e);
+			Log.severe("Failed to load the " + source.getDescription() + "! Note: Server "
+					+ "downgrades or manually editing the saved data are not supported!", e);
 			return false; // Disable without save
 		} catch (Exception e) {
-			Log.severe("Failed to load the save file!", e);
+			Log.severe("Failed to load the " + source.getDescription() + "!", e);
 			return false; // Disable without save
 		}
+		if (!dataFound) {
+			// No shopkeeper data available. We silently set up the data version and abort:
+			saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
+			return true;
+		}
 
 		// Insert the data version as the first (top) entry:
 		// Explicitly setting the 'missing' data version value here ensures that the data version
@@ -485,7 +473,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		try {
 			dataVersion = DataVersion.parse(dataVersionString);
 		} catch (IllegalArgumentException e) {
-			Log.severe("Failed to parse the data version of the save file!", e);
+			Log.severe("Failed to parse the data version of the saved data!", e);
 			return false; // Disable without save
 		}
 
@@ -524,6 +512,15 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			return false; // Disable without save
 		}
 
+		if (source != backend) {
+			Log.info("Migrating the shopkeeper data from the " + source.getDescription()
+					+ " to the " + backend.getDescription() + " ...");
+			// Write all data to the new backend, even if there are no shopkeepers:
+			migrationSource = source;
+			pendingFullSave = true;
+			this.requestSave();
+		}
+
 		Set<? extends String> keys = saveData.getKeys();
 		// Contains at least the data-version entry:
 		assert keys.contains(DATA_VERSION_KEY);
@@ -542,7 +539,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		boolean forceSaveAllShopkeepers = DataVersion.current().isMinecraftUpgrade(dataVersion)
 				|| DataVersion.current().isShopkeeperStorageUpgrade(dataVersion);
 		if (dataVersionChanged) {
-			Log.info("The save file's data version has changed from '" + dataVersion
+			Log.info("The data version of the saved data has changed from '" + dataVersion
 					+ "' to '" + DataVersion.current() + "'."
 					+ (forceSaveAllShopkeepers ? " The saved data of all shopkeepers is updated." : ""));
 			// Update the data version:
@@ -553,9 +550,18 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			this.requestSave();
 		}
 
+		// If all shopkeepers need to be saved, we load all shopkeepers, so that their data is
+		// updated right away:
+		boolean lazyWorldLoading = Settings.lazyWorldLoading && !forceSaveAllShopkeepers;
+		int deferredCount = 0;
 		for (String key : keys) {
 			if (key.equals(DATA_VERSION_KEY)) continue; // Skip the data version entry
 
+			if (lazyWorldLoading && this.deferShopkeeper(key)) {
+				deferredCount++;
+				continue;
+			}
+
 			// If the shopkeeper cannot be loaded, it is skipped and the loading continues with the
 			// remaining shopkeepers:
 			// Note: When a player shopkeeper cannot be loaded, its associated containers might no
@@ -565,9 +571,151 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// all player shop containers on the server (which is even worse).
 			this.loadShopkeeper(key, forceSaveAllShopkeepers);
 		}
+
+		if (deferredCount > 0) {
+			Log.info("Deferred the loading of " + deferredCount + " shopkeepers in "
+					+ deferredShopkeepers.size() + " worlds that are not loaded.");
+		}
+		return true;
+	}
+
+	// Returns true if the loading of the shopkeeper is deferred until its world is loaded.
+	private boolean deferShopkeeper(String key) {
+		// Shopkeepers with invalid ids or data are loaded right away, so that the issue is logged:
+		Integer idInt = ConversionUtils.parseInt(key);
+		if (idInt == null || idInt <= 0) return false;
+		DataContainer shopkeeperDataContainer = saveData.getContainer(key);
+		if (shopkeeperDataContainer == null) return false;
+
+		@Nullable String worldName;
+		try {
+			worldName = shopkeeperDataContainer.get(AbstractShopkeeper.WORLD_NAME);
+		} catch (InvalidDataException e) {
+			return false;
+		}
+		if (worldName == null) return false; // Virtual shopkeeper
+		if (Bukkit.getWorld(worldName) != null) return false;
+
+		int shopkeeperId = idInt.intValue();
+		if (shopkeeperId > maxUsedShopkeeperId) {
+			maxUsedShopkeeperId = shopkeeperId;
+		}
+		deferredShopkeepers.computeIfAbsent(worldName, k -> new LinkedHashSet<>())
+				.add(shopkeeperId);
+		@Nullable UUID ownerId = shopkeeperDataContainer.getOrNull(
+				AbstractPlayerShopkeeper.OWNER_UNIQUE_ID
+		);
+		if (ownerId != null) {
+			this.addDeferredPlayerShop(shopkeeperId, ownerId);
+		}
 		return true;
 	}
 
+	private void addDeferredPlayerShop(int shopkeeperId, UUID ownerId) {
+		@Nullable UUID previousOwnerId = deferredPlayerShopOwners.put(shopkeeperId, ownerId);
+		if (previousOwnerId != null) {
+			this.removeDeferredPlayerShopCount(previousOwnerId);
+		}
+		deferredPlayerShopCounts.merge(ownerId, 1, Integer::sum);
+	}
+
+	private void removeDeferredPlayerShop(int shopkeeperId) {
+		@Nullable UUID ownerId = deferredPlayerShopOwners.remove(shopkeeperId);
+		if (ownerId == null) return; // Not a deferred player shopkeeper
+		this.removeDeferredPlayerShopCount(ownerId);
+	}
+
+	private void removeDeferredPlayerShopCount(UUID ownerId) {
+		deferredPlayerShopCounts.computeIfPresent(
+				ownerId,
+				(id, count) -> (count > 1) ? count - 1 : null
+		);
+	}
+
+	/**
+	 * Gets the number of player shopkeepers of the specified owner whose loading is deferred
+	 * because their world is not loaded.
+	 * <p>
+	 * These shopkeepers are not contained in the shopkeeper registry, but still need to be
+	 * accounted for when checking the max shops limit of the owner.
+	 * 
+	 * @param ownerId
+	 *            the owner's unique id, not <code>null</code>
+	 * @return the number of deferred player shopkeepers of the owner
+	 */
+	public int getDeferredPlayerShopkeepersCount(UUID ownerId) {
+		Validate.notNull(ownerId, "ownerId is null");
+		return deferredPlayerShopCounts.getOrDefault(ownerId, 0);
+	}
+
+	void onWorldLoad(String worldName) {
+		assert worldName != null;
+		@Nullable Set<Integer> shopkeeperIds = deferredShopkeepers.remove(worldName);
+		if (shopkeeperIds == null) return;
+
+		// The data of shopkeepers that were unloaded with their world might not have been
+		// transferred into the save data yet. We save these changes first, so that we load the
+		// shopkeepers from their latest data:
+		if (this.hasPendingUnloadedShopkeepers(worldName)) {
+			Log.debug(() -> "Saving the unloaded shopkeepers of world '" + worldName
+					+ "' before loading them again.");
+			this.saveIfDirtyAndAwaitCompletion();
+		}
+
+		Log.debug(() -> "Loading " + shopkeeperIds.size() + " shopkeepers of world '"
+				+ worldName + "'.");
+		for (int shopkeeperId : shopkeeperIds) {
+			this.removeDeferredPlayerShop(shopkeeperId);
+			String key = String.valueOf(shopkeeperId);
+			// Skip the shopkeeper if it has been removed in the meantime, or if it is still
+			// loaded (e.g. if it was moved into another world during the unloading):
+			if (!saveData.contains(key)) continue;
+			if (this.getShopkeeperRegistry().getShopkeeperById(shopkeeperId) != null) continue;
+
+			this.loadShopkeeper(key, false);
+		}
+	}
+
+	// Checks for unloaded shopkeepers of the given world whose data has not yet been transferred
+	// into the save data.
+	private boolean hasPendingUnloadedShopkeepers(String worldName) {
+		for (AbstractShopkeeper shopkeeper : dirtyShopkeepers) {
+			if (this.isUnloadedShopkeeperOfWorld(shopkeeper, worldName)) return true;
+		}
+		for (AbstractShopkeeper shopkeeper : saveTask.savingDirtyShopkeepers) {
+			if (this.isUnloadedShopkeeperOfWorld(shopkeeper, worldName)) return true;
+		}
+		return false;
+	}
+
+	private boolean isUnloadedShopkeeperOfWorld(AbstractShopkeeper shopkeeper, String worldName) {
+		return !shopkeeper.isValid() && worldName.equals(shopkeeper.getWorldName());
+	}
+
+	void onWorldUnload(String worldName) {
+		assert worldName != null;
+		if (!Settings.lazyWorldLoading) return;
+
+		SKShopkeeperRegistry shopkeeperRegistry = this.getShopkeeperRegistry();
+		if (shopkeeperRegistry.getShopkeepersInWorld(worldName).isEmpty()) return;
+
+		// Any unsaved changes of the unloaded shopkeepers are still saved by the next save:
+		List<? extends AbstractShopkeeper> shopkeepers = shopkeeperRegistry
+				.unloadShopkeepersInWorld(worldName);
+		Set<Integer> shopkeeperIds = deferredShopkeepers.computeIfAbsent(
+				worldName,
+				k -> new LinkedHashSet<>()
+		);
+		shopkeepers.forEach(shopkeeper -> {
+			shopkeeperIds.add(shopkeeper.getId());
+			if (shopkeeper instanceof AbstractPlayerShopkeeper playerShop) {
+				this.addDeferredPlayerShop(shopkeeper.getId(), playerShop.getOwnerUUID());
+			}
+		});
+		Log.debug(() -> "Unloaded " + shopkeepers.size() + " shopkeepers of world '"
+				+ worldName + "'.");
+	}
+
 	private @Nullable ShopkeeperData getShopkeeperData(int shopkeeperId) {
 		DataContainer shopkeeperDataContainer = saveData.getContainer(String.valueOf(shopkeeperId));
 		if (shopkeeperDataContainer == null) {
@@ -804,12 +952,39 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		this.savingDisabled = false;
 	}
 
+	/**
+	 * Defers any subsequently requested {@link #save() saves} and {@link #saveDelayed() delayed
+	 * saves} until the saves are {@link #resumeSaves() resumed} again.
+	 * <p>
+	 * The deferred save requests are remembered, but only the periodic save, or the next save
+	 * request after the saves have been resumed, triggers the actual save. Explicit
+	 * {@link #saveNow()} and {@link #saveImmediate()} calls are not affected.
+	 * <p>
+	 * Calls to this method can be nested and need to be followed by the same number of calls to
+	 * {@link #resumeSaves()}.
+	 */
+	public void deferSaves() {
+		saveDeferrals++;
+	}
+
+	/**
+	 * Resumes the saves that were deferred via {@link #deferSaves()}.
+	 */
+	public void resumeSaves() {
+		Validate.State.isTrue(saveDeferrals > 0, "Saves are not deferred!");
+		saveDeferrals--;
+	}
+
 	private void requestSave() {
 		pendingSaveRequest = true;
 	}
 
 	@Override
 	public void save() {
+		if (saveDeferrals > 0) {
+			this.requestSave();
+			return;
+		}
 		if (Settings.saveInstantly) {
 			this.saveNow();
 		} else {
@@ -820,6 +995,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	@Override
 	public void saveDelayed() {
 		this.requestSave();
+		if (saveDeferrals > 0) return;
 		if (Settings.saveInstantly && delayedSaveTask == null) {
 			new DelayedSaveTask().start();
 		} // Else: The periodic save task will trigger a save at some point.
@@ -858,9 +1034,86 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		}
 	}
 
+	private static final class SaveRequest {
+
+		final CompletableFuture<@Nullable Void> future = new CompletableFuture<>();
+		final long requestNanos = System.nanoTime();
+	}
+
+	@Override
+	public CompletableFuture<@Nullable Void> saveNowAsync() {
+		Validate.State.isTrue(Bukkit.isPrimaryThread(), "Not on the main thread!");
+		SaveRequest request = new SaveRequest();
+		if (savingDisabled) {
+			request.future.completeExceptionally(
+					new ShopkeeperSaveException("Saving is currently disabled.")
+			);
+			return request.future;
+		}
+
+		// Completed by the next save that starts:
+		pendingSaveRequests.add(request);
+		this.saveNow();
+		return request.future;
+	}
+
+	@Override
+	public CompletableFuture<@Nullable Void> saveIfDirtyAsync() {
+		Validate.State.isTrue(Bukkit.isPrimaryThread(), "Not on the main thread!");
+		if (this.isDirty()) {
+			return this.saveNowAsync();
+		}
+		if (!saveTask.isRunning()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Completed by the save that is currently in progress:
+		SaveRequest request = new SaveRequest();
+		savingRequests.add(request);
+		return request.future;
+	}
+
+	@Override
+	public SaveStatistics getSaveStatistics() {
+		return saveStatistics;
+	}
+
+	private void completeSaveRequests(boolean succeeded) {
+		if (savingRequests.isEmpty()) return;
+
+		List<SaveRequest> requests = new ArrayList<>(savingRequests);
+		savingRequests.clear();
+		// Completing the futures may run dependent actions that request further saves. We therefore
+		// complete the futures outside the current save task execution, if possible:
+		Runnable completion = () -> {
+			long nowNanos = System.nanoTime();
+			for (SaveRequest request : requests) {
+				saveStatistics.onRequestCompleted(nowNanos - request.requestNanos);
+				if (succeeded) {
+					request.future.complete(null);
+				} else {
+					request.future.completeExceptionally(
+							new ShopkeeperSaveException("Saving the shopkeeper data failed!")
+					);
+				}
+			}
+		};
+		if (SchedulerUtils.runTaskOrOmit(plugin, completion) == null) {
+			completion.run();
+		}
+	}
+
+	private void failSaveRequests(List<SaveRequest> requests, String reason) {
+		requests.forEach(request -> {
+			request.future.completeExceptionally(new ShopkeeperSaveException(reason));
+		});
+		requests.clear();
+	}
+
 	private void doSave(boolean async) {
 		if (savingDisabled) {
 			Log.warning("Skipping save, because saving got disabled.");
+			this.failSaveRequests(pendingSaveRequests, "Saving is currently disabled.");
 			return;
 		}
 
@@ -878,6 +1131,10 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		Set<AbstractShopkeeper> savingDirtyShopkeepers = new LinkedHashSet<>();
 		// The shopkeepers that we were not able to save for some reason:
 		private final Set<AbstractShopkeeper> failedToSave = new LinkedHashSet<>();
+		// The changes that the backend persists with the current save:
+		private boolean savingFullSave = false;
+		private Set<Integer> savingChangedShopkeepers = new HashSet<>();
+		private Set<Integer> savingDeletedShopkeepers = new HashSet<>();
 
 		/* Last save */
 		// These variables get replaced during the next save.
@@ -888,8 +1145,12 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		private boolean savingSucceeded = false;
 		private long lastSaveErrorMsgMillis = 0L;
 
-		SaveTask(Plugin plugin) {
-			super(plugin);
+		SaveTask(SKShopkeepersPlugin plugin) {
+			super(
+					plugin,
+					plugin.getTaskScheduler(),
+					plugin.getIOExecutor().getResource(IO_RESOURCE, 1)
+			);
 		}
 
 		void onDisable() {
@@ -920,17 +1181,16 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				delayedSaveTask = null;
 			}
 
-			// Set up the file header:
-			// This replaces any previously existing and loaded header and thereby ensures that it
-			// is always up-to-date after we have saved the file.
-			saveData.getConfig().options().setHeader(HEADER);
-
 			// Reset the pendingSaveRequest flag here (and not just after a successful save), so
 			// that we can track any save requests that occur in the meantime, which require another
 			// save later:
 			// Note: This flag is also reset to true if the current save attempt fails.
 			pendingSaveRequest = false;
 
+			// The save requests that have been made up until now are completed by this save:
+			savingRequests.addAll(pendingSaveRequests);
+			pendingSaveRequests.clear();
+
 			// Swap the dirty shopkeepers sets:
 			assert savingDirtyShopkeepers.isEmpty();
 			Set<AbstractShopkeeper> newDirtyShopkeepers = savingDirtyShopkeepers;
@@ -940,6 +1200,16 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// Save the data of dirty shopkeepers:
 			assert failedToSave.isEmpty();
 			savingDirtyShopkeepers.forEach(this::saveShopkeeper);
+
+			// Capture the changes since the last successful save. New Sets are used for every save,
+			// because the backend may access them asynchronously:
+			savingFullSave = pendingFullSave;
+			pendingFullSave = false;
+			savingChangedShopkeepers = new HashSet<>(unsavedShopkeepers);
+			savingDirtyShopkeepers.forEach(shopkeeper -> {
+				savingChangedShopkeepers.add(shopkeeper.getId());
+			});
+			savingDeletedShopkeepers = new HashSet<>(unsavedDeletedShopkeepers);
 		}
 
 		private void saveShopkeeper(AbstractShopkeeper shopkeeper) {
@@ -975,30 +1245,20 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		// Can be run async or sync.
 		@Override
 		protected void execute() {
-			savingSucceeded = this.saveToFile(saveData);
+			savingSucceeded = this.saveToBackend();
 		}
 
 		// Returns true if the saving was successful.
-		private boolean saveToFile(DataStore saveData) {
+		private boolean saveToBackend() {
 			try {
-				// Serialize data to String:
-				// TODO Do this on the main thread? Bukkit's serialization API is not strictly
-				// thread-safe ...
-				// However, this should usually not be an issue if the serialized objects inside the
-				// save data are not accessed externally, and do not rely on external state during
-				// serialization.
-				String data;
-				try {
-					data = saveData.saveToString();
-				} catch (Exception e) {
-					throw new ShopkeeperStorageSaveException(
-							"Could not serialize shopkeeper data!", e
-					);
-				}
+				VoidCallable write = backend.prepareWrite(
+						saveData,
+						savingFullSave,
+						savingChangedShopkeepers,
+						savingDeletedShopkeepers
+				);
 
-				Retry.retry((VoidCallable) () -> {
-					this.doSaveToFile(data);
-				}, SAVING_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
+				Retry.retry(write, SAVING_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
 					// Saving failed:
 					assert exception != null;
 					// Don't spam with errors and stacktraces: Only print them once for the first
@@ -1033,152 +1293,49 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			}
 		}
 
-		/**
-		 * Writes the given properly formatted shopkeeper data to disk.
-		 * <p>
-		 * Saving procedure:
-		 * <ul>
-		 * <li>If there already is a temporary save file:
-		 * <ul>
-		 * <li>If there is no save file: Rename temporary save file to save file (ideally atomic).
-		 * <li>Else: Remove temporary save file.
-		 * </ul>
-		 * <li>Create temporary save file's parent directories (if required).
-		 * <li>Create new temporary save file and write data to it.
-		 * <li>Sync temporary save file and containing directory (ensures that the data is persisted
-		 * to disk).
-		 * <li>Remove old save file (if it exists).
-		 * <li>Create save file's parent directories (if required).
-		 * <li>Rename temporary save file to save file (ideally atomic).
-		 * <li>Sync save file's parent directory (ensures that the rename operation is persisted to
-		 * disk).
-		 * </ul>
-		 * 
-		 * @param data
-		 *            the formatted data
-		 * @throws ShopkeeperStorageSaveException
-		 *             if something goes wrong
-		 */
-		private void doSaveToFile(String data) throws ShopkeeperStorageSaveException {
-			assert data != null;
-			// Handle already existing temporary save file:
-			this.handleExistingTempSaveFile();
-
-			// Ensure that the temporary save file's parent directories exist:
-			this.wrapException(() -> FileUtils.createParentDirectories(tempSaveFile));
-
-			// Check write permissions for the involved directories:
-			Path tempSaveFileDirectory = tempSaveFile.getParent();
-			if (tempSaveFileDirectory != null) {
-				this.wrapException(() -> FileUtils.checkIsDirectoryWritable(tempSaveFileDirectory));
-			}
-
-			Path saveFileDirectory = saveFile.getParent();
-			if (saveFileDirectory != null && !saveFileDirectory.equals(tempSaveFileDirectory)) {
-				this.wrapException(() -> FileUtils.checkIsDirectoryWritable(saveFileDirectory));
-			}
-
-			// Create new temporary save file and write data to it:
-			try (Writer writer = Files.newBufferedWriter(tempSaveFile, StandardCharsets.UTF_8)) {
-				writer.write(data);
-			} catch (IOException e) {
-				throw new ShopkeeperStorageSaveException(
-						"Could not write the shopkeeper data to the temporary save file ("
-								+ pluginDataRelative(tempSaveFile) + "): "
-								+ ThrowableUtils.getDescription(e),
-						e
-				);
-			}
+		private void onMigrationCompleted() {
+			ShopkeeperStorageBackend migrationSource = SKShopkeeperStorage.this.migrationSource;
+			if (migrationSource == null) return;
 
-			// Fsync the temporary save file and the containing directory (ensures that the data is
-			// actually persisted to disk):
-			this.wrapException(() -> FileUtils.fsync(tempSaveFile));
-			this.wrapException(() -> FileUtils.fsyncParentDirectory(tempSaveFile));
-
-			// Delete the old save file (if it exists):
-			this.wrapException(() -> FileUtils.deleteIfExists(saveFile));
-
-			// Ensure that the save file's parent directories exist:
-			this.wrapException(() -> FileUtils.createParentDirectories(saveFile));
-
-			// Rename the temporary save file (ideally atomically):
-			this.wrapException(() -> FileUtils.moveFile(tempSaveFile, saveFile, Log.getLogger()));
-
-			// Fsync the save file's parent directory (ensures that the rename operation is
-			// persisted to disk):
-			this.wrapException(() -> FileUtils.fsyncParentDirectory(saveFile));
-		}
-
-		// If the temporary save file already exists, this might indicate an issue during a previous
-		// saving attempt. Depending on whether the save file exists, we either rename the temporary
-		// save file, or delete it.
-		private void handleExistingTempSaveFile() throws ShopkeeperStorageSaveException {
-			if (!Files.exists(tempSaveFile)) return;
-
-			// Check write permissions:
-			this.wrapException(() -> FileUtils.checkIsFileWritable(tempSaveFile));
-
-			Path tempSaveFileDirectory = tempSaveFile.getParent();
-			if (tempSaveFileDirectory != null) {
-				this.wrapException(() -> FileUtils.checkIsDirectoryWritable(tempSaveFileDirectory));
-			}
-
-			Path saveFileDirectory = saveFile.getParent();
-			if (saveFileDirectory != null && !saveFileDirectory.equals(tempSaveFileDirectory)) {
-				this.wrapException(() -> FileUtils.checkIsDirectoryWritable(saveFileDirectory));
-			}
-
-			if (!Files.exists(saveFile)) {
-				// Renaming the temporary save file might have failed during an earlier saving
-				// attempt. It might contain the only backup of previously saved data.
-				// -> Do not remove it!
-				// Instead, we try to rename it to make it the new 'old save data' and then continue
-				// the saving procedure.
-				Log.warning("Found an already existing temporary save file ("
-						+ pluginDataRelative(tempSaveFile) + "), but no old save file!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We rename the temporary save file and interpret it as existing old save"
-						+ " data, and then continue the saving!");
-
-				// Rename the temporary save file:
-				this.wrapException(() -> FileUtils.moveFile(tempSaveFile, saveFile, Log.getLogger()));
-			} else {
-				Log.warning("Found an already existing temporary save file ("
-						+ pluginDataRelative(tempSaveFile) + "), but also a regular save file!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We delete the temporary save file and then continue the saving!");
-
-				// Delete the old temporary save file:
-				this.wrapException(() -> FileUtils.delete(tempSaveFile));
-			}
-		}
-
-		private <T> T wrapException(Callable<T> callable) throws ShopkeeperStorageSaveException {
+			SKShopkeeperStorage.this.migrationSource = null;
+			Log.info("Migrated the shopkeeper data to the " + backend.getDescription() + ".");
 			try {
-				return callable.call();
-			} catch (Exception e) {
-				throw new ShopkeeperStorageSaveException(e.getMessage(), e);
+				migrationSource.onMigrated();
+			} catch (IOException e) {
+				Log.severe("Failed to move the migrated " + migrationSource.getDescription()
+						+ " aside! Remove it manually before switching the storage type back,"
+						+ " or it will not be migrated again!", e);
 			}
 		}
 
-		private void wrapException(VoidCallable callable) throws ShopkeeperStorageSaveException {
-			this.wrapException((Callable<@Nullable Void>) callable);
-		}
-
 		@Override
 		protected void syncCallback() {
 			// Print debug info:
 			printDebugInfo();
 
+			// Update the save statistics and complete the save requests that waited for this save:
+			saveStatistics.onSaveCompleted(this.getTotalDuration(), savingSucceeded);
+			completeSaveRequests(savingSucceeded);
+
 			if (savingSucceeded) {
 				// Saving succeeded:
 
 				// Cleanup the unsavedShopkeepers and unsavedDeletedShopkeepers:
 				unsavedShopkeepers.clear();
 				unsavedDeletedShopkeepers.clear();
+
+				// Move the data of the previous backend aside after a completed migration:
+				if (savingFullSave) {
+					this.onMigrationCompleted();
+				}
 			} else {
 				// Saving failed:
 
+				// Repeat the full save with the next save:
+				if (savingFullSave) {
+					pendingFullSave = true;
+				}
+
 				// Remove any shopkeepers from the unsavedShopkeepers that have been marked as dirty
 				// again in the meantime. This is only required if there are shopkeepers that we
 				// couldn't save previously, and if this save has been unsuccessful (because
@@ -1218,8 +1375,11 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// Note: Any shopkeepers that have been deleted in the meantime are removed again from
 			// the dirtyShopkeepers when the shopkeepersToDelete are processed in the following.
 
-			// Cleanup the Set of processed dirty shopkeepers:
+			// Cleanup the Set of processed dirty shopkeepers and the captured changes:
 			savingDirtyShopkeepers.clear();
+			savingFullSave = false;
+			savingChangedShopkeepers = new HashSet<>();
+			savingDeletedShopkeepers = new HashSet<>();
 
 			// Remove the data of shopkeepers that have been deleted in the meantime:
 			shopkeepersToDelete.forEach(SKShopkeeperStorage.this::deleteShopkeeper);
@@ -0,0 +1,383 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.data.persistence.DataStore;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+import com.nisovin.shopkeepers.util.java.ConversionUtils;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.ThrowableUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.java.VoidCallable;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Stores the data of each shopkeeper in a separate row of an SQLite database.
+ * <p>
+ * Each save only writes the rows of the shopkeepers that changed or were deleted since the last
+ * successful save, inside a single transaction. The data of each shopkeeper is stored in the YAML
+ * format. The world, chunk, and owner of each shopkeeper are additionally stored in separate
+ * columns so that they can be queried without parsing the shopkeeper data.
+ */
+class SQLiteShopkeeperStorageBackend implements ShopkeeperStorageBackend {
+
+	static final String FILE_NAME = "shopkeepers.db";
+	private static final String MIGRATED_FILE_SUFFIX = ".migrated";
+
+	static final String TABLE_NAME = "shopkeeper";
+	// Note: SQLite does not have rigid data types, but storage classes and type affinity. The data
+	// types specified here are not enforced by SQLite or us, but only used to document the expected
+	// structure of the data.
+	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+			+ "id INTEGER PRIMARY KEY, "
+			+ "world VARCHAR(32), " // Null for virtual shopkeepers
+			+ "chunk_x INTEGER, " // Null for virtual shopkeepers
+			+ "chunk_z INTEGER, "
+			+ "owner_uuid CHARACTER(36), " // Null for admin shopkeepers
+			+ "data TEXT NOT NULL" // The shopkeeper data in the YAML format
+			+ ");";
+	private static final String CREATE_CHUNK_INDEX = "CREATE INDEX IF NOT EXISTS "
+			+ TABLE_NAME + "_chunk ON " + TABLE_NAME + "(world, chunk_x, chunk_z);";
+	private static final String UPSERT_SHOPKEEPER = "INSERT INTO " + TABLE_NAME
+			+ "(id, world, chunk_x, chunk_z, owner_uuid, data) VALUES(?, ?, ?, ?, ?, ?) "
+			+ "ON CONFLICT(id) DO UPDATE SET "
+			+ "world = excluded.world, "
+			+ "chunk_x = excluded.chunk_x, "
+			+ "chunk_z = excluded.chunk_z, "
+			+ "owner_uuid = excluded.owner_uuid, "
+			+ "data = excluded.data";
+	private static final String DELETE_SHOPKEEPER = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
+	private static final String DELETE_ALL_SHOPKEEPERS = "DELETE FROM " + TABLE_NAME;
+	private static final String SELECT_SHOPKEEPERS = "SELECT id, data FROM " + TABLE_NAME
+			+ " ORDER BY id";
+
+	// Storage-wide values, such as the data version:
+	static final String META_TABLE_NAME = "storage_meta";
+	private static final String CREATE_META_TABLE = "CREATE TABLE IF NOT EXISTS "
+			+ META_TABLE_NAME + " ("
+			+ "name VARCHAR(32) PRIMARY KEY, "
+			+ "value TEXT NOT NULL"
+			+ ");";
+	private static final String UPSERT_META = "INSERT INTO " + META_TABLE_NAME
+			+ "(name, value) VALUES(?, ?) "
+			+ "ON CONFLICT(name) DO UPDATE SET value = excluded.value";
+	private static final String SELECT_META = "SELECT value FROM " + META_TABLE_NAME
+			+ " WHERE name = ?";
+
+	// The keys of the shopkeeper data that are additionally stored in separate columns:
+	private static final String WORLD_KEY = "world";
+	private static final String X_KEY = "x";
+	private static final String Z_KEY = "z";
+	private static final String OWNER_UUID_KEY = "owner uuid";
+
+	private static final class ShopkeeperRow {
+
+		final int id;
+		final @Nullable String world;
+		final int chunkX;
+		final int chunkZ;
+		final @Nullable String ownerUUID;
+		final String data;
+
+		ShopkeeperRow(
+				int id,
+				@Nullable String world,
+				int chunkX,
+				int chunkZ,
+				@Nullable String ownerUUID,
+				String data
+		) {
+			this.id = id;
+			this.world = world;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+			this.ownerUUID = ownerUUID;
+			this.data = data;
+		}
+	}
+
+	private final Path pluginDataFolder;
+	private final Path databaseFile;
+	private final String connectionURL;
+
+	SQLiteShopkeeperStorageBackend(Path pluginDataFolder, Path dataFolder) {
+		Validate.notNull(pluginDataFolder, "pluginDataFolder is null");
+		Validate.notNull(dataFolder, "dataFolder is null");
+		this.pluginDataFolder = pluginDataFolder;
+		this.databaseFile = dataFolder.resolve(FILE_NAME);
+		this.connectionURL = "jdbc:sqlite:" + databaseFile;
+	}
+
+	private Connection getConnection() throws SQLException {
+		return DriverManager.getConnection(connectionURL);
+	}
+
+	@Override
+	public String getDescription() {
+		return "database (" + pluginDataFolder.relativize(databaseFile) + ")";
+	}
+
+	private void createTables(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_TABLE);
+			statement.execute(CREATE_CHUNK_INDEX);
+			statement.execute(CREATE_META_TABLE);
+		}
+	}
+
+	private @Nullable String readDataVersion(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(SELECT_META)) {
+			statement.setString(1, SKShopkeeperStorage.DATA_VERSION_KEY);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? resultSet.getString(1) : null;
+			}
+		}
+	}
+
+	private IOException readError(SQLException e) {
+		return new IOException("Could not read the " + this.getDescription() + ": "
+				+ ThrowableUtils.getDescription(e), e);
+	}
+
+	@Override
+	public boolean hasData() throws IOException {
+		// Avoid creating the database file:
+		if (!Files.exists(databaseFile)) return false;
+
+		// The data version is written by every save. If it is missing, the database has not been
+		// successfully written yet:
+		try (Connection connection = this.getConnection()) {
+			this.createTables(connection);
+			return (this.readDataVersion(connection) != null);
+		} catch (SQLException e) {
+			throw this.readError(e);
+		}
+	}
+
+	// LOADING
+
+	@Override
+	public boolean load(DataStore saveData) throws InvalidDataFormatException, IOException {
+		if (!Files.exists(databaseFile)) return false;
+
+		try (Connection connection = this.getConnection()) {
+			this.createTables(connection);
+			String dataVersion = this.readDataVersion(connection);
+			if (dataVersion == null) return false;
+
+			saveData.clear();
+			saveData.set(SKShopkeeperStorage.DATA_VERSION_KEY, dataVersion);
+			try (	Statement statement = connection.createStatement();
+					ResultSet resultSet = statement.executeQuery(SELECT_SHOPKEEPERS)) {
+				while (resultSet.next()) {
+					int id = resultSet.getInt(1);
+					String data = resultSet.getString(2);
+					BukkitConfigDataStore shopkeeperData = BukkitConfigDataStore.ofNewYamlConfig();
+					try {
+						shopkeeperData.loadFromString(data != null ? data : "");
+					} catch (InvalidDataFormatException e) {
+						throw new InvalidDataFormatException("Invalid data of shopkeeper " + id
+								+ ": " + e.getMessage(), e);
+					}
+					saveData.createContainer(String.valueOf(id)).setAll(shopkeeperData.getValues());
+				}
+			}
+		} catch (SQLException e) {
+			throw this.readError(e);
+		}
+		return true;
+	}
+
+	// SAVING
+
+	@Override
+	public VoidCallable prepareWrite(
+			DataStore saveData,
+			boolean fullSave,
+			Set<? extends Integer> changedShopkeepers,
+			Set<? extends Integer> deletedShopkeepers
+	) throws ShopkeeperStorageSaveException {
+		String dataVersion = Validate.State.notNull(
+				saveData.getString(SKShopkeeperStorage.DATA_VERSION_KEY),
+				"Missing data version!"
+		);
+
+		Collection<? extends Integer> shopkeeperIds;
+		Set<? extends Integer> deletedIds;
+		if (fullSave) {
+			shopkeeperIds = this.getShopkeeperIds(saveData);
+			deletedIds = Collections.emptySet(); // All rows are replaced
+		} else {
+			shopkeeperIds = changedShopkeepers;
+			deletedIds = deletedShopkeepers;
+		}
+
+		// Serialize the data of the changed shopkeepers:
+		List<ShopkeeperRow> rows = new ArrayList<>(shopkeeperIds.size());
+		for (Integer id : shopkeeperIds) {
+			if (deletedIds.contains(id)) continue;
+			DataContainer shopkeeperData = saveData.getContainer(String.valueOf(id));
+			// Null if the shopkeeper was never saved successfully:
+			if (shopkeeperData == null) continue;
+			rows.add(this.toRow(id, shopkeeperData));
+		}
+
+		return () -> this.write(rows, deletedIds, fullSave, dataVersion);
+	}
+
+	private Set<Integer> getShopkeeperIds(DataStore saveData) {
+		Set<Integer> shopkeeperIds = new HashSet<>();
+		for (String key : saveData.getKeys()) {
+			if (key.equals(SKShopkeeperStorage.DATA_VERSION_KEY)) continue;
+
+			Integer id = ConversionUtils.parseInt(key);
+			if (id == null) {
+				// The data of this entry could not be loaded and cannot be stored in the database:
+				Log.warning("Omitting the data of invalid shopkeeper id '" + key + "' from the "
+						+ this.getDescription() + "!");
+				continue;
+			}
+			shopkeeperIds.add(id);
+		}
+		return shopkeeperIds;
+	}
+
+	private ShopkeeperRow toRow(int id, DataContainer shopkeeperData)
+			throws ShopkeeperStorageSaveException {
+		String data;
+		try {
+			BukkitConfigDataStore dataStore = BukkitConfigDataStore.ofNewYamlConfig();
+			dataStore.setAll(shopkeeperData.getValues());
+			data = dataStore.saveToString();
+		} catch (Exception e) {
+			throw new ShopkeeperStorageSaveException("Could not serialize the data of shopkeeper "
+					+ id + "!", e);
+		}
+
+		String world = shopkeeperData.getString(WORLD_KEY);
+		int chunkX = 0;
+		int chunkZ = 0;
+		if (world != null) {
+			chunkX = ChunkCoords.fromBlock(shopkeeperData.getIntOrDefault(X_KEY, 0));
+			chunkZ = ChunkCoords.fromBlock(shopkeeperData.getIntOrDefault(Z_KEY, 0));
+		}
+		String ownerUUID = shopkeeperData.getString(OWNER_UUID_KEY);
+		return new ShopkeeperRow(id, world, chunkX, chunkZ, ownerUUID, data);
+	}
+
+	private void write(
+			List<ShopkeeperRow> rows,
+			Set<? extends Integer> deletedIds,
+			boolean fullSave,
+			String dataVersion
+	) throws ShopkeeperStorageSaveException {
+		try {
+			FileUtils.createParentDirectories(databaseFile);
+		} catch (IOException e) {
+			throw new ShopkeeperStorageSaveException(e.getMessage(), e);
+		}
+
+		try (Connection connection = this.getConnection()) {
+			connection.setAutoCommit(false);
+			try {
+				this.createTables(connection);
+
+				if (fullSave) {
+					try (Statement statement = connection.createStatement()) {
+						statement.executeUpdate(DELETE_ALL_SHOPKEEPERS);
+					}
+				}
+
+				this.upsertShopkeepers(connection, rows);
+				this.deleteShopkeepers(connection, deletedIds);
+
+				try (PreparedStatement statement = connection.prepareStatement(UPSERT_META)) {
+					statement.setString(1, SKShopkeeperStorage.DATA_VERSION_KEY);
+					statement.setString(2, dataVersion);
+					statement.executeUpdate();
+				}
+
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new ShopkeeperStorageSaveException("Could not write the shopkeeper data to the "
+					+ this.getDescription() + ": " + ThrowableUtils.getDescription(e), e);
+		}
+	}
+
+	private void upsertShopkeepers(Connection connection, List<ShopkeeperRow> rows)
+			throws SQLException {
+		if (rows.isEmpty()) return;
+
+		try (PreparedStatement statement = connection.prepareStatement(UPSERT_SHOPKEEPER)) {
+			for (ShopkeeperRow row : rows) {
+				statement.setInt(1, row.id);
+				if (row.world != null) {
+					statement.setString(2, row.world);
+					statement.setInt(3, row.chunkX);
+					statement.setInt(4, row.chunkZ);
+				} else {
+					statement.setNull(2, Types.VARCHAR);
+					statement.setNull(3, Types.INTEGER);
+					statement.setNull(4, Types.INTEGER);
+				}
+				if (row.ownerUUID != null) {
+					statement.setString(5, row.ownerUUID);
+				} else {
+					statement.setNull(5, Types.CHAR);
+				}
+				statement.setString(6, row.data);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	private void deleteShopkeepers(Connection connection, Set<? extends Integer> ids)
+			throws SQLException {
+		if (ids.isEmpty()) return;
+
+		try (PreparedStatement statement = connection.prepareStatement(DELETE_SHOPKEEPER)) {
+			for (Integer id : ids) {
+				statement.setInt(1, id);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	// MIGRATION
+
+	@Override
+	public void onMigrated() throws IOException {
+		if (!Files.exists(databaseFile)) return;
+
+		Path migratedFile = databaseFile.resolveSibling(FILE_NAME + MIGRATED_FILE_SUFFIX);
+		FileUtils.moveFile(databaseFile, migratedFile, Log.getLogger());
+		FileUtils.fsyncParentDirectory(databaseFile);
+		Log.info("Moved the migrated database to " + pluginDataFolder.relativize(migratedFile));
+	}
+}
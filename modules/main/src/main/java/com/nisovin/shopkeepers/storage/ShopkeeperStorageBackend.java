@@ -0,0 +1,84 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.nisovin.shopkeepers.util.data.persistence.DataStore;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.java.VoidCallable;
+
+/**
+ * Reads and writes the data of the {@link SKShopkeeperStorage}.
+ * <p>
+ * The storage keeps the data of all shopkeepers in memory, mapped by their ids, and only delegates
+ * the persistence of this data to its backend. The data also contains the data version, stored
+ * under the key {@link SKShopkeeperStorage#DATA_VERSION_KEY}.
+ */
+interface ShopkeeperStorageBackend {
+
+	/**
+	 * Gets a short description of the persisted data, for use in log messages.
+	 * 
+	 * @return the description, e.g. "save file (data/save.yml)"
+	 */
+	public String getDescription();
+
+	/**
+	 * Checks if there is any persisted data.
+	 * <p>
+	 * This is used to detect whether the data needs to be migrated from another backend.
+	 * 
+	 * @return <code>true</code> if there is persisted data
+	 * @throws IOException
+	 *             if the check fails
+	 */
+	public boolean hasData() throws IOException;
+
+	/**
+	 * Loads the persisted data into the given (empty) {@link DataStore}.
+	 * 
+	 * @param saveData
+	 *            the data store, not <code>null</code>
+	 * @return <code>false</code> if there is no persisted data
+	 * @throws InvalidDataFormatException
+	 *             if the persisted data is malformed
+	 * @throws IOException
+	 *             if the loading fails
+	 */
+	public boolean load(DataStore saveData) throws InvalidDataFormatException, IOException;
+
+	/**
+	 * Prepares the writing of the given data.
+	 * <p>
+	 * This serializes the data that needs to be written. The data store is not modified while the
+	 * save is in progress. The returned write operation may be attempted several times if it
+	 * fails. This and the write operation can be invoked asynchronously.
+	 * 
+	 * @param saveData
+	 *            the data of all shopkeepers, not <code>null</code>
+	 * @param fullSave
+	 *            <code>true</code> to replace all previously persisted data
+	 * @param changedShopkeepers
+	 *            the ids of the shopkeepers whose data changed since the last successful save
+	 * @param deletedShopkeepers
+	 *            the ids of the shopkeepers that were deleted since the last successful save
+	 * @return the write operation
+	 * @throws ShopkeeperStorageSaveException
+	 *             if the data cannot be serialized
+	 */
+	public VoidCallable prepareWrite(
+			DataStore saveData,
+			boolean fullSave,
+			Set<? extends Integer> changedShopkeepers,
+			Set<? extends Integer> deletedShopkeepers
+	) throws ShopkeeperStorageSaveException;
+
+	/**
+	 * Moves the persisted data aside after it has been migrated to another backend, so that it is
+	 * not migrated again if the backends are switched back later.
+	 * 
+	 * @throws IOException
+	 *             if the data cannot be moved
+	 */
+	public void onMigrated() throws IOException;
+}
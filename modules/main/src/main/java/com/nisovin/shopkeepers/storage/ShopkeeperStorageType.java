@@ -0,0 +1,10 @@
+package com.nisovin.shopkeepers.storage;
+
+/**
+ * The available storage types for the shopkeeper data.
+ */
+public enum ShopkeeperStorageType {
+
+	YAML,
+	SQLITE
+}
@@ -0,0 +1,326 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.data.persistence.DataStore;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.ThrowableUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.java.VoidCallable;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Stores the data of all shopkeepers in a single YAML save file.
+ * <p>
+ * Every save rewrites the complete save file.
+ */
+class YamlShopkeeperStorageBackend implements ShopkeeperStorageBackend {
+
+	static final String SAVE_FILE_NAME = "save.yml";
+	private static final String TEMP_SAVE_FILE_NAME = SAVE_FILE_NAME + ".tmp";
+	private static final String MIGRATED_FILE_SUFFIX = ".migrated";
+
+	private static final List<@Nullable String> HEADER = Collections.unmodifiableList(Arrays.asList(
+			"This file is not intended to be manually modified! If you want to manually edit this"
+					+ " file anyway, ensure that the server is not running currently and that you"
+					+ " have prepared a backup of this file."
+	));
+
+	private final Path pluginDataFolder;
+	private final Path saveFile;
+	private final Path tempSaveFile;
+
+	YamlShopkeeperStorageBackend(Path pluginDataFolder, Path dataFolder) {
+		Validate.notNull(pluginDataFolder, "pluginDataFolder is null");
+		Validate.notNull(dataFolder, "dataFolder is null");
+		this.pluginDataFolder = pluginDataFolder;
+		this.saveFile = dataFolder.resolve(SAVE_FILE_NAME);
+		this.tempSaveFile = saveFile.resolveSibling(TEMP_SAVE_FILE_NAME);
+	}
+
+	// Gets the path relative to the plugin data folder.
+	private Path pluginDataRelative(Path path) {
+		return pluginDataFolder.relativize(path);
+	}
+
+	@Override
+	public String getDescription() {
+		return "save file (" + this.pluginDataRelative(saveFile) + ")";
+	}
+
+	@Override
+	public boolean hasData() {
+		return Files.exists(saveFile)
+				|| Files.exists(tempSaveFile)
+				|| Files.exists(this.getOldSaveFile())
+				|| Files.exists(this.getOldTempSaveFile());
+	}
+
+	// LOADING
+
+	// We previously stored the save file within the plugin's root folder. If no save file exist at
+	// the expected location, we check the old save file location and migrate the save file if it is
+	// found.
+	private Path getOldSaveFile() {
+		return pluginDataFolder.resolve("save.yml");
+	}
+
+	private Path getOldTempSaveFile() {
+		return this.getOldSaveFile().resolveSibling("save.temp");
+	}
+
+	// Note: This is called after it has been checked that the save file does not exist yet.
+	private void migrateOldSaveFile() throws IOException {
+		Path oldSaveFile = this.getOldSaveFile();
+		if (!Files.exists(oldSaveFile)) {
+			Path oldTempSaveFile = this.getOldTempSaveFile();
+			if (Files.exists(oldTempSaveFile)) {
+				// Migrate old temporary save file instead:
+				Log.warning("Found no old save file, but an existing old temporary save file ("
+						+ this.pluginDataRelative(oldTempSaveFile) + ")!"
+						+ " This might indicate an issue during a previous saving attempt!"
+						+ " We try to migrate this temporary save file instead!");
+
+				oldSaveFile = oldTempSaveFile;
+			} else {
+				// No old save file found that needs to be migrated.
+				return;
+			}
+		}
+
+		// Move old save file to new location:
+		Log.info("Migrating old save file (" + this.pluginDataRelative(oldSaveFile)
+				+ ") to new location (" + this.pluginDataRelative(saveFile) + ")!");
+		try {
+			FileUtils.moveFile(oldSaveFile, saveFile, Log.getLogger());
+		} catch (IOException e) {
+			throw new IOException("Failed to migrate old save file! ("
+					+ this.pluginDataRelative(oldSaveFile) + ")", e);
+		}
+	}
+
+	@Override
+	public boolean load(DataStore saveData) throws InvalidDataFormatException, IOException {
+		Path saveFile = this.saveFile;
+		if (!Files.exists(saveFile)) {
+			if (Files.exists(tempSaveFile)) {
+				// Load from temporary save file instead:
+				Log.warning("Found no save file, but an existing temporary save file ("
+						+ this.pluginDataRelative(tempSaveFile) + ")!"
+						+ " This might indicate an issue during a previous saving attempt!"
+						+ " We try to load the Shopkeepers data from this temporary save file"
+						+ " instead!");
+				saveFile = tempSaveFile;
+			} else {
+				this.migrateOldSaveFile();
+				if (!Files.exists(saveFile)) {
+					// No save file exists yet (even after checking for it again, after the
+					// migration) -> No shopkeeper data available.
+					return false;
+				}
+			}
+		}
+
+		// Load the save data:
+		try (Reader reader = Files.newBufferedReader(saveFile, StandardCharsets.UTF_8)) {
+			// Since Bukkit 1.16.5, this automatically clears the save data before loading the new
+			// entries.
+			saveData.load(reader);
+		}
+		return true;
+	}
+
+	// SAVING
+
+	@Override
+	public VoidCallable prepareWrite(
+			DataStore saveData,
+			boolean fullSave,
+			Set<? extends Integer> changedShopkeepers,
+			Set<? extends Integer> deletedShopkeepers
+	) throws ShopkeeperStorageSaveException {
+		// The save file is always rewritten completely.
+
+		// Set up the file header:
+		// This replaces any previously existing and loaded header and thereby ensures that it is
+		// always up-to-date after we have saved the file.
+		if (saveData instanceof BukkitConfigDataStore) {
+			((BukkitConfigDataStore) saveData).getConfig().options().setHeader(HEADER);
+		}
+
+		// Serialize data to String:
+		// TODO Do this on the main thread? Bukkit's serialization API is not strictly thread-safe
+		// ...
+		// However, this should usually not be an issue if the serialized objects inside the save
+		// data are not accessed externally, and do not rely on external state during
+		// serialization.
+		String data;
+		try {
+			data = saveData.saveToString();
+		} catch (Exception e) {
+			throw new ShopkeeperStorageSaveException("Could not serialize shopkeeper data!", e);
+		}
+		return () -> this.doSaveToFile(data);
+	}
+
+	/**
+	 * Writes the given properly formatted shopkeeper data to disk.
+	 * <p>
+	 * Saving procedure:
+	 * <ul>
+	 * <li>If there already is a temporary save file:
+	 * <ul>
+	 * <li>If there is no save file: Rename temporary save file to save file (ideally atomic).
+	 * <li>Else: Remove temporary save file.
+	 * </ul>
+	 * <li>Create temporary save file's parent directories (if required).
+	 * <li>Create new temporary save file and write data to it.
+	 * <li>Sync temporary save file and containing directory (ensures that the data is persisted to
+	 * disk).
+	 * <li>Remove old save file (if it exists).
+	 * <li>Create save file's parent directories (if required).
+	 * <li>Rename temporary save file to save file (ideally atomic).
+	 * <li>Sync save file's parent directory (ensures that the rename operation is persisted to
+	 * disk).
+	 * </ul>
+	 * 
+	 * @param data
+	 *            the formatted data
+	 * @throws ShopkeeperStorageSaveException
+	 *             if something goes wrong
+	 */
+	private void doSaveToFile(String data) throws ShopkeeperStorageSaveException {
+		assert data != null;
+		// Handle already existing temporary save file:
+		this.handleExistingTempSaveFile();
+
+		// Ensure that the temporary save file's parent directories exist:
+		wrapException(() -> FileUtils.createParentDirectories(tempSaveFile));
+
+		// Check write permissions for the involved directories:
+		Path tempSaveFileDirectory = tempSaveFile.getParent();
+		if (tempSaveFileDirectory != null) {
+			wrapException(() -> FileUtils.checkIsDirectoryWritable(tempSaveFileDirectory));
+		}
+
+		Path saveFileDirectory = saveFile.getParent();
+		if (saveFileDirectory != null && !saveFileDirectory.equals(tempSaveFileDirectory)) {
+			wrapException(() -> FileUtils.checkIsDirectoryWritable(saveFileDirectory));
+		}
+
+		// Create new temporary save file and write data to it:
+		try (Writer writer = Files.newBufferedWriter(tempSaveFile, StandardCharsets.UTF_8)) {
+			writer.write(data);
+		} catch (IOException e) {
+			throw new ShopkeeperStorageSaveException(
+					"Could not write the shopkeeper data to the temporary save file ("
+							+ this.pluginDataRelative(tempSaveFile) + "): "
+							+ ThrowableUtils.getDescription(e),
+					e
+			);
+		}
+
+		// Fsync the temporary save file and the containing directory (ensures that the data is
+		// actually persisted to disk):
+		wrapException(() -> FileUtils.fsync(tempSaveFile));
+		wrapException(() -> FileUtils.fsyncParentDirectory(tempSaveFile));
+
+		// Delete the old save file (if it exists):
+		wrapException(() -> FileUtils.deleteIfExists(saveFile));
+
+		// Ensure that the save file's parent directories exist:
+		wrapException(() -> FileUtils.createParentDirectories(saveFile));
+
+		// Rename the temporary save file (ideally atomically):
+		wrapException(() -> FileUtils.moveFile(tempSaveFile, saveFile, Log.getLogger()));
+
+		// Fsync the save file's parent directory (ensures that the rename operation is persisted to
+		// disk):
+		wrapException(() -> FileUtils.fsyncParentDirectory(saveFile));
+	}
+
+	// If the temporary save file already exists, this might indicate an issue during a previous
+	// saving attempt. Depending on whether the save file exists, we either rename the temporary
+	// save file, or delete it.
+	private void handleExistingTempSaveFile() throws ShopkeeperStorageSaveException {
+		if (!Files.exists(tempSaveFile)) return;
+
+		// Check write permissions:
+		wrapException(() -> FileUtils.checkIsFileWritable(tempSaveFile));
+
+		Path tempSaveFileDirectory = tempSaveFile.getParent();
+		if (tempSaveFileDirectory != null) {
+			wrapException(() -> FileUtils.checkIsDirectoryWritable(tempSaveFileDirectory));
+		}
+
+		Path saveFileDirectory = saveFile.getParent();
+		if (saveFileDirectory != null && !saveFileDirectory.equals(tempSaveFileDirectory)) {
+			wrapException(() -> FileUtils.checkIsDirectoryWritable(saveFileDirectory));
+		}
+
+		if (!Files.exists(saveFile)) {
+			// Renaming the temporary save file might have failed during an earlier saving attempt.
+			// It might contain the only backup of previously saved data.
+			// -> Do not remove it!
+			// Instead, we try to rename it to make it the new 'old save data' and then continue the
+			// saving procedure.
+			Log.warning("Found an already existing temporary save file ("
+					+ this.pluginDataRelative(tempSaveFile) + "), but no old save file!"
+					+ " This might indicate an issue during a previous saving attempt!"
+					+ " We rename the temporary save file and interpret it as existing old save"
+					+ " data, and then continue the saving!");
+
+			// Rename the temporary save file:
+			wrapException(() -> FileUtils.moveFile(tempSaveFile, saveFile, Log.getLogger()));
+		} else {
+			Log.warning("Found an already existing temporary save file ("
+					+ this.pluginDataRelative(tempSaveFile) + "), but also a regular save file!"
+					+ " This might indicate an issue during a previous saving attempt!"
+					+ " We delete the temporary save file and then continue the saving!");
+
+			// Delete the old temporary save file:
+			wrapException(() -> FileUtils.delete(tempSaveFile));
+		}
+	}
+
+	private static <T> T wrapException(Callable<T> callable) throws ShopkeeperStorageSaveException {
+		try {
+			return callable.call();
+		} catch (Exception e) {
+			throw new ShopkeeperStorageSaveException(e.getMessage(), e);
+		}
+	}
+
+	private static void wrapException(VoidCallable callable) throws ShopkeeperStorageSaveException {
+		wrapException((Callable<@Nullable Void>) callable);
+	}
+
+	// MIGRATION
+
+	@Override
+	public void onMigrated() throws IOException {
+		// If there is no save file, the data was loaded from the temporary save file:
+		Path migratedSaveFile = Files.exists(saveFile) ? saveFile : tempSaveFile;
+		if (!Files.exists(migratedSaveFile)) return;
+
+		Path migratedFile = saveFile.resolveSibling(SAVE_FILE_NAME + MIGRATED_FILE_SUFFIX);
+		FileUtils.moveFile(migratedSaveFile, migratedFile, Log.getLogger());
+		FileUtils.deleteIfExists(tempSaveFile);
+		FileUtils.fsyncParentDirectory(saveFile);
+		Log.info("Moved the migrated save file to " + this.pluginDataRelative(migratedFile));
+	}
+}
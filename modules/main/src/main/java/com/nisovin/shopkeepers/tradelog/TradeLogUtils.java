@@ -1,5 +1,8 @@
 package com.nisovin.shopkeepers.tradelog;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -10,6 +13,8 @@ import com.nisovin.shopkeepers.util.yaml.YamlUtils;
  */
 public class TradeLogUtils {
 
+	public static final int ITEM_METADATA_HASH_LENGTH = 16;
+
 	// Note: We log the item metadata in Yaml format, since this is what Bukkit natively supports
 	// for serializing and deserializing ItemStacks. This ensures that we are able to load the data
 	// again and recreate the original ItemStack if we wish to.
@@ -40,6 +45,36 @@ public class TradeLogUtils {
 		return yaml;
 	}
 
+	/**
+	 * Gets the hash by which the given item metadata is referenced inside the item metadata
+	 * dictionary of the trade logs.
+	 * <p>
+	 * The hash consists of the first 16 hexadecimal digits of the SHA-256 hash of the UTF-8
+	 * encoded metadata.
+	 * 
+	 * @param itemMetadata
+	 *            the item metadata, as returned by
+	 *            {@link #getItemMetadata(UnmodifiableItemStack)}, not <code>null</code>
+	 * @return the hash
+	 */
+	public static String getItemMetadataHash(String itemMetadata) {
+		assert itemMetadata != null;
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256:
+			throw new IllegalStateException("SHA-256 is not supported!", e);
+		}
+		byte[] hash = digest.digest(itemMetadata.getBytes(StandardCharsets.UTF_8));
+		StringBuilder hex = new StringBuilder(ITEM_METADATA_HASH_LENGTH);
+		for (int i = 0; i < ITEM_METADATA_HASH_LENGTH / 2; i++) {
+			hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
 	private TradeLogUtils() {
 	}
 }
@@ -1,30 +1,44 @@
 package com.nisovin.shopkeepers.tradelog;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
-import org.bukkit.plugin.Plugin;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeCompletedEvent;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.tradelog.TradeLog;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQuery;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQueryResult;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.tradelog.base.AbstractFileTradeLogger;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogArchiver;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogReader;
 import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.query.TradeLogQueries;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeLogReader;
 import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeLogger;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.trading.MergedTrades;
 import com.nisovin.shopkeepers.util.trading.TradeMerger;
 import com.nisovin.shopkeepers.util.trading.TradeMerger.MergeMode;
 
-public class TradeLoggers implements Listener {
+public class TradeLoggers implements TradeLog, Listener {
 
-	private final Plugin plugin;
+	// The folder inside the trade logs folder in which the daily trade summaries are stored. Each
+	// storage type uses its own folder, since their day versions are not comparable:
+	private static final String SUMMARY_CACHE_FOLDER = "summary-cache";
+
+	private final SKShopkeepersPlugin plugin;
 	private final List<TradeLogger> loggers = new ArrayList<>();
 	// In order to represent the logged trades more compactly, we merge equivalent trades that are
 	// triggered in quick succession over a certain period of time. The maximum merge duration is
@@ -35,9 +49,11 @@ public class TradeLoggers implements Listener {
 	// for this to not be an issue. Also, the order in which the trades took place is still
 	// preserved.
 	private @Nullable TradeMerger tradeMerger;
+	private @Nullable TradeLogQueries queries = null;
+	private @Nullable CsvTradeLogArchiver archiver = null;
 	private boolean enabled = false;
 
-	public TradeLoggers(Plugin plugin) {
+	public TradeLoggers(SKShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
 	}
@@ -56,12 +72,28 @@ public class TradeLoggers implements Listener {
 		assert tradeMerger != null;
 		tradeMerger.onEnable();
 
+		Path tradeLogsFolder = plugin.getDataFolder().toPath()
+				.resolve(AbstractFileTradeLogger.TRADE_LOGS_FOLDER);
 		switch (Settings.tradeLogStorage) {
 		case CSV:
-			loggers.add(new CsvTradeLogger(plugin));
+			CsvTradeLogger csvLogger = new CsvTradeLogger(plugin);
+			loggers.add(csvLogger);
+			queries = new TradeLogQueries(
+					plugin,
+					new CsvTradeLogReader(tradeLogsFolder),
+					tradeLogsFolder.resolve(SUMMARY_CACHE_FOLDER + "-csv")
+			);
+			if (Settings.tradeLogCsvArchive) {
+				archiver = new CsvTradeLogArchiver(plugin, csvLogger);
+			}
 			break;
 		case SQLITE:
 			loggers.add(new SQLiteTradeLogger(plugin));
+			queries = new TradeLogQueries(
+					plugin,
+					new SQLiteTradeLogReader(tradeLogsFolder),
+					tradeLogsFolder.resolve(SUMMARY_CACHE_FOLDER + "-sqlite")
+			);
 			break;
 		case DISABLED:
 		default:
@@ -69,6 +101,10 @@ public class TradeLoggers implements Listener {
 		}
 
 		loggers.forEach(TradeLogger::setup);
+		CsvTradeLogArchiver archiver = this.archiver;
+		if (archiver != null) {
+			archiver.start();
+		}
 
 		Bukkit.getPluginManager().registerEvents(this, plugin);
 	}
@@ -80,12 +116,46 @@ public class TradeLoggers implements Listener {
 		// Stop reacting to new trades:
 		HandlerList.unregisterAll(this);
 
+		// Stop the rollover of closed days:
+		CsvTradeLogArchiver archiver = this.archiver;
+		if (archiver != null) {
+			archiver.stop();
+			this.archiver = null;
+		}
+
 		// Process any pending previous trades:
 		Unsafe.assertNonNull(tradeMerger).onDisable();
 
 		// Wait for any pending writes to complete:
 		loggers.forEach(TradeLogger::flush);
 		loggers.clear();
+		queries = null;
+	}
+
+	/**
+	 * Gets the {@link TradeLogQueries} for the currently configured trade log storage.
+	 * 
+	 * @return the trade log queries, or <code>null</code> if trade logging is disabled
+	 */
+	public @Nullable TradeLogQueries getQueries() {
+		return queries;
+	}
+
+	@Override
+	public boolean isQueryable() {
+		return queries != null;
+	}
+
+	@Override
+	public CompletableFuture<TradeLogQueryResult> query(TradeLogQuery query) {
+		Validate.notNull(query, "query is null");
+		TradeLogQueries queries = this.queries;
+		if (queries == null) {
+			return CompletableFuture.failedFuture(
+					new IllegalStateException("Trade logging is disabled!")
+			);
+		}
+		return queries.queryAsync(query);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
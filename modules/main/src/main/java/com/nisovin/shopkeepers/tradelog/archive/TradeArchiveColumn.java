@@ -0,0 +1,112 @@
+package com.nisovin.shopkeepers.tradelog.archive;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The decoded values of a single column of a trade archive.
+ * <p>
+ * The values of dictionary encoded columns are shared between all records with the same value, and
+ * the values of integer columns are only converted to Strings when they are requested.
+ */
+public final class TradeArchiveColumn {
+
+	private final String name;
+	private final byte encoding;
+	private final int recordCount;
+	// Dictionary encoding:
+	private final String[] dictionary;
+	// Either the dictionary indices, or the integer values:
+	private final int[] values;
+
+	TradeArchiveColumn(
+			String name,
+			byte encoding,
+			int recordCount,
+			String[] dictionary,
+			int[] values
+	) {
+		assert name != null && dictionary != null && values != null;
+		assert values.length >= recordCount;
+		this.name = name;
+		this.encoding = encoding;
+		this.recordCount = recordCount;
+		this.dictionary = dictionary;
+		this.values = values;
+	}
+
+	/**
+	 * Gets the column name.
+	 * 
+	 * @return the column name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of records.
+	 * 
+	 * @return the number of records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Gets the value of the specified record.
+	 * 
+	 * @param recordIndex
+	 *            the record index
+	 * @return the value, not <code>null</code>
+	 */
+	public String get(int recordIndex) {
+		this.validateRecordIndex(recordIndex);
+		int value = values[recordIndex];
+		switch (encoding) {
+		case TradeArchiveFormat.ENCODING_INTEGER:
+			return Integer.toString(value);
+		case TradeArchiveFormat.ENCODING_TIME:
+			return TradeArchiveFormat.formatTime(value);
+		case TradeArchiveFormat.ENCODING_DICTIONARY:
+		default:
+			return dictionary[value];
+		}
+	}
+
+	/**
+	 * Gets the value of the specified record as integer.
+	 * 
+	 * @param recordIndex
+	 *            the record index
+	 * @param defaultValue
+	 *            the value to return if the record's value is not an integer
+	 * @return the integer value, or the default value
+	 */
+	public int getInt(int recordIndex, int defaultValue) {
+		this.validateRecordIndex(recordIndex);
+		switch (encoding) {
+		case TradeArchiveFormat.ENCODING_INTEGER:
+			return values[recordIndex];
+		case TradeArchiveFormat.ENCODING_TIME:
+			return defaultValue;
+		case TradeArchiveFormat.ENCODING_DICTIONARY:
+		default:
+			String string = dictionary[values[recordIndex]];
+			@Nullable Integer value = TradeArchiveFormat.parseCanonicalInteger(string);
+			return (value != null) ? value : defaultValue;
+		}
+	}
+
+	private void validateRecordIndex(int recordIndex) {
+		Validate.isTrue(recordIndex >= 0 && recordIndex < recordCount,
+				() -> "recordIndex is out of bounds: " + recordIndex);
+	}
+
+	@Override
+	public String toString() {
+		return "TradeArchiveColumn [name=" + name + ", encoding=" + encoding
+				+ ", recordCount=" + recordCount + "]";
+	}
+}
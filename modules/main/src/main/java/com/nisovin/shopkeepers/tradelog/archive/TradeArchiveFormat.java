@@ -0,0 +1,166 @@
+package com.nisovin.shopkeepers.tradelog.archive;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Constants and encoding helpers of the trade archive format.
+ * <p>
+ * A trade archive stores the records of a single trade log file column by column:
+ * <ul>
+ * <li>The header: The {@link #MAGIC magic number}, the {@link #VERSION format version}, the number
+ * of records, and for each column its name, {@link #ENCODING_DICTIONARY encoding}, and the length
+ * of its compressed data.
+ * <li>The data of each column, separately compressed via deflate. This allows readers to only
+ * decompress the columns that they are actually interested in.
+ * </ul>
+ * Columns are encoded in one of the following ways:
+ * <ul>
+ * <li>{@link #ENCODING_DICTIONARY}: The distinct values of the column, followed by the dictionary
+ * index of each record's value. This is used for all columns with textual values, such as UUIDs,
+ * player names, world names, and item types.
+ * <li>{@link #ENCODING_INTEGER}: The zigzag encoded differences between the integer values of
+ * consecutive records.
+ * <li>{@link #ENCODING_TIME}: Like {@link #ENCODING_INTEGER}, but for <code>HH:mm:ss</code> times,
+ * which are stored as seconds of the day.
+ * </ul>
+ * All lengths, counts, and indices within the column data are stored as variable-length integers.
+ */
+final class TradeArchiveFormat {
+
+	static final int MAGIC = 0x534B5441; // "SKTA"
+	static final int VERSION = 1;
+
+	static final byte ENCODING_DICTIONARY = 0;
+	static final byte ENCODING_INTEGER = 1;
+	static final byte ENCODING_TIME = 2;
+
+	static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+	static boolean isValidEncoding(byte encoding) {
+		return encoding == ENCODING_DICTIONARY
+				|| encoding == ENCODING_INTEGER
+				|| encoding == ENCODING_TIME;
+	}
+
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0L) {
+			out.writeByte((int) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		out.writeByte((int) remaining);
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		writeVarLong(out, value & 0xFFFFFFFFL);
+	}
+
+	static void writeZigZag(DataOutput out, long value) throws IOException {
+		writeVarLong(out, (value << 1) ^ (value >> 63));
+	}
+
+	static long readVarLong(ByteBuffer buffer) throws IOException {
+		long value = 0L;
+		int shift = 0;
+		try {
+			while (true) {
+				byte b = buffer.get();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) return value;
+				shift += 7;
+				if (shift >= 64) {
+					throw new IOException("Malformed variable-length integer!");
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of column data!", e);
+		}
+	}
+
+	static int readVarInt(ByteBuffer buffer) throws IOException {
+		long value = readVarLong(buffer);
+		if (value < 0L || value > Integer.MAX_VALUE) {
+			throw new IOException("Variable-length integer out of range: " + value);
+		}
+		return (int) value;
+	}
+
+	static long readZigZag(ByteBuffer buffer) throws IOException {
+		long value = readVarLong(buffer);
+		return (value >>> 1) ^ -(value & 1L);
+	}
+
+	/**
+	 * Parses the given canonical <code>HH:mm:ss</code> time.
+	 * 
+	 * @param time
+	 *            the time
+	 * @return the seconds of the day, or <code>-1</code> if the given String is not a canonical
+	 *         time
+	 */
+	static int parseTime(String time) {
+		if (time.length() != 8 || time.charAt(2) != ':' || time.charAt(5) != ':') return -1;
+		int hours = parseTwoDigits(time, 0);
+		int minutes = parseTwoDigits(time, 3);
+		int seconds = parseTwoDigits(time, 6);
+		if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+			return -1;
+		}
+		return hours * 3600 + minutes * 60 + seconds;
+	}
+
+	private static int parseTwoDigits(String string, int index) {
+		int high = Character.digit(string.charAt(index), 10);
+		int low = Character.digit(string.charAt(index + 1), 10);
+		if (high < 0 || low < 0) return -1;
+		return high * 10 + low;
+	}
+
+	static String formatTime(int secondsOfDay) {
+		int hours = secondsOfDay / 3600;
+		int minutes = (secondsOfDay / 60) % 60;
+		int seconds = secondsOfDay % 60;
+		char[] chars = new char[] {
+				(char) ('0' + hours / 10),
+				(char) ('0' + hours % 10),
+				':',
+				(char) ('0' + minutes / 10),
+				(char) ('0' + minutes % 10),
+				':',
+				(char) ('0' + seconds / 10),
+				(char) ('0' + seconds % 10)
+		};
+		return new String(chars);
+	}
+
+	/**
+	 * Parses the given canonical integer.
+	 * <p>
+	 * An integer is canonical if formatting the parsed value results in the same String again. This
+	 * ensures that integer columns can be restored without loss.
+	 * 
+	 * @param string
+	 *            the String
+	 * @return the parsed integer, or <code>null</code> if the given String is not a canonical
+	 *         integer
+	 */
+	static @Nullable Integer parseCanonicalInteger(String string) {
+		int length = string.length();
+		if (length == 0 || length > 11) return null;
+		try {
+			int value = Integer.parseInt(string);
+			if (!Integer.toString(value).equals(string)) return null;
+			return value;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private TradeArchiveFormat() {
+	}
+}
@@ -0,0 +1,273 @@
+package com.nisovin.shopkeepers.tradelog.archive;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Reads trade archives that were written by the {@link TradeArchiveWriter}.
+ * <p>
+ * Only the header of the archive is read when the reader is created. The data of each column is
+ * only read and decompressed when the column is {@link #readColumn(String) requested}, so that
+ * queries only pay for the columns that they actually use.
+ */
+public class TradeArchiveReader {
+
+	private final Path file;
+	private final int recordCount;
+	private final List<String> columnNames = new ArrayList<>();
+	private final List<? extends String> columnNamesView
+			= Collections.unmodifiableList(columnNames);
+	private final byte[] encodings;
+	private final long[] offsets;
+	private final int[] lengths;
+
+	/**
+	 * Opens the specified trade archive and reads its header.
+	 * 
+	 * @param file
+	 *            the archive file, not <code>null</code>
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid trade archive
+	 */
+	public TradeArchiveReader(Path file) throws IOException {
+		Validate.notNull(file, "file is null");
+		this.file = file;
+
+		long fileSize = Files.size(file);
+		try (InputStream fileIn = Files.newInputStream(file);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+			if (in.readInt() != TradeArchiveFormat.MAGIC) {
+				throw new IOException("Not a trade archive: " + file);
+			}
+			int version = in.readInt();
+			if (version != TradeArchiveFormat.VERSION) {
+				throw new IOException("Unsupported trade archive version " + version + ": " + file);
+			}
+			recordCount = in.readInt();
+			int columnCount = in.readInt();
+			if (recordCount < 0 || columnCount < 0) {
+				throw new IOException("Corrupted trade archive header: " + file);
+			}
+
+			encodings = new byte[columnCount];
+			offsets = new long[columnCount];
+			lengths = new int[columnCount];
+			// The sizes of the header fields that precede the column entries:
+			long headerSize = 4 * Integer.BYTES;
+			for (int i = 0; i < columnCount; i++) {
+				String columnName = in.readUTF();
+				byte encoding = in.readByte();
+				int length = in.readInt();
+				if (!TradeArchiveFormat.isValidEncoding(encoding) || length < 0) {
+					throw new IOException("Corrupted trade archive header: " + file);
+				}
+				columnNames.add(columnName);
+				encodings[i] = encoding;
+				lengths[i] = length;
+				// Name length prefix, modified UTF-8 name, encoding, and data length:
+				headerSize += 2 + getModifiedUtf8Length(columnName) + 1 + Integer.BYTES;
+			}
+
+			long offset = headerSize;
+			for (int i = 0; i < columnCount; i++) {
+				offsets[i] = offset;
+				offset += lengths[i];
+			}
+			if (offset != fileSize) {
+				throw new IOException("Corrupted or incomplete trade archive: " + file);
+			}
+		} catch (EOFException e) {
+			throw new IOException("Incomplete trade archive: " + file, e);
+		}
+	}
+
+	private static int getModifiedUtf8Length(String string) {
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				length += 1;
+			} else if (c > 0x07FF) {
+				length += 3;
+			} else {
+				length += 2;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Gets the archive file.
+	 * 
+	 * @return the archive file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the number of records.
+	 * 
+	 * @return the number of records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Gets the column names.
+	 * 
+	 * @return an unmodifiable view on the column names
+	 */
+	public List<? extends String> getColumnNames() {
+		return columnNamesView;
+	}
+
+	/**
+	 * Reads and decodes the specified column.
+	 * 
+	 * @param columnName
+	 *            the column name, not <code>null</code>
+	 * @return the column, or <code>null</code> if the archive contains no such column
+	 * @throws IOException
+	 *             if the column cannot be read or is corrupted
+	 */
+	public @Nullable TradeArchiveColumn readColumn(String columnName) throws IOException {
+		Validate.notNull(columnName, "columnName is null");
+		int columnIndex = columnNames.indexOf(columnName);
+		if (columnIndex < 0) return null;
+		return this.readColumn(columnIndex);
+	}
+
+	/**
+	 * Reads and decodes the column at the specified index.
+	 * 
+	 * @param columnIndex
+	 *            the column index
+	 * @return the column, not <code>null</code>
+	 * @throws IOException
+	 *             if the column cannot be read or is corrupted
+	 */
+	public TradeArchiveColumn readColumn(int columnIndex) throws IOException {
+		Validate.isTrue(columnIndex >= 0 && columnIndex < columnNames.size(),
+				() -> "columnIndex is out of bounds: " + columnIndex);
+		String columnName = columnNames.get(columnIndex);
+		ByteBuffer data = this.decompress(this.readCompressedData(columnIndex));
+
+		byte encoding = encodings[columnIndex];
+		String[] dictionary;
+		int[] values = new int[recordCount];
+		switch (encoding) {
+		case TradeArchiveFormat.ENCODING_INTEGER:
+		case TradeArchiveFormat.ENCODING_TIME:
+			dictionary = new String[0];
+			long value = 0L;
+			for (int i = 0; i < recordCount; i++) {
+				value += TradeArchiveFormat.readZigZag(data);
+				if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+					throw this.corruptedColumnError(columnName);
+				}
+				if (encoding == TradeArchiveFormat.ENCODING_TIME
+						&& (value < 0L || value >= TradeArchiveFormat.SECONDS_PER_DAY)) {
+					throw this.corruptedColumnError(columnName);
+				}
+				values[i] = (int) value;
+			}
+			break;
+		case TradeArchiveFormat.ENCODING_DICTIONARY:
+		default:
+			int dictionarySize = TradeArchiveFormat.readVarInt(data);
+			if (dictionarySize > data.remaining()) {
+				throw this.corruptedColumnError(columnName);
+			}
+			dictionary = new String[dictionarySize];
+			for (int i = 0; i < dictionarySize; i++) {
+				int length = TradeArchiveFormat.readVarInt(data);
+				if (length > data.remaining()) {
+					throw this.corruptedColumnError(columnName);
+				}
+				dictionary[i] = new String(
+						data.array(),
+						data.arrayOffset() + data.position(),
+						length,
+						StandardCharsets.UTF_8
+				);
+				data.position(data.position() + length);
+			}
+			for (int i = 0; i < recordCount; i++) {
+				int dictionaryIndex = TradeArchiveFormat.readVarInt(data);
+				if (dictionaryIndex >= dictionarySize) {
+					throw this.corruptedColumnError(columnName);
+				}
+				values[i] = dictionaryIndex;
+			}
+			break;
+		}
+		if (data.hasRemaining()) {
+			throw this.corruptedColumnError(columnName);
+		}
+		return new TradeArchiveColumn(columnName, encoding, recordCount, dictionary, values);
+	}
+
+	private IOException corruptedColumnError(String columnName) {
+		return new IOException("Corrupted column '" + columnName + "' in trade archive: " + file);
+	}
+
+	private byte[] readCompressedData(int columnIndex) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(lengths[columnIndex]);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long position = offsets[columnIndex];
+			while (buffer.hasRemaining()) {
+				int read = channel.read(buffer, position + buffer.position());
+				if (read < 0) {
+					throw new IOException("Incomplete trade archive: " + file);
+				}
+			}
+		}
+		return buffer.array();
+	}
+
+	private ByteBuffer decompress(byte[] compressed) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] buffer = new byte[Math.max(compressed.length * 4, 1024)];
+			int length = 0;
+			while (!inflater.finished()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				int inflated = inflater.inflate(buffer, length, buffer.length - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Incomplete compressed column data in trade archive: "
+							+ file);
+				}
+				length += inflated;
+			}
+			return ByteBuffer.wrap(buffer, 0, length).slice();
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted compressed column data in trade archive: " + file, e);
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package com.nisovin.shopkeepers.tradelog.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Builds a trade archive from the records of a trade log file.
+ * <p>
+ * The records are added one after the other via {@link #addRecord(List)}. Each column only keeps
+ * track of its distinct values and the dictionary index of each record's value, so that the
+ * memory requirements mostly depend on the number of records and not on the size of their values.
+ * The encoding of each column is chosen when the archive is {@link #write(Path) written}.
+ * <p>
+ * See {@link TradeArchiveReader} for reading the archive again.
+ */
+public class TradeArchiveWriter {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final class ColumnBuilder {
+
+		private final String name;
+		private final Map<String, Integer> dictionaryIndices = new HashMap<>();
+		private final List<String> dictionary = new ArrayList<>();
+		private int[] indices = new int[INITIAL_CAPACITY];
+
+		ColumnBuilder(String name) {
+			this.name = name;
+		}
+
+		void add(int recordIndex, String value) {
+			Integer dictionaryIndex = dictionaryIndices.get(value);
+			if (dictionaryIndex == null) {
+				dictionaryIndex = dictionary.size();
+				dictionary.add(value);
+				dictionaryIndices.put(value, dictionaryIndex);
+			}
+
+			if (recordIndex == indices.length) {
+				indices = Arrays.copyOf(indices, indices.length * 2);
+			}
+			indices[recordIndex] = dictionaryIndex;
+		}
+
+		byte getEncoding() {
+			if (this.getIntegerValues() != null) return TradeArchiveFormat.ENCODING_INTEGER;
+			if (this.getTimeValues() != null) return TradeArchiveFormat.ENCODING_TIME;
+			return TradeArchiveFormat.ENCODING_DICTIONARY;
+		}
+
+		// Returns null if not all values are canonical integers:
+		private int @Nullable [] getIntegerValues() {
+			int[] values = new int[dictionary.size()];
+			for (int i = 0; i < values.length; i++) {
+				Integer value = TradeArchiveFormat.parseCanonicalInteger(dictionary.get(i));
+				if (value == null) return null;
+				values[i] = value;
+			}
+			return values;
+		}
+
+		// Returns null if not all values are canonical times:
+		private int @Nullable [] getTimeValues() {
+			int[] values = new int[dictionary.size()];
+			for (int i = 0; i < values.length; i++) {
+				String time = dictionary.get(i);
+				int secondsOfDay = TradeArchiveFormat.parseTime(time);
+				if (secondsOfDay < 0) return null;
+				if (!TradeArchiveFormat.formatTime(secondsOfDay).equals(time)) return null;
+				values[i] = secondsOfDay;
+			}
+			return values;
+		}
+
+		void writeData(DataOutputStream out, byte encoding, int recordCount) throws IOException {
+			switch (encoding) {
+			case TradeArchiveFormat.ENCODING_INTEGER:
+				this.writeDeltas(out, Validate.State.notNull(this.getIntegerValues()), recordCount);
+				break;
+			case TradeArchiveFormat.ENCODING_TIME:
+				this.writeDeltas(out, Validate.State.notNull(this.getTimeValues()), recordCount);
+				break;
+			case TradeArchiveFormat.ENCODING_DICTIONARY:
+			default:
+				TradeArchiveFormat.writeVarInt(out, dictionary.size());
+				for (String value : dictionary) {
+					byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+					TradeArchiveFormat.writeVarInt(out, bytes.length);
+					out.write(bytes);
+				}
+				for (int i = 0; i < recordCount; i++) {
+					TradeArchiveFormat.writeVarInt(out, indices[i]);
+				}
+				break;
+			}
+		}
+
+		private void writeDeltas(
+				DataOutputStream out,
+				int[] dictionaryValues,
+				int recordCount
+		) throws IOException {
+			long previous = 0L;
+			for (int i = 0; i < recordCount; i++) {
+				long value = dictionaryValues[indices[i]];
+				TradeArchiveFormat.writeZigZag(out, value - previous);
+				previous = value;
+			}
+		}
+	}
+
+	private final List<? extends String> columnNames;
+	private final List<ColumnBuilder> columns = new ArrayList<>();
+	private int recordCount = 0;
+
+	/**
+	 * Creates a new {@link TradeArchiveWriter}.
+	 * 
+	 * @param columnNames
+	 *            the column names, not <code>null</code> or empty
+	 */
+	public TradeArchiveWriter(List<? extends String> columnNames) {
+		Validate.notNull(columnNames, "columnNames is null");
+		Validate.isTrue(!columnNames.isEmpty(), "columnNames is empty");
+		this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+		this.columnNames.forEach(columnName -> {
+			Validate.notNull(columnName, "columnNames contains null");
+			columns.add(new ColumnBuilder(columnName));
+		});
+	}
+
+	/**
+	 * Gets the column names.
+	 * 
+	 * @return an unmodifiable view on the column names
+	 */
+	public List<? extends String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Gets the number of added records.
+	 * 
+	 * @return the number of records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Adds a record.
+	 * 
+	 * @param fields
+	 *            the fields of the record, not <code>null</code>, one for each column
+	 */
+	public void addRecord(List<? extends String> fields) {
+		Validate.notNull(fields, "fields is null");
+		Validate.isTrue(fields.size() == columns.size(),
+				() -> "Expected " + columns.size() + " fields, but got " + fields.size() + "!");
+		for (int i = 0; i < columns.size(); i++) {
+			String field = fields.get(i);
+			Validate.notNull(field, "fields contains null");
+			columns.get(i).add(recordCount, field);
+		}
+		recordCount++;
+	}
+
+	/**
+	 * Writes the archive to the specified file and syncs it to the storage.
+	 * <p>
+	 * Any existing file is replaced.
+	 * 
+	 * @param file
+	 *            the file, not <code>null</code>
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(Path file) throws IOException {
+		Validate.notNull(file, "file is null");
+		int columnCount = columns.size();
+		byte[] encodings = new byte[columnCount];
+		List<byte[]> columnData = new ArrayList<>(columnCount);
+		for (int i = 0; i < columnCount; i++) {
+			ColumnBuilder column = columns.get(i);
+			encodings[i] = column.getEncoding();
+			columnData.add(this.compress(column, encodings[i]));
+		}
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(header)) {
+			out.writeInt(TradeArchiveFormat.MAGIC);
+			out.writeInt(TradeArchiveFormat.VERSION);
+			out.writeInt(recordCount);
+			out.writeInt(columnCount);
+			for (int i = 0; i < columnCount; i++) {
+				out.writeUTF(columns.get(i).name);
+				out.writeByte(encodings[i]);
+				out.writeInt(columnData.get(i).length);
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(
+				file,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE
+		)) {
+			writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+			for (byte[] data : columnData) {
+				writeFully(channel, ByteBuffer.wrap(data));
+			}
+			channel.force(true);
+		}
+	}
+
+	private byte[] compress(ColumnBuilder column, byte encoding) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (DataOutputStream out = new DataOutputStream(
+				new DeflaterOutputStream(compressed, deflater, 8192)
+		)) {
+			column.writeData(out, encoding, recordCount);
+		} finally {
+			deflater.end();
+		}
+		return compressed.toByteArray();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -12,6 +12,7 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -20,9 +21,11 @@ import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.tradelog.TradeLogUtils;
 import com.nisovin.shopkeepers.tradelog.TradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Retry;
 import com.nisovin.shopkeepers.util.java.ThrowableUtils;
@@ -45,7 +48,13 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 	private static final long SAVE_RETRY_DELAY_MILLIS = 25L;
 	private static final long SAVE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
 
-	protected final Plugin plugin;
+	// The IO executor resource that runs the asynchronous setups and saves of all trade loggers.
+	// Each trade logger has a single concurrent writer, so this limits the number of trade loggers
+	// that write concurrently:
+	private static final String IO_RESOURCE = "trade-logs";
+	private static final int IO_RESOURCE_MAX_CONCURRENCY = 2;
+
+	protected final SKShopkeepersPlugin plugin;
 	protected final TradeLogStorageType storageType;
 	protected final String logPrefix;
 
@@ -61,14 +70,26 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 	// value of this setting remains constant during the save and does not differ for the items of
 	// the trades that are being saved as part of the same batch.
 	private boolean logItemMetadata;
-
-	public AbstractSingleWriterTradeLogger(Plugin plugin, TradeLogStorageType storageType) {
+	// Also reset prior to every save:
+	private boolean itemMetadataDictionary;
+	// Only accessed by the save task:
+	private final ItemMetadataCache itemMetadataCache = new ItemMetadataCache();
+
+	public AbstractSingleWriterTradeLogger(
+			SKShopkeepersPlugin plugin,
+			TradeLogStorageType storageType
+	) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
 		this.storageType = storageType;
 		this.logPrefix = storageType.toString() + " trade log: ";
-		this.setupTask = new SetupTask(plugin);
-		this.saveTask = new SaveTask(plugin);
+		TaskScheduler scheduler = plugin.getTaskScheduler();
+		IOExecutor.Resource ioResource = plugin.getIOExecutor().getResource(
+				IO_RESOURCE,
+				IO_RESOURCE_MAX_CONCURRENCY
+		);
+		this.setupTask = new SetupTask(plugin, scheduler, ioResource);
+		this.saveTask = new SaveTask(plugin, scheduler, ioResource);
 	}
 
 	@Override
@@ -106,8 +127,8 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 
 	private class SetupTask extends SingletonTask {
 
-		private SetupTask(Plugin plugin) {
-			super(plugin);
+		private SetupTask(Plugin plugin, TaskScheduler scheduler, IOExecutor.Resource ioResource) {
+			super(plugin, scheduler, ioResource);
 		}
 
 		private class InternalAsyncTask extends SingletonTask.InternalAsyncTask {
@@ -241,8 +262,8 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		private boolean saveSucceeded = false;
 		private long lastSaveErrorMsgMillis = 0L;
 
-		private SaveTask(Plugin plugin) {
-			super(plugin);
+		private SaveTask(Plugin plugin, TaskScheduler scheduler, IOExecutor.Resource ioResource) {
+			super(plugin, scheduler, ioResource);
 		}
 
 		private class InternalAsyncTask extends SingletonTask.InternalAsyncTask {
@@ -268,6 +289,7 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 
 			// Reset local logItemMetadata setting:
 			logItemMetadata = Settings.logItemMetadata;
+			itemMetadataDictionary = Settings.tradeLogItemMetadataDictionary;
 
 			// Swap the pending and saving lists of trades:
 			assert saving.isEmpty();
@@ -397,6 +419,32 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 			return trades.get(nextUnsaved);
 		}
 
+		/**
+		 * Gets the number of remaining unsaved trades of this batch.
+		 * 
+		 * @return the number of unsaved trades
+		 */
+		public int getUnsavedTradesCount() {
+			return trades.size() - nextUnsaved;
+		}
+
+		/**
+		 * Gets the unsaved {@link TradeRecord} at the given offset relative to the
+		 * {@link #getNextUnsavedTrade() next unsaved trade}, without moving the cursor forward.
+		 * <p>
+		 * This can be used to persist several trades at once, before they are marked as saved via
+		 * {@link #onTradesSuccessfullySaved(int)}.
+		 * 
+		 * @param offset
+		 *            the offset, in the range {@code [0, getUnsavedTradesCount())}
+		 * @return the trade record, not <code>null</code>
+		 */
+		public TradeRecord getUnsavedTrade(int offset) {
+			Validate.isTrue(offset >= 0 && offset < this.getUnsavedTradesCount(),
+					"offset is out of bounds");
+			return trades.get(nextUnsaved + offset);
+		}
+
 		// May return a sublist view:
 		private List<? extends TradeRecord> getUnsavedTrades() {
 			if (!this.hasUnsavedTrades()) {
@@ -413,21 +461,61 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		public void onTradeSuccessfullySaved() {
 			nextUnsaved++;
 		}
+
+		/**
+		 * This must be called after successfully persisting the given number of
+		 * {@link #getUnsavedTrade(int) unsaved trades}.
+		 * 
+		 * @param count
+		 *            the number of persisted trades
+		 */
+		public void onTradesSuccessfullySaved(int count) {
+			Validate.isTrue(count >= 0 && count <= this.getUnsavedTradesCount(),
+					"count is out of bounds");
+			nextUnsaved += count;
+		}
 	}
 
 	/**
 	 * Gets a compact (one line) string representation of the item's metadata.
+	 * <p>
+	 * If {@link Settings#tradeLogItemMetadataDictionary} is enabled, this returns the
+	 * {@link TradeLogUtils#getItemMetadataHash(String) hash} by which the metadata is referenced
+	 * inside the item metadata dictionary instead, and informs
+	 * {@link #onItemMetadataReferenced(String, String)} about the referenced metadata.
 	 * 
 	 * @param itemStack
 	 *            the item
-	 * @return the item's metadata, or an empty string if {@link Settings#logItemMetadata} is
-	 *         <code>false</code>.
+	 * @return the item's metadata, or its hash, or an empty string if
+	 *         {@link Settings#logItemMetadata} is <code>false</code>.
 	 */
 	protected String getItemMetadata(UnmodifiableItemStack itemStack) {
 		assert itemStack != null;
 		if (!logItemMetadata) return ""; // Disabled
 
-		return TradeLogUtils.getItemMetadata(itemStack);
+		ItemMetadataCache.Entry entry = itemMetadataCache.get(itemStack);
+		if (!itemMetadataDictionary) {
+			return entry.getMetadata();
+		}
+
+		String hash = entry.getHash();
+		this.onItemMetadataReferenced(hash, entry.getMetadata());
+		return hash;
+	}
+
+	/**
+	 * This is called when a logged trade references item metadata via its hash.
+	 * <p>
+	 * Implementations have to ensure that the item metadata dictionary contains the referenced
+	 * metadata once the trade has been persisted. This may be called repeatedly for the same
+	 * metadata.
+	 * 
+	 * @param hash
+	 *            the hash of the item metadata, not <code>null</code>
+	 * @param metadata
+	 *            the item metadata, not <code>null</code>
+	 */
+	protected void onItemMetadataReferenced(String hash, String metadata) {
 	}
 
 	// May be invoked asynchronously.
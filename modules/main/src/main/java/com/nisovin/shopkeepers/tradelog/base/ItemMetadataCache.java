@@ -0,0 +1,81 @@
+package com.nisovin.shopkeepers.tradelog.base;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.TradeLogUtils;
+
+/**
+ * Caches the serialized {@link TradeLogUtils#getItemMetadata(UnmodifiableItemStack) item
+ * metadata} of logged items by the identity of their {@link UnmodifiableItemStack}.
+ * <p>
+ * The result items of logged trades are usually the items of the shopkeepers' trading recipes,
+ * which are shared by all trades of the same offer. The cache is direct-mapped: Each item is
+ * mapped to a single slot based on its identity hash, and replaces any previous item in that slot.
+ * <p>
+ * Items without item meta all share the same serialized metadata, which is only determined once.
+ * <p>
+ * Not thread-safe: Only used by the single writer of a trade logger.
+ */
+final class ItemMetadataCache {
+
+	/**
+	 * The serialized metadata of an item, and its lazily determined
+	 * {@link TradeLogUtils#getItemMetadataHash(String) hash}.
+	 */
+	static final class Entry {
+
+		private final String metadata;
+		private @Nullable String hash = null;
+
+		private Entry(String metadata) {
+			this.metadata = metadata;
+		}
+
+		String getMetadata() {
+			return metadata;
+		}
+
+		String getHash() {
+			String hash = this.hash;
+			if (hash == null) {
+				hash = TradeLogUtils.getItemMetadataHash(metadata);
+				this.hash = hash;
+			}
+			return hash;
+		}
+	}
+
+	// Power of two:
+	private static final int SIZE = 256;
+
+	private final @Nullable UnmodifiableItemStack[] items = new UnmodifiableItemStack[SIZE];
+	private final @Nullable Entry[] entries = new Entry[SIZE];
+	private @Nullable Entry noItemMetaEntry = null;
+
+	ItemMetadataCache() {
+	}
+
+	Entry get(UnmodifiableItemStack itemStack) {
+		assert itemStack != null;
+		if (!itemStack.hasItemMeta()) {
+			Entry entry = noItemMetaEntry;
+			if (entry == null) {
+				entry = new Entry(TradeLogUtils.getItemMetadata(itemStack));
+				noItemMetaEntry = entry;
+			}
+			return entry;
+		}
+
+		int index = System.identityHashCode(itemStack) & (SIZE - 1);
+		Entry entry = entries[index];
+		if (entry != null && items[index] == itemStack) {
+			return entry;
+		}
+
+		entry = new Entry(TradeLogUtils.getItemMetadata(itemStack));
+		items[index] = itemStack;
+		entries[index] = entry;
+		return entry;
+	}
+}
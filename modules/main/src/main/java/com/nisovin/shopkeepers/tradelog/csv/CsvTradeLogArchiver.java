@@ -0,0 +1,337 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.tradelog.archive.TradeArchiveColumn;
+import com.nisovin.shopkeepers.tradelog.archive.TradeArchiveReader;
+import com.nisovin.shopkeepers.tradelog.archive.TradeArchiveWriter;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.csv.CsvParser;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Periodically rolls up the log files of closed days into compressed columnar trade archives in
+ * the background.
+ * <p>
+ * A day is considered closed once the following day has passed as well, so that trades that are
+ * logged with a slight delay (e.g. due to the trade merging, or due to retried writes) still end
+ * up in the log file. The archive is written to a temporary file first and then verified by
+ * reading it back and comparing all of its records with the records of the log file. Only if the
+ * verification succeeds, the archive replaces any previous archive of the same day and the log
+ * file is removed. If trades are logged for an already archived day, the next rollover merges
+ * them into the existing archive.
+ * <p>
+ * Log files that contain malformed records are not archived, so that no data is lost.
+ */
+public class CsvTradeLogArchiver {
+
+	private static final long INITIAL_DELAY_TICKS = 20L * 60; // 1 minute
+	private static final long PERIOD_TICKS = 20L * 60 * 60; // 1 hour
+
+	// The IO executor resource that runs the rollovers. The rollover reads and writes whole days of
+	// trades, so it uses its own resource in order to not delay the saves of the trade loggers:
+	private static final String IO_RESOURCE = "trade-log-archive";
+	private static final int IO_RESOURCE_MAX_CONCURRENCY = 1;
+
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private final SKShopkeepersPlugin plugin;
+	private final CsvTradeLogger logger;
+	private final Path tradeLogsFolder;
+	private final IOExecutor.Resource ioResource;
+
+	private @Nullable ScheduledTask task = null;
+	private volatile boolean stopped = true;
+	// Only accessed by the archiving task:
+	private final Set<LocalDate> skippedDays = new HashSet<>();
+
+	public CsvTradeLogArchiver(SKShopkeepersPlugin plugin, CsvTradeLogger logger) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(logger, "logger is null");
+		this.plugin = plugin;
+		this.logger = logger;
+		this.tradeLogsFolder = logger.getTradeLogsFolder();
+		this.ioResource = plugin.getIOExecutor().getResource(
+				IO_RESOURCE,
+				IO_RESOURCE_MAX_CONCURRENCY
+		);
+	}
+
+	public void start() {
+		this.stop();
+		stopped = false;
+		// The timer runs on the global thread and hands the rollover off to the IO executor:
+		task = plugin.getTaskScheduler().runGlobalTimer(
+				() -> ioResource.submit(this::archiveClosedDays),
+				INITIAL_DELAY_TICKS,
+				PERIOD_TICKS
+		);
+	}
+
+	/**
+	 * Stops the periodic rollover.
+	 * <p>
+	 * A currently running rollover stops after the currently archived day.
+	 */
+	public void stop() {
+		stopped = true;
+		ScheduledTask task = this.task;
+		if (task != null) {
+			task.cancel();
+			this.task = null;
+		}
+	}
+
+	// Synchronized: Prevents concurrent runs if a rollover takes longer than the task period.
+	private synchronized void archiveClosedDays() {
+		if (stopped) return;
+		if (!Files.isDirectory(tradeLogsFolder)) return;
+
+		LocalDate lastClosedDay = LocalDate.now().minusDays(2);
+		TreeMap<LocalDate, Path> logFiles = new TreeMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(tradeLogsFolder)) {
+			for (Path file : files) {
+				Path fileName = file.getFileName();
+				if (fileName == null) continue;
+				LocalDate date = CsvTradeLogger.getLogFileDate(fileName.toString());
+				if (date == null || date.isAfter(lastClosedDay)) continue;
+				logFiles.put(date, file);
+			}
+		} catch (IOException e) {
+			Log.warning("Failed to list the trade log files for archiving!", e);
+			return;
+		}
+
+		int archivedDays = 0;
+		long csvBytes = 0L;
+		long archiveBytes = 0L;
+		for (Entry<LocalDate, Path> entry : logFiles.entrySet()) {
+			if (stopped) break;
+			LocalDate date = entry.getKey();
+			if (skippedDays.contains(date)) continue;
+
+			Path logFile = entry.getValue();
+			Path archiveFile = tradeLogsFolder.resolve(CsvTradeLogger.getArchiveFileName(date));
+			try {
+				long logFileSize = Files.size(logFile);
+				if (this.archiveDay(date, logFile, logFileSize, archiveFile)) {
+					archivedDays++;
+					csvBytes += logFileSize;
+					archiveBytes += Files.size(archiveFile);
+				}
+			} catch (IOException e) {
+				// Retried during the next rollover:
+				Log.warning("Failed to archive the trade log file '" + logFile.getFileName() + "'!",
+						e);
+			}
+		}
+
+		if (archivedDays > 0) {
+			Log.info("Archived the trade logs of " + archivedDays + " day(s): " + csvBytes
+					+ " bytes of CSV -> " + archiveBytes + " bytes of archives.");
+		}
+	}
+
+	@FunctionalInterface
+	private interface RecordConsumer {
+
+		public void accept(List<? extends String> fields) throws IOException;
+	}
+
+	private static final class MalformedLogFileException extends IOException {
+
+		private static final long serialVersionUID = 4328743190274125436L;
+
+		MalformedLogFileException(String message) {
+			super(message);
+		}
+	}
+
+	private boolean archiveDay(
+			LocalDate date,
+			Path logFile,
+			long logFileSize,
+			Path archiveFile
+	) throws IOException {
+		@Nullable TradeArchiveReader existingArchive = null;
+		if (Files.exists(archiveFile)) {
+			existingArchive = new TradeArchiveReader(archiveFile);
+		}
+		List<? extends String> columnNames;
+		TradeArchiveWriter writer;
+		try {
+			@Nullable List<? extends String> header = this.readHeader(logFile);
+			if (header == null) {
+				// Empty log file: Nothing to archive, but keep the file for now.
+				return false;
+			}
+			columnNames = header;
+			if (existingArchive != null && !existingArchive.getColumnNames().equals(columnNames)) {
+				throw new MalformedLogFileException("The columns of the log file '"
+						+ logFile.getFileName() + "' do not match the columns of the existing "
+						+ "archive.");
+			}
+
+			// Build the archive:
+			writer = new TradeArchiveWriter(columnNames);
+			this.readRecords(existingArchive, logFile, columnNames.size(), writer::addRecord);
+		} catch (MalformedLogFileException e) {
+			this.skipDay(date, e.getMessage());
+			return false;
+		}
+		if (writer.getRecordCount() == 0) return false;
+
+		Path tempFile = archiveFile.resolveSibling(archiveFile.getFileName() + TEMP_FILE_SUFFIX);
+		writer.write(tempFile);
+
+		// Verify the archive by comparing all of its records with the source records:
+		try {
+			this.verifyArchive(tempFile, existingArchive, logFile, columnNames.size(),
+					writer.getRecordCount());
+		} catch (IOException e) {
+			FileUtils.deleteIfExists(tempFile);
+			throw e;
+		}
+
+		synchronized (logger.getLogFilesLock()) {
+			// Abort if trades have been logged for this day in the meantime:
+			if (Files.size(logFile) != logFileSize) {
+				FileUtils.deleteIfExists(tempFile);
+				return false;
+			}
+
+			FileUtils.moveFile(tempFile, archiveFile, Log.getLogger());
+			FileUtils.fsyncParentDirectory(archiveFile);
+			FileUtils.delete(logFile);
+			FileUtils.fsyncParentDirectory(logFile);
+		}
+		return true;
+	}
+
+	private void skipDay(LocalDate date, @Nullable String reason) {
+		// Only warn once per day and session:
+		skippedDays.add(date);
+		Log.warning("Skipping the archiving of the trade logs of " + date + ": " + reason);
+	}
+
+	// Returns null if the log file is empty.
+	private @Nullable List<? extends String> readHeader(Path logFile) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+			CsvParser parser = new CsvParser();
+			String header = parser.readRecord(reader);
+			if (header == null || header.isEmpty()) return null;
+			try {
+				return parser.parseRecord(header);
+			} catch (IllegalArgumentException e) {
+				throw new MalformedLogFileException("Malformed header in log file '"
+						+ logFile.getFileName() + "'.");
+			}
+		}
+	}
+
+	/**
+	 * Reads the records of the given existing archive (if any), followed by the records of the
+	 * given log file.
+	 */
+	private void readRecords(
+			@Nullable TradeArchiveReader existingArchive,
+			Path logFile,
+			int fieldCount,
+			RecordConsumer consumer
+	) throws IOException {
+		if (existingArchive != null) {
+			List<TradeArchiveColumn> columns = new ArrayList<>(fieldCount);
+			for (int column = 0; column < fieldCount; column++) {
+				columns.add(existingArchive.readColumn(column));
+			}
+			List<String> fields = new ArrayList<>(fieldCount);
+			for (int record = 0; record < existingArchive.getRecordCount(); record++) {
+				fields.clear();
+				for (TradeArchiveColumn column : columns) {
+					fields.add(column.get(record));
+				}
+				consumer.accept(fields);
+			}
+		}
+
+		CsvParser parser = new CsvParser();
+		int recordNumber = 0;
+		try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+			String record;
+			while ((record = parser.readRecord(reader)) != null) {
+				recordNumber++;
+				if (recordNumber == 1) continue; // Skip the header
+				if (record.isEmpty()) continue;
+
+				List<String> fields;
+				try {
+					fields = parser.parseRecord(record);
+				} catch (IllegalArgumentException e) {
+					fields = null;
+				}
+				if (fields == null || fields.size() != fieldCount) {
+					throw new MalformedLogFileException("Malformed record " + recordNumber
+							+ " of log file '" + logFile.getFileName() + "'.");
+				}
+				consumer.accept(fields);
+			}
+		}
+	}
+
+	private void verifyArchive(
+			Path archiveFile,
+			@Nullable TradeArchiveReader existingArchive,
+			Path logFile,
+			int fieldCount,
+			int expectedRecordCount
+	) throws IOException {
+		TradeArchiveReader archive = new TradeArchiveReader(archiveFile);
+		if (archive.getRecordCount() != expectedRecordCount) {
+			throw new IOException("Verification of trade archive '" + archiveFile.getFileName()
+					+ "' failed: Unexpected record count.");
+		}
+
+		List<TradeArchiveColumn> columns = new ArrayList<>(fieldCount);
+		for (int column = 0; column < fieldCount; column++) {
+			columns.add(archive.readColumn(column));
+		}
+
+		int[] recordIndex = new int[] {0};
+		this.readRecords(existingArchive, logFile, fieldCount, fields -> {
+			int record = recordIndex[0]++;
+			if (record >= expectedRecordCount) {
+				throw new IOException("Verification of trade archive '" + archiveFile.getFileName()
+						+ "' failed: The log file contains additional records.");
+			}
+			for (int column = 0; column < fieldCount; column++) {
+				if (!columns.get(column).get(record).equals(fields.get(column))) {
+					throw new IOException("Verification of trade archive '"
+							+ archiveFile.getFileName() + "' failed: Record " + record
+							+ " differs in column '" + columns.get(column).getName() + "'.");
+				}
+			}
+		});
+		if (recordIndex[0] != expectedRecordCount) {
+			throw new IOException("Verification of trade archive '" + archiveFile.getFileName()
+					+ "' failed: Missing records.");
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.nisovin.shopkeepers.tradelog.archive.TradeArchiveColumn;
+import com.nisovin.shopkeepers.tradelog.archive.TradeArchiveReader;
+import com.nisovin.shopkeepers.tradelog.query.DailyTradeSummary;
+import com.nisovin.shopkeepers.tradelog.query.TradeLogReader;
+import com.nisovin.shopkeepers.util.csv.CsvParser;
+import com.nisovin.shopkeepers.util.java.ConversionUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Reads the trades logged by the {@link CsvTradeLogger}.
+ * <p>
+ * The log files are streamed record by record, so that only the current record needs to be kept
+ * in memory. The trades of days that have been rolled up by the {@link CsvTradeLogArchiver} are
+ * read from their archives instead, of which only the required columns are read.
+ */
+public class CsvTradeLogReader implements TradeLogReader {
+
+	// Indices of the read CSV fields:
+	private static final int SHOP_UUID = 3;
+	private static final int SHOP_WORLD = 5;
+	private static final int SHOP_X = 6;
+	private static final int SHOP_Y = 7;
+	private static final int SHOP_Z = 8;
+	private static final int SHOP_OWNER_UUID = 9;
+	private static final int SHOP_OWNER_NAME = 10;
+	private static final int RESULT_ITEM_TYPE = 17;
+	private static final int RESULT_ITEM_AMOUNT = 18;
+	private static final int TRADE_COUNT = 20;
+	private static final int MIN_FIELD_COUNT = TRADE_COUNT + 1;
+
+	// Names of the read archive columns:
+	private static final String COLUMN_SHOP_UUID = "shop_uuid";
+	private static final String COLUMN_SHOP_WORLD = "shop_world";
+	private static final String COLUMN_SHOP_X = "shop_x";
+	private static final String COLUMN_SHOP_Y = "shop_y";
+	private static final String COLUMN_SHOP_Z = "shop_z";
+	private static final String COLUMN_SHOP_OWNER_UUID = "shop_owner_uuid";
+	private static final String COLUMN_SHOP_OWNER_NAME = "shop_owner_name";
+	private static final String COLUMN_RESULT_ITEM_TYPE = "result_item_type";
+	private static final String COLUMN_RESULT_ITEM_AMOUNT = "result_item_amount";
+	private static final String COLUMN_TRADE_COUNT = "trade_count";
+
+	private final Path tradeLogsFolder;
+
+	public CsvTradeLogReader(Path tradeLogsFolder) {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		this.tradeLogsFolder = tradeLogsFolder;
+	}
+
+	private Path getLogFile(LocalDate date) {
+		return tradeLogsFolder.resolve(CsvTradeLogger.getLogFileName(date));
+	}
+
+	private Path getArchiveFile(LocalDate date) {
+		return tradeLogsFolder.resolve(CsvTradeLogger.getArchiveFileName(date));
+	}
+
+	// Combines the size and last modification time of the given file into the given version, or
+	// returns the version unchanged if the file does not exist.
+	private static long updateVersion(long version, Path file) throws IOException {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return version;
+		}
+		long updated = 31L * version + attributes.size();
+		updated = 31L * updated + attributes.lastModifiedTime().toMillis();
+		// Distinguish an existing empty file from a missing file:
+		return 31L * updated + 1L;
+	}
+
+	@Override
+	public long getDayVersion(LocalDate date) throws IOException {
+		Validate.notNull(date, "date is null");
+		// The log files are not only appended to: Incomplete trailing records are truncated, and
+		// log files are removed once they are rolled up into their archive. We therefore take the
+		// sizes and the last modification times of both files into account:
+		long version = updateVersion(0L, this.getLogFile(date));
+		version = updateVersion(version, this.getArchiveFile(date));
+		return version;
+	}
+
+	@Override
+	public DailyTradeSummary readDay(LocalDate date) throws IOException {
+		Validate.notNull(date, "date is null");
+		DailyTradeSummary summary = new DailyTradeSummary(date);
+		this.readArchive(this.getArchiveFile(date), summary);
+
+		Path logFile = this.getLogFile(date);
+		if (!Files.exists(logFile)) return summary;
+
+		CsvParser parser = new CsvParser();
+		int recordNumber = 0;
+		int skippedRecords = 0;
+		try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+			String record;
+			while ((record = parser.readRecord(reader)) != null) {
+				recordNumber++;
+				if (recordNumber == 1) continue; // Skip the header
+				if (record.isEmpty()) continue;
+
+				if (!this.readRecord(parser, record, summary)) {
+					skippedRecords++;
+				}
+			}
+		}
+
+		if (skippedRecords > 0) {
+			final int finalSkippedRecords = skippedRecords;
+			Log.debug(() -> "Skipped " + finalSkippedRecords + " malformed records in trade log "
+					+ "file '" + logFile.getFileName() + "'.");
+		}
+		return summary;
+	}
+
+	private void readArchive(Path archiveFile, DailyTradeSummary summary) throws IOException {
+		TradeArchiveReader archive;
+		try {
+			archive = new TradeArchiveReader(archiveFile);
+		} catch (NoSuchFileException e) {
+			return;
+		}
+
+		TradeArchiveColumn shopIds = this.readColumn(archive, COLUMN_SHOP_UUID);
+		TradeArchiveColumn worlds = this.readColumn(archive, COLUMN_SHOP_WORLD);
+		TradeArchiveColumn xs = this.readColumn(archive, COLUMN_SHOP_X);
+		TradeArchiveColumn ys = this.readColumn(archive, COLUMN_SHOP_Y);
+		TradeArchiveColumn zs = this.readColumn(archive, COLUMN_SHOP_Z);
+		TradeArchiveColumn ownerIds = this.readColumn(archive, COLUMN_SHOP_OWNER_UUID);
+		TradeArchiveColumn ownerNames = this.readColumn(archive, COLUMN_SHOP_OWNER_NAME);
+		TradeArchiveColumn resultItemTypes = this.readColumn(archive, COLUMN_RESULT_ITEM_TYPE);
+		TradeArchiveColumn resultItemAmounts = this.readColumn(archive, COLUMN_RESULT_ITEM_AMOUNT);
+		TradeArchiveColumn tradeCounts = this.readColumn(archive, COLUMN_TRADE_COUNT);
+
+		int skippedRecords = 0;
+		for (int record = 0; record < archive.getRecordCount(); record++) {
+			int resultItemAmount = resultItemAmounts.getInt(record, -1);
+			int tradeCount = tradeCounts.getInt(record, -1);
+			if (resultItemAmount < 0 || tradeCount < 0) {
+				skippedRecords++;
+				continue;
+			}
+
+			String shopId = shopIds.get(record);
+			String shopName = DailyTradeSummary.getShopName(
+					shopId,
+					worlds.get(record),
+					xs.getInt(record, 0),
+					ys.getInt(record, 0),
+					zs.getInt(record, 0)
+			);
+			summary.add(
+					shopId,
+					shopName,
+					ownerIds.get(record),
+					ownerNames.get(record),
+					resultItemTypes.get(record),
+					resultItemAmount,
+					tradeCount
+			);
+		}
+
+		if (skippedRecords > 0) {
+			final int finalSkippedRecords = skippedRecords;
+			Log.debug(() -> "Skipped " + finalSkippedRecords + " malformed records in trade "
+					+ "archive '" + archiveFile.getFileName() + "'.");
+		}
+	}
+
+	private TradeArchiveColumn readColumn(
+			TradeArchiveReader archive,
+			String columnName
+	) throws IOException {
+		TradeArchiveColumn column = archive.readColumn(columnName);
+		if (column == null) {
+			throw new IOException("Trade archive '" + archive.getFile().getFileName()
+					+ "' is missing column '" + columnName + "'!");
+		}
+		return column;
+	}
+
+	private boolean readRecord(CsvParser parser, String record, DailyTradeSummary summary) {
+		List<String> fields;
+		try {
+			fields = parser.parseRecord(record);
+		} catch (IllegalArgumentException e) {
+			// E.g. an incomplete trailing record that is concurrently being written:
+			return false;
+		}
+		if (fields.size() < MIN_FIELD_COUNT) return false;
+
+		Integer resultItemAmount = ConversionUtils.parseInt(fields.get(RESULT_ITEM_AMOUNT));
+		Integer tradeCount = ConversionUtils.parseInt(fields.get(TRADE_COUNT));
+		if (resultItemAmount == null || tradeCount == null) return false;
+
+		String shopId = fields.get(SHOP_UUID);
+		String shopName = DailyTradeSummary.getShopName(
+				shopId,
+				fields.get(SHOP_WORLD),
+				this.parseCoordinate(fields.get(SHOP_X)),
+				this.parseCoordinate(fields.get(SHOP_Y)),
+				this.parseCoordinate(fields.get(SHOP_Z))
+		);
+		summary.add(
+				shopId,
+				shopName,
+				fields.get(SHOP_OWNER_UUID),
+				fields.get(SHOP_OWNER_NAME),
+				fields.get(RESULT_ITEM_TYPE),
+				resultItemAmount,
+				tradeCount
+		);
+		return true;
+	}
+
+	private int parseCoordinate(String field) {
+		Integer coordinate = ConversionUtils.parseInt(field);
+		return (coordinate != null) ? coordinate : 0;
+	}
+}
@@ -2,23 +2,38 @@ package com.nisovin.shopkeepers.tradelog.csv;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
-import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
+import com.nisovin.shopkeepers.tradelog.TradeLogUtils;
 import com.nisovin.shopkeepers.tradelog.base.AbstractFileTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
 import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
@@ -58,6 +73,15 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			"trade_count"
 	));
 
+	// Closed days are rolled up into compressed columnar archives by the CsvTradeLogArchiver:
+	private static final String ARCHIVE_FILE_EXTENSION = ".archive";
+
+	// The item metadata dictionary: Each daily log file has a corresponding dictionary file that
+	// stores each distinct item metadata referenced by the trades of that day only once.
+	private static final String ITEM_METADATA_FILE_NAME_PREFIX = "item-metadata-";
+	private static final List<? extends String> ITEM_METADATA_CSV_HEADER
+			= Collections.unmodifiableList(Arrays.asList("hash", "metadata"));
+
 	// TODO This uses the system locale and timezone currently. Config option(s) to change the
 	// locale and timezone? Or always store in UTC?
 	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd")
@@ -69,20 +93,271 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 	// each CSV record to only span a single line. However, even though we do not want fields to
 	// contain unescaped newlines, we do not escape these newlines via the CSV formatter. Instead,
 	// we expect that any data that we pass to the CSV formatter has its newlines already escaped.
-	// This ensures that we do not redundantly escape backslashes twice. Instead, the CSV formatter
-	// will log a warning if it encounters newlines in the data nevertheless.
+	// This ensures that we do not redundantly escape backslashes twice. Any fields that contain
+	// newlines nevertheless are escaped by formatRecord before they are passed to the formatter.
+	// Each record is therefore terminated by the only newline that it contains, which allows us to
+	// find the end of the last complete record after a torn write.
 	private final CsvFormatter csv = new CsvFormatter()
-			.escapeNewlines(false)
-			.warnOnNewlines();
+			.escapeNewlines(false);
+
+	// The maximum number of bytes at the end of a log file that are checked for an incomplete
+	// trailing record:
+	private static final int TAIL_CHECK_BYTES = 64 * 1024;
+	// Incomplete trailing records are copied to a file with this suffix before they are removed:
+	private static final String CORRUPT_FILE_SUFFIX = ".corrupt";
+	// The size of the chunks in which the item metadata dictionary is read:
+	private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+	private final boolean syncPerTrade;
+
+	// Group commit state: The log file that was last written to, and its size after the last
+	// successfully synced batch. If a batch fails to be written, its partially written data is
+	// truncated again before the batch is retried, so that trades are never logged twice.
+	// The file key (e.g. the inode) identifies whether the log file has been removed and recreated
+	// in the meantime, e.g. after it has been archived. It is null if the file system does not
+	// provide file keys.
+	private @Nullable Path committedLogFile = null;
+	private @Nullable Object committedLogFileKey = null;
+	private long committedSize = 0L;
+
+	// Item metadata dictionary state: The dictionary file that was last written to, its size after
+	// the last successful write, and the hashes of the item metadata that it contains.
+	private @Nullable Path itemMetadataFile = null;
+	private @Nullable Object itemMetadataFileKey = null;
+	private long itemMetadataCommittedSize = 0L;
+	private final Set<String> knownItemMetadata = new HashSet<>();
+	// The item metadata referenced by the trades that are currently being written, mapped by hash:
+	private final Map<String, String> pendingItemMetadata = new LinkedHashMap<>();
 
-	public CsvTradeLogger(Plugin plugin) {
+	// Synchronizes the writing of trades with the removal of archived log files:
+	private final Object logFilesLock = new Object();
+
+	public CsvTradeLogger(SKShopkeepersPlugin plugin) {
 		super(plugin, TradeLogStorageType.CSV);
+		this.syncPerTrade = Settings.tradeLogCsvSyncPerTrade;
+	}
+
+	Path getTradeLogsFolder() {
+		return tradeLogsFolder;
+	}
+
+	/**
+	 * Gets the lock that is held while trades are written to the log files.
+	 * <p>
+	 * The {@link CsvTradeLogArchiver} holds this lock while it removes an archived log file, so
+	 * that trades that are concurrently written to that log file are not lost.
+	 * 
+	 * @return the lock object
+	 */
+	Object getLogFilesLock() {
+		return logFilesLock;
+	}
+
+	// Also used by the CsvTradeLogReader. The given date can be either an Instant or a LocalDate.
+	static String getLogFileName(TemporalAccessor date) {
+		assert date != null;
+		return FILE_NAME_PREFIX + DATE_FORMAT.format(date) + ".csv";
 	}
 
 	private Path getLogFile(Instant timestamp) {
 		assert timestamp != null;
-		String fileName = FILE_NAME_PREFIX + DATE_FORMAT.format(timestamp) + ".csv";
-		return tradeLogsFolder.resolve(fileName);
+		return tradeLogsFolder.resolve(getLogFileName(timestamp));
+	}
+
+	// Also used by the CsvTradeLogArchiver. Returns null if the given file name is not the name of
+	// a log file.
+	static @Nullable LocalDate getLogFileDate(String fileName) {
+		if (!fileName.startsWith(FILE_NAME_PREFIX) || !fileName.endsWith(".csv")) return null;
+		String date = fileName.substring(FILE_NAME_PREFIX.length(), fileName.length() - 4);
+		try {
+			return LocalDate.parse(date, DATE_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	// Also used by the CsvTradeLogReader and CsvTradeLogArchiver.
+	static String getArchiveFileName(LocalDate date) {
+		assert date != null;
+		return FILE_NAME_PREFIX + DATE_FORMAT.format(date) + ARCHIVE_FILE_EXTENSION;
+	}
+
+	// The given date can be either an Instant or a LocalDate.
+	static String getItemMetadataFileName(TemporalAccessor date) {
+		assert date != null;
+		return ITEM_METADATA_FILE_NAME_PREFIX + DATE_FORMAT.format(date) + ".csv";
+	}
+
+	private Path getItemMetadataFile(Instant timestamp) {
+		assert timestamp != null;
+		return tradeLogsFolder.resolve(getItemMetadataFileName(timestamp));
+	}
+
+	@Override
+	protected void onItemMetadataReferenced(String hash, String metadata) {
+		pendingItemMetadata.put(hash, metadata);
+	}
+
+	/**
+	 * Appends the {@link #pendingItemMetadata pending item metadata} that is not yet stored inside
+	 * the item metadata dictionary file of the given day to that file, and syncs it to the
+	 * storage.
+	 * <p>
+	 * This is invoked before the trades that reference the item metadata are written. Similar to
+	 * the log files, any data of a previously failed write, and any incomplete trailing entry, are
+	 * removed from the dictionary file before new entries are appended.
+	 * 
+	 * @param timestamp
+	 *            the timestamp of the trades that reference the item metadata
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private void writePendingItemMetadata(Instant timestamp) throws IOException {
+		if (pendingItemMetadata.isEmpty()) return;
+
+		Path file = this.getItemMetadataFile(timestamp);
+		boolean isNew = !Files.exists(file);
+		try (FileChannel channel = FileChannel.open(
+				file,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.READ,
+				StandardOpenOption.WRITE
+		)) {
+			if (isNew) {
+				FileUtils.fsyncParentDirectory(file);
+			}
+
+			// Only reuse the committed size if the dictionary file has not been removed or
+			// recreated in the meantime:
+			Object fileKey = getFileKey(file);
+			long size;
+			if (!isNew
+					&& file.equals(itemMetadataFile)
+					&& Objects.equals(fileKey, itemMetadataFileKey)
+					&& itemMetadataCommittedSize <= channel.size()) {
+				size = itemMetadataCommittedSize;
+			} else {
+				// First write to this dictionary file: Determine the stored hashes.
+				itemMetadataFile = null;
+				knownItemMetadata.clear();
+				size = this.getSizeWithoutIncompleteTail(file, channel);
+				this.readItemMetadataHashes(channel, size);
+				itemMetadataFile = file;
+				itemMetadataFileKey = fileKey;
+				itemMetadataCommittedSize = size;
+			}
+			if (channel.size() > size) {
+				channel.truncate(size);
+			}
+
+			StringBuilder entries = new StringBuilder();
+			List<String> newHashes = new ArrayList<>();
+			pendingItemMetadata.forEach((hash, metadata) -> {
+				if (knownItemMetadata.contains(hash)) return;
+				entries.append(this.formatRecord(Arrays.asList(hash, metadata)));
+				newHashes.add(hash);
+			});
+
+			if (!newHashes.isEmpty()) {
+				if (size == 0L) {
+					entries.insert(0, csv.formatRecord(ITEM_METADATA_CSV_HEADER));
+				}
+
+				ByteBuffer buffer = StandardCharsets.UTF_8.encode(entries.toString());
+				long position = size;
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				channel.force(false);
+
+				itemMetadataCommittedSize = position;
+				knownItemMetadata.addAll(newHashes);
+			}
+		}
+		pendingItemMetadata.clear();
+	}
+
+	private void readItemMetadataHashes(FileChannel channel, long size) throws IOException {
+		if (size == 0L) return;
+
+		// Each record spans a single line (see formatRecord), and starts with the quoted hash. We
+		// stream over the file in chunks and only inspect the start of each line, so that we do
+		// not need to keep the metadata values in memory. This also skips the header.
+		int linePrefixLength = TradeLogUtils.ITEM_METADATA_HASH_LENGTH + 3;
+		byte[] linePrefix = new byte[linePrefixLength];
+		int linePrefixSize = 0;
+		ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_SIZE);
+		long position = 0L;
+		while (position < size) {
+			chunk.clear();
+			chunk.limit((int) Math.min(chunk.capacity(), size - position));
+			int read = channel.read(chunk, position);
+			if (read < 0) break;
+			position += read;
+
+			chunk.flip();
+			while (chunk.hasRemaining()) {
+				byte b = chunk.get();
+				if (b == '\n') {
+					this.readItemMetadataHash(linePrefix, linePrefixSize);
+					linePrefixSize = 0;
+				} else if (linePrefixSize < linePrefixLength) {
+					linePrefix[linePrefixSize++] = b;
+				}
+			}
+		}
+		// Any trailing line without newline:
+		this.readItemMetadataHash(linePrefix, linePrefixSize);
+	}
+
+	private void readItemMetadataHash(byte[] linePrefix, int linePrefixSize) {
+		int hashLength = TradeLogUtils.ITEM_METADATA_HASH_LENGTH;
+		if (linePrefixSize < hashLength + 3) return;
+		if (linePrefix[0] != '"' || linePrefix[hashLength + 1] != '"') return;
+		if (linePrefix[hashLength + 2] != ',') return;
+
+		String hash = new String(linePrefix, 1, hashLength, StandardCharsets.US_ASCII);
+		if (!isHexString(hash)) return;
+		knownItemMetadata.add(hash);
+	}
+
+	private static boolean isHexString(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			if (Character.digit(string.charAt(i), 16) < 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Formats the given fields as a CSV record that spans a single line.
+	 * <p>
+	 * The fields are expected to not contain any newlines. If a field contains newlines
+	 * nevertheless, its newlines and backslashes are escaped and a warning is logged.
+	 * 
+	 * @param fields
+	 *            the fields
+	 * @return the CSV record, terminated by a newline
+	 */
+	private String formatRecord(List<?> fields) {
+		List<@Nullable Object> lineFields = null;
+		for (int i = 0; i < fields.size(); i++) {
+			Object field = fields.get(i);
+			if (!(field instanceof String)) continue;
+			String stringField = (String) field;
+			if (!StringUtils.containsNewline(stringField)) continue;
+
+			Log.warning(logPrefix + "CSV field contains a newline character! " + stringField);
+			if (lineFields == null) {
+				lineFields = new ArrayList<>(fields);
+			}
+			lineFields.set(i, StringUtils.escapeNewlinesAndBackslash(stringField));
+		}
+		return csv.formatRecord(lineFields != null ? lineFields : fields);
+	}
+
+	// Returns null if the file system does not provide file keys.
+	private static @Nullable Object getFileKey(Path file) throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
 	}
 
 	private String toCSVRecord(TradeRecord trade) {
@@ -111,7 +386,7 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			item2Metadata = this.getItemMetadata(item2);
 		}
 
-		return csv.formatRecord(Arrays.asList(
+		return this.formatRecord(Arrays.asList(
 				TIME_FORMAT.format(timestamp), // time
 				player.getUniqueId(), // player_uuid
 				player.getName(), // player_name
@@ -167,6 +442,12 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 	 * Depending on their timestamps, the trades may need to be logged to different log files. This
 	 * writes all consecutive trades that need to be logged to the same log file, and then
 	 * recursively invokes itself to write the remaining trades to other log files.
+	 * <p>
+	 * By default, all consecutive trades for the same log file are written with a single write and
+	 * then synced to the storage once (group commit), see
+	 * {@link #writeTradesBatched(SaveContext)}. Alternatively, if
+	 * {@link Settings#tradeLogCsvSyncPerTrade} is enabled, each trade is written and synced
+	 * individually, see {@link #writeTradesSyncedPerTrade(SaveContext)}.
 	 * 
 	 * @param saveContext
 	 *            the save context
@@ -175,6 +456,16 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 	 */
 	@Override
 	protected void writeTrades(SaveContext saveContext) throws Exception {
+		synchronized (logFilesLock) {
+			if (syncPerTrade) {
+				this.writeTradesSyncedPerTrade(saveContext);
+			} else {
+				this.writeTradesBatched(saveContext);
+			}
+		}
+	}
+
+	private void writeTradesSyncedPerTrade(SaveContext saveContext) throws Exception {
 		TradeRecord trade = saveContext.getNextUnsavedTrade();
 		if (trade == null) return; // There are no unsaved trades
 
@@ -252,8 +543,13 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			// Instead of closing and reopening the log file for each trade, we log all consecutive
 			// trades that need to be logged to the same log file before we close it again:
 			do {
+				// Write any item metadata that is referenced by the trade record:
+				pendingItemMetadata.clear();
+				String record = this.toCSVRecord(trade);
+				this.writePendingItemMetadata(trade.getTimestamp());
+
 				// Write the new trade record:
-				writer.write(this.toCSVRecord(trade));
+				writer.write(record);
 				writer.flush();
 
 				// If we did not throw an IOException up until this point, we assume that the trade
@@ -289,4 +585,225 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			this.writeTrades(saveContext);
 		}
 	}
+
+	/**
+	 * Writes all consecutive trades that need to be logged to the same log file with a single
+	 * write and a single sync to the storage.
+	 * <p>
+	 * Writing a batch is not atomic. To still avoid that trades are logged partially or twice:
+	 * <ul>
+	 * <li>Trades are only marked as saved once the complete batch has been synced to the storage.
+	 * <li>Before we write a batch, we truncate the log file to its size after the last successfully
+	 * synced batch. This removes any data of a previously failed attempt to write the batch.
+	 * <li>Each record is terminated by a newline, and records do not contain any other newlines
+	 * (see {@link #formatRecord(List)}). When we first write to a log file, or if the log file has
+	 * been recreated since our last write, we remove any incomplete trailing record, e.g. from a
+	 * crash during a previous write, i.e. any data after the last newline, or starting at the first
+	 * zero byte that some file systems may leave behind after a torn write. The removed data is
+	 * copied to a <code>.corrupt</code> file next to the log file first.
+	 * </ul>
+	 * 
+	 * @param saveContext
+	 *            the save context
+	 * @throws Exception
+	 *             if saving fails
+	 */
+	private void writeTradesBatched(SaveContext saveContext) throws Exception {
+		TradeRecord trade = saveContext.getNextUnsavedTrade();
+		if (trade == null) return; // There are no unsaved trades
+
+		Path logFile = this.getLogFile(trade.getTimestamp());
+
+		// Create the parent directories if they are missing:
+		FileUtils.createParentDirectories(logFile);
+
+		// Check the write permission for the parent directory:
+		Path parent = logFile.getParent();
+		if (parent != null) {
+			FileUtils.checkIsDirectoryWritable(parent);
+		}
+
+		// Check if the file already exists:
+		boolean isNew = !Files.exists(logFile);
+
+		// Check the write permission for the log file, if it already exists:
+		if (!isNew) {
+			FileUtils.checkIsFileWritable(logFile);
+		}
+
+		// Prepare the batch: All consecutive trades that need to be logged to the same log file.
+		pendingItemMetadata.clear();
+		StringBuilder batch = new StringBuilder();
+		int batchSize = 0;
+		int unsavedTradesCount = saveContext.getUnsavedTradesCount();
+		while (batchSize < unsavedTradesCount) {
+			TradeRecord nextTrade = saveContext.getUnsavedTrade(batchSize);
+			if (batchSize > 0 && !logFile.equals(this.getLogFile(nextTrade.getTimestamp()))) {
+				break;
+			}
+			batch.append(this.toCSVRecord(nextTrade));
+			batchSize++;
+		}
+		assert batchSize > 0;
+
+		// Write any item metadata that is referenced by the batch:
+		this.writePendingItemMetadata(trade.getTimestamp());
+
+		OpenOption[] openOptions;
+		if (isNew) {
+			// Create the new file, but fail if the assumption that the file does not yet exist
+			// turns out to no longer hold when we actually attempt to create the file:
+			openOptions = new OpenOption[] {
+					StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.READ,
+					StandardOpenOption.WRITE
+			};
+		} else {
+			openOptions = new OpenOption[] {
+					StandardOpenOption.READ,
+					StandardOpenOption.WRITE
+			};
+		}
+
+		boolean done = false;
+		try (FileChannel channel = FileChannel.open(logFile, openOptions)) {
+			if (isNew) {
+				// Fsync the parent directory to ensure that the newly created log file has been
+				// successfully persisted.
+				FileUtils.fsyncParentDirectory(logFile);
+			}
+
+			// Determine the size of the log file after the last successfully synced batch, and
+			// remove any data after that. The committed size is stale if the log file has been
+			// removed or recreated in the meantime, e.g. after it has been archived.
+			Object fileKey = getFileKey(logFile);
+			long size;
+			if (!isNew
+					&& logFile.equals(committedLogFile)
+					&& Objects.equals(fileKey, committedLogFileKey)
+					&& committedSize <= channel.size()) {
+				size = committedSize;
+			} else {
+				size = this.getSizeWithoutIncompleteTail(logFile, channel);
+			}
+			if (channel.size() > size) {
+				channel.truncate(size);
+			}
+
+			// If the file is new or empty, write the CSV header as part of the batch:
+			if (size == 0L) {
+				batch.insert(0, csv.formatRecord(CSV_HEADER));
+			}
+
+			// Write the batch:
+			ByteBuffer buffer = StandardCharsets.UTF_8.encode(batch.toString());
+			long position = size;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+
+			// Sync the batch to the storage. We don't need to sync the file's metadata, except
+			// for its size, which is also synced by this.
+			channel.force(false);
+
+			// The batch has been successfully persisted:
+			committedLogFile = logFile;
+			committedLogFileKey = fileKey;
+			committedSize = position;
+			saveContext.onTradesSuccessfullySaved(batchSize);
+
+			// We are about to close the log file:
+			done = true;
+		} catch (IOException e) {
+			if (!done) {
+				throw e;
+			} else {
+				// Since the batch has been successfully synced, we assume that the trades have
+				// been successfully logged. We therefore ignore any exceptions raised during the
+				// closing of the file: They are still logged, but they don't trigger a retry of the
+				// trade log attempt.
+				Log.severe("Failed to close the CSV trade log file!", e);
+			}
+		}
+
+		// Recursively log the remaining trades to their target log files:
+		if (saveContext.hasUnsavedTrades()) {
+			this.writeTrades(saveContext);
+		}
+	}
+
+	// Returns the size of the file without any incomplete trailing record.
+	private long getSizeWithoutIncompleteTail(Path logFile, FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size == 0L) return 0L;
+
+		int tailLength = (int) Math.min(size, TAIL_CHECK_BYTES);
+		long tailStart = size - tailLength;
+		ByteBuffer tail = ByteBuffer.allocate(tailLength);
+		while (tail.hasRemaining()) {
+			int read = channel.read(tail, tailStart + tail.position());
+			if (read < 0) break;
+		}
+		int tailEnd = tail.position();
+
+		// Torn writes may leave zero bytes behind:
+		for (int i = 0; i < tailEnd; i++) {
+			if (tail.get(i) == 0) {
+				tailEnd = i;
+				break;
+			}
+		}
+
+		// Find the end of the last complete record:
+		long validSize = -1L;
+		for (int i = tailEnd - 1; i >= 0; i--) {
+			if (tail.get(i) == '\n') {
+				validSize = tailStart + i + 1;
+				break;
+			}
+		}
+		if (validSize < 0L) {
+			// No complete record found within the checked tail:
+			if (tailStart > 0L) {
+				// We cannot determine the end of the last complete record. Keep the file as is.
+				return size;
+			}
+			validSize = 0L;
+		}
+
+		if (validSize < size) {
+			long removedBytes = size - validSize;
+			Path corruptFile = this.saveCorruptTail(logFile, channel, validSize, size);
+			Log.warning(logPrefix + "Removing an incomplete trailing record (" + removedBytes
+					+ " bytes) from log file " + logFile.getFileName()
+					+ ". The removed data has been copied to " + corruptFile.getFileName());
+		}
+		return validSize;
+	}
+
+	// Copies the data of the given file that is about to be removed to a sidecar file, so that
+	// the data can still be inspected or recovered manually. The data is appended to the sidecar
+	// file if it already exists. If the copying fails, the file is not truncated.
+	private Path saveCorruptTail(Path file, FileChannel channel, long start, long end)
+			throws IOException {
+		Path corruptFile = file.resolveSibling(file.getFileName() + CORRUPT_FILE_SUFFIX);
+		try (FileChannel corruptChannel = FileChannel.open(
+				corruptFile,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND
+		)) {
+			long position = start;
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, corruptChannel);
+				if (transferred <= 0) {
+					throw new IOException("Could not read the data to remove from " + file);
+				}
+				position += transferred;
+			}
+			corruptChannel.force(false);
+		}
+		FileUtils.fsyncParentDirectory(corruptFile);
+		return corruptFile;
+	}
 }
@@ -0,0 +1,186 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.tradelog.TradeLogGrouping;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The pre-aggregated trade statistics of a single day.
+ * <p>
+ * The size of a daily summary only depends on the number of distinct shops, shop owners, and item
+ * types that were involved in trades on that day, and not on the number of logged trades.
+ * <p>
+ * Trade log readers {@link #add(String, String, String, String, String, int, int) add} the
+ * records of a day while streaming over them. Once built, the summary is treated as read-only.
+ */
+public final class DailyTradeSummary {
+
+	private final LocalDate date;
+	private final SKTradeLogAggregate total;
+	private final Map<TradeLogGrouping, Map<String, SKTradeLogAggregate>> aggregates
+			= new EnumMap<>(TradeLogGrouping.class);
+
+	public DailyTradeSummary(LocalDate date) {
+		Validate.notNull(date, "date is null");
+		this.date = date;
+		String dateString = date.toString();
+		this.total = new SKTradeLogAggregate(dateString, dateString);
+		aggregates.put(TradeLogGrouping.SHOP, new HashMap<>());
+		aggregates.put(TradeLogGrouping.OWNER, new HashMap<>());
+		aggregates.put(TradeLogGrouping.ITEM, new HashMap<>());
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	/**
+	 * Gets the totals of this day.
+	 * 
+	 * @return the totals
+	 */
+	public SKTradeLogAggregate getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the aggregates of this day for the given {@link TradeLogGrouping}.
+	 * 
+	 * @param grouping
+	 *            the grouping, not <code>null</code>
+	 * @return an unmodifiable view on the aggregates
+	 */
+	public Collection<? extends SKTradeLogAggregate> getAggregates(TradeLogGrouping grouping) {
+		Validate.notNull(grouping, "grouping is null");
+		if (grouping == TradeLogGrouping.DAY) {
+			return Collections.singletonList(total);
+		}
+		Map<String, SKTradeLogAggregate> groupAggregates = aggregates.get(grouping);
+		assert groupAggregates != null;
+		return Collections.unmodifiableCollection(groupAggregates.values());
+	}
+
+	// Also used to restore stored summaries.
+	void add(
+			TradeLogGrouping grouping,
+			String key,
+			String name,
+			long recordCount,
+			long tradeCount,
+			long resultItemAmount
+	) {
+		Map<String, SKTradeLogAggregate> groupAggregates = aggregates.get(grouping);
+		assert groupAggregates != null;
+		SKTradeLogAggregate aggregate = groupAggregates.computeIfAbsent(
+				key,
+				k -> new SKTradeLogAggregate(k, name)
+		);
+		aggregate.add(name, recordCount, tradeCount, resultItemAmount);
+	}
+
+	/**
+	 * Adds a trade log record to this summary.
+	 * 
+	 * @param shopId
+	 *            the shop's unique id, not <code>null</code>
+	 * @param shopName
+	 *            a display name for the shop, not <code>null</code>
+	 * @param ownerId
+	 *            the shop owner's unique id, or <code>null</code> or empty for admin shops
+	 * @param ownerName
+	 *            the shop owner's name, or <code>null</code>
+	 * @param resultItemType
+	 *            the type of the result item, not <code>null</code>
+	 * @param resultItemAmount
+	 *            the amount of the result item per trade
+	 * @param tradeCount
+	 *            the number of trades represented by the record
+	 */
+	public void add(
+			String shopId,
+			String shopName,
+			@Nullable String ownerId,
+			@Nullable String ownerName,
+			String resultItemType,
+			int resultItemAmount,
+			int tradeCount
+	) {
+		this.add(1L, shopId, shopName, ownerId, ownerName, resultItemType, tradeCount,
+				(long) resultItemAmount * tradeCount);
+	}
+
+	/**
+	 * Adds the already aggregated statistics of several trade log records to this summary.
+	 * 
+	 * @param recordCount
+	 *            the number of records
+	 * @param shopId
+	 *            the shop's unique id, not <code>null</code>
+	 * @param shopName
+	 *            a display name for the shop, not <code>null</code>
+	 * @param ownerId
+	 *            the shop owner's unique id, or <code>null</code> or empty for admin shops
+	 * @param ownerName
+	 *            the shop owner's name, or <code>null</code>
+	 * @param resultItemType
+	 *            the type of the result item, not <code>null</code>
+	 * @param tradeCount
+	 *            the total number of trades
+	 * @param totalResultItemAmount
+	 *            the total amount of traded result items
+	 */
+	public void add(
+			long recordCount,
+			String shopId,
+			String shopName,
+			@Nullable String ownerId,
+			@Nullable String ownerName,
+			String resultItemType,
+			long tradeCount,
+			long totalResultItemAmount
+	) {
+		Validate.notNull(shopId, "shopId is null");
+		Validate.notNull(shopName, "shopName is null");
+		Validate.notNull(resultItemType, "resultItemType is null");
+		total.add(total.getName(), recordCount, tradeCount, totalResultItemAmount);
+		this.add(TradeLogGrouping.SHOP, shopId, shopName, recordCount, tradeCount,
+				totalResultItemAmount);
+		if (ownerId != null && !ownerId.isEmpty()) {
+			String name = (ownerName != null && !ownerName.isEmpty()) ? ownerName : ownerId;
+			this.add(TradeLogGrouping.OWNER, ownerId, name, recordCount, tradeCount,
+					totalResultItemAmount);
+		}
+		this.add(TradeLogGrouping.ITEM, resultItemType, resultItemType, recordCount, tradeCount,
+				totalResultItemAmount);
+	}
+
+	/**
+	 * Creates a shop display name from the logged shop information.
+	 * 
+	 * @param shopId
+	 *            the shop id
+	 * @param world
+	 *            the world name, can be <code>null</code> or empty for virtual shops
+	 * @param x
+	 *            the x coordinate
+	 * @param y
+	 *            the y coordinate
+	 * @param z
+	 *            the z coordinate
+	 * @return the shop display name
+	 */
+	public static String getShopName(String shopId, @Nullable String world, int x, int y, int z) {
+		if (world == null || world.isEmpty()) {
+			return shopId;
+		}
+		return world + "," + x + "," + y + "," + z;
+	}
+}
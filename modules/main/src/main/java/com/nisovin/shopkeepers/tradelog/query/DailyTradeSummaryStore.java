@@ -0,0 +1,147 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.tradelog.TradeLogGrouping;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Persists {@link DailyTradeSummary daily summaries} across server restarts, so that queries over
+ * past days do not need to read the logged trades again after a restart.
+ * <p>
+ * Each summary is stored in a separate file, together with the
+ * {@link TradeLogReader#getDayVersion(LocalDate) version} of the day's logged trades that it was
+ * built from. A stored summary is only used if the day's version still matches.
+ * <p>
+ * The stored summaries are only a cache: If a summary cannot be read or written, the summary is
+ * built from the logged trades instead.
+ */
+final class DailyTradeSummaryStore {
+
+	// Identifies our file format, in case the file is replaced with something else:
+	private static final int FILE_MAGIC = 0x534B5453; // "SKTS"
+	private static final int FILE_VERSION = 1;
+	private static final String FILE_SUFFIX = ".summary";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	// The groupings whose aggregates are stored, in the order in which they are stored:
+	private static final TradeLogGrouping[] GROUPINGS = {
+			TradeLogGrouping.SHOP,
+			TradeLogGrouping.OWNER,
+			TradeLogGrouping.ITEM
+	};
+
+	private final Path folder;
+
+	DailyTradeSummaryStore(Path folder) {
+		Validate.notNull(folder, "folder is null");
+		this.folder = folder;
+	}
+
+	private Path getFile(LocalDate date) {
+		return folder.resolve(date + FILE_SUFFIX);
+	}
+
+	/**
+	 * Loads the stored summary of the specified day, if it was built from the specified version
+	 * of the day's logged trades.
+	 * 
+	 * @param date
+	 *            the day, not <code>null</code>
+	 * @param version
+	 *            the current version of the day's logged trades
+	 * @return the summary, or <code>null</code> if there is no up-to-date stored summary
+	 */
+	@Nullable DailyTradeSummary load(LocalDate date, long version) {
+		Path file = this.getFile(date);
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file))
+		)) {
+			if (in.readInt() != FILE_MAGIC) {
+				throw new IOException("Unknown file format!");
+			}
+			if (in.readInt() != FILE_VERSION) return null; // Rebuilt and stored again
+			if (in.readLong() != version) return null; // Outdated
+
+			DailyTradeSummary summary = new DailyTradeSummary(date);
+			SKTradeLogAggregate total = summary.getTotal();
+			total.add(total.getName(), in.readLong(), in.readLong(), in.readLong());
+			for (TradeLogGrouping grouping : GROUPINGS) {
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					summary.add(
+							grouping,
+							in.readUTF(),
+							in.readUTF(),
+							in.readLong(),
+							in.readLong(),
+							in.readLong()
+					);
+				}
+			}
+			return summary;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Log.debug(() -> "Failed to load the stored trade log summary '" + file + "': " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the given summary.
+	 * 
+	 * @param summary
+	 *            the summary, not <code>null</code>
+	 * @param version
+	 *            the version of the day's logged trades that the summary was built from
+	 */
+	// Synchronized: Prevents concurrent writes to the same temporary file.
+	synchronized void save(DailyTradeSummary summary, long version) {
+		Path file = this.getFile(summary.getDate());
+		Path tempFile = file.resolveSibling(file.getFileName() + TEMP_FILE_SUFFIX);
+		try {
+			FileUtils.createParentDirectories(tempFile);
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile))
+			)) {
+				out.writeInt(FILE_MAGIC);
+				out.writeInt(FILE_VERSION);
+				out.writeLong(version);
+
+				SKTradeLogAggregate total = summary.getTotal();
+				out.writeLong(total.getRecordCount());
+				out.writeLong(total.getTradeCount());
+				out.writeLong(total.getResultItemAmount());
+				for (TradeLogGrouping grouping : GROUPINGS) {
+					Collection<? extends SKTradeLogAggregate> aggregates
+							= summary.getAggregates(grouping);
+					out.writeInt(aggregates.size());
+					for (SKTradeLogAggregate aggregate : aggregates) {
+						out.writeUTF(aggregate.getKey());
+						out.writeUTF(aggregate.getName());
+						out.writeLong(aggregate.getRecordCount());
+						out.writeLong(aggregate.getTradeCount());
+						out.writeLong(aggregate.getResultItemAmount());
+					}
+				}
+			}
+			FileUtils.moveFile(tempFile, file, Log.getLogger());
+		} catch (IOException e) {
+			Log.debug(() -> "Failed to store the trade log summary '" + file + "': " + e);
+		}
+	}
+}
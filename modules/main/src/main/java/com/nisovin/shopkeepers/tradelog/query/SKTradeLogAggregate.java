@@ -0,0 +1,89 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import com.nisovin.shopkeepers.api.tradelog.TradeLogAggregate;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQueryResult;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A {@link TradeLogAggregate}.
+ * <p>
+ * Instances are mutable while they are being accumulated by the trade log readers, but are not
+ * supposed to be modified once they are exposed via a {@link TradeLogQueryResult}.
+ */
+public final class SKTradeLogAggregate implements TradeLogAggregate {
+
+	private final String key;
+	private String name;
+	private long recordCount = 0L;
+	private long tradeCount = 0L;
+	private long resultItemAmount = 0L;
+
+	/**
+	 * Creates a new empty {@link SKTradeLogAggregate}.
+	 * 
+	 * @param key
+	 *            the key, not <code>null</code>
+	 * @param name
+	 *            the display name, not <code>null</code>
+	 */
+	public SKTradeLogAggregate(String key, String name) {
+		Validate.notNull(key, "key is null");
+		Validate.notNull(name, "name is null");
+		this.key = key;
+		this.name = name;
+	}
+
+	@Override
+	public String getKey() {
+		return key;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public long getTradeCount() {
+		return tradeCount;
+	}
+
+	@Override
+	public long getResultItemAmount() {
+		return resultItemAmount;
+	}
+
+	void add(String name, long recordCount, long tradeCount, long resultItemAmount) {
+		// The most recently added name is used:
+		this.name = name;
+		this.recordCount += recordCount;
+		this.tradeCount += tradeCount;
+		this.resultItemAmount += resultItemAmount;
+	}
+
+	void add(SKTradeLogAggregate other) {
+		this.add(other.name, other.recordCount, other.tradeCount, other.resultItemAmount);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SKTradeLogAggregate [key=");
+		builder.append(key);
+		builder.append(", name=");
+		builder.append(name);
+		builder.append(", recordCount=");
+		builder.append(recordCount);
+		builder.append(", tradeCount=");
+		builder.append(tradeCount);
+		builder.append(", resultItemAmount=");
+		builder.append(resultItemAmount);
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,62 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQuery;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQueryResult;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A {@link TradeLogQueryResult}.
+ */
+public final class SKTradeLogQueryResult implements TradeLogQueryResult {
+
+	private final TradeLogQuery query;
+	private final List<? extends SKTradeLogAggregate> aggregates;
+	private final SKTradeLogAggregate total;
+	private final int distinctCount;
+	private final long durationMillis;
+
+	SKTradeLogQueryResult(
+			TradeLogQuery query,
+			List<? extends SKTradeLogAggregate> aggregates,
+			SKTradeLogAggregate total,
+			int distinctCount,
+			long durationMillis
+	) {
+		Validate.notNull(query, "query is null");
+		Validate.notNull(aggregates, "aggregates is null");
+		Validate.notNull(total, "total is null");
+		this.query = query;
+		this.aggregates = Collections.unmodifiableList(aggregates);
+		this.total = total;
+		this.distinctCount = distinctCount;
+		this.durationMillis = durationMillis;
+	}
+
+	@Override
+	public TradeLogQuery getQuery() {
+		return query;
+	}
+
+	@Override
+	public List<? extends SKTradeLogAggregate> getAggregates() {
+		return aggregates;
+	}
+
+	@Override
+	public SKTradeLogAggregate getTotal() {
+		return total;
+	}
+
+	@Override
+	public int getDistinctCount() {
+		return distinctCount;
+	}
+
+	@Override
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+}
@@ -0,0 +1,217 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogGrouping;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQuery;
+import com.nisovin.shopkeepers.api.tradelog.TradeLogQueryResult;
+import com.nisovin.shopkeepers.util.bukkit.IOExecutor;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Executes {@link TradeLogQuery queries} against the logged trades.
+ * <p>
+ * Queries are answered from per-day {@link DailyTradeSummary summaries} that are built by
+ * streaming over the logged trades of each day once. The summaries are cached and only rebuilt
+ * when the {@link TradeLogReader#getDayVersion(LocalDate) version} of the day's logged trades
+ * changes, which is usually only the case for the current day. Repeated queries over past days
+ * therefore do not need to read the logged trades again.
+ * <p>
+ * The summaries of past days are also {@link DailyTradeSummaryStore stored} in the given cache
+ * folder, so that they remain available across server restarts.
+ * <p>
+ * The queries are run on a dedicated resource of the plugin's {@link IOExecutor}.
+ */
+public class TradeLogQueries {
+
+	private static final int SUMMARY_CACHE_SIZE = 400;
+
+	// The IO executor resource that runs the queries:
+	private static final String IO_RESOURCE = "trade-log-queries";
+	private static final int IO_RESOURCE_MAX_CONCURRENCY = 2;
+
+	private static final Comparator<SKTradeLogAggregate> TRADE_COUNT_DESCENDING = Comparator
+			.comparingLong(SKTradeLogAggregate::getTradeCount)
+			.reversed()
+			.thenComparing(SKTradeLogAggregate::getKey);
+
+	private static final class CachedSummary {
+
+		final long version;
+		final DailyTradeSummary summary;
+
+		CachedSummary(long version, DailyTradeSummary summary) {
+			this.version = version;
+			this.summary = summary;
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final TradeLogReader reader;
+	private final DailyTradeSummaryStore summaryStore;
+	// Synchronized on itself, since queries are executed asynchronously:
+	private final Map<LocalDate, CachedSummary> summaryCache = new LRUCache<>(SUMMARY_CACHE_SIZE);
+
+	public TradeLogQueries(SKShopkeepersPlugin plugin, TradeLogReader reader, Path cacheFolder) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(reader, "reader is null");
+		Validate.notNull(cacheFolder, "cacheFolder is null");
+		this.plugin = plugin;
+		this.reader = reader;
+		this.summaryStore = new DailyTradeSummaryStore(cacheFolder);
+	}
+
+	/**
+	 * Clears the daily summaries that are cached in memory.
+	 */
+	public void clearCache() {
+		synchronized (summaryCache) {
+			summaryCache.clear();
+		}
+	}
+
+	private DailyTradeSummary getSummary(LocalDate date) throws Exception {
+		long version = reader.getDayVersion(date);
+		if (version == 0L) {
+			// No trades have been logged for this day:
+			return new DailyTradeSummary(date);
+		}
+
+		CachedSummary cached;
+		synchronized (summaryCache) {
+			cached = summaryCache.get(date);
+		}
+		if (cached != null && cached.version == version) {
+			return cached.summary;
+		}
+
+		// The logged trades of the current and future days are still expected to change, so we
+		// only store the summaries of past days:
+		boolean storeSummary = date.isBefore(LocalDate.now());
+		@Nullable DailyTradeSummary summary = storeSummary
+				? summaryStore.load(date, version)
+				: null;
+		if (summary == null) {
+			summary = reader.readDay(date);
+			if (storeSummary) {
+				summaryStore.save(summary, version);
+			}
+		}
+		synchronized (summaryCache) {
+			summaryCache.put(date, new CachedSummary(version, summary));
+		}
+		return summary;
+	}
+
+	/**
+	 * Executes the given query.
+	 * <p>
+	 * This blocks until the logged trades of all queried days have been read and is therefore
+	 * supposed to only be invoked asynchronously.
+	 * 
+	 * @param query
+	 *            the query, not <code>null</code>
+	 * @return the query result, not <code>null</code>
+	 * @throws Exception
+	 *             if the logged trades cannot be read
+	 */
+	public SKTradeLogQueryResult query(TradeLogQuery query) throws Exception {
+		Validate.notNull(query, "query is null");
+		long startNanos = System.nanoTime();
+		TradeLogGrouping grouping = query.getGrouping();
+
+		String totalKey = query.getFromDate() + " - " + query.getToDate();
+		SKTradeLogAggregate total = new SKTradeLogAggregate(totalKey, totalKey);
+		Map<String, SKTradeLogAggregate> merged = new HashMap<>();
+		List<SKTradeLogAggregate> days = new ArrayList<>();
+		for (LocalDate date = query.getFromDate();
+				!date.isAfter(query.getToDate());
+				date = date.plusDays(1)) {
+			DailyTradeSummary summary = this.getSummary(date);
+			SKTradeLogAggregate dayTotal = summary.getTotal();
+			total.add(totalKey, dayTotal.getRecordCount(), dayTotal.getTradeCount(),
+					dayTotal.getResultItemAmount());
+			if (grouping == TradeLogGrouping.DAY) {
+				if (dayTotal.getRecordCount() > 0) {
+					days.add(dayTotal);
+				}
+				continue;
+			}
+
+			for (SKTradeLogAggregate aggregate : summary.getAggregates(grouping)) {
+				// Copy the cached aggregates, since they are not supposed to be modified:
+				merged.computeIfAbsent(
+						aggregate.getKey(),
+						key -> new SKTradeLogAggregate(key, aggregate.getName())
+				).add(aggregate);
+			}
+		}
+
+		List<SKTradeLogAggregate> aggregates;
+		if (grouping == TradeLogGrouping.DAY) {
+			aggregates = days;
+		} else {
+			aggregates = new ArrayList<>(merged.values());
+			aggregates.sort(TRADE_COUNT_DESCENDING);
+		}
+		int distinctCount = aggregates.size();
+		if (distinctCount > query.getLimit()) {
+			aggregates = new ArrayList<>(aggregates.subList(0, query.getLimit()));
+		}
+
+		long durationMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+		Log.debug(() -> "Trade log query " + query + " took " + durationMillis + " ms.");
+		return new SKTradeLogQueryResult(query, aggregates, total, distinctCount, durationMillis);
+	}
+
+	/**
+	 * Executes the given query asynchronously.
+	 * <p>
+	 * The returned future is completed on the global thread. If the query fails, or if the async
+	 * task cannot be started, the future is completed exceptionally. If the plugin is disabled
+	 * before the query completes, the future is not completed.
+	 * 
+	 * @param query
+	 *            the query, not <code>null</code>
+	 * @return the future that is completed with the query result, not <code>null</code>
+	 */
+	public CompletableFuture<TradeLogQueryResult> queryAsync(TradeLogQuery query) {
+		Validate.notNull(query, "query is null");
+		CompletableFuture<TradeLogQueryResult> future = new CompletableFuture<>();
+		TaskScheduler scheduler = plugin.getTaskScheduler();
+		IOExecutor.Resource ioResource = plugin.getIOExecutor().getResource(
+				IO_RESOURCE,
+				IO_RESOURCE_MAX_CONCURRENCY
+		);
+		try {
+			ioResource.submit(() -> {
+				try {
+					TradeLogQueryResult result = this.query(query);
+					scheduler.runOnGlobalThreadOrOmit(() -> future.complete(result));
+				} catch (Exception e) {
+					Log.severe("Trade log query failed: " + query, e);
+					scheduler.runOnGlobalThreadOrOmit(() -> future.completeExceptionally(e));
+				}
+			});
+		} catch (IllegalStateException e) {
+			// The IO executor is not running:
+			future.completeExceptionally(
+					new IllegalStateException("Could not start the async trade log query!", e)
+			);
+		}
+		return future;
+	}
+}
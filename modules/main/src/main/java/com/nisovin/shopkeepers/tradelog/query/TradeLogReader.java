@@ -0,0 +1,42 @@
+package com.nisovin.shopkeepers.tradelog.query;
+
+import java.time.LocalDate;
+
+/**
+ * Reads the logged trades of a specific trade log storage.
+ * <p>
+ * The methods of this interface are invoked asynchronously, and may be invoked concurrently to
+ * the writing of trades.
+ */
+public interface TradeLogReader {
+
+	/**
+	 * Gets a cheap indicator for the current state of the logged trades of the specified day.
+	 * <p>
+	 * This is used to check if a previously {@link #readDay(LocalDate) read} summary of the day is
+	 * still up-to-date. The returned value is expected to change whenever trades are logged for the
+	 * day.
+	 * 
+	 * @param date
+	 *            the day, not <code>null</code>
+	 * @return the version of the day's logged trades, or <code>0</code> if no trades have been
+	 *         logged for the day
+	 * @throws Exception
+	 *             if the logged trades cannot be accessed
+	 */
+	public long getDayVersion(LocalDate date) throws Exception;
+
+	/**
+	 * Reads and aggregates the logged trades of the specified day.
+	 * <p>
+	 * The logged trades are streamed, i.e. the memory requirements only depend on the size of the
+	 * resulting summary and not on the number of logged trades.
+	 * 
+	 * @param date
+	 *            the day, not <code>null</code>
+	 * @return the summary of the day, not <code>null</code>
+	 * @throws Exception
+	 *             if the logged trades cannot be read
+	 */
+	public DailyTradeSummary readDay(LocalDate date) throws Exception;
+}
@@ -0,0 +1,134 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.tradelog.query.DailyTradeSummary;
+import com.nisovin.shopkeepers.tradelog.query.TradeLogReader;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Reads the trades logged by the {@link SQLiteTradeLogger}.
+ * <p>
+ * The logged trades of a day are aggregated by the database, so that only the aggregated rows
+ * need to be transferred.
+ */
+public class SQLiteTradeLogReader implements TradeLogReader {
+
+	// The logged timestamps are ISO 8601 UTC date times with a varying number of fractional
+	// digits. In order to compare them lexicographically with the bounds of a day, we omit the
+	// trailing 'Z' in the bounds: The bounds then sort before any timestamp with the same seconds.
+	private static final DateTimeFormatter TIMESTAMP_BOUND_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
+			.withZone(ZoneOffset.UTC);
+	// Days are interpreted in the system timezone, consistent with the CSV trade logs:
+	private static final ZoneId ZONE = Unsafe.assertNonNull(ZoneId.systemDefault());
+
+	private static final String CREATE_TIMESTAMP_INDEX = "CREATE INDEX IF NOT EXISTS "
+			+ "trade_timestamp_index ON " + SQLiteTradeLogger.TABLE_NAME + " (timestamp);";
+	private static final String DAY_CONDITION = " WHERE timestamp >= ? AND timestamp < ?";
+	private static final String COUNT_DAY = "SELECT COUNT(*) FROM " + SQLiteTradeLogger.TABLE_NAME
+			+ DAY_CONDITION;
+	private static final String AGGREGATE_DAY = "SELECT shop_uuid, shop_world, "
+			+ "shop_x, shop_y, shop_z, shop_owner_uuid, MAX(shop_owner_name), result_item_type, "
+			+ "COUNT(*), SUM(trade_count), SUM(result_item_amount * trade_count) FROM "
+			+ SQLiteTradeLogger.TABLE_NAME + DAY_CONDITION
+			+ " GROUP BY shop_uuid, shop_world, shop_x, shop_y, shop_z, shop_owner_uuid, "
+			+ "result_item_type";
+
+	private final Path databaseFile;
+	private final String connectionURL;
+	private volatile boolean indexCreated = false;
+
+	public SQLiteTradeLogReader(Path tradeLogsFolder) {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		this.databaseFile = tradeLogsFolder.resolve(SQLiteTradeLogger.FILE_NAME);
+		this.connectionURL = "jdbc:sqlite:" + databaseFile;
+	}
+
+	private Connection getConnection() throws SQLException {
+		Connection connection = DriverManager.getConnection(connectionURL);
+		if (!indexCreated) {
+			// Lazily created, since the index is only required for reading:
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(CREATE_TIMESTAMP_INDEX);
+			} catch (SQLException e) {
+				connection.close();
+				throw e;
+			}
+			indexCreated = true;
+		}
+		return connection;
+	}
+
+	private void setDayBounds(PreparedStatement statement, LocalDate date) throws SQLException {
+		Instant start = date.atStartOfDay(ZONE).toInstant();
+		Instant end = date.plusDays(1).atStartOfDay(ZONE).toInstant();
+		statement.setString(1, TIMESTAMP_BOUND_FORMAT.format(start));
+		statement.setString(2, TIMESTAMP_BOUND_FORMAT.format(end));
+	}
+
+	@Override
+	public long getDayVersion(LocalDate date) throws SQLException {
+		Validate.notNull(date, "date is null");
+		if (!Files.exists(databaseFile)) return 0L;
+
+		// Trades are only ever inserted. The number of records is therefore a sufficient version,
+		// and can be determined cheaply via the timestamp index:
+		try (	Connection connection = this.getConnection();
+				PreparedStatement statement = connection.prepareStatement(COUNT_DAY)) {
+			this.setDayBounds(statement, date);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (!resultSet.next()) return 0L;
+				return resultSet.getLong(1);
+			}
+		}
+	}
+
+	@Override
+	public DailyTradeSummary readDay(LocalDate date) throws SQLException {
+		Validate.notNull(date, "date is null");
+		DailyTradeSummary summary = new DailyTradeSummary(date);
+		if (!Files.exists(databaseFile)) return summary;
+
+		try (	Connection connection = this.getConnection();
+				PreparedStatement statement = connection.prepareStatement(AGGREGATE_DAY)) {
+			this.setDayBounds(statement, date);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					String shopId = Unsafe.assertNonNull(resultSet.getString(1));
+					String shopName = DailyTradeSummary.getShopName(
+							shopId,
+							resultSet.getString(2),
+							resultSet.getInt(3),
+							resultSet.getInt(4),
+							resultSet.getInt(5)
+					);
+					summary.add(
+							resultSet.getLong(9), // Record count
+							shopId,
+							shopName,
+							resultSet.getString(6), // Owner id
+							resultSet.getString(7), // Owner name
+							Unsafe.assertNonNull(resultSet.getString(8)), // Result item type
+							resultSet.getLong(10), // Trade count
+							resultSet.getLong(11) // Result item amount
+					);
+				}
+			}
+		}
+		return summary;
+	}
+}
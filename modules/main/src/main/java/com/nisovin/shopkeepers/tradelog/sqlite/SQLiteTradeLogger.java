@@ -7,16 +7,22 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
-import org.bukkit.plugin.Plugin;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.tradelog.base.AbstractFileTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
 import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
@@ -24,8 +30,8 @@ import com.nisovin.shopkeepers.util.logging.Log;
  */
 public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 
-	private static final String FILE_NAME = "trades.db";
-	private static final String TABLE_NAME = "trade";
+	static final String FILE_NAME = "trades.db";
+	static final String TABLE_NAME = "trade";
 	// Note: SQLite does not have rigid data types, but storage classes and type affinity. The data
 	// types specified here are not enforced by SQLite or us, but only used to document the expected
 	// structure of the data.
@@ -43,7 +49,9 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 			+ "shop_owner_name VARCHAR(16), "
 			+ "item_1_type VARCHAR(64) NOT NULL, "
 			+ "item_1_amount TINYINT UNSIGNED NOT NULL, "
-			+ "item_1_metadata TEXT NOT NULL, " // Empty string if the item has no metadata
+			// Empty string if the item has no metadata. If the item metadata dictionary is used,
+			// this is the hash of the metadata inside the item metadata table:
+			+ "item_1_metadata TEXT NOT NULL, "
 			+ "item_2_type VARCHAR(64), " // Second item is optional and can thus be null
 			+ "item_2_amount TINYINT UNSIGNED, "
 			+ "item_2_metadata TEXT, "
@@ -63,11 +71,30 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 			+ "trade_count) "
 			+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
+	// The item metadata dictionary: Stores each distinct item metadata only once.
+	static final String ITEM_METADATA_TABLE_NAME = "item_metadata";
+	private static final String CREATE_ITEM_METADATA_TABLE = "CREATE TABLE IF NOT EXISTS "
+			+ ITEM_METADATA_TABLE_NAME + " ("
+			+ "hash CHARACTER(16) PRIMARY KEY, "
+			+ "metadata TEXT NOT NULL"
+			+ ");";
+	private static final String INSERT_ITEM_METADATA = "INSERT OR IGNORE INTO "
+			+ ITEM_METADATA_TABLE_NAME + "(hash, metadata) VALUES(?, ?)";
+	// The number of item metadata hashes that we remember to be already stored:
+	private static final int MAX_KNOWN_ITEM_METADATA = 4096;
+
 	private final String connectionURL;
 
 	private volatile @Nullable String setupFailureReason = null;
 
-	public SQLiteTradeLogger(Plugin plugin) {
+	// Only accessed by the save task:
+	private final Map<String, Boolean> knownItemMetadata = new LRUCache<>(MAX_KNOWN_ITEM_METADATA);
+	// The referenced item metadata that still needs to be inserted, mapped by hash:
+	private final Map<String, String> pendingItemMetadata = new LinkedHashMap<>();
+	// The hashes of the item metadata inserted by the current transaction:
+	private final List<String> insertedItemMetadata = new ArrayList<>();
+
+	public SQLiteTradeLogger(SKShopkeepersPlugin plugin) {
 		super(plugin, TradeLogStorageType.SQLITE);
 
 		this.connectionURL = "jdbc:sqlite:" + tradeLogsFolder.resolve(FILE_NAME);
@@ -98,31 +125,56 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 		try (	Connection connection = getConnection();
 				Statement statement = connection.createStatement()) {
 			statement.execute(CREATE_TABLE);
+			statement.execute(CREATE_ITEM_METADATA_TABLE);
 		} catch (SQLException e) {
-			setupFailureReason = "Could not create table '" + TABLE_NAME + "'.";
+			setupFailureReason = "Could not create tables '" + TABLE_NAME + "' and '"
+					+ ITEM_METADATA_TABLE_NAME + "'.";
 			Log.severe(logPrefix + setupFailureReason, e);
 		}
 	}
 
 	@Override
 	protected void writeTrades(SaveContext saveContext) throws Exception {
-		TradeRecord trade = saveContext.getNextUnsavedTrade();
-		if (trade == null) return; // There are no unsaved trades
+		int batchSize = saveContext.getUnsavedTradesCount();
+		if (batchSize == 0) return; // There are no unsaved trades
 
 		boolean done = false;
 		// TODO Keep the connection open? Cache the PreparedStatement?
 		try (	Connection connection = this.getConnection();
-				PreparedStatement insertStatement = connection.prepareStatement(INSERT_TRADE)) {
-			do {
-				this.insertTrade(insertStatement, trade);
-
-				// Trade successfully saved:
-				saveContext.onTradeSuccessfullySaved();
+				PreparedStatement insertStatement = connection.prepareStatement(INSERT_TRADE);
+				PreparedStatement insertItemMetadataStatement = connection.prepareStatement(
+						INSERT_ITEM_METADATA
+				)) {
+			// Insert the whole batch in a single transaction: This avoids that SQLite syncs each
+			// insert individually, and a failed batch can be retried without logging some of its
+			// trades twice.
+			connection.setAutoCommit(false);
+			insertedItemMetadata.clear();
+			try {
+				for (int offset = 0; offset < batchSize; offset++) {
+					pendingItemMetadata.clear();
+					this.insertTrade(
+							insertStatement,
+							insertItemMetadataStatement,
+							saveContext.getUnsavedTrade(offset)
+					);
+				}
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				try {
+					connection.rollback();
+				} catch (SQLException rollbackException) {
+					e.addSuppressed(rollbackException);
+				}
+				// The item metadata inserted by this transaction has been rolled back as well:
+				insertedItemMetadata.forEach(knownItemMetadata::remove);
+				throw e;
+			} finally {
+				insertedItemMetadata.clear();
+			}
 
-				// Get the next trade to insert:
-				trade = saveContext.getNextUnsavedTrade();
-				if (trade == null) break; // There are no more trades to save
-			} while (true);
+			// Trades successfully saved:
+			saveContext.onTradesSuccessfullySaved(batchSize);
 
 			// We are about to close the connection:
 			done = true;
@@ -130,17 +182,38 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 			if (!done) {
 				throw e;
 			} else {
-				// Since all inserts completed successfully, we assume that the trades have been
-				// successfully saved. We therefore ignore any exceptions raised during the closing
-				// of the connection: The exception is still logged, but it does not trigger a retry
-				// of the trade log attempt.
+				// Since the transaction was successfully committed, we assume that the trades have
+				// been successfully saved. We therefore ignore any exceptions raised during the
+				// closing of the connection: The exception is still logged, but it does not trigger
+				// a retry of the trade log attempt.
 				Log.severe("Failed to close the database connection!", e);
 			}
 		}
 	}
 
-	private void insertTrade(PreparedStatement insertStatement, TradeRecord trade)
+	@Override
+	protected void onItemMetadataReferenced(String hash, String metadata) {
+		if (knownItemMetadata.containsKey(hash)) return;
+		pendingItemMetadata.put(hash, metadata);
+	}
+
+	private void insertPendingItemMetadata(PreparedStatement insertItemMetadataStatement)
 			throws SQLException {
+		for (Entry<String, String> entry : pendingItemMetadata.entrySet()) {
+			insertItemMetadataStatement.setString(1, entry.getKey()); // hash
+			insertItemMetadataStatement.setString(2, entry.getValue()); // metadata
+			insertItemMetadataStatement.executeUpdate();
+			knownItemMetadata.put(entry.getKey(), Boolean.TRUE);
+			insertedItemMetadata.add(entry.getKey());
+		}
+		pendingItemMetadata.clear();
+	}
+
+	private void insertTrade(
+			PreparedStatement insertStatement,
+			PreparedStatement insertItemMetadataStatement,
+			TradeRecord trade
+	) throws SQLException {
 		Instant timestamp = trade.getTimestamp();
 		PlayerRecord player = trade.getPlayer();
 
@@ -194,6 +267,9 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 
 		insertStatement.setInt(21, trade.getTradeCount()); // trade_count
 
+		// Insert any referenced item metadata before the trade:
+		this.insertPendingItemMetadata(insertItemMetadataStatement);
+
 		insertStatement.executeUpdate();
 	}
 }
@@ -0,0 +1,124 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A {@link TaskScheduler} that runs all synchronous tasks on the server's main thread via the
+ * Bukkit scheduler.
+ * <p>
+ * The main thread owns all chunks and entities, so the region and entity specific tasks behave
+ * like regular delayed tasks.
+ */
+public class BukkitTaskScheduler implements TaskScheduler {
+
+	private static final class BukkitScheduledTask implements ScheduledTask {
+
+		private final BukkitTask task;
+
+		BukkitScheduledTask(BukkitTask task) {
+			assert task != null;
+			this.task = task;
+		}
+
+		@Override
+		public void cancel() {
+			task.cancel();
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return task.isCancelled();
+		}
+	}
+
+	private final Plugin plugin;
+
+	/**
+	 * Creates a new {@link BukkitTaskScheduler}.
+	 * 
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 */
+	public BukkitTaskScheduler(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	@Override
+	public Plugin getPlugin() {
+		return plugin;
+	}
+
+	@Override
+	public boolean isGlobalThread() {
+		return SchedulerUtils.isMainThread();
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+		return SchedulerUtils.isMainThread();
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(Entity entity) {
+		return SchedulerUtils.isMainThread();
+	}
+
+	@Override
+	public ScheduledTask runGlobalLater(Runnable task, long delayTicks) {
+		Validate.notNull(task, "task is null");
+		return new BukkitScheduledTask(
+				Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks)
+		);
+	}
+
+	@Override
+	public ScheduledTask runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+		Validate.notNull(task, "task is null");
+		Validate.isTrue(periodTicks > 0, "periodTicks has to be positive");
+		return new BukkitScheduledTask(Bukkit.getScheduler().runTaskTimer(
+				plugin,
+				task,
+				delayTicks,
+				periodTicks
+		));
+	}
+
+	@Override
+	public ScheduledTask runAtChunkLater(
+			World world,
+			int chunkX,
+			int chunkZ,
+			Runnable task,
+			long delayTicks
+	) {
+		Validate.notNull(world, "world is null");
+		return this.runGlobalLater(task, delayTicks);
+	}
+
+	@Override
+	public ScheduledTask runForEntityLater(
+			Entity entity,
+			Runnable task,
+			@Nullable Runnable retired,
+			long delayTicks
+	) {
+		Validate.notNull(entity, "entity is null");
+		// The task is always run, even if the entity is no longer valid (e.g. dead players), and
+		// the retired callback is never run. Callers check the state of the entity themselves:
+		return this.runGlobalLater(task, delayTicks);
+	}
+
+	@Override
+	public ScheduledTask runAsync(Runnable task) {
+		Validate.notNull(task, "task is null");
+		return new BukkitScheduledTask(Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+	}
+}
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.util.bukkit;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -18,6 +20,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.java.MapUtils;
 import com.nisovin.shopkeepers.util.java.StringUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.LogDetectionHandler;
@@ -176,6 +179,33 @@ public final class ConfigUtils {
 		});
 	}
 
+	// Returns a deep copy of the given value in which all serializable elements, as well as
+	// ConfigurationSections, are replaced with their respective serializations. Unlike
+	// serializeDeeply(Map), this also copies Lists and serializes their elements. The returned data
+	// only consists of new Maps and Lists, and the values that are not copied, such as Strings and
+	// numbers, are assumed to be immutable.
+	public static @Nullable Object serializedCopy(@Nullable Object value) {
+		if (value instanceof ConfigurationSerializable) {
+			return serializedCopy(serialize((ConfigurationSerializable) value));
+		} else if (value instanceof ConfigurationSection) {
+			return serializedCopy(getValues((ConfigurationSection) value));
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<Object, @Nullable Object> mapCopy = new LinkedHashMap<>(
+					MapUtils.getIdealHashMapCapacity(map.size())
+			);
+			map.forEach((key, entryValue) -> mapCopy.put(key, serializedCopy(entryValue)));
+			return mapCopy;
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			List<@Nullable Object> listCopy = new ArrayList<>(list.size());
+			list.forEach(element -> listCopy.add(serializedCopy(element)));
+			return listCopy;
+		} else {
+			return value;
+		}
+	}
+
 	// This does not store the given data under any key, but inserts it into the top-level map of a
 	// YamlConfiguration.
 	// Does not return null, even if the given Map is null.
@@ -1,5 +1,10 @@
 package com.nisovin.shopkeepers.util.bukkit;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -9,6 +14,7 @@ import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
 import com.nisovin.shopkeepers.util.data.container.DataContainer;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.MapUtils;
 
 /**
  * Utility functions related to loading and saving Bukkit, Minecraft, and plugin related objects
@@ -63,6 +69,29 @@ public final class DataUtils {
 		return Unsafe.assertNonNull(deserializeItemStack(loadedItemStack));
 	}
 
+	// Copies the given saved data so that it can be saved again: Maps and Lists are recursively
+	// copied, and item stacks are shallow copied (see serializeItemStack). Other values are assumed
+	// to be immutable and are not copied.
+	public static @Nullable Object copyDeeply(@Nullable Object data) {
+		if (data instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) data;
+			Map<Object, @Nullable Object> mapCopy = new LinkedHashMap<>(
+					MapUtils.getIdealHashMapCapacity(map.size())
+			);
+			map.forEach((key, value) -> mapCopy.put(key, copyDeeply(value)));
+			return mapCopy;
+		} else if (data instanceof List) {
+			List<?> list = (List<?>) data;
+			List<@Nullable Object> listCopy = new ArrayList<>(list.size());
+			list.forEach(element -> listCopy.add(copyDeeply(element)));
+			return listCopy;
+		} else if (data instanceof UnmodifiableItemStack) {
+			return serializeItemStack((UnmodifiableItemStack) data);
+		} else {
+			return data;
+		}
+	}
+
 	private DataUtils() {
 	}
 }
@@ -0,0 +1,360 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * A plugin-owned executor for blocking IO, such as file writes, database access, or player data
+ * lookups.
+ * <p>
+ * Each task runs on its own virtual thread, so that blocking IO does not occupy the threads of
+ * the Bukkit scheduler's shared async pool, and our tasks do not queue behind the async tasks of
+ * other plugins.
+ * <p>
+ * Tasks are submitted to a {@link Resource}, which limits the number of its tasks that run
+ * concurrently and keeps track of queue and latency statistics.
+ * <p>
+ * The executor has to be {@link #start() started} before tasks can be submitted, and is
+ * {@link #shutdown(long) shut down} again during plugin disable.
+ */
+public class IOExecutor {
+
+	/**
+	 * A resource, such as a file or database, whose tasks are run with a bounded concurrency.
+	 * <p>
+	 * The statistics of a resource are collected across restarts of the executor.
+	 */
+	public final class Resource {
+
+		private final String name;
+		private final int maxConcurrency;
+		private final Semaphore permits;
+
+		private final AtomicInteger queuedCount = new AtomicInteger();
+		private final AtomicInteger maxQueuedCount = new AtomicInteger();
+		private final AtomicInteger runningCount = new AtomicInteger();
+		private final AtomicLong completedCount = new AtomicLong();
+		private final AtomicLong totalWaitNanos = new AtomicLong();
+		private final AtomicLong maxWaitNanos = new AtomicLong();
+		private final AtomicLong totalExecutionNanos = new AtomicLong();
+		private final AtomicLong maxExecutionNanos = new AtomicLong();
+
+		private Resource(String name, int maxConcurrency) {
+			assert name != null && maxConcurrency > 0;
+			this.name = name;
+			this.maxConcurrency = maxConcurrency;
+			this.permits = new Semaphore(maxConcurrency, true);
+		}
+
+		/**
+		 * Gets the name of this resource.
+		 * 
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the maximum number of tasks of this resource that run concurrently.
+		 * 
+		 * @return the maximum concurrency
+		 */
+		public int getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		/**
+		 * Submits the given task for asynchronous execution.
+		 * <p>
+		 * If the task is cancelled before it starts, it is not run.
+		 * 
+		 * @param task
+		 *            the task, not <code>null</code>
+		 * @return the scheduled task
+		 * @throws IllegalStateException
+		 *             if the executor is not running
+		 */
+		public ScheduledTask submit(Runnable task) {
+			Validate.notNull(task, "task is null");
+			ExecutorService executor = IOExecutor.this.executor;
+			if (executor == null || executor.isShutdown()) {
+				throw new IllegalStateException("The IO executor is not running!");
+			}
+
+			IOTask ioTask = new IOTask(this, task);
+			this.onQueued();
+			try {
+				executor.execute(ioTask);
+			} catch (RuntimeException e) {
+				queuedCount.decrementAndGet();
+				throw e;
+			}
+			return ioTask;
+		}
+
+		private void onQueued() {
+			int queued = queuedCount.incrementAndGet();
+			maxQueuedCount.accumulateAndGet(queued, Math::max);
+		}
+
+		/**
+		 * Gets the number of tasks that wait for their execution.
+		 * 
+		 * @return the number of queued tasks
+		 */
+		public int getQueuedCount() {
+			return queuedCount.get();
+		}
+
+		/**
+		 * Gets the maximum number of tasks that waited for their execution at the same time.
+		 * 
+		 * @return the maximum number of queued tasks
+		 */
+		public int getMaxQueuedCount() {
+			return maxQueuedCount.get();
+		}
+
+		/**
+		 * Gets the number of tasks that are currently running.
+		 * 
+		 * @return the number of running tasks
+		 */
+		public int getRunningCount() {
+			return runningCount.get();
+		}
+
+		/**
+		 * Gets the number of completed tasks.
+		 * 
+		 * @return the number of completed tasks
+		 */
+		public long getCompletedCount() {
+			return completedCount.get();
+		}
+
+		/**
+		 * Gets the average time the completed tasks waited for their execution.
+		 * 
+		 * @return the average wait time in milliseconds
+		 */
+		public double getAverageWaitMillis() {
+			return average(totalWaitNanos.get(), completedCount.get());
+		}
+
+		/**
+		 * Gets the maximum time a completed task waited for its execution.
+		 * 
+		 * @return the maximum wait time in milliseconds
+		 */
+		public double getMaxWaitMillis() {
+			return toMillis(maxWaitNanos.get());
+		}
+
+		/**
+		 * Gets the average execution duration of the completed tasks.
+		 * 
+		 * @return the average execution duration in milliseconds
+		 */
+		public double getAverageExecutionMillis() {
+			return average(totalExecutionNanos.get(), completedCount.get());
+		}
+
+		/**
+		 * Gets the maximum execution duration of the completed tasks.
+		 * 
+		 * @return the maximum execution duration in milliseconds
+		 */
+		public double getMaxExecutionMillis() {
+			return toMillis(maxExecutionNanos.get());
+		}
+
+		private void onCompleted(long waitNanos, long executionNanos) {
+			totalWaitNanos.addAndGet(waitNanos);
+			maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+			totalExecutionNanos.addAndGet(executionNanos);
+			maxExecutionNanos.accumulateAndGet(executionNanos, Math::max);
+			completedCount.incrementAndGet();
+		}
+	}
+
+	private static double average(long totalNanos, long count) {
+		if (count == 0) return 0.0D;
+		return toMillis(totalNanos) / count;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0D;
+	}
+
+	private static final class IOTask implements ScheduledTask, Runnable {
+
+		private final Resource resource;
+		private final Runnable task;
+		private final long submitTimeNanos = System.nanoTime();
+		private final AtomicBoolean cancelled = new AtomicBoolean();
+
+		IOTask(Resource resource, Runnable task) {
+			assert resource != null && task != null;
+			this.resource = resource;
+			this.task = task;
+		}
+
+		@Override
+		public void cancel() {
+			cancelled.set(true);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled.get();
+		}
+
+		@Override
+		public void run() {
+			boolean acquired = false;
+			try {
+				// Blocking the virtual thread while waiting for a permit is cheap:
+				resource.permits.acquire();
+				acquired = true;
+			} catch (InterruptedException e) {
+				// The executor was forcefully shut down:
+				Thread.currentThread().interrupt();
+			} finally {
+				resource.queuedCount.decrementAndGet();
+			}
+			if (!acquired) return;
+
+			try {
+				if (this.isCancelled()) return;
+
+				long startNanos = System.nanoTime();
+				resource.runningCount.incrementAndGet();
+				try {
+					task.run();
+				} catch (Throwable e) {
+					Log.severe("Unhandled exception in IO task of resource '" + resource.name
+							+ "'!", e);
+				} finally {
+					resource.runningCount.decrementAndGet();
+					long endNanos = System.nanoTime();
+					resource.onCompleted(startNanos - submitTimeNanos, endNanos - startNanos);
+				}
+			} finally {
+				resource.permits.release();
+			}
+		}
+	}
+
+	private final String threadNamePrefix;
+	// Insertion order is preserved for the display of the resource statistics:
+	private final Map<String, Resource> resources = new LinkedHashMap<>();
+	private volatile @Nullable ExecutorService executor = null;
+
+	/**
+	 * Creates a new {@link IOExecutor}.
+	 * 
+	 * @param threadNamePrefix
+	 *            the name prefix of the created threads, not <code>null</code> or empty
+	 */
+	public IOExecutor(String threadNamePrefix) {
+		Validate.notEmpty(threadNamePrefix, "threadNamePrefix is null or empty");
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/**
+	 * Gets the resource with the given name, or creates it if it does not exist yet.
+	 * 
+	 * @param name
+	 *            the resource name, not <code>null</code> or empty
+	 * @param maxConcurrency
+	 *            the maximum number of tasks of this resource that run concurrently, positive,
+	 *            only used if the resource is created
+	 * @return the resource
+	 */
+	public Resource getResource(String name, int maxConcurrency) {
+		Validate.notEmpty(name, "name is null or empty");
+		Validate.isTrue(maxConcurrency > 0, "maxConcurrency has to be positive");
+		synchronized (resources) {
+			return resources.computeIfAbsent(name, key -> new Resource(key, maxConcurrency));
+		}
+	}
+
+	/**
+	 * Gets all resources.
+	 * 
+	 * @return an unmodifiable snapshot of the resources
+	 */
+	public Collection<? extends Resource> getResources() {
+		synchronized (resources) {
+			List<Resource> snapshot = new ArrayList<>(resources.values());
+			return Collections.unmodifiableList(snapshot);
+		}
+	}
+
+	/**
+	 * Checks if the executor is running, i.e. if it accepts new tasks.
+	 * 
+	 * @return <code>true</code> if running
+	 */
+	public boolean isRunning() {
+		ExecutorService executor = this.executor;
+		return executor != null && !executor.isShutdown();
+	}
+
+	/**
+	 * Starts the executor.
+	 * <p>
+	 * Has no effect if the executor is already running.
+	 */
+	public void start() {
+		if (this.isRunning()) return;
+
+		executor = Executors.newThreadPerTaskExecutor(
+				Thread.ofVirtual().name(threadNamePrefix, 0L).factory()
+		);
+	}
+
+	/**
+	 * Shuts down the executor and waits for the currently queued and running tasks to complete.
+	 * <p>
+	 * If the tasks do not complete within the given timeout, the remaining tasks are interrupted.
+	 * 
+	 * @param timeoutMillis
+	 *            the timeout in milliseconds
+	 */
+	public void shutdown(long timeoutMillis) {
+		ExecutorService executor = this.executor;
+		if (executor == null) return;
+		this.executor = null;
+
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				Log.warning("Timed out while waiting for the IO tasks to complete! "
+						+ "Remaining IO tasks are interrupted now.");
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
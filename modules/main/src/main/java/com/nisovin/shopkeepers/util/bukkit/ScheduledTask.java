@@ -0,0 +1,22 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+/**
+ * A task that was scheduled via a {@link TaskScheduler}.
+ */
+public interface ScheduledTask {
+
+	/**
+	 * Cancels this task.
+	 * <p>
+	 * If the task is currently running, the current execution is not interrupted, but repeating
+	 * tasks are not run again.
+	 */
+	public void cancel();
+
+	/**
+	 * Checks if this task has been cancelled.
+	 * 
+	 * @return <code>true</code> if cancelled
+	 */
+	public boolean isCancelled();
+}
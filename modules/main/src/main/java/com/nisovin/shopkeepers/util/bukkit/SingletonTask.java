@@ -4,7 +4,6 @@ import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
@@ -56,6 +55,10 @@ public abstract class SingletonTask {
 	}
 
 	private final Plugin plugin;
+	// Runs the synchronous callbacks, and the asynchronous executions if there is no IO resource:
+	private final TaskScheduler scheduler;
+	// Runs the asynchronous executions, if available:
+	private final IOExecutor.@Nullable Resource ioResource;
 	// The lock used to coordinate the main thread with threads executing the task asynchronously.
 	// Note: This lock is not acquired for synchronous executions.
 	// Note: This lock is not provided to the outside of this class, because it is not suited for
@@ -65,8 +68,8 @@ public abstract class SingletonTask {
 	private final Object executionLock = new Object();
 
 	private State state = State.NOT_RUNNING;
-	// The Bukkit task asynchronously executing this task. Only relevant for async executions.
-	private @Nullable BukkitTask asyncTask = null;
+	// The task asynchronously executing this task. Only relevant for async executions.
+	private @Nullable ScheduledTask asyncTask = null;
 	// The (internal) callbacks of the current execution:
 	// Run immediately, possibly asynchronously:
 	private @Nullable Runnable internalCallback = null;
@@ -91,8 +94,45 @@ public abstract class SingletonTask {
 	private long totalDurationMillis;
 
 	public SingletonTask(Plugin plugin) {
+		this(plugin, new BukkitTaskScheduler(plugin));
+	}
+
+	/**
+	 * Creates a new {@link SingletonTask} whose synchronous callbacks are run on the global thread
+	 * of the given {@link TaskScheduler}.
+	 * 
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 * @param scheduler
+	 *            the task scheduler, not <code>null</code>
+	 */
+	public SingletonTask(Plugin plugin, TaskScheduler scheduler) {
+		this(plugin, scheduler, null);
+	}
+
+	/**
+	 * Creates a new {@link SingletonTask} whose synchronous callbacks are run on the global thread
+	 * of the given {@link TaskScheduler}, and whose asynchronous executions are run by the given
+	 * {@link IOExecutor.Resource}.
+	 * 
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 * @param scheduler
+	 *            the task scheduler, not <code>null</code>
+	 * @param ioResource
+	 *            the IO resource, or <code>null</code> to run the asynchronous executions via the
+	 *            task scheduler
+	 */
+	public SingletonTask(
+			Plugin plugin,
+			TaskScheduler scheduler,
+			IOExecutor.@Nullable Resource ioResource
+	) {
 		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(scheduler, "scheduler is null");
 		this.plugin = plugin;
+		this.scheduler = scheduler;
+		this.ioResource = ioResource;
 	}
 
 	/**
@@ -335,10 +375,7 @@ public abstract class SingletonTask {
 			// callback are cancelled and invoked manually.
 			// Also note: If this callback is run from the main thread, the sync callback is run
 			// immediately.
-			SchedulerUtils.runOnMainThreadOrOmit(
-					plugin,
-					Unsafe.assertNonNull(internalSyncCallback)
-			);
+			scheduler.runOnGlobalThreadOrOmit(Unsafe.assertNonNull(internalSyncCallback));
 		};
 
 		// Sync callback: Gets run on the main thread after the execution has completed. This is run
@@ -377,18 +414,32 @@ public abstract class SingletonTask {
 	 */
 	public abstract class InternalAsyncTask implements Runnable {
 
-		private @Nullable BukkitTask task; // Captured Bukkit task
+		private @Nullable ScheduledTask task; // Captured task
 
 		protected InternalAsyncTask() {
 		}
 
-		private BukkitTask runTaskAsynchronously() {
-			this.task = Bukkit.getScheduler().runTaskAsynchronously(plugin, this);
+		private synchronized ScheduledTask runTaskAsynchronously() {
+			// Unlike the Bukkit scheduler, the IO executor may start the task right away. We
+			// capture the task while holding this task's monitor, so that the execution only
+			// starts after the task has been captured.
+			IOExecutor.@Nullable Resource ioResource = SingletonTask.this.ioResource;
+			ScheduledTask task;
+			if (ioResource != null) {
+				task = ioResource.submit(this);
+			} else {
+				task = scheduler.runAsync(this);
+			}
+			this.task = task;
 			return task;
 		}
 
 		@Override
 		public final void run() {
+			@Nullable ScheduledTask task;
+			synchronized (this) {
+				task = this.task;
+			}
 			executeTask(task);
 		}
 	}
@@ -460,7 +511,7 @@ public abstract class SingletonTask {
 	// asyncTask: The async task executing this method. Null for sync executions.
 	// If the async task got cancelled and another execution has already been started, this may not
 	// match the current value of this class' asyncTask variable.
-	private void executeTask(@Nullable BukkitTask asyncTask) {
+	private void executeTask(@Nullable ScheduledTask asyncTask) {
 		if (asyncTask != null) {
 			// Asynchronous execution:
 			// Requires the lock for coordination with the main thread, and might have been
@@ -0,0 +1,219 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Schedules the tasks of a plugin on the threads that own the data that the tasks operate on.
+ * <p>
+ * On servers with regionized threading, the chunks and entities of different regions of a world
+ * are owned and ticked by different threads. Tasks that access a chunk or entity need to run on
+ * the thread that currently owns it. Tasks that are not associated with any particular region run
+ * on the global thread.
+ * <p>
+ * {@link BukkitTaskScheduler} implements this on top of the regular Bukkit scheduler: The server's
+ * main thread owns all chunks and entities and also acts as the global thread.
+ * <p>
+ * Like with the Bukkit scheduler, tasks can only be scheduled while the plugin is enabled.
+ * Otherwise, an {@link IllegalPluginAccessException} is thrown.
+ * <p>
+ * Servers with regionized threading, such as Folia, are not supported yet: The shopkeeper
+ * registry, the chunk activation, and the shop object spawning keep their state in data
+ * structures that are only accessed from the global thread. Routing our tasks through this
+ * scheduler only prepares the scheduling side of such a port.
+ * <p>
+ * TODO Add an implementation on top of Paper's region schedulers (see
+ * {@code io.papermc.paper.threadedregions.scheduler}), which are already part of the Paper API that
+ * we build against. This is deferred until the above data structures are thread-safe, since
+ * running our tasks on different threads before that would break these data structures.
+ */
+public interface TaskScheduler {
+
+	/**
+	 * Gets the plugin whose tasks are scheduled.
+	 * 
+	 * @return the plugin
+	 */
+	public Plugin getPlugin();
+
+	/**
+	 * Checks if the current thread is the global thread.
+	 * 
+	 * @return <code>true</code> if running on the global thread
+	 */
+	public boolean isGlobalThread();
+
+	/**
+	 * Checks if the current thread owns the specified chunk.
+	 * 
+	 * @param world
+	 *            the world, not <code>null</code>
+	 * @param chunkX
+	 *            the chunk x coordinate
+	 * @param chunkZ
+	 *            the chunk z coordinate
+	 * @return <code>true</code> if the current thread owns the chunk
+	 */
+	public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+
+	/**
+	 * Checks if the current thread owns the specified entity.
+	 * 
+	 * @param entity
+	 *            the entity, not <code>null</code>
+	 * @return <code>true</code> if the current thread owns the entity
+	 */
+	public boolean isOwnedByCurrentThread(Entity entity);
+
+	/**
+	 * Runs the given task on the global thread during the next tick.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @return the scheduled task
+	 */
+	public default ScheduledTask runGlobal(Runnable task) {
+		return this.runGlobalLater(task, 0L);
+	}
+
+	/**
+	 * Runs the given task on the global thread after the specified delay.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks
+	 * @return the scheduled task
+	 */
+	public ScheduledTask runGlobalLater(Runnable task, long delayTicks);
+
+	/**
+	 * Runs the given task on the global thread after the specified delay, unless the plugin is
+	 * disabled.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks
+	 * @return the scheduled task, or <code>null</code> if the task could not be scheduled
+	 */
+	public default @Nullable ScheduledTask runGlobalLaterOrOmit(Runnable task, long delayTicks) {
+		Validate.notNull(task, "task is null");
+		// Tasks can only be registered while enabled:
+		if (this.getPlugin().isEnabled()) {
+			try {
+				return this.runGlobalLater(task, delayTicks);
+			} catch (IllegalPluginAccessException e) {
+				// Couldn't register task: The plugin got disabled just now.
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Repeatedly runs the given task on the global thread.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks before the first execution
+	 * @param periodTicks
+	 *            the period in ticks between subsequent executions, positive
+	 * @return the scheduled task
+	 */
+	public ScheduledTask runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+	/**
+	 * Runs the given task on the thread that owns the specified chunk after the specified delay.
+	 * 
+	 * @param world
+	 *            the world, not <code>null</code>
+	 * @param chunkX
+	 *            the chunk x coordinate
+	 * @param chunkZ
+	 *            the chunk z coordinate
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks
+	 * @return the scheduled task
+	 */
+	public ScheduledTask runAtChunkLater(
+			World world,
+			int chunkX,
+			int chunkZ,
+			Runnable task,
+			long delayTicks
+	);
+
+	/**
+	 * Runs the given task on the thread that owns the specified entity after the specified delay.
+	 * <p>
+	 * On servers with regionized threading, the task is not run if the entity is removed before
+	 * the task is run, but the given <code>retired</code> callback is run instead.
+	 * {@link BukkitTaskScheduler} always runs the task and never runs the <code>retired</code>
+	 * callback. Callers therefore need to check the state of the entity themselves when the task
+	 * is run, for example via {@link org.bukkit.entity.Player#isOnline()}:
+	 * {@link Entity#isValid()} is also <code>false</code> for dead players.
+	 * 
+	 * @param entity
+	 *            the entity, not <code>null</code>
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param retired
+	 *            the task to run if the entity has been removed, can be <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks
+	 * @return the scheduled task
+	 */
+	public ScheduledTask runForEntityLater(
+			Entity entity,
+			Runnable task,
+			@Nullable Runnable retired,
+			long delayTicks
+	);
+
+	/**
+	 * Runs the given task asynchronously.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @return the scheduled task
+	 */
+	public ScheduledTask runAsync(Runnable task);
+
+	/**
+	 * Runs the given task on the global thread.
+	 * <p>
+	 * If the current thread is already the global thread, the task is run immediately. Otherwise,
+	 * the task is scheduled, unless the plugin is disabled.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @return <code>true</code> if the task was run or successfully scheduled to be run,
+	 *         <code>false</code> otherwise
+	 */
+	public default boolean runOnGlobalThreadOrOmit(Runnable task) {
+		Validate.notNull(task, "task is null");
+		if (this.isGlobalThread()) {
+			task.run();
+			return true;
+		}
+
+		// Tasks can only be registered while enabled:
+		if (this.getPlugin().isEnabled()) {
+			try {
+				this.runGlobal(task);
+				return true;
+			} catch (IllegalPluginAccessException e) {
+				// Couldn't register task: The plugin got disabled just now.
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,143 @@
+package com.nisovin.shopkeepers.util.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Parses CSV records in the format produced by a default configured {@link CsvFormatter}.
+ * <p>
+ * Fields are separated by commas and may be quoted with double quotes. Double quotes within quoted
+ * fields are escaped by two double quotes. Records usually span a single line. However, quoted
+ * fields may contain unescaped newlines, in which case the record spans several lines. Use
+ * {@link #readRecord(BufferedReader)} to read complete records.
+ */
+public class CsvParser {
+
+	private static final char FIELD_SEPARATOR = ',';
+	private static final char QUOTE = '"';
+
+	// Reused between parsed records:
+	private final StringBuilder fieldBuilder = new StringBuilder();
+
+	public CsvParser() {
+	}
+
+	/**
+	 * Reads the next complete CSV record from the given reader.
+	 * <p>
+	 * This reads lines until the record no longer ends inside a quoted field. The lines are joined
+	 * with <code>\n</code>. If the end of the input is reached inside a quoted field, the
+	 * incomplete record is returned and {@link #parseRecord(String)} fails for it.
+	 * 
+	 * @param reader
+	 *            the reader, not <code>null</code>
+	 * @return the record without its trailing line separator, or <code>null</code> if the end of
+	 *         the input has been reached
+	 * @throws IOException
+	 *             if the reader throws an exception
+	 */
+	public @Nullable String readRecord(BufferedReader reader) throws IOException {
+		Validate.notNull(reader, "reader is null");
+		String line = reader.readLine();
+		if (line == null) return null;
+		if (!endsInsideQuotedField(line)) return line; // Common case
+
+		StringBuilder record = new StringBuilder(line);
+		while (endsInsideQuotedField(record)) {
+			line = reader.readLine();
+			if (line == null) break; // Incomplete record
+			record.append('\n').append(line);
+		}
+		return record.toString();
+	}
+
+	// Uses the same quoting rules as parseRecord:
+	private static boolean endsInsideQuotedField(CharSequence record) {
+		int length = record.length();
+		boolean quoted = false;
+		boolean fieldStart = true;
+		for (int i = 0; i < length; i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c == QUOTE) {
+					if (i + 1 < length && record.charAt(i + 1) == QUOTE) {
+						i++; // Escaped quote
+					} else {
+						quoted = false;
+					}
+				}
+			} else if (c == QUOTE && fieldStart) {
+				quoted = true;
+				fieldStart = false;
+			} else {
+				fieldStart = (c == FIELD_SEPARATOR);
+			}
+		}
+		return quoted;
+	}
+
+	/**
+	 * Parses the fields of the given CSV record.
+	 * <p>
+	 * A trailing record separator is ignored.
+	 * 
+	 * @param record
+	 *            the CSV record, not <code>null</code>
+	 * @return the parsed fields, not <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if the record is malformed, e.g. if a quoted field is not terminated
+	 */
+	public List<String> parseRecord(String record) {
+		Validate.notNull(record, "record is null");
+		int length = record.length();
+		// Ignore a trailing record separator:
+		if (length > 0 && record.charAt(length - 1) == '\n') {
+			length--;
+			if (length > 0 && record.charAt(length - 1) == '\r') {
+				length--;
+			}
+		}
+
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = fieldBuilder;
+		field.setLength(0);
+		boolean quoted = false;
+		boolean fieldWasQuoted = false;
+		for (int i = 0; i < length; i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c == QUOTE) {
+					if (i + 1 < length && record.charAt(i + 1) == QUOTE) {
+						// Escaped quote:
+						field.append(QUOTE);
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					field.append(c);
+				}
+			} else if (c == QUOTE && field.length() == 0 && !fieldWasQuoted) {
+				quoted = true;
+				fieldWasQuoted = true;
+			} else if (c == FIELD_SEPARATOR) {
+				fields.add(field.toString());
+				field.setLength(0);
+				fieldWasQuoted = false;
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field!");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -1,12 +1,16 @@
 package com.nisovin.shopkeepers.util.data.property.value;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.bukkit.DataUtils;
 import com.nisovin.shopkeepers.util.data.container.DataContainer;
 import com.nisovin.shopkeepers.util.data.property.Property;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
@@ -23,6 +27,10 @@ import com.nisovin.shopkeepers.util.logging.Log;
  * <p>
  * If the {@link Property} provides no valid {@link Property#getDefaultValue() default value}, an
  * initial value has to be explicitly set or loaded before {@link #getValue()} is safe to be used.
+ * <p>
+ * The data that is {@link #save(DataContainer) saved} for the current value is remembered and
+ * reused by subsequent saves, until the value changes. Values are therefore expected to be
+ * immutable, or to report their modifications via {@link #markModified()}.
  *
  * @param <T>
  *            the type of the stored value
@@ -65,6 +73,9 @@ public class PropertyValue<T> {
 	private @Nullable T value;
 	// Whether the value has not yet been initialized to a valid value.
 	private boolean requireInitialValue = false;
+	// The data that was saved for the current value, or null if the value was not yet saved since
+	// it was last changed:
+	private @Nullable Map<? extends String, @NonNull ?> savedData = null;
 
 	/**
 	 * Creates a new {@link PropertyValue} for the given {@link Property}.
@@ -220,6 +231,7 @@ public class PropertyValue<T> {
 		if (Objects.equals(oldValue, value)) return; // Value has not changed
 		this.value = value;
 		this.requireInitialValue = false;
+		this.savedData = null;
 
 		// Post-value-change actions:
 		if (updateFlags.contains(DefaultUpdateFlag.MARK_DIRTY)) {
@@ -333,16 +345,50 @@ public class PropertyValue<T> {
 		this.setValue(value, updateFlags);
 	}
 
+	/**
+	 * Informs this {@link PropertyValue} that its current value has been modified in place.
+	 * <p>
+	 * This discards the data that was previously saved for the value, so that the next
+	 * {@link #save(DataContainer)} serializes the value again. This does not mark the
+	 * {@link #getHolder() holder} as {@link AbstractPropertyValuesHolder#markDirty() dirty}.
+	 */
+	public final void markModified() {
+		this.validateBuilt();
+		savedData = null;
+	}
+
 	/**
 	 * Saves the value of this {@link PropertyValue} into the given {@link DataContainer}.
 	 * <p>
-	 * This uses {@link Property#save(DataContainer, Object)} to save the value.
+	 * This uses {@link Property#save(DataContainer, Object)} to save the value. If the value has
+	 * not changed since it was last saved, the previously saved data is copied into the given
+	 * {@link DataContainer} instead.
 	 * 
 	 * @param dataContainer
 	 *            the data container, not <code>null</code>
 	 */
 	public final void save(DataContainer dataContainer) {
 		this.validateBuilt();
-		property.save(dataContainer, value);
+		Validate.notNull(dataContainer, "dataContainer is null");
+		if (value == null) {
+			// Saving null values may remove data from the data container:
+			property.save(dataContainer, value);
+			return;
+		}
+
+		Map<? extends String, @NonNull ?> savedData = this.savedData;
+		if (savedData == null) {
+			DataContainer valueData = DataContainer.create();
+			property.save(valueData, value);
+			savedData = valueData.getValues();
+			this.savedData = savedData;
+		}
+
+		// The saved data is copied, because the receiver may modify it, and because the same Map
+		// and item stack instances are not supposed to end up in multiple places of the same Yaml
+		// document:
+		for (Entry<? extends String, @NonNull ?> entry : savedData.entrySet()) {
+			dataContainer.set(entry.getKey(), DataUtils.copyDeeply(entry.getValue()));
+		}
 	}
 }
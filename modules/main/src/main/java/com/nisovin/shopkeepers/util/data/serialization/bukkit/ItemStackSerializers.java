@@ -7,6 +7,7 @@ import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.bukkit.DataUtils;
 import com.nisovin.shopkeepers.util.data.serialization.DataSerializer;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
+import com.nisovin.shopkeepers.util.inventory.SKUnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 /**
@@ -69,6 +70,31 @@ public final class ItemStackSerializers {
 		}
 	};
 
+	/**
+	 * A {@link DataSerializer} for {@link UnmodifiableItemStack} values that
+	 * {@link SKUnmodifiableItemStack#intern(UnmodifiableItemStack) interns} the deserialized item
+	 * stacks.
+	 * <p>
+	 * This is meant for item stacks that are stored in large numbers and are often equal, such as
+	 * the items of shopkeeper offers.
+	 */
+	public static final DataSerializer<UnmodifiableItemStack> INTERNED = new DataSerializer<UnmodifiableItemStack>() {
+		@Override
+		public @Nullable Object serialize(UnmodifiableItemStack value) {
+			return UNMODIFIABLE.serialize(value);
+		}
+
+		@Override
+		public UnmodifiableItemStack deserialize(Object data) throws InvalidDataException {
+			if (data instanceof UnmodifiableItemStack) {
+				return SKUnmodifiableItemStack.intern((UnmodifiableItemStack) data);
+			}
+			// Else: The freshly deserialized item stack is not referenced anywhere else, so we can
+			// intern it without copying it first:
+			return SKUnmodifiableItemStack.intern(DEFAULT.deserialize(data));
+		}
+	};
+
 	private ItemStackSerializers() {
 	}
 }
@@ -313,6 +313,9 @@ public final class ItemData {
 	// Cache serialized item metadata, to avoid serializing it again for every comparison:
 	// Gets lazily initialized when needed.
 	private @ReadOnly @Nullable Map<? extends String, @ReadOnly @NonNull ?> serializedMetaData = null;
+	// Lazily compiled matchers (with and without partial list matching):
+	private @Nullable ItemDataMatcher matcher = null;
+	private @Nullable ItemDataMatcher partialListsMatcher = null;
 
 	public ItemData(Material type) {
 		// Unmodifiable wrapper: Avoids creating another item copy during construction.
@@ -415,8 +418,9 @@ public final class ItemData {
 		return ItemUtils.copyWithAmount(dataItem, amount);
 	}
 
+	// Equal item stacks created by this method share the same interned instance.
 	public UnmodifiableItemStack createUnmodifiableItemStack(int amount) {
-		return UnmodifiableItemStack.ofNonNull(this.createItemStack(amount));
+		return SKUnmodifiableItemStack.intern(this.createItemStack(amount));
 	}
 
 	public boolean isSimilar(@ReadOnly @Nullable ItemStack other) {
@@ -437,12 +441,44 @@ public final class ItemData {
 
 	public boolean matches(@ReadOnly @Nullable ItemStack item, boolean matchPartialLists) {
 		// Same type and matching data:
-		return ItemUtils.matchesData(
-				item,
-				this.getType(),
-				this.getSerializedMetaData(),
-				matchPartialLists
-		);
+		return this.getMatcher(matchPartialLists).matches(item);
+	}
+
+	/**
+	 * Gets the {@link ItemDataMatcher} for this {@link ItemData}.
+	 * <p>
+	 * The matcher is lazily compiled and then cached.
+	 * 
+	 * @param matchPartialLists
+	 *            whether the matcher matches partial lists
+	 * @return the matcher, not <code>null</code>
+	 */
+	public ItemDataMatcher getMatcher(boolean matchPartialLists) {
+		if (matchPartialLists) {
+			ItemDataMatcher partialListsMatcher = this.partialListsMatcher;
+			if (partialListsMatcher == null) {
+				partialListsMatcher = new ItemDataMatcher(
+						this.getType(),
+						dataItem.getItemMeta(),
+						this.getSerializedMetaData(),
+						true
+				);
+				this.partialListsMatcher = partialListsMatcher;
+			}
+			return partialListsMatcher;
+		} else {
+			ItemDataMatcher matcher = this.matcher;
+			if (matcher == null) {
+				matcher = new ItemDataMatcher(
+						this.getType(),
+						dataItem.getItemMeta(),
+						this.getSerializedMetaData(),
+						false
+				);
+				this.matcher = matcher;
+			}
+			return matcher;
+		}
 	}
 
 	public boolean matches(@Nullable UnmodifiableItemStack item, boolean matchPartialLists) {
@@ -0,0 +1,244 @@
+package com.nisovin.shopkeepers.util.inventory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A precompiled matcher that checks if items match the type and serialized metadata of an
+ * {@link ItemData}.
+ * <p>
+ * Deep matching requires to copy and serialize the {@link ItemMeta} of the candidate item, which
+ * is costly, especially when done for every slot of a container. This matcher therefore first
+ * compares a cheap fingerprint of the candidate item with a fingerprint that is precomputed from
+ * the {@link ItemData}, and only performs the full deep matching for candidates that pass this
+ * check:
+ * <ul>
+ * <li>Items of a different type are rejected without accessing their metadata.
+ * <li>If the {@link ItemData} has no metadata, items of the same type always match.
+ * <li>For items without metadata, the matching result only depends on the item type and is
+ * precomputed.
+ * <li>For items with metadata, we check if the candidate provides all of the well-known metadata
+ * entries (e.g. display name, lore, enchantments, ...) required by the {@link ItemData}, using the
+ * cheap {@link ItemMeta} accessors instead of serializing the metadata.
+ * <li>We then compare the values of these entries with those of the {@link ItemData}, again using
+ * the {@link ItemMeta} accessors: The values that need to be equal (display name, item name,
+ * custom model data, and the lore if we do not match partial lists) are compared via a hash that
+ * is precomputed for the {@link ItemData}. For the values that only need to be contained in the
+ * candidate's values (enchantments, the keys of the persistent data, and the lore if we match
+ * partial lists), we check that they are contained.
+ * </ul>
+ * These checks only reject candidates whose serialized metadata would also not match: The values
+ * returned by the accessors are derived from the same state as the serialized metadata, and the
+ * serialized data of the {@link ItemData} is the serialization of the {@link ItemMeta} that the
+ * expected values are taken from. The matching results are therefore the same as those of the
+ * full deep matching.
+ */
+public final class ItemDataMatcher {
+
+	// Well-known top-level keys of the serialized item metadata, and their fingerprint bits:
+	private static final String DISPLAY_NAME_KEY = "display-name";
+	private static final String ITEM_NAME_KEY = "item-name";
+	private static final String LORE_KEY = "lore";
+	private static final String ENCHANTS_KEY = "enchants";
+	private static final String CUSTOM_MODEL_DATA_KEY = "custom-model-data";
+	private static final String PERSISTENT_DATA_KEY = "PublicBukkitValues";
+
+	private static final int DISPLAY_NAME = 1 << 0;
+	private static final int ITEM_NAME = 1 << 1;
+	private static final int LORE = 1 << 2;
+	private static final int ENCHANTS = 1 << 3;
+	private static final int CUSTOM_MODEL_DATA = 1 << 4;
+	private static final int PERSISTENT_DATA = 1 << 5;
+
+	private static int getRequiredEntries(
+			@ReadOnly Map<? extends String, @ReadOnly @NonNull ?> data
+	) {
+		int requiredEntries = 0;
+		if (data.containsKey(DISPLAY_NAME_KEY)) requiredEntries |= DISPLAY_NAME;
+		if (data.containsKey(ITEM_NAME_KEY)) requiredEntries |= ITEM_NAME;
+		if (data.containsKey(LORE_KEY)) requiredEntries |= LORE;
+		if (data.containsKey(ENCHANTS_KEY)) requiredEntries |= ENCHANTS;
+		if (data.containsKey(CUSTOM_MODEL_DATA_KEY)) requiredEntries |= CUSTOM_MODEL_DATA;
+		if (data.containsKey(PERSISTENT_DATA_KEY)) requiredEntries |= PERSISTENT_DATA;
+		return requiredEntries;
+	}
+
+	// Only checks the entries that are required, since some of these checks are not free.
+	// The values of these entries are subsequently compared by the caller.
+	private static boolean hasEntries(@ReadOnly ItemMeta itemMeta, int requiredEntries) {
+		if ((requiredEntries & DISPLAY_NAME) != 0 && !itemMeta.hasDisplayName()) return false;
+		if ((requiredEntries & ITEM_NAME) != 0 && !itemMeta.hasItemName()) return false;
+		if ((requiredEntries & LORE) != 0 && !itemMeta.hasLore()) return false;
+		if ((requiredEntries & ENCHANTS) != 0 && !itemMeta.hasEnchants()) return false;
+		if ((requiredEntries & CUSTOM_MODEL_DATA) != 0 && !itemMeta.hasCustomModelData()) {
+			return false;
+		}
+		if ((requiredEntries & PERSISTENT_DATA) != 0
+				&& itemMeta.getPersistentDataContainer().isEmpty()) {
+			return false;
+		}
+		return true;
+	}
+
+	// Hashes the values of the required entries that need to be equal.
+	private static int hashEqualValues(
+			@ReadOnly ItemMeta itemMeta,
+			int requiredEntries,
+			boolean matchPartialLists
+	) {
+		int hash = 1;
+		if ((requiredEntries & DISPLAY_NAME) != 0) {
+			hash = 31 * hash + itemMeta.getDisplayName().hashCode();
+		}
+		if ((requiredEntries & ITEM_NAME) != 0) {
+			hash = 31 * hash + itemMeta.getItemName().hashCode();
+		}
+		if ((requiredEntries & CUSTOM_MODEL_DATA) != 0) {
+			hash = 31 * hash + itemMeta.getCustomModelData();
+		}
+		if ((requiredEntries & LORE) != 0 && !matchPartialLists) {
+			hash = 31 * hash + Objects.hashCode(itemMeta.getLore());
+		}
+		return hash;
+	}
+
+	private final Material type;
+	private final @ReadOnly Map<? extends String, @ReadOnly @NonNull ?> data;
+	private final boolean matchPartialLists;
+	private final boolean hasData;
+	private final int requiredEntries;
+	private final int equalValuesHash;
+	// Null if not required:
+	private final @Nullable Map<? extends Enchantment, ? extends Integer> requiredEnchants;
+	private final @Nullable Set<? extends NamespacedKey> requiredPersistentDataKeys;
+	// Only set if we match partial lists:
+	private final @Nullable List<? extends String> requiredLoreLines;
+	// The result for items of the same type but without metadata:
+	private final boolean matchesEmptyMetadata;
+
+	/**
+	 * Creates a new {@link ItemDataMatcher}.
+	 * 
+	 * @param type
+	 *            the item type, not <code>null</code>
+	 * @param itemMeta
+	 *            the item metadata, or <code>null</code> if the data is empty
+	 * @param data
+	 *            the serialized item metadata, not <code>null</code>, has to be the serialization
+	 *            of the given item metadata
+	 * @param matchPartialLists
+	 *            <code>true</code> to match partial lists
+	 */
+	ItemDataMatcher(
+			Material type,
+			@ReadOnly @Nullable ItemMeta itemMeta,
+			@ReadOnly Map<? extends String, @ReadOnly @NonNull ?> data,
+			boolean matchPartialLists
+	) {
+		Validate.notNull(type, "type is null");
+		Validate.notNull(data, "data is null");
+		Validate.isTrue(data.isEmpty() || itemMeta != null, "itemMeta is null");
+		this.type = type;
+		this.data = data;
+		this.matchPartialLists = matchPartialLists;
+		this.hasData = !data.isEmpty();
+		this.requiredEntries = getRequiredEntries(data);
+		if (itemMeta != null && requiredEntries != 0) {
+			this.equalValuesHash = hashEqualValues(itemMeta, requiredEntries, matchPartialLists);
+			this.requiredEnchants = ((requiredEntries & ENCHANTS) != 0)
+					? itemMeta.getEnchants()
+					: null;
+			this.requiredPersistentDataKeys = ((requiredEntries & PERSISTENT_DATA) != 0)
+					? itemMeta.getPersistentDataContainer().getKeys()
+					: null;
+			this.requiredLoreLines = ((requiredEntries & LORE) != 0 && matchPartialLists)
+					? itemMeta.getLore()
+					: null;
+		} else {
+			this.equalValuesHash = 1;
+			this.requiredEnchants = null;
+			this.requiredPersistentDataKeys = null;
+			this.requiredLoreLines = null;
+		}
+		if (hasData) {
+			// Same as the data of items without metadata (getItemMeta returns an empty ItemMeta):
+			ItemMeta emptyItemMeta = new ItemStack(type).getItemMeta();
+			this.matchesEmptyMetadata = ItemUtils.matchesData(
+					ItemSerialization.serializeItemMetaOrEmpty(emptyItemMeta),
+					data,
+					matchPartialLists
+			);
+		} else {
+			this.matchesEmptyMetadata = true;
+		}
+	}
+
+	/**
+	 * Checks if the given item matches the type and data of this matcher.
+	 * 
+	 * @param item
+	 *            the item, can be <code>null</code>
+	 * @return <code>true</code> if the item matches
+	 */
+	public boolean matches(@ReadOnly @Nullable ItemStack item) {
+		if (item == null) return false;
+		if (item.getType() != type) return false;
+		if (!hasData) return true;
+		if (!item.hasItemMeta()) return matchesEmptyMetadata;
+
+		ItemMeta itemMeta = item.getItemMeta();
+		if (itemMeta == null) return false; // Not expected if the item has metadata
+		if (!hasEntries(itemMeta, requiredEntries)) return false;
+		if (!this.hasValues(itemMeta)) return false;
+
+		// Full deep matching:
+		return ItemUtils.matchesData(itemMeta, data, matchPartialLists);
+	}
+
+	// Assumes that the item provides all required entries.
+	private boolean hasValues(@ReadOnly ItemMeta itemMeta) {
+		if (requiredEntries == 0) return true;
+		if (hashEqualValues(itemMeta, requiredEntries, matchPartialLists) != equalValuesHash) {
+			return false;
+		}
+
+		Map<? extends Enchantment, ? extends Integer> requiredEnchants = this.requiredEnchants;
+		if (requiredEnchants != null) {
+			Map<Enchantment, Integer> enchants = itemMeta.getEnchants();
+			for (Entry<? extends Enchantment, ? extends Integer> required
+					: requiredEnchants.entrySet()) {
+				if (!required.getValue().equals(enchants.get(required.getKey()))) return false;
+			}
+		}
+
+		Set<? extends NamespacedKey> requiredPersistentDataKeys = this.requiredPersistentDataKeys;
+		if (requiredPersistentDataKeys != null
+				&& !itemMeta.getPersistentDataContainer().getKeys().containsAll(
+						requiredPersistentDataKeys
+				)) {
+			return false;
+		}
+
+		List<? extends String> requiredLoreLines = this.requiredLoreLines;
+		if (requiredLoreLines != null) {
+			List<String> lore = itemMeta.getLore();
+			if (lore == null || lore.size() < requiredLoreLines.size()) return false;
+			if (!lore.containsAll(requiredLoreLines)) return false;
+		}
+		return true;
+	}
+}
@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.util.inventory;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -1060,27 +1061,97 @@ public final class ItemUtils {
 			/*if (dataList.isEmpty()) {
 				return targetList.isEmpty();
 			}*/
-			// Avoid loop (TODO: only works if dataList doesn't contain duplicate entries):
-			if (dataList.size() > targetList.size()) {
+			int targetSize = targetList.size();
+			if (dataList.size() > targetSize) {
 				return false;
 			}
-			for (Object dataEntry : dataList) {
-				boolean dataContained = false;
-				for (Object targetEntry : targetList) {
-					if (_matchesData(targetEntry, dataEntry, matchPartialLists)) {
-						dataContained = true;
-						break;
-					}
-				}
-				if (!dataContained) {
+			// Each target entry can only be matched by a single data entry, so that duplicate data
+			// entries require the target list to contain the entry at least as often:
+			return new ListEntryAssignment(targetList, dataList, matchPartialLists).assignAll();
+		}
+
+		// Check if objects are equal:
+		return data.equals(target);
+	}
+
+	/**
+	 * Assigns each data list entry a different matching target list entry.
+	 * <p>
+	 * Assigning the data entries greedily to the first matching target entry can fail even if there
+	 * is a valid assignment (e.g. data {@code [{x}, {x, y}]} and target {@code [{x, y}, {x, z}]}).
+	 * We therefore search for augmenting paths: If all target entries that match a data entry are
+	 * already assigned, we try to reassign the data entries that they are assigned to.
+	 */
+	private static final class ListEntryAssignment {
+
+		private static final byte UNKNOWN = 0;
+		private static final byte MATCHING = 1;
+		private static final byte NOT_MATCHING = 2;
+
+		private final @ReadOnly List<?> targetList;
+		private final @ReadOnly List<?> dataList;
+		private final boolean matchPartialLists;
+		private final int targetSize;
+		// Lazily evaluated, since the matching of entries can be costly:
+		private final byte[] matchResults;
+		// Target entry index -> assigned data entry index, or -1:
+		private final int[] assignedDataEntries;
+		private final boolean[] visitedTargetEntries;
+
+		ListEntryAssignment(
+				@ReadOnly List<?> targetList,
+				@ReadOnly List<?> dataList,
+				boolean matchPartialLists
+		) {
+			this.targetList = targetList;
+			this.dataList = dataList;
+			this.matchPartialLists = matchPartialLists;
+			this.targetSize = targetList.size();
+			this.matchResults = new byte[dataList.size() * targetSize];
+			this.assignedDataEntries = new int[targetSize];
+			Arrays.fill(assignedDataEntries, -1);
+			this.visitedTargetEntries = new boolean[targetSize];
+		}
+
+		boolean assignAll() {
+			for (int dataIndex = 0; dataIndex < dataList.size(); dataIndex++) {
+				Arrays.fill(visitedTargetEntries, false);
+				if (!this.assign(dataIndex)) {
 					return false;
 				}
 			}
 			return true;
 		}
 
-		// Check if objects are equal:
-		return data.equals(target);
+		private boolean assign(int dataIndex) {
+			for (int targetIndex = 0; targetIndex < targetSize; targetIndex++) {
+				if (visitedTargetEntries[targetIndex]) continue;
+				if (!this.matches(dataIndex, targetIndex)) continue;
+
+				visitedTargetEntries[targetIndex] = true;
+				int assignedDataIndex = assignedDataEntries[targetIndex];
+				if (assignedDataIndex == -1 || this.assign(assignedDataIndex)) {
+					assignedDataEntries[targetIndex] = dataIndex;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean matches(int dataIndex, int targetIndex) {
+			int resultIndex = dataIndex * targetSize + targetIndex;
+			byte result = matchResults[resultIndex];
+			if (result == UNKNOWN) {
+				boolean matches = _matchesData(
+						targetList.get(targetIndex),
+						dataList.get(dataIndex),
+						matchPartialLists
+				);
+				result = matches ? MATCHING : NOT_MATCHING;
+				matchResults[resultIndex] = result;
+			}
+			return result == MATCHING;
+		}
 	}
 
 	// PREDICATES
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.util.inventory;
 
+import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.bukkit.Material;
 import org.bukkit.configuration.serialization.DelegateDeserialization;
@@ -10,8 +12,11 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.nullness.qual.PolyNull;
 
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
+import com.nisovin.shopkeepers.util.bukkit.DataUtils;
 
 /**
  * An unmodifiable view on an {@link ItemStack}.
@@ -29,16 +34,108 @@ public class SKUnmodifiableItemStack implements UnmodifiableItemStack {
 	 */
 	public static @PolyNull UnmodifiableItemStack of(@ReadOnly @PolyNull ItemStack itemStack) {
 		if (itemStack == null) return null;
-		return new SKUnmodifiableItemStack(itemStack);
+		return new SKUnmodifiableItemStack(itemStack, false, null);
+	}
+
+	// Weakly references the interned item stacks: The interned item stacks are also used as the
+	// keys of this Map, so that we can look up the interned instance that is equal to a given item
+	// stack. An interned item stack is removed once it is no longer referenced anywhere else.
+	private static final Map<SKUnmodifiableItemStack, WeakReference<SKUnmodifiableItemStack>> INTERNED
+			= new WeakHashMap<>();
+
+	/**
+	 * Gets the interned {@link UnmodifiableItemStack} that is equal to the given {@link ItemStack}.
+	 * <p>
+	 * Equal interned item stacks share the same instance, which reduces the memory usage when the
+	 * same items are used in many places (e.g. the currency items and common goods in the offers
+	 * of many shops), and allows equality checks between them to be decided by identity. The
+	 * interned item stacks also cache their hash code and their serialized data. The
+	 * {@link #shallowCopy() shallow copies} of an interned item stack share this serialized data.
+	 * <p>
+	 * Like with {@link #of(ItemStack)}, the given item stack is expected to not be modified
+	 * afterwards.
+	 * 
+	 * @param itemStack
+	 *            the item stack, can be <code>null</code>
+	 * @return the interned unmodifiable item stack, or <code>null</code> if the given item stack
+	 *         is <code>null</code>
+	 */
+	public static @PolyNull UnmodifiableItemStack intern(@ReadOnly @PolyNull ItemStack itemStack) {
+		if (itemStack == null) return null;
+		SKUnmodifiableItemStack candidate = new SKUnmodifiableItemStack(itemStack, true, null);
+		synchronized (INTERNED) {
+			@Nullable WeakReference<SKUnmodifiableItemStack> internedRef = INTERNED.get(candidate);
+			@Nullable SKUnmodifiableItemStack interned = null;
+			if (internedRef != null) {
+				interned = internedRef.get();
+			}
+			if (interned != null) {
+				// Some server implementations compare Bukkit ItemStacks and CraftItemStacks
+				// differently. We therefore only reuse the interned item stack if it has the same
+				// type:
+				if (interned.delegate.getClass() == itemStack.getClass()) {
+					return interned;
+				} else {
+					return new SKUnmodifiableItemStack(itemStack, false, null);
+				}
+			}
+
+			INTERNED.put(candidate, new WeakReference<>(candidate));
+			return candidate;
+		}
+	}
+
+	/**
+	 * Gets the interned {@link UnmodifiableItemStack} that is equal to the given
+	 * {@link UnmodifiableItemStack}.
+	 * 
+	 * @param itemStack
+	 *            the item stack, can be <code>null</code>
+	 * @return the interned unmodifiable item stack, or <code>null</code> if the given item stack
+	 *         is <code>null</code>
+	 * @see #intern(ItemStack)
+	 */
+	public static @PolyNull UnmodifiableItemStack intern(
+			@PolyNull UnmodifiableItemStack itemStack
+	) {
+		if (itemStack == null) return null;
+		if (itemStack instanceof SKUnmodifiableItemStack) {
+			SKUnmodifiableItemStack skItemStack = (SKUnmodifiableItemStack) itemStack;
+			@Nullable SKUnmodifiableItemStack interned = skItemStack.getInterned();
+			if (interned != null) return interned;
+			return intern(skItemStack.delegate);
+		}
+		return intern(itemStack.copy());
 	}
 
 	// ----
 
 	private final ItemStack delegate;
+	// Interned item stacks are known to be immutable, so we can cache their hash code and
+	// serialized data:
+	private final boolean interned;
+	// The interned item stack that this item stack is a shallow copy of, or null:
+	private final @Nullable SKUnmodifiableItemStack internedOrigin;
+	private int hash = 0; // 0 if not yet calculated
+	// Only consists of Maps, Lists, and immutable values. Null if not yet serialized.
+	private volatile @Nullable Map<String, Object> serializedData = null;
 
-	private SKUnmodifiableItemStack(@ReadOnly ItemStack itemStack) {
+	private SKUnmodifiableItemStack(
+			@ReadOnly ItemStack itemStack,
+			boolean interned,
+			@Nullable SKUnmodifiableItemStack internedOrigin
+	) {
 		assert itemStack != null;
+		assert internedOrigin == null || (!interned && internedOrigin.interned);
 		this.delegate = itemStack;
+		this.interned = interned;
+		this.internedOrigin = internedOrigin;
+	}
+
+	// Returns this item stack if it is interned, or the interned item stack that it is a shallow
+	// copy of, or null.
+	private @Nullable SKUnmodifiableItemStack getInterned() {
+		return interned ? this : internedOrigin;
 	}
 
 	/**
@@ -63,7 +160,8 @@ public class SKUnmodifiableItemStack implements UnmodifiableItemStack {
 
 	@Override
 	public UnmodifiableItemStack shallowCopy() {
-		return UnmodifiableItemStack.ofNonNull(delegate);
+		// Shallow copies of interned item stacks share the cached serialized data:
+		return new SKUnmodifiableItemStack(delegate, false, this.getInterned());
 	}
 
 	@Override
@@ -116,7 +214,17 @@ public class SKUnmodifiableItemStack implements UnmodifiableItemStack {
 
 	@Override
 	public int hashCode() {
-		return delegate.hashCode();
+		if (!interned) {
+			if (internedOrigin != null) return internedOrigin.hashCode();
+			return delegate.hashCode();
+		}
+
+		int hash = this.hash;
+		if (hash == 0) {
+			hash = delegate.hashCode();
+			this.hash = hash;
+		}
+		return hash;
 	}
 
 	@Override
@@ -136,7 +244,21 @@ public class SKUnmodifiableItemStack implements UnmodifiableItemStack {
 
 	@Override
 	public Map<String, Object> serialize() {
-		return delegate.serialize();
+		@Nullable SKUnmodifiableItemStack interned = this.getInterned();
+		if (interned == null) return delegate.serialize();
+
+		// The serialization of the item meta is comparably costly, and the offers of all dirty
+		// shopkeepers are serialized again whenever they are saved, even if only some other
+		// shopkeeper property has changed:
+		@Nullable Map<String, Object> serializedData = interned.serializedData;
+		if (serializedData == null) {
+			// Benign race: Concurrent saves may serialize the same item stack more than once.
+			serializedData = Unsafe.castNonNull(ConfigUtils.serializedCopy(delegate.serialize()));
+			interned.serializedData = serializedData;
+		}
+		// Returns a copy, because the caller may modify the returned Map, and because the same Map
+		// instances are not supposed to end up in multiple places of the same Yaml document:
+		return Unsafe.castNonNull(DataUtils.copyDeeply(serializedData));
 	}
 
 	@Override
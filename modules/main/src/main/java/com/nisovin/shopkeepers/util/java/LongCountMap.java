@@ -0,0 +1,166 @@
+package com.nisovin.shopkeepers.util.java;
+
+/**
+ * A map from primitive <code>long</code> keys to positive <code>int</code> counts.
+ * <p>
+ * This is implemented as an open addressing hash table with linear probing, and therefore does not
+ * box its keys or values and does not allocate any objects per entry. Keys whose count drops to
+ * zero are removed.
+ */
+public final class LongCountMap {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static int mix(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private long[] keys;
+	// A count of 0 marks an empty slot:
+	private int[] counts;
+	private int mask;
+	private int size = 0;
+
+	public LongCountMap() {
+		this.keys = new long[DEFAULT_CAPACITY];
+		this.counts = new int[DEFAULT_CAPACITY];
+		this.mask = DEFAULT_CAPACITY - 1;
+	}
+
+	/**
+	 * Gets the number of keys with a positive count.
+	 * 
+	 * @return the number of keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Returns the slot of the given key, or the empty slot at which the key would be inserted:
+	private int findSlot(long key) {
+		int slot = mix(key) & mask;
+		while (counts[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Gets the count of the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the count, or <code>0</code> if the key is not contained
+	 */
+	public int get(long key) {
+		return counts[this.findSlot(key)];
+	}
+
+	/**
+	 * Checks if the given key has a positive count.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return <code>true</code> if the key is contained
+	 */
+	public boolean contains(long key) {
+		return this.get(key) != 0;
+	}
+
+	/**
+	 * Increments the count of the given key by one.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the new count
+	 */
+	public int increment(long key) {
+		int slot = this.findSlot(key);
+		int count = counts[slot];
+		if (count == 0) {
+			keys[slot] = key;
+			size++;
+		}
+		counts[slot] = ++count;
+		// Keep the load factor at or below 0.5:
+		if (size > (mask + 1) / 2) {
+			this.resize((mask + 1) * 2);
+		}
+		return count;
+	}
+
+	/**
+	 * Decrements the count of the given key by one, and removes the key if its count drops to
+	 * zero.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the new count, or <code>0</code> if the key was not contained
+	 */
+	public int decrement(long key) {
+		int slot = this.findSlot(key);
+		int count = counts[slot];
+		if (count == 0) return 0;
+		if (count > 1) {
+			counts[slot] = --count;
+			return count;
+		}
+		this.removeSlot(slot);
+		size--;
+		return 0;
+	}
+
+	// Backward shift deletion: Moves subsequent entries of the probe sequence into the freed slot.
+	private void removeSlot(int slot) {
+		int last = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & mask;
+			if (counts[current] == 0) {
+				counts[last] = 0;
+				return;
+			}
+			int ideal = mix(keys[current]) & mask;
+			// Skip entries whose ideal slot lies cyclically within (last, current]:
+			boolean skip = (last <= current)
+					? (last < ideal && ideal <= current)
+					: (last < ideal || ideal <= current);
+			if (skip) continue;
+
+			keys[last] = keys[current];
+			counts[last] = counts[current];
+			last = current;
+		}
+	}
+
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new long[newCapacity];
+		counts = new int[newCapacity];
+		mask = newCapacity - 1;
+		for (int i = 0; i < oldCounts.length; i++) {
+			int count = oldCounts[i];
+			if (count == 0) continue;
+			int slot = this.findSlot(oldKeys[i]);
+			keys[slot] = oldKeys[i];
+			counts[slot] = count;
+		}
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	public void clear() {
+		if (size == 0) return;
+		keys = new long[DEFAULT_CAPACITY];
+		counts = new int[DEFAULT_CAPACITY];
+		mask = DEFAULT_CAPACITY - 1;
+		size = 0;
+	}
+}
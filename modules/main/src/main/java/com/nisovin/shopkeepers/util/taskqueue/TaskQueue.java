@@ -3,17 +3,15 @@ package com.nisovin.shopkeepers.util.taskqueue;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
-import org.bukkit.Bukkit;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 /**
- * A {@link BukkitScheduler} task that processes a queue of work units.
+ * A task that processes a queue of work units on the global thread of a {@link TaskScheduler}.
  * <p>
  * A {@link TaskQueue} has two main characteristics: The rate at which the task executes and can
  * therefore process pending work units, and how many of these work units it processes per
@@ -64,28 +62,28 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 	// - We expect actual removals to occur relatively infrequently (whereas checking if the queue
 	// contains an element that needs to be removed may occur comparatively more often).
 
-	private final Plugin plugin;
+	private final TaskScheduler scheduler;
 	private final int taskPeriodTicks;
 	private final int workUnitsPerExecution;
 	private final Queue<@NonNull T> pending = new ArrayDeque<>();
 	private int maxPending = 0;
-	private @Nullable BukkitTask task = null;
+	private @Nullable ScheduledTask task = null;
 
 	/**
 	 * Creates a new {@link TaskQueue}.
 	 * 
-	 * @param plugin
-	 *            the plugin, not <code>null</code>
+	 * @param scheduler
+	 *            the task scheduler, not <code>null</code>
 	 * @param taskPeriodTicks
 	 *            the period ticks of the task processing work units
 	 * @param workUnitsPerExecution
 	 *            the number of work units that are processed per task execution
 	 */
-	public TaskQueue(Plugin plugin, int taskPeriodTicks, int workUnitsPerExecution) {
-		Validate.notNull(plugin, "plugin is null");
+	public TaskQueue(TaskScheduler scheduler, int taskPeriodTicks, int workUnitsPerExecution) {
+		Validate.notNull(scheduler, "scheduler is null");
 		Validate.isTrue(taskPeriodTicks > 0, "taskPeriodTicks has to be positive");
 		Validate.isTrue(workUnitsPerExecution > 0, "workUnitsPerExecution has to be positive");
-		this.plugin = plugin;
+		this.scheduler = scheduler;
 		this.taskPeriodTicks = taskPeriodTicks;
 		this.workUnitsPerExecution = workUnitsPerExecution;
 	}
@@ -188,7 +186,7 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 		}
 
 		// Start new task:
-		task = Bukkit.getScheduler().runTaskTimer(plugin, this.createTask(), 1, taskPeriodTicks);
+		task = scheduler.runGlobalTimer(this.createTask(), 1, taskPeriodTicks);
 	}
 
 	private void stopTask() {
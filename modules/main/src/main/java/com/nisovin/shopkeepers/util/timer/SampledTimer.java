@@ -0,0 +1,114 @@
+package com.nisovin.shopkeepers.util.timer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.nisovin.shopkeepers.util.java.MathUtils;
+import com.nisovin.shopkeepers.util.java.TimeUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A {@link Timer} that retains a window of the most recent timings in order to provide percentiles,
+ * and that can optionally track the number of bytes that are allocated between
+ * {@link #start() start} and {@link #stop() stop}.
+ * <p>
+ * The samples are stored in a fixed-size ring buffer of primitive values, so recording a timing
+ * does not allocate any objects.
+ */
+public class SampledTimer extends Timer implements SampledTimings {
+
+	public static final int DEFAULT_MAX_SAMPLES = 1200;
+
+	private final long[] samples;
+	private int nextSampleIndex = 0;
+	private int sampleCount = 0;
+
+	private boolean trackAllocations = false;
+	private long startAllocatedBytes = -1L;
+	private long allocatedBytes = 0L;
+
+	public SampledTimer() {
+		this(DEFAULT_MAX_SAMPLES);
+	}
+
+	public SampledTimer(int maxSamples) {
+		Validate.isTrue(maxSamples > 0, "maxSamples has to be positive");
+		this.samples = new long[maxSamples];
+	}
+
+	@Override
+	public void start() {
+		if (trackAllocations) {
+			startAllocatedBytes = ThreadAllocations.getCurrentThreadAllocatedBytes();
+		}
+		super.start();
+	}
+
+	@Override
+	protected void onTimingCompleted(long elapsedTimeNanos) {
+		super.onTimingCompleted(elapsedTimeNanos);
+
+		// Record the sample:
+		samples[nextSampleIndex] = elapsedTimeNanos;
+		nextSampleIndex = (nextSampleIndex + 1) % samples.length;
+		if (sampleCount < samples.length) {
+			sampleCount++;
+		}
+
+		// Update the allocated bytes:
+		if (trackAllocations && startAllocatedBytes >= 0L) {
+			long endAllocatedBytes = ThreadAllocations.getCurrentThreadAllocatedBytes();
+			if (endAllocatedBytes >= startAllocatedBytes) {
+				allocatedBytes += (endAllocatedBytes - startAllocatedBytes);
+			}
+		}
+		startAllocatedBytes = -1L;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		nextSampleIndex = 0;
+		sampleCount = 0;
+		allocatedBytes = 0L;
+	}
+
+	// SAMPLES
+
+	@Override
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	@Override
+	public double getPercentileMillis(double percentile) {
+		Validate.isTrue(percentile >= 0.0D && percentile <= 100.0D,
+				"percentile has to be in range [0, 100]");
+		if (sampleCount == 0) return 0.0D;
+
+		long[] sortedSamples = Arrays.copyOf(samples, sampleCount);
+		Arrays.sort(sortedSamples);
+		// Nearest-rank method:
+		int rank = (int) Math.ceil(percentile / 100.0D * sampleCount);
+		int index = MathUtils.trim(rank - 1, 0, sampleCount - 1);
+		return TimeUtils.convert(sortedSamples[index], TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS);
+	}
+
+	// ALLOCATIONS
+
+	@Override
+	public boolean isTrackingAllocations() {
+		return trackAllocations;
+	}
+
+	@Override
+	public void setTrackingAllocations(boolean trackAllocations) {
+		this.trackAllocations = trackAllocations && ThreadAllocations.isSupported();
+		startAllocatedBytes = -1L;
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+}
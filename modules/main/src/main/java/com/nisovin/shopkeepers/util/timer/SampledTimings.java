@@ -0,0 +1,50 @@
+package com.nisovin.shopkeepers.util.timer;
+
+/**
+ * {@link Timings} that additionally retain a window of the most recent individual timings, which
+ * allows to inspect the distribution of processing times, and that optionally track the number of
+ * bytes that were allocated by the monitored task.
+ */
+public interface SampledTimings extends Timings {
+
+	/**
+	 * Gets the number of retained samples.
+	 * 
+	 * @return the number of retained samples
+	 */
+	public int getSampleCount();
+
+	/**
+	 * Gets the given percentile of the retained samples in milliseconds.
+	 * 
+	 * @param percentile
+	 *            the percentile, within the range {@code [0, 100]}
+	 * @return the percentile in milliseconds, or {@code 0} if there are no samples
+	 */
+	public double getPercentileMillis(double percentile);
+
+	/**
+	 * Checks whether the tracking of allocated bytes is currently enabled.
+	 * 
+	 * @return <code>true</code> if allocations are tracked
+	 */
+	public boolean isTrackingAllocations();
+
+	/**
+	 * Enables or disables the tracking of allocated bytes.
+	 * <p>
+	 * This has no effect if the JVM does not support measuring thread allocations.
+	 * 
+	 * @param trackAllocations
+	 *            <code>true</code> to track allocations
+	 */
+	public void setTrackingAllocations(boolean trackAllocations);
+
+	/**
+	 * Gets the total number of bytes that were allocated by the monitored task since the tracking
+	 * of allocations has been enabled, or since the last reset.
+	 * 
+	 * @return the total number of allocated bytes
+	 */
+	public long getAllocatedBytes();
+}
@@ -0,0 +1,59 @@
+package com.nisovin.shopkeepers.util.timer;
+
+import java.lang.management.ManagementFactory;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Measures the number of bytes that have been allocated by the current thread.
+ * <p>
+ * This relies on the HotSpot specific {@code com.sun.management.ThreadMXBean} and is not available
+ * on all JVMs.
+ */
+public final class ThreadAllocations {
+
+	private static final com.sun.management.@Nullable ThreadMXBean THREAD_MX_BEAN;
+	static {
+		com.sun.management.@Nullable ThreadMXBean threadMXBean = null;
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+				if (sunBean.isThreadAllocatedMemorySupported()) {
+					if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+						sunBean.setThreadAllocatedMemoryEnabled(true);
+					}
+					threadMXBean = sunBean;
+				}
+			}
+		} catch (Throwable e) {
+			Log.debug(() -> "Thread allocation measurements are not supported: " + e);
+		}
+		THREAD_MX_BEAN = threadMXBean;
+	}
+
+	/**
+	 * Checks if the JVM supports measuring thread allocations.
+	 * 
+	 * @return <code>true</code> if supported
+	 */
+	public static boolean isSupported() {
+		return THREAD_MX_BEAN != null;
+	}
+
+	/**
+	 * Gets the total number of bytes that have been allocated by the current thread so far.
+	 * 
+	 * @return the number of allocated bytes, or <code>-1</code> if not supported
+	 */
+	public static long getCurrentThreadAllocatedBytes() {
+		com.sun.management.@Nullable ThreadMXBean threadMXBean = THREAD_MX_BEAN;
+		if (threadMXBean == null) return -1L;
+		return threadMXBean.getCurrentThreadAllocatedBytes();
+	}
+
+	private ThreadAllocations() {
+	}
+}
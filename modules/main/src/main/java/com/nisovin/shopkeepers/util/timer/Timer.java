@@ -87,6 +87,17 @@ public class Timer implements Timings {
 		if (elapsedTimeNanos > maxTimeNanos) {
 			maxTimeNanos = elapsedTimeNanos;
 		}
+
+		this.onTimingCompleted(elapsedTimeNanos);
+	}
+
+	/**
+	 * This is invoked whenever a timing has been completed.
+	 * 
+	 * @param elapsedTimeNanos
+	 *            the duration of the completed timing in nanoseconds
+	 */
+	protected void onTimingCompleted(long elapsedTimeNanos) {
 	}
 
 	// TIMINGS
@@ -0,0 +1,315 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawnQueue;
+import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawnQueues;
+import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
+import com.nisovin.shopkeepers.testutil.ServerStandIn;
+import com.nisovin.shopkeepers.testutil.StandInTaskScheduler;
+import com.nisovin.shopkeepers.util.timer.SampledTimings;
+
+/**
+ * An offline harness that measures the per-tick cost of the shopkeeper ticking and spawning
+ * workloads without a running server.
+ * <p>
+ * The harness places synthetic shopkeepers across a square area of chunks and moves simulated
+ * players through this area. The real {@link ShopkeeperTicker} and {@link ShopkeeperSpawnQueue}
+ * run on the global thread of a {@link StandInTaskScheduler}, and only their timings are reported.
+ * The harness interacts with them only on the global thread as well, and asserts that their
+ * callbacks are invoked on the global thread.
+ * <p>
+ * The chunk activation is only simulated by the harness in order to produce this workload: Chunks
+ * within view distance of a player are activated, and their shopkeepers start ticking and are
+ * queued for spawning. Since this does not run the plugin's chunk activation, it is not measured.
+ * The same applies to the mob behavior of shop objects, which is not simulated at all. These
+ * require a running server and can be measured with the <code>debugBenchmark</code> command.
+ * <p>
+ * Arguments are given as <code>key=value</code> pairs: <code>shopkeepers</code>,
+ * <code>chunks</code>, <code>players</code>, <code>ticks</code>, <code>warmup</code>,
+ * <code>view-distance</code>, <code>seed</code>. With Gradle:
+ * <code>./gradlew tickHarness -PtickHarnessArgs="shopkeepers=5000 players=50"</code>
+ */
+public final class ShopkeeperTickHarness {
+
+	// Blocks per tick, roughly walking speed:
+	private static final double PLAYER_SPEED = 0.2D;
+	private static final int PLAYER_DIRECTION_CHANGE_TICKS = 100;
+
+	public static void main(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Invalid argument (expected key=value): " + arg);
+			}
+			options.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+
+		ServerStandIn.setup();
+
+		ShopkeeperTickHarness harness = new ShopkeeperTickHarness(
+				getInt(options, "shopkeepers", 2000),
+				getInt(options, "chunks", 400),
+				getInt(options, "players", 20),
+				getInt(options, "ticks", 6000),
+				getInt(options, "warmup", 600),
+				getInt(options, "view-distance", 8),
+				getInt(options, "seed", 1)
+		);
+		harness.run();
+	}
+
+	private static int getInt(Map<String, String> options, String key, int defaultValue) {
+		String value = options.get(key);
+		if (value == null) return defaultValue;
+		return Integer.parseInt(value);
+	}
+
+	private static double clamp(double coordinate, double maxCoordinate) {
+		return Math.max(0.0D, Math.min(coordinate, maxCoordinate));
+	}
+
+	private static long chunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	private final int shopkeeperCount;
+	private final int chunkCount;
+	private final int ticks;
+	private final int warmupTicks;
+	private final int viewDistance;
+	private final Random random;
+
+	// The side length of the square area of chunks:
+	private final int areaChunks;
+	private final double[] playerXs;
+	private final double[] playerZs;
+	private final double[] playerDirections;
+	private final long[] playerChunks;
+
+	private final StandInTaskScheduler scheduler = new StandInTaskScheduler();
+	private final ShopkeeperTicker ticker;
+	private final ShopkeeperSpawnQueue spawnQueue;
+
+	private final Map<Long, List<SimulatedShopkeeper>> shopkeepersByChunk = new HashMap<>();
+	private Set<Long> activeChunks = new HashSet<>();
+
+
+	private long delayedSaves = 0L;
+	private long spawns = 0L;
+	private long chunkActivations = 0L;
+	private long chunkDeactivations = 0L;
+
+	private ShopkeeperTickHarness(
+			int shopkeeperCount,
+			int chunkCount,
+			int playerCount,
+			int ticks,
+			int warmupTicks,
+			int viewDistance,
+			int seed
+	) {
+		this.shopkeeperCount = shopkeeperCount;
+		this.chunkCount = chunkCount;
+		this.ticks = ticks;
+		this.warmupTicks = warmupTicks;
+		this.viewDistance = viewDistance;
+		this.random = new Random(seed);
+		this.areaChunks = Math.max(1, (int) Math.ceil(Math.sqrt(chunkCount)));
+		this.playerXs = new double[playerCount];
+		this.playerZs = new double[playerCount];
+		this.playerDirections = new double[playerCount];
+		this.playerChunks = new long[playerCount];
+
+		this.ticker = new ShopkeeperTicker(scheduler, () -> {
+			scheduler.assertGlobalThread();
+			delayedSaves++;
+		});
+		this.spawnQueue = ShopkeeperSpawnQueues.create(scheduler, shopkeeper -> {
+			scheduler.assertGlobalThread();
+			((SimulatedShopkeeper) shopkeeper).setSpawned(true);
+			spawns++;
+		});
+	}
+
+	private void run() {
+		scheduler.runOnGlobalThread(() -> {
+			ticker.onEnable();
+			spawnQueue.start();
+		});
+
+		// Place the shopkeepers in randomly chosen chunks of the area:
+		for (int id = 1; id <= shopkeeperCount; id++) {
+			int chunkIndex = random.nextInt(chunkCount);
+			int chunkX = chunkIndex % areaChunks;
+			int chunkZ = chunkIndex / areaChunks;
+			double x = (chunkX << 4) + random.nextDouble() * 16.0D;
+			double z = (chunkZ << 4) + random.nextDouble() * 16.0D;
+			SimulatedShopkeeper shopkeeper = new SimulatedShopkeeper(id, x, z);
+			shopkeepersByChunk.computeIfAbsent(chunkKey(chunkX, chunkZ), key -> new ArrayList<>())
+					.add(shopkeeper);
+		}
+
+		// Place the players randomly:
+		double areaBlocks = areaChunks * 16.0D;
+		for (int i = 0; i < playerXs.length; i++) {
+			playerXs[i] = random.nextDouble() * areaBlocks;
+			playerZs[i] = random.nextDouble() * areaBlocks;
+			playerDirections[i] = random.nextDouble() * 2 * Math.PI;
+		}
+		scheduler.runOnGlobalThread(this::updateActiveChunks);
+
+		scheduler.runOnGlobalThread(() -> this.setTrackingAllocations(true));
+		for (int tick = 0; tick < warmupTicks + ticks; tick++) {
+			if (tick == warmupTicks) {
+				scheduler.runOnGlobalThread(this::resetTimings);
+			}
+
+			this.tick();
+		}
+
+		this.printReport();
+
+		scheduler.runOnGlobalThread(() -> {
+			// Deactivate all chunks before shutting down, so that the ticker ends up empty:
+			for (Long chunkKey : activeChunks) {
+				this.deactivateChunk(chunkKey);
+			}
+			activeChunks = Collections.emptySet();
+			spawnQueue.shutdown();
+			ticker.onDisable();
+		});
+		scheduler.shutdown();
+	}
+
+	private void tick() {
+		long currentTick = scheduler.getCurrentTick();
+
+		// Move the players and update the active chunks if any player moved into another chunk:
+		boolean chunkChanged = false;
+		double maxCoordinate = areaChunks * 16.0D;
+		for (int i = 0; i < playerXs.length; i++) {
+			if (currentTick % PLAYER_DIRECTION_CHANGE_TICKS == i % PLAYER_DIRECTION_CHANGE_TICKS) {
+				playerDirections[i] = random.nextDouble() * 2 * Math.PI;
+			}
+			playerXs[i] = clamp(playerXs[i] + Math.cos(playerDirections[i]) * PLAYER_SPEED,
+					maxCoordinate);
+			playerZs[i] = clamp(playerZs[i] + Math.sin(playerDirections[i]) * PLAYER_SPEED,
+					maxCoordinate);
+			long chunk = chunkKey((int) playerXs[i] >> 4, (int) playerZs[i] >> 4);
+			if (chunk != playerChunks[i]) {
+				chunkChanged = true;
+			}
+		}
+		if (chunkChanged) {
+			scheduler.runOnGlobalThread(this::updateActiveChunks);
+		}
+
+		// Ticks the shopkeepers and processes the spawn queue:
+		scheduler.tick();
+	}
+
+	private void updateActiveChunks() {
+		Set<Long> newActiveChunks = new HashSet<>();
+		for (int i = 0; i < playerXs.length; i++) {
+			int playerChunkX = (int) playerXs[i] >> 4;
+			int playerChunkZ = (int) playerZs[i] >> 4;
+			playerChunks[i] = chunkKey(playerChunkX, playerChunkZ);
+			for (int dx = -viewDistance; dx <= viewDistance; dx++) {
+				for (int dz = -viewDistance; dz <= viewDistance; dz++) {
+					newActiveChunks.add(chunkKey(playerChunkX + dx, playerChunkZ + dz));
+				}
+			}
+		}
+
+		for (Long chunkKey : activeChunks) {
+			if (!newActiveChunks.contains(chunkKey)) {
+				this.deactivateChunk(chunkKey);
+			}
+		}
+		for (Long chunkKey : newActiveChunks) {
+			if (!activeChunks.contains(chunkKey)) {
+				this.activateChunk(chunkKey);
+			}
+		}
+		activeChunks = newActiveChunks;
+	}
+
+	private void activateChunk(Long chunkKey) {
+		chunkActivations++;
+		List<SimulatedShopkeeper> shopkeepers = shopkeepersByChunk.get(chunkKey);
+		if (shopkeepers == null) return;
+		for (SimulatedShopkeeper shopkeeper : shopkeepers) {
+			ticker.startTicking(shopkeeper);
+			spawnQueue.add(shopkeeper);
+		}
+	}
+
+	private void deactivateChunk(Long chunkKey) {
+		chunkDeactivations++;
+		List<SimulatedShopkeeper> shopkeepers = shopkeepersByChunk.get(chunkKey);
+		if (shopkeepers == null) return;
+		for (SimulatedShopkeeper shopkeeper : shopkeepers) {
+			ticker.stopTicking(shopkeeper);
+			// Only has an effect if the shopkeeper is still pending to be spawned:
+			spawnQueue.remove(shopkeeper);
+			shopkeeper.setSpawned(false);
+		}
+	}
+
+	private void setTrackingAllocations(boolean trackAllocations) {
+		ticker.getTickTimings().setTrackingAllocations(trackAllocations);
+		spawnQueue.getSpawnTimings().setTrackingAllocations(trackAllocations);
+	}
+
+	private void resetTimings() {
+		ticker.getTickTimings().reset();
+		spawnQueue.getSpawnTimings().reset();
+		delayedSaves = 0L;
+		spawns = 0L;
+		chunkActivations = 0L;
+		chunkDeactivations = 0L;
+	}
+
+	private void printReport() {
+		System.out.println("Shopkeepers: " + shopkeeperCount + ", chunks: " + chunkCount
+				+ ", players: " + playerXs.length + ", ticks: " + ticks
+				+ " (+" + warmupTicks + " warmup), view distance: " + viewDistance);
+		System.out.println("Spawns: " + spawns + ", chunk activations: " + chunkActivations
+				+ ", chunk deactivations: " + chunkDeactivations
+				+ ", delayed saves: " + delayedSaves);
+		System.out.println("Pending scheduler tasks: " + scheduler.getPendingTaskCount()
+				+ ", max pending spawns: " + spawnQueue.getMaxPendingCount());
+		this.printTimings("Shopkeeper ticking", ticker.getTickTimings());
+		this.printTimings("Spawn queue", spawnQueue.getSpawnTimings());
+	}
+
+	private void printTimings(String name, SampledTimings timings) {
+		int samples = timings.getSampleCount();
+		String allocations = "n/a";
+		if (timings.isTrackingAllocations()) {
+			long bytesPerSample = samples > 0 ? timings.getAllocatedBytes() / samples : 0L;
+			long bytesPerTick = ticks > 0 ? timings.getAllocatedBytes() / ticks : 0L;
+			allocations = bytesPerSample + " B/run, " + bytesPerTick + " B/tick";
+		}
+		System.out.println(String.format(
+				"%-20s runs=%-6d avg=%.4fms p50=%.4fms p95=%.4fms p99=%.4fms max=%.4fms alloc=%s",
+				name,
+				samples,
+				timings.getAverageTimeMillis(),
+				timings.getPercentileMillis(50.0D),
+				timings.getPercentileMillis(95.0D),
+				timings.getPercentileMillis(99.0D),
+				timings.getMaxTimeMillis(),
+				allocations
+		));
+	}
+}
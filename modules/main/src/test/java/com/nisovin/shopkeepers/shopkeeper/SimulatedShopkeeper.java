@@ -0,0 +1,108 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+
+/**
+ * A synthetic shopkeeper for the {@link ShopkeeperTickHarness}.
+ * <p>
+ * The shopkeeper has no shop type and no shop object. Its ticks only count the ticks, so that the
+ * harness measures the overhead of the ticker and spawn queue themselves.
+ */
+public class SimulatedShopkeeper extends AbstractShopkeeper {
+
+	private final int id;
+	private final double x;
+	private final double z;
+	private final int chunkX;
+	private final int chunkZ;
+
+	private boolean spawned = false;
+	private long tickCount = 0L;
+
+	SimulatedShopkeeper(int id, double x, double z) {
+		this.id = id;
+		this.x = x;
+		this.z = z;
+		this.chunkX = (int) Math.floor(x) >> 4;
+		this.chunkZ = (int) Math.floor(z) >> 4;
+	}
+
+	public int getSimulatedId() {
+		return id;
+	}
+
+	public double getPosX() {
+		return x;
+	}
+
+	public double getPosZ() {
+		return z;
+	}
+
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkZ() {
+		return chunkZ;
+	}
+
+	public boolean isSpawned() {
+		return spawned;
+	}
+
+	public void setSpawned(boolean spawned) {
+		this.spawned = spawned;
+	}
+
+	@Override
+	public AbstractShopType<?> getType() {
+		throw new UnsupportedOperationException("Simulated shopkeepers have no shop type!");
+	}
+
+	@Override
+	public boolean hasTradingRecipes(@Nullable Player player) {
+		return false;
+	}
+
+	@Override
+	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+		return Collections.emptyList();
+	}
+
+	// TICKING
+
+	// The following overrides skip the shop object, since simulated shopkeepers have none.
+
+	@Override
+	protected void onStartTicking() {
+	}
+
+	@Override
+	protected void onStopTicking() {
+	}
+
+	@Override
+	protected void onTickStart() {
+	}
+
+	@Override
+	protected void onTick() {
+		if (!this.isTicking()) return;
+		tickCount++;
+	}
+
+	@Override
+	protected void onTickEnd() {
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+}
@@ -0,0 +1,22 @@
+package com.nisovin.shopkeepers.shopkeeper.spawning;
+
+import java.util.function.Consumer;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
+
+/**
+ * Creates {@link ShopkeeperSpawnQueue}s for tests that run without the plugin.
+ */
+public final class ShopkeeperSpawnQueues {
+
+	public static ShopkeeperSpawnQueue create(
+			TaskScheduler scheduler,
+			Consumer<? super AbstractShopkeeper> spawner
+	) {
+		return new ShopkeeperSpawnQueue(scheduler, spawner);
+	}
+
+	private ShopkeeperSpawnQueues() {
+	}
+}
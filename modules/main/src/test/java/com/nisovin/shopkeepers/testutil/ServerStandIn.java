@@ -0,0 +1,66 @@
+package com.nisovin.shopkeepers.testutil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.craftbukkit.CraftRegistry;
+import org.bukkit.craftbukkit.inventory.CraftItemFactory;
+import org.bukkit.craftbukkit.util.CraftMagicNumbers;
+import org.bukkit.plugin.PluginManager;
+
+import com.nisovin.shopkeepers.util.logging.Log;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.Bootstrap;
+
+/**
+ * Sets up a Bukkit {@link Server} stand-in, backed by the bootstrapped built-in Minecraft
+ * registries, for tests that run without a server.
+ * <p>
+ * The stand-in provides the item factory and registries that are required to create item stacks
+ * and to load the plugin's default settings. It has no worlds or online players, and its plugin
+ * manager ignores listener registrations and events.
+ */
+public final class ServerStandIn {
+
+	private static final Logger LOGGER = Logger.getLogger("Shopkeepers");
+
+	// Gets set up once and then never reset:
+	private static boolean setup = false;
+
+	public static synchronized void setup() {
+		if (setup) return;
+		setup = true;
+
+		// Bootstrap Minecraft:
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+		CraftRegistry.setMinecraftRegistry(
+				RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY)
+		);
+
+		PluginManager pluginManager = StandIns.create(PluginManager.class, new HashMap<>());
+
+		Map<String, StandIns.Handler> handlers = new HashMap<>();
+		handlers.put("getLogger", args -> LOGGER);
+		handlers.put("getName", args -> "ServerStandIn");
+		handlers.put("getVersion", args -> "test");
+		handlers.put("getBukkitVersion", args -> SharedConstants.getCurrentVersion().getName());
+		handlers.put("getItemFactory", args -> CraftItemFactory.instance());
+		handlers.put("getUnsafe", args -> CraftMagicNumbers.INSTANCE);
+		handlers.put("getPluginManager", args -> pluginManager);
+		handlers.put("getViewDistance", args -> 10);
+		handlers.put("isPrimaryThread", args -> true);
+		Bukkit.setServer(StandIns.create(Server.class, handlers));
+
+		Log.setLogger(LOGGER);
+	}
+
+	private ServerStandIn() {
+	}
+}
@@ -0,0 +1,455 @@
+package com.nisovin.shopkeepers.testutil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.bukkit.ScheduledTask;
+import com.nisovin.shopkeepers.util.bukkit.TaskScheduler;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A deterministic {@link TaskScheduler} for tests that run without a server, which mimics the
+ * threading of servers with regionized threading.
+ * <p>
+ * Time only advances when {@link #tick()} is called. The global tasks, the asynchronous tasks, and
+ * the tasks of each region run on their own dedicated threads. Chunks are grouped into square
+ * regions of {@link #REGION_SIZE_CHUNKS} x {@link #REGION_SIZE_CHUNKS} chunks, and entity tasks run
+ * in the region of the chunk that the entity is located in when the task is run.
+ * <p>
+ * To keep the tests deterministic, the threads do not run concurrently: Each tick first runs the
+ * due asynchronous tasks, then the due global tasks, and then the due tasks of each region, in the
+ * order in which the regions were first used. The tasks of each thread run in the order in which
+ * they were scheduled.
+ * <p>
+ * Before a task is run, we assert that its thread owns the task's chunk or entity. The thread that
+ * calls {@link #tick()}, i.e. usually the test itself, owns no region and is not the global
+ * thread: Tests use {@link #runOnGlobalThread(Runnable)} to interact with components that expect
+ * to be called on the global thread, and can use {@link #assertGlobalThread()} to assert that
+ * callbacks are invoked on the global thread.
+ */
+public class StandInTaskScheduler implements TaskScheduler {
+
+	private static final int REGION_SHIFT = 3;
+	public static final int REGION_SIZE_CHUNKS = 1 << REGION_SHIFT;
+
+	private static final class RegionKey {
+
+		// Compared by identity:
+		private final World world;
+		private final int regionX;
+		private final int regionZ;
+
+		RegionKey(World world, int chunkX, int chunkZ) {
+			this.world = world;
+			this.regionX = chunkX >> REGION_SHIFT;
+			this.regionZ = chunkZ >> REGION_SHIFT;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(world);
+			result = 31 * result + regionX;
+			result = 31 * result + regionZ;
+			return result;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof RegionKey)) return false;
+			RegionKey other = (RegionKey) obj;
+			return world == other.world && regionX == other.regionX && regionZ == other.regionZ;
+		}
+
+		@Override
+		public String toString() {
+			return "region(" + regionX + "," + regionZ + ")";
+		}
+	}
+
+	private static final class Region {
+
+		private final String name;
+		private final ExecutorService executor;
+		private volatile @Nullable Thread thread = null;
+
+		Region(String name) {
+			this.name = name;
+			this.executor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "StandInTaskScheduler-" + name);
+				thread.setDaemon(true);
+				this.thread = thread;
+				return thread;
+			});
+		}
+
+		boolean isCurrentThread() {
+			return thread == Thread.currentThread();
+		}
+
+		void runAndWait(Runnable task) {
+			Future<?> future = executor.submit(task);
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for " + name + "!", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+				if (cause instanceof Error error) throw error;
+				throw new IllegalStateException("Task of " + name + " failed!", cause);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private final class StandInTask implements ScheduledTask {
+
+		private final Runnable task;
+		// Null for entity tasks:
+		private final @Nullable Region region;
+		private final @Nullable Entity entity;
+		private final @Nullable Runnable retired;
+		private final long periodTicks; // 0 if not repeating
+		private long nextRunTick;
+		private volatile boolean cancelled = false;
+
+		StandInTask(Runnable task, Region region, long nextRunTick, long periodTicks) {
+			this.task = task;
+			this.region = region;
+			this.entity = null;
+			this.retired = null;
+			this.nextRunTick = nextRunTick;
+			this.periodTicks = periodTicks;
+		}
+
+		StandInTask(Runnable task, Entity entity, @Nullable Runnable retired, long nextRunTick) {
+			this.task = task;
+			this.region = null;
+			this.entity = entity;
+			this.retired = retired;
+			this.nextRunTick = nextRunTick;
+			this.periodTicks = 0L;
+		}
+
+		// Entity tasks run in the entity's current region, or on the global thread if the entity
+		// has been removed:
+		Region getRegion() {
+			Region region = this.region;
+			if (region != null) return region;
+			Entity entity = this.entity;
+			assert entity != null;
+			if (!entity.isValid()) return globalRegion;
+			return getEntityRegion(entity);
+		}
+
+		void run(Region currentRegion) {
+			if (cancelled) return; // Cancelled by a previous task
+			if (periodTicks > 0) {
+				nextRunTick = currentTick + periodTicks;
+			} else {
+				cancelled = true;
+			}
+
+			Entity entity = this.entity;
+			if (entity != null && !entity.isValid()) {
+				Runnable retired = this.retired;
+				if (retired != null) {
+					retired.run();
+				}
+				return;
+			}
+
+			if (!currentRegion.isCurrentThread()) {
+				throw new AssertionError("Task of " + currentRegion + " is run on thread "
+						+ Thread.currentThread().getName() + "!");
+			}
+			if (entity != null && !isOwnedByCurrentThread(entity)) {
+				throw new AssertionError("Entity task is run on thread "
+						+ Thread.currentThread().getName() + ", which does not own the entity!");
+			}
+			task.run();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	private final Plugin plugin;
+	private final Region asyncRegion = new Region("async");
+	private final Region globalRegion = new Region("global");
+	// In the order in which they were first used:
+	private final Map<RegionKey, Region> regions = new LinkedHashMap<>();
+	// Guarded by itself:
+	private final List<StandInTask> tasks = new ArrayList<>();
+	private volatile long currentTick = 0L;
+
+	public StandInTaskScheduler() {
+		Map<String, StandIns.Handler> handlers = new HashMap<>();
+		handlers.put("getName", args -> "Shopkeepers");
+		handlers.put("isEnabled", args -> true);
+		handlers.put("getLogger", args -> Logger.getLogger("Shopkeepers"));
+		this.plugin = StandIns.create(Plugin.class, handlers);
+	}
+
+	/**
+	 * Gets the current tick.
+	 * 
+	 * @return the current tick
+	 */
+	public long getCurrentTick() {
+		return currentTick;
+	}
+
+	/**
+	 * Gets the number of scheduled tasks that have not been cancelled yet.
+	 * 
+	 * @return the number of pending tasks
+	 */
+	public int getPendingTaskCount() {
+		synchronized (tasks) {
+			return (int) tasks.stream().filter(task -> !task.cancelled).count();
+		}
+	}
+
+	private Region getRegion(World world, int chunkX, int chunkZ) {
+		synchronized (regions) {
+			RegionKey key = new RegionKey(world, chunkX, chunkZ);
+			return regions.computeIfAbsent(key, k -> new Region(k.toString()));
+		}
+	}
+
+	private Region getEntityRegion(Entity entity) {
+		Location location = entity.getLocation();
+		return this.getRegion(
+				Validate.notNull(location.getWorld(), "entity world is null"),
+				location.getBlockX() >> 4,
+				location.getBlockZ() >> 4
+		);
+	}
+
+	/**
+	 * Advances the time by one tick and runs all tasks that are due.
+	 * <p>
+	 * Tasks that are scheduled during the tick with a delay of zero are run during the next tick.
+	 * This needs to be called from outside the scheduler's threads.
+	 */
+	public void tick() {
+		if (this.isSchedulerThread()) {
+			throw new IllegalStateException("tick() called from a thread of the scheduler!");
+		}
+
+		currentTick++;
+		List<StandInTask> dueTasks = new ArrayList<>();
+		synchronized (tasks) {
+			for (StandInTask task : tasks) {
+				if (!task.cancelled && task.nextRunTick <= currentTick) {
+					dueTasks.add(task);
+				}
+			}
+		}
+
+		// Group the due tasks by region:
+		Map<Region, List<StandInTask>> dueTasksByRegion = new HashMap<>();
+		for (StandInTask task : dueTasks) {
+			dueTasksByRegion.computeIfAbsent(task.getRegion(), region -> new ArrayList<>())
+					.add(task);
+		}
+
+		List<Region> orderedRegions = new ArrayList<>();
+		orderedRegions.add(asyncRegion);
+		orderedRegions.add(globalRegion);
+		synchronized (regions) {
+			orderedRegions.addAll(regions.values());
+		}
+		for (Region region : orderedRegions) {
+			List<StandInTask> regionTasks = dueTasksByRegion.get(region);
+			if (regionTasks == null) continue;
+			region.runAndWait(() -> {
+				for (StandInTask task : regionTasks) {
+					task.run(region);
+				}
+			});
+		}
+
+		synchronized (tasks) {
+			tasks.removeIf(task -> task.cancelled);
+		}
+	}
+
+	/**
+	 * Runs the given task on the global thread and waits for it to complete.
+	 * <p>
+	 * If the current thread is the global thread, the task is run immediately.
+	 * 
+	 * @param task
+	 *            the task, not <code>null</code>
+	 */
+	public void runOnGlobalThread(Runnable task) {
+		Validate.notNull(task, "task is null");
+		if (this.isGlobalThread()) {
+			task.run();
+		} else {
+			globalRegion.runAndWait(task);
+		}
+	}
+
+	/**
+	 * Asserts that the current thread is the global thread.
+	 * 
+	 * @throws AssertionError
+	 *             if the current thread is not the global thread
+	 */
+	public void assertGlobalThread() {
+		if (!this.isGlobalThread()) {
+			throw new AssertionError("Expected to run on the global thread, but running on "
+					+ Thread.currentThread().getName() + "!");
+		}
+	}
+
+	/**
+	 * Shuts down the threads of this scheduler.
+	 */
+	public void shutdown() {
+		asyncRegion.executor.shutdown();
+		globalRegion.executor.shutdown();
+		synchronized (regions) {
+			regions.values().forEach(region -> region.executor.shutdown());
+		}
+	}
+
+	private boolean isSchedulerThread() {
+		if (asyncRegion.isCurrentThread() || globalRegion.isCurrentThread()) return true;
+		synchronized (regions) {
+			for (Region region : regions.values()) {
+				if (region.isCurrentThread()) return true;
+			}
+		}
+		return false;
+	}
+
+	private ScheduledTask schedule(StandInTask task) {
+		synchronized (tasks) {
+			tasks.add(task);
+		}
+		return task;
+	}
+
+	// Like with the Bukkit scheduler, a delay of zero runs the task during the next tick:
+	private long getNextRunTick(long delayTicks) {
+		return currentTick + Math.max(1L, delayTicks);
+	}
+
+	@Override
+	public Plugin getPlugin() {
+		return plugin;
+	}
+
+	@Override
+	public boolean isGlobalThread() {
+		return globalRegion.isCurrentThread();
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+		Validate.notNull(world, "world is null");
+		return this.getRegion(world, chunkX, chunkZ).isCurrentThread();
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(Entity entity) {
+		Validate.notNull(entity, "entity is null");
+		return this.getEntityRegion(entity).isCurrentThread();
+	}
+
+	@Override
+	public ScheduledTask runGlobalLater(Runnable task, long delayTicks) {
+		Validate.notNull(task, "task is null");
+		return this.schedule(new StandInTask(
+				task,
+				globalRegion,
+				this.getNextRunTick(delayTicks),
+				0L
+		));
+	}
+
+	@Override
+	public ScheduledTask runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+		Validate.notNull(task, "task is null");
+		Validate.isTrue(periodTicks > 0, "periodTicks has to be positive");
+		return this.schedule(new StandInTask(
+				task,
+				globalRegion,
+				this.getNextRunTick(delayTicks),
+				periodTicks
+		));
+	}
+
+	@Override
+	public ScheduledTask runAtChunkLater(
+			World world,
+			int chunkX,
+			int chunkZ,
+			Runnable task,
+			long delayTicks
+	) {
+		Validate.notNull(world, "world is null");
+		Validate.notNull(task, "task is null");
+		Region region = this.getRegion(world, chunkX, chunkZ);
+		return this.schedule(new StandInTask(
+				task,
+				region,
+				this.getNextRunTick(delayTicks),
+				0L
+		));
+	}
+
+	@Override
+	public ScheduledTask runForEntityLater(
+			Entity entity,
+			Runnable task,
+			@Nullable Runnable retired,
+			long delayTicks
+	) {
+		Validate.notNull(entity, "entity is null");
+		Validate.notNull(task, "task is null");
+		return this.schedule(new StandInTask(
+				task,
+				entity,
+				retired,
+				this.getNextRunTick(delayTicks)
+		));
+	}
+
+	@Override
+	public ScheduledTask runAsync(Runnable task) {
+		Validate.notNull(task, "task is null");
+		return this.schedule(new StandInTask(task, asyncRegion, this.getNextRunTick(0L), 0L));
+	}
+}
@@ -0,0 +1,77 @@
+package com.nisovin.shopkeepers.testutil;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Creates simple stand-ins for Bukkit interfaces, such as the server or a plugin, for tests that
+ * run without a server.
+ * <p>
+ * A stand-in handles the methods for which a {@link Handler} is provided by name. All other
+ * methods return default values: <code>false</code> and <code>0</code> for primitives, empty
+ * collections for collection types, and <code>null</code> otherwise.
+ */
+public final class StandIns {
+
+	@FunctionalInterface
+	public interface Handler {
+
+		public @Nullable Object handle(@Nullable Object[] args) throws Throwable;
+	}
+
+	public static <T> T create(Class<T> type, Map<String, Handler> handlers) {
+		Validate.notNull(type, "type is null");
+		Validate.notNull(handlers, "handlers is null");
+		Object proxy = Proxy.newProxyInstance(
+				type.getClassLoader(),
+				new Class<?>[] { type },
+				(self, method, args) -> {
+					Handler handler = handlers.get(method.getName());
+					if (handler != null) {
+						return handler.handle(args != null ? args : new Object[0]);
+					}
+					switch (method.getName()) {
+					case "equals":
+						return args != null && self == args[0];
+					case "hashCode":
+						return System.identityHashCode(self);
+					case "toString":
+						return "StandIn(" + type.getSimpleName() + ")";
+					default:
+						return getDefaultValue(method);
+					}
+				}
+		);
+		return Unsafe.castNonNull(type.cast(proxy));
+	}
+
+	private static @Nullable Object getDefaultValue(Method method) {
+		Class<?> returnType = method.getReturnType();
+		if (returnType == boolean.class) return false;
+		if (returnType == byte.class) return (byte) 0;
+		if (returnType == short.class) return (short) 0;
+		if (returnType == char.class) return (char) 0;
+		if (returnType == int.class) return 0;
+		if (returnType == long.class) return 0L;
+		if (returnType == float.class) return 0.0F;
+		if (returnType == double.class) return 0.0D;
+		if (returnType == List.class) return Collections.emptyList();
+		if (returnType == Set.class) return Collections.emptySet();
+		if (returnType == Map.class) return Collections.emptyMap();
+		if (returnType == Collection.class) return Collections.emptyList();
+		return null;
+	}
+
+	private StandIns() {
+	}
+}